@@ -4,6 +4,7 @@ import digital.twin.mogao.util.EpsilonModelManager;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
@@ -13,7 +14,9 @@ import java.io.File;
 import java.io.FileWriter;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Code Generator using EGL transformations
@@ -25,6 +28,7 @@ public class CodeGenerator {
     private static final String OUTPUT_BASE_DIR = "src/main/java/";
     private static final String DTO_PACKAGE = "digital.twin.mogao.dto";
     private static final String SERVICE_PACKAGE = "digital.twin.mogao.service";
+    private static final String MAPPER_PACKAGE = "digital.twin.mogao.mapper";
     private static final String CONTROLLER_PACKAGE = "digital.twin.mogao.controller";
 
     // Frontend generation constants
@@ -45,6 +49,10 @@ public class CodeGenerator {
             System.out.println("Generating DTOs...");
             generator.generateDTOs();
 
+            // Generate Mappers
+            System.out.println("\nGenerating Mappers...");
+            generator.generateMappers();
+
             // Generate Services
             System.out.println("\nGenerating Services...");
             generator.generateServices();
@@ -167,6 +175,52 @@ public class CodeGenerator {
         }
     }
 
+    /**
+     * Generate Mapper classes for main entity classes and the types they contain (e.g. AssetReference)
+     */
+    public void generateMappers() throws Exception {
+        EpsilonModelManager manager = new EpsilonModelManager();
+
+        // Load metamodel
+        EPackage metamodel = loadMetamodel();
+
+        // Entity classes we want to generate mappers for, plus their single-valued containments
+        String[] entityClasses = {"Cave", "Defect", "Statue", "Mural", "Painting", "Inscription"};
+        Set<EClass> mappedClasses = new LinkedHashSet<>();
+        for (String className : entityClasses) {
+            EClass eClass = findEClass(metamodel, className);
+            if (eClass != null) {
+                mappedClasses.add(eClass);
+                for (EReference ref : eClass.getEAllReferences()) {
+                    if (ref.isContainment() && ref.getUpperBound() == 1) {
+                        mappedClasses.add(ref.getEReferenceType());
+                    }
+                }
+            } else {
+                System.out.println("  Warning: Class not found: " + className);
+            }
+        }
+
+        for (EClass eClass : mappedClasses) {
+            System.out.println("  Generating Mapper for: " + eClass.getName());
+
+            // Prepare parameters for EGL template
+            Map<String, Object> params = new HashMap<>();
+            params.put("eClass", eClass);
+            params.put("packageName", MAPPER_PACKAGE);
+
+            // Execute EGL template (without loading model instance)
+            String generatedCode = manager.executeEglTemplateWithoutModel("transformation/backend/GenerateMapper.egl", params);
+
+            // Write to file
+            String outputDir = OUTPUT_BASE_DIR + MAPPER_PACKAGE.replace('.', '/') + "/";
+            String fileName = eClass.getName() + "Mapper.java";
+            writeToFile(outputDir, fileName, generatedCode);
+
+            System.out.println("    -> Generated: " + outputDir + fileName);
+        }
+    }
+
     /**
      * Generate Controller classes for main entity classes
      */
@@ -0,0 +1,36 @@
+package digital.twin.mogao.controller;
+
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.PathVariable;
+import io.micronaut.http.annotation.QueryValue;
+import jakarta.inject.Inject;
+
+import java.util.Map;
+
+/**
+ * Cave Environment Controller
+ * Environmental history of a cave next to the generated Cave endpoints
+ */
+@Controller("/caves")
+public class CaveEnvironmentController {
+
+    @Inject
+    private EnvironmentController environmentController;
+
+    /**
+     * Readings of a cave aggregated per step, as /environment/{gid}/history
+     * e.g. /caves/cave-001/environment?from=1388534400000&to=1704067200000&step=1w
+     */
+    @Get(value = "/{gid}/environment", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<Map<String, Object>> getEnvironment(@PathVariable String gid,
+                                                            @Nullable @QueryValue String kind,
+                                                            @Nullable @QueryValue Long from,
+                                                            @Nullable @QueryValue Long to,
+                                                            @Nullable @QueryValue String step) {
+        return environmentController.getHistory(gid, kind, from, to, step);
+    }
+}
@@ -0,0 +1,180 @@
+package digital.twin.mogao.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.twin.mogao.deterioration.ArtifactRisk;
+import digital.twin.mogao.deterioration.AssessmentRequest;
+import digital.twin.mogao.deterioration.DeteriorationEngine;
+import digital.twin.mogao.deterioration.DeteriorationForecaster;
+import digital.twin.mogao.deterioration.FleetRiskScorer;
+import digital.twin.mogao.deterioration.Forecast;
+import digital.twin.mogao.deterioration.IntegrationRequest;
+import digital.twin.mogao.deterioration.ScenarioResult;
+import digital.twin.mogao.deterioration.ScenarioSweep;
+import digital.twin.mogao.deterioration.SweepRequest;
+import digital.twin.mogao.deterioration.SweepStream;
+import digital.twin.mogao.util.JsonLines;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.PathVariable;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.QueryValue;
+import jakarta.inject.Inject;
+import org.reactivestreams.Publisher;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Deterioration Controller
+ * Server-side deterioration risk assessment with the models of the simulation panel
+ */
+@Controller("/deterioration")
+public class DeteriorationController {
+
+    private static final int DEFAULT_FORECAST_YEARS = 10;
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    @Inject
+    private DeteriorationEngine deteriorationEngine;
+
+    @Inject
+    private FleetRiskScorer fleetRiskScorer;
+
+    @Inject
+    private DeteriorationForecaster deteriorationForecaster;
+
+    @Inject
+    private ScenarioSweep scenarioSweep;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    /**
+     * Assess chemical fading, lifetime, mould growth and salt crystallization for a climate
+     * e.g. {"T_celsius": 18, "RH_percent": 65, "light_klux": 0.05, "totalDays": 3650}
+     *
+     * @param request Conditions and optional chemicalParams, lifetimeParams, mouldParams, saltCrystParams
+     * @return Results shaped like DeteriorationEngine.assess() in the frontend, 400 if a condition is missing
+     */
+    @Post(value = "/assess", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<?> assess(@Body AssessmentRequest request) {
+        try {
+            return HttpResponse.ok(deteriorationEngine.assess(request));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return HttpResponse.badRequest(error);
+        }
+    }
+
+    /**
+     * Integrate the models over a climate series (e.g. hourly logger readings) instead of a
+     * constant climate: mould index and salt cycles follow the series step by step
+     * e.g. {"T_celsius": [14.2, 15.1, ...], "RH_percent": [71, 68, ...], "stepDays": 0.041666}
+     *
+     * @return Lifetime multiplier, mould index, salt cycles and damage, chemical degradation;
+     *         400 if the series are missing or of different lengths
+     */
+    @Post(value = "/integrate", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<?> integrate(@Body IntegrationRequest request) {
+        try {
+            return HttpResponse.ok(deteriorationEngine.integrate(request));
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return HttpResponse.badRequest(error);
+        }
+    }
+
+    /**
+     * Risk table of every cave and exhibit over its recorded climate, highest risk first
+     * e.g. /deterioration/risk?type=Mural&limit=20
+     *
+     * @param type Cave, Exhibit, or an exhibit class (Statue, Mural, Painting, Inscription); all if omitted
+     * @param limit Maximum number of rows
+     */
+    @Get(value = "/risk", produces = MediaType.APPLICATION_JSON)
+    public Map<String, Object> getRiskTable(@Nullable @QueryValue String type, @Nullable @QueryValue Integer limit) {
+        long start = System.currentTimeMillis();
+        List<ArtifactRisk> ranking = fleetRiskScorer.scoreAll().stream()
+            .filter(risk -> type == null || type.equals(risk.getType())
+                || ("Exhibit".equals(type) && !"Cave".equals(risk.getType())))
+            .limit(limit != null && limit >= 0 ? limit : Long.MAX_VALUE)
+            .collect(Collectors.toList());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("artifacts", ranking.size());
+        response.put("computedInMillis", System.currentTimeMillis() - start);
+        response.put("ranking", ranking);
+        return response;
+    }
+
+    /**
+     * Risk of one cave or exhibit over its recorded climate
+     */
+    @Get(value = "/risk/{gid}", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<ArtifactRisk> getRisk(@PathVariable String gid) {
+        ArtifactRisk risk = fleetRiskScorer.score(gid);
+        return risk != null ? HttpResponse.ok(risk) : HttpResponse.notFound();
+    }
+
+    /**
+     * Monte Carlo forecast of one cave or exhibit: its last year of climate repeated, with the
+     * uncertain model parameters sampled, as percentile bands per year
+     * e.g. /deterioration/forecast/mural-001?years=20&samples=2000&seed=42
+     *
+     * @param years Years to forecast (default 10, at most 100)
+     * @param samples Parameter sets to sample (default mogao.forecast.samples, at most 100000)
+     * @param seed Seed for reproducible bands (random if omitted)
+     * @return 400 for years or samples out of range, 404 for an unknown artifact
+     */
+    @Get(value = "/forecast/{gid}", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<?> getForecast(@PathVariable String gid,
+                                       @Nullable @QueryValue Integer years,
+                                       @Nullable @QueryValue Integer samples,
+                                       @Nullable @QueryValue Long seed) {
+        Forecast forecast;
+        try {
+            forecast = deteriorationForecaster.forecast(gid, years != null ? years : DEFAULT_FORECAST_YEARS, samples, seed);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return HttpResponse.badRequest(error);
+        }
+        return forecast != null ? HttpResponse.ok(forecast) : HttpResponse.notFound();
+    }
+
+    /**
+     * What-if sweep of climate set-points: every artifact (or those listed) under every combination
+     * of T_celsius × RH_percent × light_klux × years, starting from its recorded climate history
+     * e.g. {"type": "Cave", "T_celsius": [16, 18, 20], "RH_percent": [40, 50, 60], "years": [10, 50]}
+     * Artifacts are evaluated in parallel and the results streamed as they are computed: as a JSON
+     * array, or as newline-delimited JSON when the client accepts application/x-ndjson.
+     *
+     * @return Scenario results in artifact and grid order, with their number in X-Total-Count;
+     *         400 for a missing or out-of-range axis, too large a grid or an unknown gid
+     */
+    @Post(value = "/sweep", consumes = MediaType.APPLICATION_JSON, produces = {MediaType.APPLICATION_JSON, JsonLines.MEDIA_TYPE})
+    public HttpResponse<?> sweep(@Body SweepRequest body, HttpRequest<?> request) {
+        SweepStream<ScenarioResult> stream;
+        try {
+            stream = scenarioSweep.sweep(body);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return HttpResponse.badRequest(error);
+        }
+
+        // The response content type is negotiated from the Accept header
+        Publisher<?> results = JsonLines.isAccepted(request)
+            ? stream.perArtifact(JsonLines.batchEncoder(objectMapper)) : stream;
+        return HttpResponse.ok(results).header(TOTAL_COUNT_HEADER, String.valueOf(stream.getTotal()));
+    }
+}
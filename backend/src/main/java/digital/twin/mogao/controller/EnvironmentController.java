@@ -0,0 +1,199 @@
+package digital.twin.mogao.controller;
+
+import digital.twin.mogao.timeseries.EnvironmentReadings;
+import digital.twin.mogao.timeseries.HistorySeries;
+import digital.twin.mogao.timeseries.ReadingBatch;
+import digital.twin.mogao.timeseries.ReadingIngestor;
+import digital.twin.mogao.timeseries.ReadingKind;
+import digital.twin.mogao.timeseries.ReadingParser;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.PathVariable;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.QueryValue;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Environment Controller
+ * Serves the environmental readings (temperature, humidity, light intensity) of heritage
+ * artifacts from the time-series store
+ */
+@Controller("/environment")
+public class EnvironmentController {
+
+    private static final int DEFAULT_LIMIT = 1000;
+    private static final long DEFAULT_HISTORY_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final String TEXT_CSV = "text/csv";
+    // Seconds a logger should wait before resending a batch refused by a full queue
+    private static final String RETRY_AFTER = "1";
+
+    @Inject
+    private EnvironmentReadings environmentReadings;
+
+    @Inject
+    private ReadingIngestor readingIngestor;
+
+    /**
+     * Readings of an artifact, oldest first
+     * e.g. /environment/cave-001?kind=temperature&from=1704067200000&to=1704153600000
+     *
+     * @param artifactGid GID of the Cave or exhibit
+     * @param kind temperature, humidity or light (all kinds if omitted)
+     * @param from Start time in epoch milliseconds (inclusive)
+     * @param to End time in epoch milliseconds (exclusive)
+     * @param limit Maximum number of readings
+     * @return Temperature, Humidity and LightIntensity DTOs
+     */
+    @Get(value = "/{artifactGid}", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<List<Object>> getReadings(@PathVariable String artifactGid,
+                                                  @Nullable @QueryValue String kind,
+                                                  @Nullable @QueryValue Long from,
+                                                  @Nullable @QueryValue Long to,
+                                                  @Nullable @QueryValue Integer limit) {
+        ReadingKind readingKind;
+        try {
+            readingKind = kind != null ? ReadingKind.of(kind) : null;
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.badRequest();
+        }
+        if (limit != null && limit < 0) {
+            return HttpResponse.badRequest();
+        }
+        if (!environmentReadings.isArtifact(artifactGid)) {
+            return HttpResponse.notFound();
+        }
+        return HttpResponse.ok(environmentReadings.getReadings(artifactGid, readingKind,
+            from != null ? from : Long.MIN_VALUE, to != null ? to : Long.MAX_VALUE,
+            limit != null ? limit : DEFAULT_LIMIT));
+    }
+
+    /**
+     * Most recent reading of each kind for an artifact
+     *
+     * @param artifactGid GID of the Cave or exhibit
+     * @return Temperature, Humidity and LightIntensity DTOs
+     */
+    @Get(value = "/{artifactGid}/latest", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<List<Object>> getLatest(@PathVariable String artifactGid) {
+        if (!environmentReadings.isArtifact(artifactGid)) {
+            return HttpResponse.notFound();
+        }
+        return HttpResponse.ok(environmentReadings.getLatest(artifactGid));
+    }
+
+    /**
+     * Readings of an artifact aggregated per step: count, min, max, mean and 10th, 50th and 90th
+     * percentiles per kind, in columns
+     * e.g. /environment/cave-001/history?kind=humidity&from=1388534400000&step=1d
+     *
+     * @param artifactGid GID of the Cave or exhibit
+     * @param kind temperature, humidity or light (all kinds if omitted)
+     * @param from Start time in epoch milliseconds (default: 30 days before to)
+     * @param to End time in epoch milliseconds, exclusive (default: now)
+     * @param step Step in milliseconds or as 30s, 15m, 1h, 1d, 1w (default: about 500 steps)
+     * @return 400 for an unknown kind, an invalid step or more than 10000 steps
+     */
+    @Get(value = "/{artifactGid}/history", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<Map<String, Object>> getHistory(@PathVariable String artifactGid,
+                                                        @Nullable @QueryValue String kind,
+                                                        @Nullable @QueryValue Long from,
+                                                        @Nullable @QueryValue Long to,
+                                                        @Nullable @QueryValue String step) {
+        long end = to != null ? to : System.currentTimeMillis();
+        long start = from != null ? from : end - DEFAULT_HISTORY_MILLIS;
+        List<HistorySeries> history;
+        Long stepMillis;
+        try {
+            ReadingKind readingKind = kind != null ? ReadingKind.of(kind) : null;
+            stepMillis = step != null ? EnvironmentReadings.parseStep(step) : null;
+            if (!environmentReadings.isArtifact(artifactGid)) {
+                return HttpResponse.notFound();
+            }
+            history = environmentReadings.getHistory(artifactGid, readingKind, start, end, stepMillis);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return HttpResponse.badRequest(error);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("artifactGid", artifactGid);
+        response.put("from", start);
+        response.put("to", end);
+        response.put("series", history);
+        return HttpResponse.ok(response);
+    }
+
+    /**
+     * Ingest a batch of readings given as a JSON array
+     * e.g. [{"artifactGid": "cave-001", "kind": "temperature", "timestamp": 1704067200000, "value": 12.5, "unit": "C"}]
+     * The timestamp may also be an ISO-8601 instant; the unit defaults to the kind's unit (K, RH, lux).
+     *
+     * @return 202 with the number of accepted and rejected records once the accepted readings are
+     *         on disk, 400 for a malformed body, 500 if some could not be written,
+     *         503 if the ingestion queue is full
+     */
+    @Post(value = "/readings", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public CompletableFuture<HttpResponse<Map<String, Object>>> ingestJson(@Body byte[] body) {
+        ReadingBatch batch;
+        try {
+            batch = new ReadingParser(environmentReadings::isArtifact).parseJson(body);
+        } catch (IOException e) {
+            Map<String, Object> error = new LinkedHashMap<>();
+            error.put("error", e.getMessage());
+            return CompletableFuture.completedFuture(HttpResponse.badRequest(error));
+        }
+        return ingest(batch);
+    }
+
+    /**
+     * Ingest a batch of readings given as CSV lines artifactGid,kind,timestamp,value[,unit]
+     *
+     * @return 202 with the number of accepted and rejected records once the accepted readings are
+     *         on disk, 500 if some could not be written, 503 if the ingestion queue is full
+     */
+    @Post(value = "/readings", consumes = TEXT_CSV, produces = MediaType.APPLICATION_JSON)
+    public CompletableFuture<HttpResponse<Map<String, Object>>> ingestCsv(@Body byte[] body) {
+        return ingest(new ReadingParser(environmentReadings::isArtifact).parseCsv(body));
+    }
+
+    /**
+     * Queue a batch and answer once its readings are written, so an acknowledged reading is
+     * never lost (late or duplicate readings are still dropped silently)
+     */
+    private CompletableFuture<HttpResponse<Map<String, Object>>> ingest(ReadingBatch batch) {
+        boolean queued = readingIngestor.submit(batch);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("accepted", queued ? batch.size() : 0);
+        response.put("rejected", batch.getRejected());
+        response.put("errors", batch.getErrors());
+        if (!queued) {
+            response.put("error", "Ingestion queue is full");
+            return CompletableFuture.completedFuture(HttpResponse.<Map<String, Object>>status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER)
+                .body(response));
+        }
+        return batch.whenWritten().thenApply(failed -> {
+            if (failed > 0) {
+                response.put("accepted", batch.size() - failed);
+                response.put("failed", failed);
+                response.put("error", "Readings could not be written");
+                return HttpResponse.<Map<String, Object>>serverError().body(response);
+            }
+            return HttpResponse.<Map<String, Object>>accepted().body(response);
+        });
+    }
+}
@@ -4,90 +4,231 @@
  */
 package digital.twin.mogao.controller;
 
+import digital.twin.mogao.util.AssetStore;
+import digital.twin.mogao.util.UploadStore;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Delete;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.PathVariable;
 import io.micronaut.http.annotation.Post;
-import io.micronaut.http.multipart.CompletedFileUpload;
+import io.micronaut.http.annotation.Put;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.http.multipart.StreamingFileUpload;
+import jakarta.inject.Inject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * File Upload Controller
  * Handles multipart file uploads for asset references
  * Auto-generated from code generator
+ *
+ * Uploads are written to disk as they arrive (see UploadStore), so a large OBJ or texture scan
+ * takes constant memory. Large files can also be sent in chunks through an upload session,
+ * each chunk with its SHA-256, resuming from the session's offset after a failure:
+ * POST /api/upload/sessions, then PUT /api/upload/sessions/{id}?offset=... per chunk, then
+ * POST /api/upload/sessions/{id}/complete.
+ *
+ * Files are kept in the content-addressed AssetStore: the returned path names the SHA-256 of
+ * the content, and a file already uploaded is not stored again.
  */
 @Controller("/api/upload")
 public class FileUploadController {
 
     private static final Logger LOG = LoggerFactory.getLogger(FileUploadController.class);
-    // Save to target/classes for immediate serving, and src/main/resources for persistence
-    private static final String CLASSPATH_DIR = "target/classes/exhibit_models/";
-    private static final String SOURCE_DIR = "src/main/resources/exhibit_models/";
+    private static final String CHUNK_CHECKSUM_HEADER = "X-Chunk-SHA256";
 
+    @Inject
+    private UploadStore uploadStore;
+
+    @Inject
+    private AssetStore assetStore;
+
+    /**
+     * Upload a file in one multipart request, streamed to disk
+     * @param category Kind of file (model, texture, metadata), as a query parameter: the file part
+     *                 is written as it arrives, before later form fields are read
+     * @return The server path, size and SHA-256 of the stored file; 400 without a file, 500 if
+     *         it could not be written or stored
+     */
     @Post(consumes = MediaType.MULTIPART_FORM_DATA, produces = MediaType.APPLICATION_JSON)
-    public Map<String, String> upload(CompletedFileUpload file, String category) {
-        Map<String, String> response = new HashMap<>();
+    public CompletableFuture<HttpResponse<?>> upload(StreamingFileUpload file, @Nullable @QueryValue String category) {
+        // Validate file
+        if (file == null || file.getFilename() == null || file.getFilename().isEmpty()) {
+            return CompletableFuture.completedFuture(error(HttpStatus.BAD_REQUEST, "No file uploaded"));
+        }
+        String originalFilename = file.getFilename();
+
+        return uploadStore.receive(file)
+            .<HttpResponse<?>>thenApply(staged -> {
+                try {
+                    return HttpResponse.ok(store(staged, category, originalFilename));
+                } catch (IOException e) {
+                    LOG.error("Failed to store uploaded file {}", originalFilename, e);
+                    return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to store file: " + e.getMessage());
+                }
+            })
+            .exceptionally(e -> {
+                LOG.error("Failed to upload file {}", originalFilename, e);
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to upload file: " + cause.getMessage());
+            });
+    }
+
+    /**
+     * Start a chunked upload
+     * e.g. {"filename": "cave-wall.obj", "category": "model", "size": 1073741824}
+     * @return The session id, its offset (0) and the largest chunk accepted
+     */
+    @Post(value = "/sessions", consumes = MediaType.APPLICATION_JSON, produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<?> openSession(@Body Map<String, Object> request) {
+        UploadStore.Session session;
+        try {
+            Object size = request.get("size");
+            session = uploadStore.open((String) request.get("filename"), (String) request.get("category"),
+                size instanceof Number ? ((Number) size).longValue() : null);
+        } catch (IllegalArgumentException | ClassCastException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            LOG.error("Failed to open upload session", e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to open upload session: " + e.getMessage());
+        }
+        return HttpResponse.created(sessionResponse(session));
+    }
 
+    /**
+     * Offset a chunked upload has reached, to resume it from
+     */
+    @Get(value = "/sessions/{id}", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<?> getSession(@PathVariable String id) {
+        UploadStore.Session session = uploadStore.get(id);
+        return session != null ? HttpResponse.ok(sessionResponse(session)) : HttpResponse.notFound();
+    }
+
+    /**
+     * Write one chunk of a chunked upload at the given offset
+     * @param checksum SHA-256 of the chunk (hex) in X-Chunk-SHA256
+     * @return The new offset; 400 without an X-Chunk-SHA256 header, for a checksum mismatch or an
+     *         oversized chunk, 409 with the session's offset if the chunk does not start there,
+     *         500 with the session's offset if the chunk could not be written (send it again)
+     */
+    @Put(value = "/sessions/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM, produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<?> putChunk(@PathVariable String id, @QueryValue long offset, @Body byte[] chunk,
+                                    @Nullable @Header(CHUNK_CHECKSUM_HEADER) String checksum) {
+        UploadStore.Session session = uploadStore.get(id);
+        if (session == null) {
+            return HttpResponse.notFound();
+        }
+        if (checksum == null || checksum.isEmpty()) {
+            return error(HttpStatus.BAD_REQUEST, CHUNK_CHECKSUM_HEADER + " header is required");
+        }
         try {
-            // Validate file
-            if (file == null || file.getFilename().isEmpty()) {
-                response.put("error", "No file uploaded");
-                return response;
-            }
-
-            // Determine subdirectory based on category (model, texture, metadata)
-            String subDir = category != null ? category : "general";
-
-            // Generate unique filename to avoid conflicts
-            String originalFilename = file.getFilename();
-            String extension = "";
-            int dotIndex = originalFilename.lastIndexOf('.');
-            if (dotIndex > 0) {
-                extension = originalFilename.substring(dotIndex);
-            }
-            String uniqueFilename = UUID.randomUUID().toString() + extension;
-
-            byte[] fileBytes = file.getBytes();
-
-            // Save to target/classes for immediate serving
-            Path classpathPath = Paths.get(CLASSPATH_DIR, subDir);
-            Files.createDirectories(classpathPath);
-            Path classpathFile = classpathPath.resolve(uniqueFilename);
-            try (FileOutputStream fos = new FileOutputStream(classpathFile.toFile())) {
-                fos.write(fileBytes);
-            }
-
-            // Also save to src/main/resources for persistence across rebuilds
-            Path sourcePath = Paths.get(SOURCE_DIR, subDir);
-            Files.createDirectories(sourcePath);
-            Path sourceFile = sourcePath.resolve(uniqueFilename);
-            try (FileOutputStream fos = new FileOutputStream(sourceFile.toFile())) {
-                fos.write(fileBytes);
-            }
-
-            // Return the server path
-            String serverPath = "/exhibit_models/" + subDir + "/" + uniqueFilename;
-            response.put("path", serverPath);
-            response.put("originalName", originalFilename);
-            response.put("size", String.valueOf(file.getSize()));
-
-            LOG.info("File uploaded successfully: {} -> {}", originalFilename, serverPath);
+            return HttpResponse.ok(sessionResponse(uploadStore.append(session, offset, chunk, checksum)));
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IllegalStateException e) {
+            return sessionError(HttpStatus.CONFLICT, session, e.getMessage());
+        } catch (IOException e) {
+            LOG.error("Failed to write chunk of upload session {} at offset {}", id, offset, e);
+            return sessionError(HttpStatus.INTERNAL_SERVER_ERROR, session, "Failed to write chunk: " + e.getMessage());
+        }
+    }
 
+    /**
+     * Finish a chunked upload and store the file
+     * @param sha256 SHA-256 of the whole file (hex), checked if given
+     * @return The server path as for a single upload; 400 if the file is incomplete or does not
+     *         match the checksum (the upload is then discarded), 500 if it could not be stored
+     */
+    @Post(value = "/sessions/{id}/complete", produces = MediaType.APPLICATION_JSON)
+    public HttpResponse<?> completeSession(@PathVariable String id, @Nullable @QueryValue String sha256) {
+        UploadStore.Session session = uploadStore.get(id);
+        if (session == null) {
+            return HttpResponse.notFound();
+        }
+        UploadStore.StagedFile staged;
+        try {
+            staged = uploadStore.complete(session, sha256);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return error(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        try {
+            return HttpResponse.ok(store(staged, session.getCategory(), session.getFilename()));
         } catch (IOException e) {
-            LOG.error("Failed to upload file", e);
-            response.put("error", "Failed to upload file: " + e.getMessage());
+            LOG.error("Failed to store upload session {}", id, e);
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to store file: " + e.getMessage());
         }
+    }
+
+    /**
+     * Abandon a chunked upload
+     */
+    @Delete(value = "/sessions/{id}")
+    public HttpResponse<?> abortSession(@PathVariable String id) {
+        UploadStore.Session session = uploadStore.get(id);
+        if (session == null) {
+            return HttpResponse.notFound();
+        }
+        uploadStore.abort(session);
+        return HttpResponse.noContent();
+    }
+
+    /**
+     * Put a staged upload into the asset store
+     * @return The server path, size and SHA-256 of the stored file
+     */
+    private Map<String, String> store(UploadStore.StagedFile staged, String category, String originalFilename)
+            throws IOException {
+        // Content-addressed: the same file gets the same path, whatever its category
+        AssetStore.StoredAsset asset = assetStore.add(staged, originalFilename);
 
+        // Return the server path
+        Map<String, String> response = new HashMap<>();
+        response.put("path", asset.getPath());
+        response.put("originalName", originalFilename);
+        response.put("size", String.valueOf(staged.getSize()));
+        response.put("sha256", staged.getSha256());
+        response.put("deduplicated", String.valueOf(asset.isDeduplicated()));
+
+        LOG.info("File uploaded successfully: {} ({}) -> {}", originalFilename, category, asset.getPath());
+        return response;
+    }
+
+    private Map<String, Object> sessionResponse(UploadStore.Session session) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("id", session.getId());
+        response.put("filename", session.getFilename());
+        response.put("size", session.getSize());
+        response.put("offset", session.getOffset());
+        response.put("maxChunkSize", uploadStore.getMaxChunkSize());
         return response;
     }
+
+    /**
+     * Error with the session's state, for the client to resume from its offset
+     */
+    private HttpResponse<?> sessionError(HttpStatus status, UploadStore.Session session, String message) {
+        Map<String, Object> response = sessionResponse(session);
+        response.put("error", message);
+        return HttpResponse.status(status).body(response);
+    }
+
+    private static HttpResponse<?> error(HttpStatus status, String message) {
+        Map<String, Object> error = new LinkedHashMap<>();
+        error.put("error", message);
+        return HttpResponse.status(status).body(error);
+    }
 }
@@ -1,13 +1,28 @@
 package digital.twin.mogao.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import digital.twin.mogao.dto.InscriptionDTO;
 import digital.twin.mogao.service.InscriptionService;
+import digital.twin.mogao.util.DtoView;
+import digital.twin.mogao.util.JsonLines;
+import digital.twin.mogao.util.ModelETag;
+import digital.twin.mogao.util.ModelQuery;
+import digital.twin.mogao.util.ModelStream;
+import digital.twin.mogao.util.ModificationStamps;
+import digital.twin.mogao.util.ResponseCache;
+import digital.twin.mogao.util.Stamped;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.*;
 import io.micronaut.http.HttpStatus;
 import jakarta.inject.Inject;
+import org.reactivestreams.Publisher;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Inscription REST Controller
@@ -16,33 +31,107 @@ import java.util.List;
 @Controller("/inscriptions")
 public class InscriptionController {
 
+    // Total number of objects matching a list query, across all pages
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    // Objects of the type deleted after the since version of a list query, comma-separated
+    private static final String DELETED_HEADER = "X-Deleted-Gids";
+
     @Inject
     private InscriptionService inscriptionService;
 
+    @Inject
+    private ObjectMapper objectMapper;
+
+    @Inject
+    private ResponseCache responseCache;
+
     /**
-     * Get all Inscription objects
+     * Get all Inscription objects, optionally filtered, sorted and paged
+     * e.g. ?name=...&sort=-name&offset=0&limit=50
+     * The list is streamed, each object converted as it is written: as a JSON array, or as
+     * newline-delimited JSON when the client accepts application/x-ndjson.
+     *
+     * Properties can be limited with fields=name,label and contained objects skipped with depth=0.
+     *
+     * The ETag is the model version: If-None-Match with it is answered with 304 without reading
+     * the model. since=version (from X-Model-Version) lists only objects changed after that version,
+     * with the objects deleted after it in X-Deleted-Gids; a version older than the changes still
+     * known (e.g. from before a restart) is answered with 410 Gone, and the client lists everything again.
+     * Responses vary by Accept (JSON or newline-delimited JSON).
      *
-     * @return List of Inscription DTOs
+     * @param request Request whose parameters define the query (offset, limit, sort, attribute filters, since)
+     *                and the view (fields, depth)
+     * @return Inscription DTOs, with the total number of matches in X-Total-Count
      */
-    @Get
-    public HttpResponse<List<InscriptionDTO>> getAllInscriptions() {
-        List<InscriptionDTO> result = inscriptionService.getAllInscriptions();
-        return HttpResponse.ok(result);
+    @Get(produces = {MediaType.APPLICATION_JSON, JsonLines.MEDIA_TYPE})
+    public HttpResponse<Publisher<?>> getAllInscriptions(HttpRequest<?> request) {
+        String etag = ModelETag.of(inscriptionService.getModelVersion());
+        if (ModelETag.matches(request, etag)) {
+            return HttpResponse.<Publisher<?>>notModified()
+                .header(HttpHeaders.ETAG, etag)
+                .header(HttpHeaders.VARY, ModelETag.VARY_ACCEPT);
+        }
+
+        ModelStream<InscriptionDTO> stream;
+        try {
+            Map<String, List<String>> parameters = request.getParameters().asMap();
+            stream = inscriptionService.streamInscriptions(
+                ModelQuery.fromParameters("Inscription", parameters), DtoView.fromParameters(parameters));
+        } catch (ModificationStamps.ExpiredVersionException e) {
+            return HttpResponse.status(HttpStatus.GONE);
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.badRequest();
+        }
+
+        // The response content type is negotiated from the Accept header
+        Publisher<?> body = JsonLines.isAccepted(request) ? stream.map(JsonLines.encoder(objectMapper)) : stream;
+        MutableHttpResponse<Publisher<?>> response = HttpResponse.<Publisher<?>>ok(body)
+            .header(TOTAL_COUNT_HEADER, String.valueOf(stream.getTotal()))
+            .header(HttpHeaders.ETAG, ModelETag.of(stream.getVersion()))
+            .header(ModelETag.MODEL_VERSION_HEADER, String.valueOf(stream.getVersion()))
+            .header(HttpHeaders.VARY, ModelETag.VARY_ACCEPT);
+        if (!stream.getDeleted().isEmpty()) {
+            response.header(DELETED_HEADER, String.join(",", stream.getDeleted()));
+        }
+        return response;
     }
 
     /**
      * Get Inscription by GID
+     * Properties can be limited with fields=name,label and contained objects skipped with depth=0.
+     * The ETag is the version of the object's last change; If-None-Match with it (or with *, if
+     * the object exists) is answered with 304.
+     * The serialised response is cached until the object changes.
      *
      * @param gid The GID of the Inscription
-     * @return Inscription DTO
+     * @param request Request whose parameters define the view (fields, depth)
+     * @return Inscription DTO as JSON
      */
     @Get("/{gid}")
-    public HttpResponse<InscriptionDTO> getInscriptionByGid(@PathVariable String gid) {
-        InscriptionDTO result = inscriptionService.getInscriptionByGid(gid);
-        if (result == null) {
+    public HttpResponse<byte[]> getInscriptionByGid(@PathVariable String gid, HttpRequest<?> request) {
+        long version = inscriptionService.getInscriptionVersion(gid);
+        String etag = ModelETag.of(version);
+        if (ModelETag.matches(request, etag, () -> inscriptionService.inscriptionExists(gid))) {
+            return HttpResponse.<byte[]>notModified().header(HttpHeaders.ETAG, etag);
+        }
+
+        // The body and its ETag come from the same model version, which may be newer than the one checked
+        Stamped<byte[]> body;
+        try {
+            DtoView view = DtoView.fromParameters(request.getParameters().asMap());
+            body = responseCache.get(request, version, gid, () -> {
+                Stamped<InscriptionDTO> result = inscriptionService.getStampedInscription(gid, view);
+                return new Stamped<>(result.getStamp(),
+                    result.getValue() != null ? objectMapper.writeValueAsBytes(result.getValue()) : null);
+            });
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.badRequest();
+        }
+        if (body.getValue() == null) {
             return HttpResponse.notFound();
         }
-        return HttpResponse.ok(result);
+        return HttpResponse.ok(body.getValue()).header(HttpHeaders.ETAG, ModelETag.of(body.getStamp()));
     }
 
     /**
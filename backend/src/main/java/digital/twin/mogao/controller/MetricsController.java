@@ -0,0 +1,108 @@
+package digital.twin.mogao.controller;
+
+import digital.twin.mogao.deterioration.LookupSurfaces;
+import digital.twin.mogao.timeseries.ReadingIngestor;
+import digital.twin.mogao.timeseries.TimeSeriesStore;
+import digital.twin.mogao.util.AssetStore;
+import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ResponseCache;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Get;
+import jakarta.inject.Inject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metrics Controller
+ * Exposes internal runtime metrics for monitoring
+ */
+@Controller("/metrics")
+public class MetricsController {
+
+    @Inject
+    private EpsilonModelManager modelManager;
+
+    @Inject
+    private ResponseCache responseCache;
+
+    @Inject
+    private TimeSeriesStore timeSeriesStore;
+
+    @Inject
+    private ReadingIngestor readingIngestor;
+
+    @Inject
+    private LookupSurfaces lookupSurfaces;
+
+    @Inject
+    private AssetStore assetStore;
+
+    /**
+     * Contention of the per-cave write lock stripes (only stripes that have been used)
+     */
+    @Get(value = "/write-locks", produces = MediaType.APPLICATION_JSON)
+    public Map<String, Object> writeLocks() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("stripeCount", modelManager.getWriteLockStripeCount());
+        response.put("stripes", modelManager.getWriteLockMetrics());
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return response;
+    }
+
+    /**
+     * Hits, misses, evictions and size of the serialised response cache
+     */
+    @Get(value = "/response-cache", produces = MediaType.APPLICATION_JSON)
+    public Map<String, Object> responseCache() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("cache", responseCache.getMetrics());
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return response;
+    }
+
+    /**
+     * Size and compression of the environmental time-series store
+     */
+    @Get(value = "/timeseries", produces = MediaType.APPLICATION_JSON)
+    public Map<String, Object> timeSeries() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("store", timeSeriesStore.getStats());
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return response;
+    }
+
+    /**
+     * Throughput and backlog of the reading ingestion queue
+     */
+    @Get(value = "/ingest", produces = MediaType.APPLICATION_JSON)
+    public Map<String, Object> ingest() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("ingest", readingIngestor.getMetrics());
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return response;
+    }
+
+    /**
+     * Hits, misses, evictions and size of the deterioration model lookup surfaces
+     */
+    @Get(value = "/surfaces", produces = MediaType.APPLICATION_JSON)
+    public Map<String, Object> surfaces() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("surfaces", lookupSurfaces.getMetrics());
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return response;
+    }
+
+    /**
+     * Blobs and references of the content-addressed asset store, and what its collector removed
+     */
+    @Get(value = "/assets", produces = MediaType.APPLICATION_JSON)
+    public Map<String, Object> assets() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("assets", assetStore.getMetrics());
+        response.put("timestamp", String.valueOf(System.currentTimeMillis()));
+        return response;
+    }
+}
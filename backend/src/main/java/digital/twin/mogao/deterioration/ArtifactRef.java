@@ -0,0 +1,51 @@
+package digital.twin.mogao.deterioration;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+/**
+ * Heritage artifact (Cave or exhibit) to be scored, with the cave it is in
+ */
+final class ArtifactRef {
+
+    private static final String CAVE_CLASS = "Cave";
+
+    final String gid;
+    final String name;
+    final String type;
+    // The artifact itself for a Cave
+    final String caveGid;
+
+    ArtifactRef(String gid, String name, String type, String caveGid) {
+        this.gid = gid;
+        this.name = name;
+        this.type = type;
+        this.caveGid = caveGid;
+    }
+
+    /**
+     * Reference to a HeritageArtifact object, or null if it has no gid
+     */
+    static ArtifactRef of(EObject artifact) {
+        Object gid = get(artifact, "gid");
+        if (!(gid instanceof String)) {
+            return null;
+        }
+        String caveGid = null;
+        for (EObject each = artifact; each != null; each = each.eContainer()) {
+            if (CAVE_CLASS.equals(each.eClass().getName())) {
+                Object eachGid = get(each, "gid");
+                caveGid = eachGid instanceof String ? (String) eachGid : null;
+                break;
+            }
+        }
+        Object name = get(artifact, "name");
+        return new ArtifactRef((String) gid, name instanceof String ? (String) name : null,
+            artifact.eClass().getName(), caveGid);
+    }
+
+    private static Object get(EObject eObject, String featureName) {
+        EStructuralFeature feature = eObject.eClass().getEStructuralFeature(featureName);
+        return feature != null ? eObject.eGet(feature) : null;
+    }
+}
@@ -0,0 +1,170 @@
+package digital.twin.mogao.deterioration;
+
+/**
+ * Deterioration risk of one artifact over its recorded climate history
+ * The risk score is the highest of the lifetime risk (1 − LM, in %), mould risk (index / 6),
+ * salt damage and chemical degradation, all 0-100. Scores are absent without climate history.
+ */
+public class ArtifactRisk {
+
+    private final String gid;
+    private final String name;
+    private final String type;
+    private final String caveGid;
+    private final String climateSource;
+
+    private Long from;
+    private Long to;
+    private long hours;
+    private Double lifetimeMultiplier;
+    private Double mouldIndex;
+    private Double maxMouldIndex;
+    private Integer saltCycles;
+    private Double saltDamage;
+    private Double chemicalDegradation;
+    private double riskScore;
+    private String label = "unknown";
+
+    ArtifactRisk(ArtifactRef artifact, String climateSource) {
+        this.gid = artifact.gid;
+        this.name = artifact.name;
+        this.type = artifact.type;
+        this.caveGid = artifact.caveGid;
+        this.climateSource = climateSource;
+    }
+
+    void setHistory(long from, long to, long hours) {
+        this.from = from;
+        this.to = to;
+        this.hours = hours;
+    }
+
+    void setScores(double lifetimeMultiplier, double mouldIndex, double maxMouldIndex, int saltCycles,
+                   double saltDamage, double chemicalDegradation) {
+        this.lifetimeMultiplier = lifetimeMultiplier;
+        this.mouldIndex = mouldIndex;
+        this.maxMouldIndex = maxMouldIndex;
+        this.saltCycles = saltCycles;
+        this.saltDamage = saltDamage;
+        this.chemicalDegradation = chemicalDegradation;
+
+        riskScore = riskScore(lifetimeMultiplier, mouldIndex, saltDamage, chemicalDegradation);
+        label = riskLabel(riskScore);
+    }
+
+    /**
+     * Highest of the lifetime risk, mould risk, salt damage and chemical degradation (0-100)
+     */
+    static double riskScore(double lifetimeMultiplier, double mouldIndex, double saltDamage, double chemicalDegradation) {
+        double lifetimeRisk = Math.max(0, Math.min(100, (1 - lifetimeMultiplier) * 100));
+        double mouldRisk = mouldIndex / DeteriorationModels.MAX_MOULD_INDEX * 100;
+        return Math.max(Math.max(lifetimeRisk, mouldRisk), Math.max(saltDamage, Math.min(100, chemicalDegradation)));
+    }
+
+    static String riskLabel(double riskScore) {
+        if (riskScore >= 75) {
+            return "critical";
+        }
+        if (riskScore >= 50) {
+            return "high";
+        }
+        return riskScore >= 25 ? "moderate" : "low";
+    }
+
+    public String getGid() {
+        return gid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * EClass of the artifact: Cave, Statue, Mural, Painting or Inscription
+     */
+    public String getType() {
+        return type;
+    }
+
+    public String getCaveGid() {
+        return caveGid;
+    }
+
+    /**
+     * Artifact whose temperature readings were used (the cave for an exhibit without its own)
+     */
+    public String getClimateSource() {
+        return climateSource;
+    }
+
+    /**
+     * Start of the first hour scored (epoch milliseconds)
+     */
+    public Long getFrom() {
+        return from;
+    }
+
+    /**
+     * End of the last hour scored (epoch milliseconds)
+     */
+    public Long getTo() {
+        return to;
+    }
+
+    /**
+     * Hours of climate scored
+     */
+    public long getHours() {
+        return hours;
+    }
+
+    /**
+     * Time-averaged lifetime multiplier (below 1: ageing faster than at 20 °C / 50 %RH)
+     */
+    public Double getLifetimeMultiplier() {
+        return lifetimeMultiplier;
+    }
+
+    /**
+     * Current VTT mould index (0-6)
+     */
+    public Double getMouldIndex() {
+        return mouldIndex;
+    }
+
+    public Double getMaxMouldIndex() {
+        return maxMouldIndex;
+    }
+
+    /**
+     * Wet-dry cycles through the salt's deliquescence RH
+     */
+    public Integer getSaltCycles() {
+        return saltCycles;
+    }
+
+    /**
+     * Cumulative salt crystallization damage in % (capped at 100)
+     */
+    public Double getSaltDamage() {
+        return saltDamage;
+    }
+
+    /**
+     * Pigment lost to chemical fading in %
+     */
+    public Double getChemicalDegradation() {
+        return chemicalDegradation;
+    }
+
+    public double getRiskScore() {
+        return riskScore;
+    }
+
+    /**
+     * low, moderate, high or critical; unknown without climate history
+     */
+    public String getLabel() {
+        return label;
+    }
+}
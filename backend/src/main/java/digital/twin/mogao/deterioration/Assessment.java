@@ -0,0 +1,260 @@
+package digital.twin.mogao.deterioration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Results of the four deterioration models, shaped like the result of assess() in
+ * frontend/deterioration/DeteriorationEngine.js
+ */
+public class Assessment {
+
+    private final Chemical chemical;
+    private final Lifetime lifetime;
+    private final Mould mould;
+    private final Salt saltCryst;
+
+    Assessment(Chemical chemical, Lifetime lifetime, Mould mould, Salt saltCryst) {
+        this.chemical = chemical;
+        this.lifetime = lifetime;
+        this.mould = mould;
+        this.saltCryst = saltCryst;
+    }
+
+    public Chemical getChemical() {
+        return chemical;
+    }
+
+    public Lifetime getLifetime() {
+        return lifetime;
+    }
+
+    public Mould getMould() {
+        return mould;
+    }
+
+    public Salt getSaltCryst() {
+        return saltCryst;
+    }
+
+    private static Map<String, Object> visualEffect(String type, String key, double value) {
+        Map<String, Object> effect = new LinkedHashMap<>();
+        effect.put(key, value);
+        effect.put("type", type);
+        return effect;
+    }
+
+    /**
+     * Chemical pigment fading
+     */
+    @JsonPropertyOrder({"rateConstant", "degradationFactor", "scientificDegradation", "risk", "label", "visualEffect"})
+    public static class Chemical {
+        private final double rateConstant;
+        private final double degradationFactor;
+        private final double scientificDegradation;
+        private final String label;
+
+        Chemical(double rateConstant, double degradationFactor, double scientificDegradation, String label) {
+            this.rateConstant = rateConstant;
+            this.degradationFactor = degradationFactor;
+            this.scientificDegradation = scientificDegradation;
+            this.label = label;
+        }
+
+        /**
+         * Rate constant per day
+         */
+        public double getRateConstant() {
+            return rateConstant;
+        }
+
+        public double getDegradationFactor() {
+            return degradationFactor;
+        }
+
+        /**
+         * Degradation in %
+         */
+        public double getScientificDegradation() {
+            return scientificDegradation;
+        }
+
+        public double getRisk() {
+            return Math.min(100, scientificDegradation);
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public Map<String, Object> getVisualEffect() {
+            return visualEffect("chemical", "fadeFactor", degradationFactor);
+        }
+    }
+
+    /**
+     * Lifetime multiplier relative to the reference climate
+     */
+    public static class Lifetime {
+        private final double multiplier;
+        private final String label;
+        private final String color;
+
+        Lifetime(double multiplier, String label, String color) {
+            this.multiplier = multiplier;
+            this.label = label;
+            this.color = color;
+        }
+
+        public double getMultiplier() {
+            return multiplier;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getColor() {
+            return color;
+        }
+    }
+
+    /**
+     * VTT mould growth
+     */
+    @JsonPropertyOrder({"mouldIndex", "rhCritical", "isAboveThreshold", "risk", "label", "growthRate", "visualEffect"})
+    public static class Mould {
+        private final double mouldIndex;
+        private final double rhCritical;
+        private final boolean aboveThreshold;
+        private final String label;
+        private final double growthRate;
+
+        Mould(double mouldIndex, double rhCritical, boolean aboveThreshold, String label, double growthRate) {
+            this.mouldIndex = mouldIndex;
+            this.rhCritical = rhCritical;
+            this.aboveThreshold = aboveThreshold;
+            this.label = label;
+            this.growthRate = growthRate;
+        }
+
+        /**
+         * Mould index, 0 (none) to 6 (heavy growth)
+         */
+        public double getMouldIndex() {
+            return mouldIndex;
+        }
+
+        /**
+         * Critical RH in %, rounded to 0.1
+         */
+        public double getRhCritical() {
+            return rhCritical;
+        }
+
+        @JsonProperty("isAboveThreshold")
+        public boolean isAboveThreshold() {
+            return aboveThreshold;
+        }
+
+        public double getRisk() {
+            return mouldIndex / DeteriorationModels.MAX_MOULD_INDEX * 100;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Mould index change per day
+         */
+        public double getGrowthRate() {
+            return growthRate;
+        }
+
+        public Map<String, Object> getVisualEffect() {
+            Map<String, Object> effect = new LinkedHashMap<>();
+            effect.put("coverage", mouldIndex / DeteriorationModels.MAX_MOULD_INDEX);
+            effect.put("intensity", Math.min(1, mouldIndex / 4));
+            effect.put("type", "mould");
+            return effect;
+        }
+    }
+
+    /**
+     * Salt crystallization pressure
+     */
+    @JsonPropertyOrder({"pressure_MPa", "DRH", "isCrystallizing", "damageRatio", "cumulativeDamage", "risk", "label", "visualEffect"})
+    public static class Salt {
+        private final double pressure;
+        private final double deliquescenceRH;
+        private final boolean crystallizing;
+        private final double damageRatio;
+        private final double cumulativeDamage;
+        private final double risk;
+        private final String label;
+        private final double spalling;
+
+        Salt(double pressure, double deliquescenceRH, boolean crystallizing, double damageRatio,
+             double cumulativeDamage, double risk, String label, double spalling) {
+            this.pressure = pressure;
+            this.deliquescenceRH = deliquescenceRH;
+            this.crystallizing = crystallizing;
+            this.damageRatio = damageRatio;
+            this.cumulativeDamage = cumulativeDamage;
+            this.risk = risk;
+            this.label = label;
+            this.spalling = spalling;
+        }
+
+        /**
+         * Crystallization pressure in MPa, rounded to 0.01
+         */
+        @JsonProperty("pressure_MPa")
+        public double getPressure() {
+            return pressure;
+        }
+
+        /**
+         * Deliquescence RH in %, rounded to 0.1
+         */
+        @JsonProperty("DRH")
+        public double getDeliquescenceRH() {
+            return deliquescenceRH;
+        }
+
+        @JsonProperty("isCrystallizing")
+        public boolean isCrystallizing() {
+            return crystallizing;
+        }
+
+        /**
+         * Pressure over tensile strength, rounded to 0.01
+         */
+        public double getDamageRatio() {
+            return damageRatio;
+        }
+
+        /**
+         * Cumulative damage in %, rounded to 0.1
+         */
+        public double getCumulativeDamage() {
+            return cumulativeDamage;
+        }
+
+        public double getRisk() {
+            return risk;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public Map<String, Object> getVisualEffect() {
+            return visualEffect("salt", "spalling", spalling);
+        }
+    }
+}
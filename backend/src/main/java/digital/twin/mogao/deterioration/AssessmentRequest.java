@@ -0,0 +1,114 @@
+package digital.twin.mogao.deterioration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Conditions to assess, with optional model parameter overrides
+ * JSON names follow the params of assess() in frontend/deterioration/DeteriorationEngine.js;
+ * omitted parameters keep their defaults.
+ */
+public class AssessmentRequest {
+
+    private Double celsius;
+    private Double rhPercent;
+    private double lightKlux;
+    private Double totalDays;
+    private double prevMouldIndex;
+    private ChemicalParameters chemicalParams = new ChemicalParameters();
+    private LifetimeParameters lifetimeParams = new LifetimeParameters();
+    private MouldParameters mouldParams = new MouldParameters();
+    private SaltParameters saltCrystParams = new SaltParameters();
+
+    /**
+     * Temperature in °C
+     */
+    @JsonProperty("T_celsius")
+    public Double getCelsius() {
+        return celsius;
+    }
+
+    @JsonProperty("T_celsius")
+    public void setCelsius(Double celsius) {
+        this.celsius = celsius;
+    }
+
+    /**
+     * Relative humidity in %
+     */
+    @JsonProperty("RH_percent")
+    public Double getRhPercent() {
+        return rhPercent;
+    }
+
+    @JsonProperty("RH_percent")
+    public void setRhPercent(Double rhPercent) {
+        this.rhPercent = rhPercent;
+    }
+
+    /**
+     * Light intensity in klux (0 = dark storage)
+     */
+    @JsonProperty("light_klux")
+    public double getLightKlux() {
+        return lightKlux;
+    }
+
+    @JsonProperty("light_klux")
+    public void setLightKlux(double lightKlux) {
+        this.lightKlux = lightKlux;
+    }
+
+    /**
+     * Exposure in days
+     */
+    public Double getTotalDays() {
+        return totalDays;
+    }
+
+    public void setTotalDays(Double totalDays) {
+        this.totalDays = totalDays;
+    }
+
+    /**
+     * Running mould index, for incremental updates
+     */
+    public double getPrevMouldIndex() {
+        return prevMouldIndex;
+    }
+
+    public void setPrevMouldIndex(double prevMouldIndex) {
+        this.prevMouldIndex = prevMouldIndex;
+    }
+
+    public ChemicalParameters getChemicalParams() {
+        return chemicalParams;
+    }
+
+    public void setChemicalParams(ChemicalParameters chemicalParams) {
+        this.chemicalParams = chemicalParams != null ? chemicalParams : new ChemicalParameters();
+    }
+
+    public LifetimeParameters getLifetimeParams() {
+        return lifetimeParams;
+    }
+
+    public void setLifetimeParams(LifetimeParameters lifetimeParams) {
+        this.lifetimeParams = lifetimeParams != null ? lifetimeParams : new LifetimeParameters();
+    }
+
+    public MouldParameters getMouldParams() {
+        return mouldParams;
+    }
+
+    public void setMouldParams(MouldParameters mouldParams) {
+        this.mouldParams = mouldParams != null ? mouldParams : new MouldParameters();
+    }
+
+    public SaltParameters getSaltCrystParams() {
+        return saltCrystParams;
+    }
+
+    public void setSaltCrystParams(SaltParameters saltCrystParams) {
+        this.saltCrystParams = saltCrystParams != null ? saltCrystParams : new SaltParameters();
+    }
+}
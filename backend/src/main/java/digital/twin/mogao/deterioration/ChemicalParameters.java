@@ -0,0 +1,79 @@
+package digital.twin.mogao.deterioration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Parameters of the chemical pigment fading model (defaults: linseed oil binder)
+ * JSON names follow CHEMICAL_DEFAULTS in frontend/deterioration/DeteriorationEngine.js.
+ */
+public class ChemicalParameters {
+
+    // J/mol - activation energy, dark oxidation
+    private double eaDark = 70000;
+    // J/mol - activation energy, photofading
+    private double eaLight = 25000;
+    // Pre-exponential factor, dark ageing
+    private double k0Dark = 0.0001;
+    // Pre-exponential factor, light fading
+    private double k0Light = 0.001;
+    // Reaction order w.r.t. water
+    private double q = 0.8;
+    // Light reciprocity exponent
+    private double p = 0.9;
+
+    @JsonProperty("Ea_dark")
+    public double getEaDark() {
+        return eaDark;
+    }
+
+    @JsonProperty("Ea_dark")
+    public void setEaDark(double eaDark) {
+        this.eaDark = eaDark;
+    }
+
+    @JsonProperty("Ea_light")
+    public double getEaLight() {
+        return eaLight;
+    }
+
+    @JsonProperty("Ea_light")
+    public void setEaLight(double eaLight) {
+        this.eaLight = eaLight;
+    }
+
+    @JsonProperty("k0_dark")
+    public double getK0Dark() {
+        return k0Dark;
+    }
+
+    @JsonProperty("k0_dark")
+    public void setK0Dark(double k0Dark) {
+        this.k0Dark = k0Dark;
+    }
+
+    @JsonProperty("k0_light")
+    public double getK0Light() {
+        return k0Light;
+    }
+
+    @JsonProperty("k0_light")
+    public void setK0Light(double k0Light) {
+        this.k0Light = k0Light;
+    }
+
+    public double getQ() {
+        return q;
+    }
+
+    public void setQ(double q) {
+        this.q = q;
+    }
+
+    public double getP() {
+        return p;
+    }
+
+    public void setP(double p) {
+        this.p = p;
+    }
+}
@@ -0,0 +1,221 @@
+package digital.twin.mogao.deterioration;
+
+/**
+ * Integrates the deterioration models over a recorded climate series
+ * Instead of one constant climate for totalDays (assess()), each step of the series is held
+ * for its duration: the mould index and salt cycles carry their state from step to step, the
+ * lifetime multiplier and chemical fading are accumulated over time.
+ *
+ * The series is given as primitive arrays (structure of arrays) and integrated in one
+ * allocation-free loop. Per step the formulas of DeteriorationModels are rewritten to need few
+ * transcendental calls: the moisture content power and Arrhenius term of chemical fading fold
+ * into one exp, the lifetime multiplier's temperature and humidity factors into another.
+ *
+ * Given LookupSurfaces, the lifetime and fading rate terms are read from one (T, RH) table
+ * instead (the cell is located once for all three), within the surfaces' tolerance, and
+ * klux^p from ExpTable, so a step needs no transcendental call.
+ *
+ * In either case salt pressure takes its log only when the bound ln x ≤ (x − 1)/√x says the
+ * cycle's peak ratio may rise.
+ */
+public final class ClimateIntegrator {
+
+    private static final double R = DeteriorationModels.R;
+    private static final double KELVIN_OFFSET = DeteriorationModels.KELVIN_OFFSET;
+    private static final double MAX_MOULD_INDEX = DeteriorationModels.MAX_MOULD_INDEX;
+    // Functions of LookupSurfaces.climateTerms
+    private static final int INVERSE_LIFETIME = 0;
+    private static final int DARK_RATE = 1;
+    private static final int LIGHT_RATE = 2;
+
+    // Chemical fading
+    private final double k0Dark;
+    private final double k0Light;
+    private final double darkActivation;
+    private final double lightActivation;
+    private final double q;
+    private final double p;
+    // Lifetime multiplier
+    private final double lifetimeActivation;
+    private final double inverseReferenceKelvin;
+    private final double n;
+    private final double logReferenceRH;
+    // Mould
+    private final double growthPerDegree;
+    private final double declineRate;
+    // Salt
+    private final double drhRef;
+    private final double drhSlope;
+    private final double tRef;
+    // Crystallisation pressure over tensile strength per kelvin and unit of ln(DRH/RH)
+    private final double pressurePerKelvin;
+    // Tables of the lifetime and fading terms, or null to evaluate the formulas
+    private final Surfaces surfaces;
+
+    public ClimateIntegrator(ChemicalParameters chemical, LifetimeParameters lifetime, MouldParameters mould,
+                             SaltParameters salt) {
+        this(chemical, lifetime, mould, salt, null);
+    }
+
+    /**
+     * Integrator reading the lifetime and fading terms from lookup surfaces
+     * @param surfaces Surfaces of the same chemical and lifetime parameters (LookupSurfaces.forIntegrator)
+     */
+    public ClimateIntegrator(ChemicalParameters chemical, LifetimeParameters lifetime, MouldParameters mould,
+                             SaltParameters salt, Surfaces surfaces) {
+        this.surfaces = surfaces;
+        k0Dark = chemical.getK0Dark();
+        k0Light = chemical.getK0Light();
+        darkActivation = chemical.getEaDark() / R;
+        lightActivation = chemical.getEaLight() / R;
+        q = chemical.getQ();
+        p = chemical.getP();
+        lifetimeActivation = lifetime.getEa() / R;
+        inverseReferenceKelvin = 1 / (lifetime.getT0() + KELVIN_OFFSET);
+        n = lifetime.getN();
+        logReferenceRH = Math.log(lifetime.getRh0());
+        growthPerDegree = mould.getGrowthCoeff() / 2000;
+        declineRate = mould.getDeclineRate();
+        drhRef = salt.getDrhRef();
+        drhSlope = salt.getDrhSlope();
+        tRef = salt.getTRef();
+        pressurePerKelvin = R / salt.getVm() / 1e6 / salt.getTensileStrength();
+    }
+
+    /**
+     * Integrator with the default parameters of every model
+     */
+    public ClimateIntegrator() {
+        this(new ChemicalParameters(), new LifetimeParameters(), new MouldParameters(), new SaltParameters());
+    }
+
+    /**
+     * Integrate steps [from, to) of equal length
+     * @param celsius Temperature in °C per step
+     * @param rhPercent Relative humidity in % per step
+     * @param lightKlux Light intensity in klux per step, or null for darkness
+     * @param stepDays Length of every step in days
+     */
+    public void integrate(ClimateState state, double[] celsius, double[] rhPercent, double[] lightKlux,
+                          double stepDays, int from, int to) {
+        integrate(state, celsius, rhPercent, lightKlux, null, stepDays, from, to);
+    }
+
+    /**
+     * Integrate steps [from, to) of the given lengths
+     * @param stepDays Length of each step in days
+     */
+    public void integrate(ClimateState state, double[] celsius, double[] rhPercent, double[] lightKlux,
+                          double[] stepDays, int from, int to) {
+        integrate(state, celsius, rhPercent, lightKlux, stepDays, 0, from, to);
+    }
+
+    private void integrate(ClimateState state, double[] celsius, double[] rhPercent, double[] lightKlux,
+                           double[] stepDays, double fixedStepDays, int from, int to) {
+        long steps = state.steps;
+        double days = state.days;
+        double inverseLifetimeDays = state.inverseLifetimeDays;
+        double chemicalExposure = state.chemicalExposure;
+        double mouldIndex = state.mouldIndex;
+        double maxMouldIndex = state.maxMouldIndex;
+        boolean dry = state.dry;
+        boolean inCycle = state.inCycle;
+        double cycleRatio = state.cycleRatio;
+        double cycleDamage = state.cycleDamage;
+        int saltCycles = state.saltCycles;
+        double[] terms = surfaces != null ? new double[surfaces.terms.getFunctions()] : null;
+
+        for (int i = from; i < to; i++) {
+            double dt = stepDays != null ? stepDays[i] : fixedStepDays;
+            double t = celsius[i];
+            double rh = rhPercent[i];
+            double kelvin = t + KELVIN_OFFSET;
+
+            double klux = lightKlux != null ? lightKlux[i] : 0;
+            double rate;
+            if (terms != null) {
+                surfaces.terms.values(t, rh, terms);
+                inverseLifetimeDays += dt * terms[INVERSE_LIFETIME];
+                rate = terms[DARK_RATE];
+                if (klux > 0) {
+                    rate += terms[LIGHT_RATE] * ExpTable.pow(klux, p);
+                }
+            } else {
+                double inverseKelvin = 1 / kelvin;
+
+                // Lifetime: 1/LM = exp(−(Ea/R)(1/T − 1/T₀)) · (RH/RH₀)^n
+                inverseLifetimeDays += dt * Math.exp(-lifetimeActivation * (inverseKelvin - inverseReferenceKelvin)
+                    + n * (Math.log(Math.max(rh, 1)) - logReferenceRH));
+
+                // Chemical: |[H₂O]|^q = |ln(1 − RH) / (1.67·T − 285.655)|^(q / (2.491 − 0.012·T))
+                double rhFraction = Math.min(Math.max(rh * 0.01, 0.01), 0.999);
+                double waterLog = q * Math.log(Math.abs(Math.log(1 - rhFraction) / (1.67 * kelvin - 285.655)))
+                    / (2.491 - 0.012 * kelvin);
+                rate = k0Dark * Math.exp(waterLog - darkActivation * inverseKelvin);
+                if (klux > 0) {
+                    rate += k0Light * Math.exp(p * Math.log(klux) + waterLog - lightActivation * inverseKelvin);
+                }
+            }
+            chemicalExposure += rate * dt;
+
+            // Mould: VTT growth above the critical RH, decline below it
+            double clamped = Math.max(0, Math.min(50, t));
+            double critical = ((-0.0026 * clamped + 0.160) * clamped - 3.13) * clamped + 100.0;
+            double growth = rh >= critical && t > 0 ? (rh - critical) * t * growthPerDegree : declineRate;
+            mouldIndex = Math.max(0, Math.min(MAX_MOULD_INDEX, mouldIndex + growth * dt));
+            maxMouldIndex = Math.max(maxMouldIndex, mouldIndex);
+
+            // Salt: a cycle starts when RH drops below the deliquescence RH and ends when it rises again
+            double deliquescence = Math.max(0, Math.min(100, drhRef + drhSlope * (t - tRef)));
+            boolean wasDry = dry;
+            dry = rh < deliquescence;
+            if (dry && !wasDry && steps > 0) {
+                saltCycles++;
+                inCycle = true;
+                cycleRatio = 0;
+            }
+            if (dry && inCycle) {
+                // ln x ≤ (x − 1)/√x for x ≥ 1: the exact ratio is only needed when it may rise
+                double ratio = deliquescence / rh;
+                if (rh > 0 && pressurePerKelvin * kelvin * (ratio - 1) / Math.sqrt(ratio) > cycleRatio) {
+                    cycleRatio = Math.max(cycleRatio, pressurePerKelvin * kelvin * Math.log(ratio));
+                }
+            } else if (!dry && inCycle) {
+                cycleDamage += cycleRatio;
+                inCycle = false;
+            }
+
+            days += dt;
+            steps++;
+        }
+
+        state.steps = steps;
+        state.days = days;
+        state.inverseLifetimeDays = inverseLifetimeDays;
+        state.chemicalExposure = chemicalExposure;
+        state.mouldIndex = mouldIndex;
+        state.maxMouldIndex = maxMouldIndex;
+        state.dry = dry;
+        state.inCycle = inCycle;
+        state.cycleRatio = cycleRatio;
+        state.cycleDamage = cycleDamage;
+        state.saltCycles = saltCycles;
+    }
+
+    /**
+     * Lookup surfaces of one chemical and lifetime parameter set
+     */
+    public static final class Surfaces {
+        private final LookupSurface terms;
+
+        /**
+         * @param terms 1/LM and the dark and light fading rate constants on one grid (LookupSurfaces.climateTerms)
+         */
+        public Surfaces(LookupSurface terms) {
+            if (terms.getFunctions() != 3) {
+                throw new IllegalArgumentException("Expected the 3 climate terms, got " + terms.getFunctions());
+            }
+            this.terms = terms;
+        }
+    }
+}
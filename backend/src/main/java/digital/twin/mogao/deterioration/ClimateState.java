@@ -0,0 +1,105 @@
+package digital.twin.mogao.deterioration;
+
+/**
+ * Deterioration state carried through a climate series by ClimateIntegrator
+ * Integrating a series in pieces, one after the other, gives the same state as integrating
+ * it at once, so a state can be kept and advanced as new readings arrive.
+ */
+public class ClimateState {
+
+    long steps;
+    double days;
+    // Σ dt / LM, the lifetime multiplier's time-weighted harmonic mean is days / this
+    double inverseLifetimeDays;
+    // Σ k · dt of chemical fading
+    double chemicalExposure;
+    double mouldIndex;
+    double maxMouldIndex;
+    // Salt: RH below the deliquescence RH in the last step, cycle in progress and its peak ratio
+    boolean dry;
+    boolean inCycle;
+    double cycleRatio;
+    double cycleDamage;
+    int saltCycles;
+
+    public ClimateState() {
+    }
+
+    /**
+     * Start from an existing mould index (0-6), e.g. the result of an earlier period
+     */
+    public ClimateState(double mouldIndex) {
+        this.mouldIndex = Math.max(0, Math.min(DeteriorationModels.MAX_MOULD_INDEX, mouldIndex));
+        this.maxMouldIndex = this.mouldIndex;
+    }
+
+    /**
+     * Independent copy, e.g. to continue one state with several climates
+     */
+    ClimateState copy() {
+        ClimateState copy = new ClimateState();
+        copy.steps = steps;
+        copy.days = days;
+        copy.inverseLifetimeDays = inverseLifetimeDays;
+        copy.chemicalExposure = chemicalExposure;
+        copy.mouldIndex = mouldIndex;
+        copy.maxMouldIndex = maxMouldIndex;
+        copy.dry = dry;
+        copy.inCycle = inCycle;
+        copy.cycleRatio = cycleRatio;
+        copy.cycleDamage = cycleDamage;
+        copy.saltCycles = saltCycles;
+        return copy;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Time integrated, in days
+     */
+    public double getDays() {
+        return days;
+    }
+
+    /**
+     * Time-averaged lifetime multiplier (the harmonic mean, as the rate of ageing is 1/LM)
+     */
+    public double getLifetimeMultiplier() {
+        return inverseLifetimeDays > 0 ? days / inverseLifetimeDays : Double.NaN;
+    }
+
+    /**
+     * Pigment lost to chemical fading in %, 1 − exp(−∫k dt)
+     */
+    public double getChemicalDegradation() {
+        return DeteriorationModels.scientificDegradation(Math.exp(-chemicalExposure));
+    }
+
+    /**
+     * VTT mould index (0-6) at the end of the series
+     */
+    public double getMouldIndex() {
+        return mouldIndex;
+    }
+
+    public double getMaxMouldIndex() {
+        return maxMouldIndex;
+    }
+
+    /**
+     * Wet-dry cycles: drops of RH below the salt's deliquescence RH after a wet step
+     */
+    public int getSaltCycles() {
+        return saltCycles;
+    }
+
+    /**
+     * Cumulative salt damage in % (capped at 100): half the peak pressure / strength ratio of
+     * each cycle, as in saltCrystallization() with counted rather than estimated cycles
+     */
+    public double getSaltDamage() {
+        return Math.min(100, 0.5 * (cycleDamage + (inCycle ? cycleRatio : 0)));
+    }
+}
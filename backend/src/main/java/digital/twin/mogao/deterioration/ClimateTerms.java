@@ -0,0 +1,85 @@
+package digital.twin.mogao.deterioration;
+
+/**
+ * Per-step terms of a climate series that do not depend on the model parameters
+ * Many parameter sets can then be run over the same series (Monte Carlo forecasts) with two
+ * exps per step, three when lit, and no logs: the logs of RH, of the moisture content and of
+ * the light intensity are taken once here.
+ */
+final class ClimateTerms {
+
+    private static final double KELVIN_OFFSET = DeteriorationModels.KELVIN_OFFSET;
+
+    private final int size;
+    private final double[] inverseKelvin;
+    private final double[] logRh;
+    // log|[H₂O]| / (2.491 − 0.012·T), times q the log of the moisture term of chemical fading
+    private final double[] waterLog;
+    // log(klux), −∞ in the dark
+    private final double[] logKlux;
+    private final boolean lit;
+
+    ClimateTerms(double[] celsius, double[] rhPercent, double[] lightKlux, int size) {
+        this.size = size;
+        inverseKelvin = new double[size];
+        logRh = new double[size];
+        waterLog = new double[size];
+        logKlux = new double[size];
+        boolean anyLight = false;
+        for (int i = 0; i < size; i++) {
+            double kelvin = celsius[i] + KELVIN_OFFSET;
+            double rh = rhPercent[i];
+            double rhFraction = Math.min(Math.max(rh * 0.01, 0.01), 0.999);
+            inverseKelvin[i] = 1 / kelvin;
+            logRh[i] = Math.log(Math.max(rh, 1));
+            waterLog[i] = Math.log(Math.abs(Math.log(1 - rhFraction) / (1.67 * kelvin - 285.655))) / (2.491 - 0.012 * kelvin);
+            double klux = lightKlux != null ? lightKlux[i] : 0;
+            logKlux[i] = klux > 0 ? Math.log(klux) : Double.NEGATIVE_INFINITY;
+            anyLight |= klux > 0;
+        }
+        lit = anyLight;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Σ 1/LM over the steps, as accumulated by ClimateIntegrator
+     */
+    double inverseLifetimeSum(LifetimeParameters params) {
+        double activation = params.getEa() / DeteriorationModels.R;
+        double inverseReferenceKelvin = 1 / (params.getT0() + KELVIN_OFFSET);
+        double n = params.getN();
+        double offset = activation * inverseReferenceKelvin - n * Math.log(params.getRh0());
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += Math.exp(offset - activation * inverseKelvin[i] + n * logRh[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * Σ k over the steps, k the chemical fading rate constant
+     */
+    double rateSum(ChemicalParameters params) {
+        double darkActivation = params.getEaDark() / DeteriorationModels.R;
+        double lightActivation = params.getEaLight() / DeteriorationModels.R;
+        double logK0Dark = Math.log(params.getK0Dark());
+        double logK0Light = Math.log(params.getK0Light());
+        double q = params.getQ();
+        double p = params.getP();
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += Math.exp(logK0Dark + q * waterLog[i] - darkActivation * inverseKelvin[i]);
+        }
+        if (lit) {
+            for (int i = 0; i < size; i++) {
+                if (logKlux[i] != Double.NEGATIVE_INFINITY) {
+                    sum += Math.exp(logK0Light + p * logKlux[i] + q * waterLog[i] - lightActivation * inverseKelvin[i]);
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,105 @@
+package digital.twin.mogao.deterioration;
+
+import jakarta.inject.Singleton;
+
+import java.util.concurrent.TimeUnit;
+
+import static digital.twin.mogao.deterioration.DeteriorationModels.round;
+
+/**
+ * Deterioration Engine
+ * Runs the four DeteriorationModels for one set of conditions, as assess() does in the browser,
+ * or over a recorded climate series with a ClimateIntegrator
+ */
+@Singleton
+public class DeteriorationEngine {
+
+    /**
+     * Assess chemical fading, lifetime, mould growth and salt crystallization
+     * @throws IllegalArgumentException if temperature, humidity or exposure is missing
+     */
+    public Assessment assess(AssessmentRequest request) {
+        if (request.getCelsius() == null || request.getRhPercent() == null || request.getTotalDays() == null) {
+            throw new IllegalArgumentException("T_celsius, RH_percent and totalDays are required");
+        }
+        double celsius = request.getCelsius();
+        double rh = request.getRhPercent();
+        double days = request.getTotalDays();
+        return new Assessment(
+            chemicalFading(celsius, rh, request.getLightKlux(), days, request.getChemicalParams()),
+            lifetimeMultiplier(celsius, rh, request.getLifetimeParams()),
+            mouldGrowth(celsius, rh, days, request.getPrevMouldIndex(), request.getMouldParams()),
+            saltCrystallization(celsius, rh, days, request.getSaltCrystParams()));
+    }
+
+    /**
+     * Integrate the models over a climate series, step by step
+     * @throws IllegalArgumentException if the series are missing or of different lengths
+     */
+    public ClimateState integrate(IntegrationRequest request) {
+        double[] celsius = request.getCelsius();
+        double[] rh = request.getRhPercent();
+        double[] light = request.getLightKlux();
+        long[] timestamps = request.getTimestamps();
+        if (celsius == null || rh == null || celsius.length != rh.length
+                || (light != null && light.length != celsius.length)
+                || (timestamps != null && timestamps.length != celsius.length)) {
+            throw new IllegalArgumentException("T_celsius and RH_percent (and light_klux, timestamps if given) "
+                + "must have the same length");
+        }
+
+        ClimateIntegrator integrator = new ClimateIntegrator(request.getChemicalParams(), request.getLifetimeParams(),
+            request.getMouldParams(), request.getSaltCrystParams());
+        ClimateState state = new ClimateState(request.getPrevMouldIndex());
+        if (timestamps == null) {
+            integrator.integrate(state, celsius, rh, light, request.getStepDays(), 0, celsius.length);
+            return state;
+        }
+
+        double[] stepDays = new double[timestamps.length];
+        for (int i = 0; i + 1 < timestamps.length; i++) {
+            stepDays[i] = (timestamps[i + 1] - timestamps[i]) / (double) TimeUnit.DAYS.toMillis(1);
+            if (stepDays[i] < 0) {
+                throw new IllegalArgumentException("timestamps must be in ascending order");
+            }
+        }
+        if (stepDays.length > 1) {
+            stepDays[stepDays.length - 1] = stepDays[stepDays.length - 2];
+        }
+        integrator.integrate(state, celsius, rh, light, stepDays, 0, celsius.length);
+        return state;
+    }
+
+    public Assessment.Chemical chemicalFading(double celsius, double rh, double lightKlux, double days,
+                                              ChemicalParameters params) {
+        double rateConstant = DeteriorationModels.rateConstant(celsius, rh, lightKlux, params);
+        double factor = DeteriorationModels.degradationFactor(rateConstant, days);
+        double degradation = DeteriorationModels.scientificDegradation(factor);
+        return new Assessment.Chemical(rateConstant, factor, degradation, DeteriorationModels.chemicalLabel(degradation));
+    }
+
+    public Assessment.Lifetime lifetimeMultiplier(double celsius, double rh, LifetimeParameters params) {
+        double multiplier = DeteriorationModels.lifetimeMultiplier(celsius, rh, params);
+        return new Assessment.Lifetime(multiplier, DeteriorationModels.lifetimeLabel(multiplier),
+            DeteriorationModels.lifetimeColor(multiplier));
+    }
+
+    public Assessment.Mould mouldGrowth(double celsius, double rh, double days, double previousIndex,
+                                        MouldParameters params) {
+        double critical = DeteriorationModels.mouldCriticalRH(celsius);
+        double index = DeteriorationModels.mouldIndex(celsius, rh, days, previousIndex, params);
+        return new Assessment.Mould(index, round(critical, 10), rh >= critical, DeteriorationModels.mouldLabel(index),
+            DeteriorationModels.mouldGrowthRate(celsius, rh, params));
+    }
+
+    public Assessment.Salt saltCrystallization(double celsius, double rh, double days, SaltParameters params) {
+        double deliquescence = DeteriorationModels.saltDeliquescenceRH(celsius, params);
+        boolean crystallizing = rh < deliquescence;
+        double pressure = DeteriorationModels.saltPressure(celsius, rh, params);
+        double damageRatio = DeteriorationModels.saltDamageRatio(pressure, params);
+        return new Assessment.Salt(round(pressure, 100), round(deliquescence, 10), crystallizing,
+            round(damageRatio, 100), round(DeteriorationModels.saltCumulativeDamage(damageRatio, days, params), 10),
+            Math.min(100, damageRatio * 25), DeteriorationModels.saltLabel(damageRatio, crystallizing),
+            Math.min(1, damageRatio / 3));
+    }
+}
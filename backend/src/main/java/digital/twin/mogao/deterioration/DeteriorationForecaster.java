@@ -0,0 +1,230 @@
+package digital.twin.mogao.deterioration;
+
+import digital.twin.mogao.timeseries.ReadingKind;
+import digital.twin.mogao.timeseries.TimeSeriesStore;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Monte Carlo deterioration forecasts
+ * The default model parameters are single values, while the literature (deterioration models.md)
+ * gives wide ranges for activation energies and pre-exponential factors. A forecast samples
+ * these parameters and runs the lifetime and chemical fading models for each sample over the
+ * artifact's last year of hourly climate, repeated for every forecast year, and reports
+ * percentile bands.
+ *
+ * Sampled parameters (uniform unless noted):
+ * - chemical Ea_dark and lifetime Ea: 60-110 kJ/mol (thermal and hydrolytic processes)
+ * - chemical Ea_light: 15-40 kJ/mol (photochemical fading)
+ * - k0_dark and k0_light: log-uniform over a decade either side of the default
+ * - q: 0.5-1.0
+ *
+ * Samples are split over the risk scorer's fork-join pool; each task draws from its own
+ * SplittableRandom, split from the seed's in a fixed pattern, so a seed always gives the same
+ * forecast whatever the number of threads.
+ */
+@Singleton
+public class DeteriorationForecaster {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeteriorationForecaster.class);
+
+    public static final int MAX_YEARS = 100;
+    public static final int MAX_SAMPLES = 100000;
+    private static final int[] PERCENTILES = {5, 25, 50, 75, 95};
+
+    private static final int YEAR_HOURS = 365 * 24;
+    private static final long YEAR_MILLIS = TimeUnit.HOURS.toMillis(YEAR_HOURS);
+    private static final double HOUR_DAYS = 1.0 / 24;
+    // Samples run by one fork-join task without splitting further
+    private static final int TASK_SAMPLES = 64;
+
+    private static final double MIN_THERMAL_EA = 60000;
+    private static final double MAX_THERMAL_EA = 110000;
+    private static final double MIN_PHOTO_EA = 15000;
+    private static final double MAX_PHOTO_EA = 40000;
+    private static final double K0_DECADES = 1;
+    private static final double MIN_Q = 0.5;
+    private static final double MAX_Q = 1.0;
+
+    private final FleetRiskScorer scorer;
+    private final TimeSeriesStore store;
+    private final int defaultSamples;
+
+    @Inject
+    public DeteriorationForecaster(FleetRiskScorer scorer, TimeSeriesStore store,
+                                   @Value("${mogao.forecast.samples:1000}") int defaultSamples) {
+        this.scorer = scorer;
+        this.store = store;
+        this.defaultSamples = defaultSamples;
+    }
+
+    /**
+     * Forecast of one artifact
+     * @param samples Number of parameter sets, or null for mogao.forecast.samples
+     * @param seed Seed of the random numbers, or null for a random seed
+     * @return null if the gid is not a heritage artifact
+     * @throws IllegalArgumentException for years outside 1-MAX_YEARS or samples outside 1-MAX_SAMPLES
+     */
+    public Forecast forecast(String gid, int years, Integer samples, Long seed) {
+        int sampleCount = samples != null ? samples : defaultSamples;
+        if (years < 1 || years > MAX_YEARS) {
+            throw new IllegalArgumentException("years must be between 1 and " + MAX_YEARS);
+        }
+        if (sampleCount < 1 || sampleCount > MAX_SAMPLES) {
+            throw new IllegalArgumentException("samples must be between 1 and " + MAX_SAMPLES);
+        }
+        ArtifactRef artifact = scorer.artifact(gid);
+        if (artifact == null) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        long seedValue = seed != null ? seed : new SplittableRandom().nextLong();
+        String temperatureSource = scorer.sourceOf(artifact, ReadingKind.TEMPERATURE);
+        String humiditySource = scorer.sourceOf(artifact, ReadingKind.HUMIDITY);
+        String lightSource = scorer.sourceOf(artifact, ReadingKind.LIGHT_INTENSITY);
+        Forecast forecast = new Forecast(artifact, temperatureSource, years, sampleCount, seedValue);
+        if (temperatureSource == null || humiditySource == null) {
+            return forecast;
+        }
+
+        // The last year of complete hours
+        long end = Math.min(HourlyClimate.latestHour(store, temperatureSource, ReadingKind.TEMPERATURE),
+            HourlyClimate.latestHour(store, humiditySource, ReadingKind.HUMIDITY));
+        HourlyClimate climate = new HourlyClimate(store, temperatureSource, humiditySource, lightSource,
+            end - YEAR_MILLIS, end, Double.NaN, Double.NaN, 0);
+        if (climate.size == 0) {
+            return forecast;
+        }
+        forecast.setClimate(climate.hours[0], climate.hours[climate.size - 1] + RiskState.HOUR_MILLIS, climate.size);
+
+        // One forecast year of hours, the recorded ones repeated if there are fewer
+        double[] celsius = new double[YEAR_HOURS];
+        double[] rhPercent = new double[YEAR_HOURS];
+        double[] lightKlux = new double[YEAR_HOURS];
+        for (int i = 0; i < YEAR_HOURS; i++) {
+            celsius[i] = climate.celsius[i % climate.size];
+            rhPercent[i] = climate.rhPercent[i % climate.size];
+            lightKlux[i] = climate.lightKlux[i % climate.size];
+        }
+
+        // Mould and salt have no sampled parameters: integrated once, year by year
+        double[] mouldIndex = new double[years];
+        double[] maxMouldIndex = new double[years];
+        int[] saltCycles = new int[years];
+        double[] saltDamage = new double[years];
+        ClimateIntegrator integrator = new ClimateIntegrator();
+        ClimateState state = new ClimateState();
+        for (int year = 0; year < years; year++) {
+            integrator.integrate(state, celsius, rhPercent, lightKlux, HOUR_DAYS, 0, YEAR_HOURS);
+            mouldIndex[year] = state.getMouldIndex();
+            maxMouldIndex[year] = state.getMaxMouldIndex();
+            saltCycles[year] = state.getSaltCycles();
+            saltDamage[year] = state.getSaltDamage();
+        }
+        forecast.setMouldAndSalt(mouldIndex, maxMouldIndex, saltCycles, saltDamage);
+
+        // The lifetime multiplier is the same for every repeat of the year, the chemical
+        // exposure grows by the same amount each year
+        ClimateTerms terms = new ClimateTerms(celsius, rhPercent, lightKlux, YEAR_HOURS);
+        double[] lifetimeMultiplier = new double[sampleCount];
+        double[] yearExposure = new double[sampleCount];
+        scorer.pool().invoke(new SampleTask(terms, lifetimeMultiplier, yearExposure, 0, sampleCount,
+            new SplittableRandom(seedValue)));
+
+        double[][] lifetimeBand = new double[PERCENTILES.length][years];
+        double[][] chemicalBand = new double[PERCENTILES.length][years];
+        double[][] riskBand = new double[PERCENTILES.length][years];
+        double[] sortedLifetime = lifetimeMultiplier.clone();
+        Arrays.sort(sortedLifetime);
+        double[] sortedExposure = yearExposure.clone();
+        Arrays.sort(sortedExposure);
+        double[] risk = new double[sampleCount];
+        for (int year = 0; year < years; year++) {
+            for (int s = 0; s < sampleCount; s++) {
+                risk[s] = ArtifactRisk.riskScore(lifetimeMultiplier[s], mouldIndex[year], saltDamage[year],
+                    chemicalDegradation(yearExposure[s], year + 1));
+            }
+            Arrays.sort(risk);
+            for (int p = 0; p < PERCENTILES.length; p++) {
+                int rank = rank(PERCENTILES[p], sampleCount);
+                lifetimeBand[p][year] = sortedLifetime[rank];
+                // Degradation grows with exposure, so its percentiles are those of the exposure
+                chemicalBand[p][year] = chemicalDegradation(sortedExposure[rank], year + 1);
+                riskBand[p][year] = risk[rank];
+            }
+        }
+        forecast.setBands(PERCENTILES.clone(), lifetimeBand, chemicalBand, riskBand);
+        forecast.setComputedInMillis(System.currentTimeMillis() - start);
+        LOG.info("Forecast {} years of {} with {} samples in {} ms", years, gid, sampleCount, forecast.getComputedInMillis());
+        return forecast;
+    }
+
+    private static double chemicalDegradation(double yearExposure, int years) {
+        return DeteriorationModels.scientificDegradation(Math.exp(-yearExposure * years));
+    }
+
+    /**
+     * Index of a percentile in n sorted values (nearest rank)
+     */
+    private static int rank(int percentile, int n) {
+        return Math.max(0, (int) Math.ceil(percentile / 100.0 * n) - 1);
+    }
+
+    /**
+     * Runs samples [from, to), splitting the range in halves down to TASK_SAMPLES. The upper half
+     * draws from a split of the random generator, so the numbers depend only on the range.
+     */
+    private static final class SampleTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ClimateTerms terms;
+        private final double[] lifetimeMultiplier;
+        private final double[] yearExposure;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        SampleTask(ClimateTerms terms, double[] lifetimeMultiplier, double[] yearExposure, int from, int to,
+                   SplittableRandom random) {
+            this.terms = terms;
+            this.lifetimeMultiplier = lifetimeMultiplier;
+            this.yearExposure = yearExposure;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SAMPLES) {
+                int middle = (from + to) >>> 1;
+                SampleTask upper = new SampleTask(terms, lifetimeMultiplier, yearExposure, middle, to, random.split());
+                invokeAll(new SampleTask(terms, lifetimeMultiplier, yearExposure, from, middle, random), upper);
+                return;
+            }
+            ChemicalParameters chemical = new ChemicalParameters();
+            LifetimeParameters lifetime = new LifetimeParameters();
+            double k0Dark = chemical.getK0Dark();
+            double k0Light = chemical.getK0Light();
+            for (int i = from; i < to; i++) {
+                chemical.setEaDark(random.nextDouble(MIN_THERMAL_EA, MAX_THERMAL_EA));
+                chemical.setEaLight(random.nextDouble(MIN_PHOTO_EA, MAX_PHOTO_EA));
+                chemical.setK0Dark(k0Dark * Math.pow(10, random.nextDouble(-K0_DECADES, K0_DECADES)));
+                chemical.setK0Light(k0Light * Math.pow(10, random.nextDouble(-K0_DECADES, K0_DECADES)));
+                chemical.setQ(random.nextDouble(MIN_Q, MAX_Q));
+                lifetime.setEa(random.nextDouble(MIN_THERMAL_EA, MAX_THERMAL_EA));
+
+                lifetimeMultiplier[i] = terms.size() / terms.inverseLifetimeSum(lifetime);
+                yearExposure[i] = terms.rateSum(chemical) * HOUR_DAYS;
+            }
+        }
+    }
+}
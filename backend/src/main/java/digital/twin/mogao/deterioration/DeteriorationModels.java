@@ -0,0 +1,211 @@
+package digital.twin.mogao.deterioration;
+
+/**
+ * Heritage deterioration models, ported from frontend/deterioration/DeteriorationEngine.js
+ *   1. Chemical pigment fading (Arrhenius + first-order kinetics, Paltakari-Karlsson isotherm)
+ *   2. Michalski lifetime multiplier (Climate for Culture eLM variant)
+ *   3. VTT / Finnish mould growth model (Hukka & Viitanen 1999)
+ *   4. Salt crystallization pressure (Scherer 1999 / Steiger 2005)
+ *
+ * Every model is a static function of primitive doubles that allocates nothing, so it can be
+ * evaluated for many artifacts and time steps; DeteriorationEngine builds the result objects
+ * of the JS assess(). Formulas, clamps and rounding are kept identical to the JS version.
+ */
+public final class DeteriorationModels {
+
+    // Universal gas constant, J/(mol·K)
+    public static final double R = 8.314;
+
+    public static final double KELVIN_OFFSET = 273.15;
+    public static final double DAYS_PER_YEAR = 365.25;
+    public static final double MAX_MOULD_INDEX = 6;
+
+    private DeteriorationModels() {
+    }
+
+    // ── Moisture ─────────────────────────────────────────────────────────────
+
+    /**
+     * Paltakari-Karlsson sorption isotherm, equilibrium moisture content
+     * [H₂O] = |ln(1 − RH) / (1.67·T − 285.655)|^(1/(2.491 − 0.012·T))
+     *
+     * @param rhFraction Relative humidity as 0-1
+     * @param kelvin Absolute temperature in K
+     */
+    public static double moistureContent(double rhFraction, double kelvin) {
+        double rh = Math.min(Math.max(rhFraction, 0.01), 0.999);
+        double base = Math.abs(Math.log(1 - rh) / (1.67 * kelvin - 285.655));
+        return Math.pow(base, 1 / (2.491 - 0.012 * kelvin));
+    }
+
+    // ── 1. Chemical pigment fading ───────────────────────────────────────────
+
+    /**
+     * Composite rate constant k = k_dark + k_light, per day
+     * k_dark  = k0_dark  · [H₂O]^q · exp(−Ea_dark  / RT)
+     * k_light = k0_light · I^p      · [H₂O]^q · exp(−Ea_light / RT)
+     *
+     * @param lightKlux Light intensity in klux (0 = dark storage)
+     */
+    public static double rateConstant(double celsius, double rhPercent, double lightKlux, ChemicalParameters params) {
+        double kelvin = celsius + KELVIN_OFFSET;
+        double water = Math.pow(Math.abs(moistureContent(rhPercent / 100.0, kelvin)), params.getQ());
+        double dark = params.getK0Dark() * water * Math.exp(-params.getEaDark() / (R * kelvin));
+        double light = lightKlux > 0
+            ? params.getK0Light() * Math.pow(lightKlux, params.getP()) * water * Math.exp(-params.getEaLight() / (R * kelvin))
+            : 0;
+        return dark + light;
+    }
+
+    /**
+     * Share of pigment left after the exposure, exp(−k·t)
+     */
+    public static double degradationFactor(double rateConstant, double days) {
+        return Math.exp(-rateConstant * days);
+    }
+
+    /**
+     * Degradation in % of a degradation factor
+     */
+    public static double scientificDegradation(double degradationFactor) {
+        return (1 - degradationFactor) * 100;
+    }
+
+    public static String chemicalLabel(double scientificDegradation) {
+        if (scientificDegradation > 50) {
+            return "critical";
+        }
+        if (scientificDegradation > 20) {
+            return "high";
+        }
+        return scientificDegradation > 5 ? "moderate" : "low";
+    }
+
+    // ── 2. Lifetime multiplier ───────────────────────────────────────────────
+
+    /**
+     * Climate for Culture equivalent lifetime multiplier
+     * LM = exp[(Ea/R)·(1/T − 1/T₀)] · (RH₀/RH)^n; above 1 the object lasts longer than at the
+     * reference conditions, below 1 it degrades faster
+     */
+    public static double lifetimeMultiplier(double celsius, double rhPercent, LifetimeParameters params) {
+        double kelvin = celsius + KELVIN_OFFSET;
+        double referenceKelvin = params.getT0() + KELVIN_OFFSET;
+        double temperatureFactor = Math.exp((params.getEa() / R) * (1 / kelvin - 1 / referenceKelvin));
+        double humidityFactor = Math.pow(params.getRh0() / Math.max(rhPercent, 1), params.getN());
+        return temperatureFactor * humidityFactor;
+    }
+
+    public static String lifetimeLabel(double multiplier) {
+        return multiplier >= 1.0 ? "longer" : "shorter";
+    }
+
+    public static String lifetimeColor(double multiplier) {
+        if (multiplier >= 1.0) {
+            return "#10b981";
+        }
+        return multiplier >= 0.5 ? "#f59e0b" : "#ef4444";
+    }
+
+    // ── 3. VTT mould growth ──────────────────────────────────────────────────
+
+    /**
+     * Critical RH in % below which no mould grows, for T clamped to 0-50 °C
+     * RH_crit = −0.0026·T³ + 0.160·T² − 3.13·T + 100.0
+     */
+    public static double mouldCriticalRH(double celsius) {
+        double t = Math.max(0, Math.min(50, celsius));
+        return -0.0026 * t * t * t + 0.160 * t * t - 3.13 * t + 100.0;
+    }
+
+    /**
+     * Mould index change per day: growth above the critical RH (and above 0 °C), decline otherwise
+     */
+    public static double mouldGrowthRate(double celsius, double rhPercent, MouldParameters params) {
+        double critical = mouldCriticalRH(celsius);
+        if (rhPercent >= critical && celsius > 0) {
+            return (rhPercent - critical) / 100 * (celsius / 20) * params.getGrowthCoeff();
+        }
+        return params.getDeclineRate();
+    }
+
+    /**
+     * Mould index (0-6) after the exposure
+     * Computed from scratch when there is no previous index and conditions are above the
+     * critical RH; otherwise the previous index is kept (as in the JS static mode).
+     */
+    public static double mouldIndex(double celsius, double rhPercent, double days, double previousIndex,
+                                    MouldParameters params) {
+        double index = previousIndex;
+        if (previousIndex == 0 && days > 0 && rhPercent >= mouldCriticalRH(celsius)) {
+            index = Math.min(MAX_MOULD_INDEX, mouldGrowthRate(celsius, rhPercent, params) * days);
+        }
+        return Math.max(0, Math.min(MAX_MOULD_INDEX, index));
+    }
+
+    public static String mouldLabel(double mouldIndex) {
+        if (mouldIndex >= 4) {
+            return "critical";
+        }
+        if (mouldIndex >= 2) {
+            return "high";
+        }
+        return mouldIndex >= 1 ? "moderate" : "low";
+    }
+
+    // ── 4. Salt crystallization ──────────────────────────────────────────────
+
+    /**
+     * Deliquescence RH in % of the salt, DRH(T) = DRH_ref + DRH_slope · (T − T_ref), clamped to 0-100
+     */
+    public static double saltDeliquescenceRH(double celsius, SaltParameters params) {
+        return Math.max(0, Math.min(100, params.getDrhRef() + params.getDrhSlope() * (celsius - params.getTRef())));
+    }
+
+    /**
+     * Crystallization pressure in MPa, ΔP = (R·T / Vm) · ln(S) with S = DRH / RH, while RH < DRH
+     */
+    public static double saltPressure(double celsius, double rhPercent, SaltParameters params) {
+        double deliquescence = saltDeliquescenceRH(celsius, params);
+        if (rhPercent >= deliquescence || rhPercent <= 0) {
+            return 0;
+        }
+        double supersaturation = (deliquescence / 100) / (rhPercent / 100);
+        return ((R * (celsius + KELVIN_OFFSET)) / params.getVm()) * Math.log(supersaturation) / 1e6;
+    }
+
+    /**
+     * How many times the pressure exceeds the substrate's tensile strength
+     */
+    public static double saltDamageRatio(double pressure, SaltParameters params) {
+        return pressure / params.getTensileStrength();
+    }
+
+    /**
+     * Cumulative damage estimate in % (capped at 100): wet-dry cycles × damage ratio over the exposure
+     */
+    public static double saltCumulativeDamage(double damageRatio, double days, SaltParameters params) {
+        double cycles = days / DAYS_PER_YEAR * params.getCyclesPerYear();
+        return Math.min(100, damageRatio * cycles * 0.5);
+    }
+
+    public static String saltLabel(double damageRatio, boolean crystallizing) {
+        if (damageRatio >= 3.0) {
+            return "critical";
+        }
+        if (damageRatio >= 1.5) {
+            return "high";
+        }
+        if (damageRatio >= 0.5) {
+            return "moderate";
+        }
+        return crystallizing ? "low" : "safe";
+    }
+
+    /**
+     * Rounding of the JS results, Math.round(value · scale) / scale (halves round up in both)
+     */
+    static double round(double value, double scale) {
+        return Math.round(value * scale) / scale;
+    }
+}
@@ -0,0 +1,260 @@
+package digital.twin.mogao.deterioration;
+
+import digital.twin.mogao.timeseries.EnvironmentReadings;
+import digital.twin.mogao.timeseries.ReadingKind;
+import digital.twin.mogao.timeseries.TimeSeriesStore;
+import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ModelQuery;
+import io.micronaut.context.annotation.Value;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Fleet-wide deterioration risk scoring
+ * Scores every Cave and Exhibit against its hourly climate history (the hour rollups of the
+ * time-series store): time-averaged lifetime multiplier, mould index, salt-cycle damage and
+ * chemical fading. An exhibit without loggers of its own is scored on its cave's climate.
+ *
+ * The state of each artifact is cached and only advanced by the hours completed since the last
+ * run, so rescoring the site after new readings costs little more than reading them. Artifacts
+ * are scored in parallel on a dedicated fork-join pool (mogao.risk.parallelism, 0: one thread
+ * per processor). The lifetime and fading rate terms are read from LookupSurfaces.
+ */
+@Singleton
+public class FleetRiskScorer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FleetRiskScorer.class);
+
+    private static final String ARTIFACT_CLASS = EnvironmentReadings.ARTIFACT_CLASS;
+    // Artifacts scored by one fork-join task without splitting further
+    private static final int TASK_ARTIFACTS = 4;
+    private static final double HOUR_DAYS = 1.0 / 24;
+
+    private final EpsilonModelManager modelManager;
+    private final TimeSeriesStore store;
+    private final LookupSurfaces surfaces;
+    private final ForkJoinPool pool;
+    private final ChemicalParameters chemical = new ChemicalParameters();
+    private final LifetimeParameters lifetime = new LifetimeParameters();
+    private final MouldParameters mould = new MouldParameters();
+    private final SaltParameters salt = new SaltParameters();
+    private final ClimateIntegrator integrator = new ClimateIntegrator(chemical, lifetime, mould, salt);
+
+    private final Map<String, RiskState> states = new ConcurrentHashMap<>();
+
+    @Inject
+    public FleetRiskScorer(EpsilonModelManager modelManager, TimeSeriesStore store, LookupSurfaces surfaces,
+                           @Value("${mogao.risk.parallelism:0}") int parallelism) {
+        this.modelManager = modelManager;
+        this.store = store;
+        this.surfaces = surfaces;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Risk of every artifact, highest risk score first (artifacts without climate history last)
+     */
+    public List<ArtifactRisk> scoreAll() {
+        List<ArtifactRef> artifacts = artifacts();
+        ArtifactRisk[] risks = new ArtifactRisk[artifacts.size()];
+        long start = System.currentTimeMillis();
+        pool.invoke(new ScoreTask(artifacts.toArray(new ArtifactRef[0]), risks, 0, risks.length));
+
+        // Forget artifacts that are no longer in the model
+        Set<String> gids = new HashSet<>();
+        for (ArtifactRef artifact : artifacts) {
+            gids.add(artifact.gid);
+        }
+        states.keySet().retainAll(gids);
+
+        List<ArtifactRisk> ranking = new ArrayList<>(Arrays.asList(risks));
+        ranking.sort(Comparator.comparing((ArtifactRisk risk) -> risk.getHours() > 0).reversed()
+            .thenComparing(Comparator.comparingDouble(ArtifactRisk::getRiskScore).reversed()));
+        LOG.info("Scored {} artifacts in {} ms", risks.length, System.currentTimeMillis() - start);
+        return ranking;
+    }
+
+    /**
+     * Risk of one artifact, or null if the gid is not a heritage artifact
+     */
+    public ArtifactRisk score(String gid) {
+        ArtifactRef artifact = artifact(gid);
+        return artifact != null ? score(artifact) : null;
+    }
+
+    /**
+     * Number of artifacts with a cached state
+     */
+    public int getCachedStates() {
+        return states.size();
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * The artifact with this gid, or null if it is not a heritage artifact
+     */
+    ArtifactRef artifact(String gid) {
+        try {
+            return modelManager.lookup(gid, ARTIFACT_CLASS, ArtifactRef::of);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to look up artifact " + gid + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pool artifacts are scored on, shared with the forecasts
+     */
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * Every Cave and Exhibit of the model
+     */
+    List<ArtifactRef> artifacts() {
+        try {
+            List<ArtifactRef> artifacts = new ArrayList<>();
+            for (ArtifactRef artifact : modelManager.executeQuery(new ModelQuery(ARTIFACT_CLASS), ArtifactRef::of).getItems()) {
+                if (artifact != null) {
+                    artifacts.add(artifact);
+                }
+            }
+            return artifacts;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to list artifacts: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copy of the artifact's climate state, advanced to its latest complete hour
+     */
+    ClimateState climateOf(ArtifactRef artifact) {
+        return withState(artifact, state -> state.climate.copy());
+    }
+
+    /**
+     * Advance the artifact's cached state to its latest complete hour and report it
+     */
+    private ArtifactRisk score(ArtifactRef artifact) {
+        return withState(artifact, state -> state.toRisk(artifact));
+    }
+
+    /**
+     * Advance the artifact's cached state to its latest complete hour and read it, holding its lock
+     */
+    private <T> T withState(ArtifactRef artifact, Function<RiskState, T> reader) {
+        String temperatureSource = sourceOf(artifact, ReadingKind.TEMPERATURE);
+        String humiditySource = sourceOf(artifact, ReadingKind.HUMIDITY);
+        String lightSource = sourceOf(artifact, ReadingKind.LIGHT_INTENSITY);
+
+        RiskState state = states.compute(artifact.gid, (gid, existing) ->
+            existing != null && existing.hasSources(temperatureSource, humiditySource, lightSource)
+                ? existing : new RiskState(temperatureSource, humiditySource, lightSource));
+        synchronized (state) {
+            if (temperatureSource != null && humiditySource != null) {
+                advance(state);
+            }
+            return reader.apply(state);
+        }
+    }
+
+    /**
+     * Artifact whose readings of a kind describe this artifact's climate, or null if there is none
+     */
+    String sourceOf(ArtifactRef artifact, ReadingKind kind) {
+        if (store.kindsOf(artifact.gid).contains(kind)) {
+            return artifact.gid;
+        }
+        if (artifact.caveGid != null && !artifact.caveGid.equals(artifact.gid) && store.kindsOf(artifact.caveGid).contains(kind)) {
+            return artifact.caveGid;
+        }
+        return null;
+    }
+
+    /**
+     * Integrator reading the cached lookup surfaces of the default parameters, unless they are
+     * disabled (mogao.surfaces.enabled)
+     */
+    private ClimateIntegrator integrator() {
+        return surfaces.isEnabled()
+            ? new ClimateIntegrator(chemical, lifetime, mould, salt, surfaces.forIntegrator(chemical, lifetime))
+            : integrator;
+    }
+
+    /**
+     * Feed the hours both temperature and humidity have moved past (later readings may still
+     * fall into the current hour) to the state
+     */
+    private void advance(RiskState state) {
+        long end = Math.min(HourlyClimate.latestHour(store, state.temperatureSource, ReadingKind.TEMPERATURE),
+            HourlyClimate.latestHour(store, state.humiditySource, ReadingKind.HUMIDITY));
+        if (end <= state.nextHour) {
+            return;
+        }
+        HourlyClimate climate = new HourlyClimate(store, state.temperatureSource, state.humiditySource,
+            state.lightSource, state.nextHour, end, state.celsius, state.rhPercent, state.lightKlux);
+        state.celsius = climate.lastCelsius;
+        state.rhPercent = climate.lastRhPercent;
+        state.lightKlux = climate.lastLightKlux;
+
+        if (climate.size > 0) {
+            if (state.firstHour == Long.MIN_VALUE) {
+                state.firstHour = climate.hours[0];
+            }
+            state.lastHour = climate.hours[climate.size - 1];
+            integrator().integrate(state.climate, climate.celsius, climate.rhPercent, climate.lightKlux, HOUR_DAYS,
+                0, climate.size);
+        }
+        state.nextHour = end;
+    }
+
+    /**
+     * Scores artifacts [from, to), splitting the range in halves down to TASK_ARTIFACTS
+     */
+    private final class ScoreTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ArtifactRef[] artifacts;
+        private final ArtifactRisk[] risks;
+        private final int from;
+        private final int to;
+
+        ScoreTask(ArtifactRef[] artifacts, ArtifactRisk[] risks, int from, int to) {
+            this.artifacts = artifacts;
+            this.risks = risks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= TASK_ARTIFACTS) {
+                for (int i = from; i < to; i++) {
+                    risks[i] = score(artifacts[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScoreTask(artifacts, risks, from, middle), new ScoreTask(artifacts, risks, middle, to));
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package digital.twin.mogao.deterioration;
+
+/**
+ * Monte Carlo deterioration forecast of one artifact
+ * The artifact's last year of hourly climate is repeated for every forecast year. Lifetime,
+ * chemical degradation and risk score are given as percentile bands over the sampled parameter
+ * sets, one value per forecast year; the mould and salt models have no sampled parameters, so
+ * their values are single per year. A band b is indexed b[percentile][year], year 0 being the
+ * end of the first forecast year. Bands are absent without climate history.
+ */
+public class Forecast {
+
+    private final String gid;
+    private final String name;
+    private final String type;
+    private final String climateSource;
+    private final int years;
+    private final int samples;
+    private final long seed;
+
+    private Long climateFrom;
+    private Long climateTo;
+    private long climateHours;
+    private int[] percentiles;
+    private double[][] lifetimeMultiplier;
+    private double[][] chemicalDegradation;
+    private double[][] riskScore;
+    private double[] mouldIndex;
+    private double[] maxMouldIndex;
+    private int[] saltCycles;
+    private double[] saltDamage;
+    private long computedInMillis;
+
+    Forecast(ArtifactRef artifact, String climateSource, int years, int samples, long seed) {
+        this.gid = artifact.gid;
+        this.name = artifact.name;
+        this.type = artifact.type;
+        this.climateSource = climateSource;
+        this.years = years;
+        this.samples = samples;
+        this.seed = seed;
+    }
+
+    void setClimate(long from, long to, long hours) {
+        this.climateFrom = from;
+        this.climateTo = to;
+        this.climateHours = hours;
+    }
+
+    void setBands(int[] percentiles, double[][] lifetimeMultiplier, double[][] chemicalDegradation, double[][] riskScore) {
+        this.percentiles = percentiles;
+        this.lifetimeMultiplier = lifetimeMultiplier;
+        this.chemicalDegradation = chemicalDegradation;
+        this.riskScore = riskScore;
+    }
+
+    void setMouldAndSalt(double[] mouldIndex, double[] maxMouldIndex, int[] saltCycles, double[] saltDamage) {
+        this.mouldIndex = mouldIndex;
+        this.maxMouldIndex = maxMouldIndex;
+        this.saltCycles = saltCycles;
+        this.saltDamage = saltDamage;
+    }
+
+    void setComputedInMillis(long computedInMillis) {
+        this.computedInMillis = computedInMillis;
+    }
+
+    public String getGid() {
+        return gid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Artifact whose temperature readings were used (the cave for an exhibit without its own)
+     */
+    public String getClimateSource() {
+        return climateSource;
+    }
+
+    public int getYears() {
+        return years;
+    }
+
+    /**
+     * Number of sampled parameter sets
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Seed of the random numbers; the same seed gives the same forecast
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Start of the recorded climate repeated by the forecast (epoch milliseconds)
+     */
+    public Long getClimateFrom() {
+        return climateFrom;
+    }
+
+    /**
+     * End of the recorded climate repeated by the forecast (epoch milliseconds)
+     */
+    public Long getClimateTo() {
+        return climateTo;
+    }
+
+    /**
+     * Hours of recorded climate
+     */
+    public long getClimateHours() {
+        return climateHours;
+    }
+
+    /**
+     * Percentiles of the bands, e.g. 5, 25, 50, 75, 95
+     */
+    public int[] getPercentiles() {
+        return percentiles;
+    }
+
+    /**
+     * Time-averaged lifetime multiplier from the start of the forecast to the end of each year
+     */
+    public double[][] getLifetimeMultiplier() {
+        return lifetimeMultiplier;
+    }
+
+    /**
+     * Chemical degradation in % at the end of each year
+     */
+    public double[][] getChemicalDegradation() {
+        return chemicalDegradation;
+    }
+
+    /**
+     * Risk score (0-100, as in the risk table) at the end of each year
+     */
+    public double[][] getRiskScore() {
+        return riskScore;
+    }
+
+    /**
+     * VTT mould index (0-6) at the end of each year
+     */
+    public double[] getMouldIndex() {
+        return mouldIndex;
+    }
+
+    public double[] getMaxMouldIndex() {
+        return maxMouldIndex;
+    }
+
+    /**
+     * Salt cycles from the start of the forecast to the end of each year
+     */
+    public int[] getSaltCycles() {
+        return saltCycles;
+    }
+
+    /**
+     * Cumulative salt damage in % at the end of each year
+     */
+    public double[] getSaltDamage() {
+        return saltDamage;
+    }
+
+    public long getComputedInMillis() {
+        return computedInMillis;
+    }
+}
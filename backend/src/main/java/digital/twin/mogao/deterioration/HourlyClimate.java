@@ -0,0 +1,112 @@
+package digital.twin.mogao.deterioration;
+
+import digital.twin.mogao.timeseries.ReadingKind;
+import digital.twin.mogao.timeseries.Resolution;
+import digital.twin.mogao.timeseries.TimeSeriesStore;
+
+import java.util.Arrays;
+
+/**
+ * Hourly climate of an artifact read from the hour rollups, in columns (°C, %RH, klux)
+ * Hours with a temperature or humidity mean are kept; a kind without a mean in an hour carries
+ * its last value forward, and hours before both temperature and humidity are known are skipped.
+ */
+final class HourlyClimate {
+
+    private static final double KELVIN_OFFSET = DeteriorationModels.KELVIN_OFFSET;
+
+    long[] hours;
+    double[] celsius;
+    double[] rhPercent;
+    double[] lightKlux;
+    int size;
+
+    // Last values, carried forward into the next read
+    double lastCelsius;
+    double lastRhPercent;
+    double lastLightKlux;
+
+    /**
+     * Read the hours [from, to)
+     * @param lightSource Gid of the light readings, or null for darkness
+     * @param celsius, rhPercent, lightKlux Values carried in from before from (NaN, NaN, 0 if none)
+     */
+    HourlyClimate(TimeSeriesStore store, String temperatureSource, String humiditySource, String lightSource,
+                  long from, long to, double celsius, double rhPercent, double lightKlux) {
+        HourlyMeans temperature = hourlyMeans(store, temperatureSource, ReadingKind.TEMPERATURE, from, to);
+        HourlyMeans humidity = hourlyMeans(store, humiditySource, ReadingKind.HUMIDITY, from, to);
+        HourlyMeans light = lightSource != null
+            ? hourlyMeans(store, lightSource, ReadingKind.LIGHT_INTENSITY, from, to) : new HourlyMeans();
+
+        int capacity = temperature.size + humidity.size;
+        this.hours = new long[capacity];
+        this.celsius = new double[capacity];
+        this.rhPercent = new double[capacity];
+        this.lightKlux = new double[capacity];
+        int t = 0;
+        int h = 0;
+        int l = 0;
+        while (t < temperature.size || h < humidity.size) {
+            long hour = Math.min(t < temperature.size ? temperature.hours[t] : Long.MAX_VALUE,
+                h < humidity.size ? humidity.hours[h] : Long.MAX_VALUE);
+            if (t < temperature.size && temperature.hours[t] == hour) {
+                celsius = temperature.means[t++] - KELVIN_OFFSET;
+            }
+            if (h < humidity.size && humidity.hours[h] == hour) {
+                rhPercent = humidity.means[h++];
+            }
+            while (l < light.size && light.hours[l] <= hour) {
+                lightKlux = light.means[l++] / 1000;
+            }
+            if (!Double.isNaN(celsius) && !Double.isNaN(rhPercent)) {
+                this.hours[size] = hour;
+                this.celsius[size] = celsius;
+                this.rhPercent[size] = rhPercent;
+                this.lightKlux[size] = lightKlux;
+                size++;
+            }
+        }
+        lastCelsius = celsius;
+        lastRhPercent = rhPercent;
+        lastLightKlux = lightKlux;
+    }
+
+    /**
+     * Start of the hour of the latest reading of a kind, or Long.MIN_VALUE if there is none
+     */
+    static long latestHour(TimeSeriesStore store, String gid, ReadingKind kind) {
+        long[] latest = {Long.MIN_VALUE};
+        store.latest(gid, kind, (timestamp, value) -> {
+            latest[0] = Resolution.HOUR.bucketOf(timestamp);
+            return true;
+        });
+        return latest[0];
+    }
+
+    private static HourlyMeans hourlyMeans(TimeSeriesStore store, String gid, ReadingKind kind, long from, long to) {
+        HourlyMeans means = new HourlyMeans();
+        store.readRollup(gid, kind, Resolution.HOUR, from, to, means);
+        return means;
+    }
+
+    /**
+     * Mean of each hour bucket, in columns
+     */
+    private static final class HourlyMeans implements TimeSeriesStore.BucketConsumer {
+        private long[] hours = new long[256];
+        private double[] means = new double[256];
+        private int size;
+
+        @Override
+        public boolean accept(long start, long count, double min, double max, double sum, double sumSquares) {
+            if (size == hours.length) {
+                hours = Arrays.copyOf(hours, size * 2);
+                means = Arrays.copyOf(means, size * 2);
+            }
+            hours[size] = start;
+            means[size] = sum / count;
+            size++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package digital.twin.mogao.deterioration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Climate series to integrate, with optional model parameter overrides
+ * Step i holds T_celsius[i], RH_percent[i] and light_klux[i] for stepDays, or until timestamps[i + 1]
+ * when timestamps (epoch milliseconds) are given; the last step then lasts as long as the one before.
+ */
+public class IntegrationRequest {
+
+    private double[] celsius;
+    private double[] rhPercent;
+    private double[] lightKlux;
+    private long[] timestamps;
+    private double stepDays = 1.0 / 24;
+    private double prevMouldIndex;
+    private ChemicalParameters chemicalParams = new ChemicalParameters();
+    private LifetimeParameters lifetimeParams = new LifetimeParameters();
+    private MouldParameters mouldParams = new MouldParameters();
+    private SaltParameters saltCrystParams = new SaltParameters();
+
+    @JsonProperty("T_celsius")
+    public double[] getCelsius() {
+        return celsius;
+    }
+
+    @JsonProperty("T_celsius")
+    public void setCelsius(double[] celsius) {
+        this.celsius = celsius;
+    }
+
+    @JsonProperty("RH_percent")
+    public double[] getRhPercent() {
+        return rhPercent;
+    }
+
+    @JsonProperty("RH_percent")
+    public void setRhPercent(double[] rhPercent) {
+        this.rhPercent = rhPercent;
+    }
+
+    /**
+     * Light intensity in klux per step (darkness if omitted)
+     */
+    @JsonProperty("light_klux")
+    public double[] getLightKlux() {
+        return lightKlux;
+    }
+
+    @JsonProperty("light_klux")
+    public void setLightKlux(double[] lightKlux) {
+        this.lightKlux = lightKlux;
+    }
+
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public void setTimestamps(long[] timestamps) {
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * Length of every step in days when there are no timestamps (default: one hour)
+     */
+    public double getStepDays() {
+        return stepDays;
+    }
+
+    public void setStepDays(double stepDays) {
+        this.stepDays = stepDays;
+    }
+
+    public double getPrevMouldIndex() {
+        return prevMouldIndex;
+    }
+
+    public void setPrevMouldIndex(double prevMouldIndex) {
+        this.prevMouldIndex = prevMouldIndex;
+    }
+
+    public ChemicalParameters getChemicalParams() {
+        return chemicalParams;
+    }
+
+    public void setChemicalParams(ChemicalParameters chemicalParams) {
+        this.chemicalParams = chemicalParams != null ? chemicalParams : new ChemicalParameters();
+    }
+
+    public LifetimeParameters getLifetimeParams() {
+        return lifetimeParams;
+    }
+
+    public void setLifetimeParams(LifetimeParameters lifetimeParams) {
+        this.lifetimeParams = lifetimeParams != null ? lifetimeParams : new LifetimeParameters();
+    }
+
+    public MouldParameters getMouldParams() {
+        return mouldParams;
+    }
+
+    public void setMouldParams(MouldParameters mouldParams) {
+        this.mouldParams = mouldParams != null ? mouldParams : new MouldParameters();
+    }
+
+    public SaltParameters getSaltCrystParams() {
+        return saltCrystParams;
+    }
+
+    public void setSaltCrystParams(SaltParameters saltCrystParams) {
+        this.saltCrystParams = saltCrystParams != null ? saltCrystParams : new SaltParameters();
+    }
+}
@@ -0,0 +1,57 @@
+package digital.twin.mogao.deterioration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Parameters of the Michalski / Climate for Culture lifetime multiplier
+ * JSON names follow LIFETIME_DEFAULTS in frontend/deterioration/DeteriorationEngine.js.
+ */
+public class LifetimeParameters {
+
+    // J/mol - activation energy
+    private double ea = 70000;
+    // Humidity exponent
+    private double n = 1.3;
+    // Reference temperature in °C
+    private double t0 = 20;
+    // Reference relative humidity in %
+    private double rh0 = 50;
+
+    @JsonProperty("Ea")
+    public double getEa() {
+        return ea;
+    }
+
+    @JsonProperty("Ea")
+    public void setEa(double ea) {
+        this.ea = ea;
+    }
+
+    public double getN() {
+        return n;
+    }
+
+    public void setN(double n) {
+        this.n = n;
+    }
+
+    @JsonProperty("T0")
+    public double getT0() {
+        return t0;
+    }
+
+    @JsonProperty("T0")
+    public void setT0(double t0) {
+        this.t0 = t0;
+    }
+
+    @JsonProperty("RH0")
+    public double getRh0() {
+        return rh0;
+    }
+
+    @JsonProperty("RH0")
+    public void setRh0(double rh0) {
+        this.rh0 = rh0;
+    }
+}
@@ -0,0 +1,399 @@
+package digital.twin.mogao.deterioration;
+
+import java.util.Arrays;
+
+/**
+ * A positive function of temperature (°C) and relative humidity (%) tabulated on a grid and read
+ * back by bilinear interpolation
+ *
+ * Each axis is cut into bands one unit wide (1 °C, 1 %RH), and each band into as many equal
+ * cells as the function's curvature there needs for the requested relative error: the isotherm
+ * and (RH₀/RH)^n are steep near RH 0 and 100 %, the Arrhenius terms at low temperatures, so
+ * a uniform grid fine enough there would be mostly wasted.
+ *
+ * On a cell the error of bilinear interpolation is at most
+ * (hT²/8)·max|∂²f/∂T²| + (hRH²/8)·max|∂²f/∂RH²|. The maxima of the second derivatives are not
+ * known in closed form for the tabulated models, so getErrorEstimate() evaluates this formula
+ * over every cell, relative to the smallest corner value, with the second derivatives taken
+ * from second differences of the grid and doubled as a margin for their variation within a
+ * cell. It is an estimate, not a bound: curvature varying faster than the grid resolves can
+ * make the error larger.
+ * Points outside the grid (or NaN) are evaluated with the function itself.
+ *
+ * Several functions can share one grid (fine enough for each of them), their values stored
+ * side by side per node, so values() locates the cell once for all of them.
+ */
+public final class LookupSurface {
+
+    // Probe points per band the curvature is first estimated on
+    private static final int PROBES_PER_BAND = 10;
+    // Margin on second differences for the variation of the curvature within a cell
+    private static final double CURVATURE_MARGIN = 2;
+    // Rebuilds with finer bands where the grid's own error estimate is above the tolerance
+    private static final int REFINEMENTS = 3;
+
+    private final SurfaceFunction[] functions;
+    private final Axis t;
+    private final Axis rh;
+    private final double[] values;
+    private final double errorEstimate;
+
+    /**
+     * Tabulate the function over [tMin, tMax] × [rhMin, rhMax] (whole numbers of bands)
+     * @param tolerance Relative error aimed for
+     * @param maxNodes Most grid nodes; with fewer than the tolerance needs, the error is larger
+     */
+    public LookupSurface(SurfaceFunction function, int tMin, int tMax, int rhMin, int rhMax,
+                         double tolerance, int maxNodes) {
+        this(new SurfaceFunction[] {function}, tMin, tMax, rhMin, rhMax, tolerance, maxNodes);
+    }
+
+    /**
+     * Tabulate several functions on one grid over [tMin, tMax] × [rhMin, rhMax]
+     * @param tolerance Relative error aimed for, for every function
+     * @param maxNodes Most grid nodes; with fewer than the tolerance needs, the error is larger
+     */
+    public LookupSurface(SurfaceFunction[] functions, int tMin, int tMax, int rhMin, int rhMax,
+                         double tolerance, int maxNodes) {
+        if (tMax <= tMin || rhMax <= rhMin) {
+            throw new IllegalArgumentException("Empty surface domain");
+        }
+        if (functions.length == 0) {
+            throw new IllegalArgumentException("No surface function");
+        }
+        this.functions = functions.clone();
+
+        // Half the tolerance for each axis: h²/8 · curvature ≤ tolerance / 2, for the steepest function
+        int[] tCells = new int[tMax - tMin];
+        int[] rhCells = new int[rhMax - rhMin];
+        for (SurfaceFunction function : functions) {
+            double[][] curvature = curvature(function, tMin, tMax, rhMin, rhMax);
+            max(tCells, cells(curvature[0], tolerance));
+            max(rhCells, cells(curvature[1], tolerance));
+        }
+        Axis tAxis;
+        Axis rhAxis;
+        double[][] grids = new double[functions.length][];
+        double estimate;
+        for (int refinement = 0; ; refinement++) {
+            double scale = Math.sqrt((double) maxNodes / ((long) (sum(tCells) + 1) * (sum(rhCells) + 1)));
+            boolean capped = scale < 1;
+            if (capped) {
+                // Coarsen both axes alike
+                coarsen(tCells, scale);
+                coarsen(rhCells, scale);
+            }
+            tAxis = new Axis(tMin, tCells);
+            rhAxis = new Axis(rhMin, rhCells);
+
+            // The probe grid may miss some curvature: refine the bands still above the tolerance
+            double[] tErrors = new double[tAxis.bands];
+            double[] rhErrors = new double[rhAxis.bands];
+            estimate = 0;
+            for (int f = 0; f < functions.length; f++) {
+                grids[f] = tabulate(functions[f], tAxis, rhAxis);
+                estimate = Math.max(estimate, errorEstimate(tAxis, rhAxis, grids[f], tErrors, rhErrors));
+            }
+            if (estimate <= tolerance || capped || refinement == REFINEMENTS) {
+                break;
+            }
+            refine(tCells, tErrors, tolerance);
+            refine(rhCells, rhErrors, tolerance);
+        }
+        t = tAxis;
+        rh = rhAxis;
+        values = interleave(grids);
+        errorEstimate = estimate;
+    }
+
+    /**
+     * Interpolated value at (celsius, rhPercent), of the first function
+     */
+    public double value(double celsius, double rhPercent) {
+        double u = celsius - t.min;
+        double v = rhPercent - rh.min;
+        if (!(u >= 0 && u <= t.bands && v >= 0 && v <= rh.bands)) {
+            return functions[0].apply(celsius, rhPercent);
+        }
+        int tBand = Math.min((int) u, t.bands - 1);
+        int rhBand = Math.min((int) v, rh.bands - 1);
+        double x = (u - tBand) * t.cellsPerUnit[tBand];
+        double y = (v - rhBand) * rh.cellsPerUnit[rhBand];
+        int xCell = Math.min((int) x, t.cellsPerUnit[tBand] - 1);
+        int yCell = Math.min((int) y, rh.cellsPerUnit[rhBand] - 1);
+        double fx = x - xCell;
+        double fy = y - yCell;
+
+        int count = functions.length;
+        int rowStride = rh.nodes.length * count;
+        int k = ((t.firstCell[tBand] + xCell) * rh.nodes.length + rh.firstCell[rhBand] + yCell) * count;
+        double low = values[k] + (values[k + count] - values[k]) * fy;
+        double high = values[k + rowStride] + (values[k + rowStride + count] - values[k + rowStride]) * fy;
+        return low + (high - low) * fx;
+    }
+
+    /**
+     * Interpolated values of every function at (celsius, rhPercent), in the order they were given
+     * @param out Array of at least getFunctions() elements the values are written to
+     */
+    public void values(double celsius, double rhPercent, double[] out) {
+        int count = functions.length;
+        double u = celsius - t.min;
+        double v = rhPercent - rh.min;
+        if (!(u >= 0 && u <= t.bands && v >= 0 && v <= rh.bands)) {
+            for (int f = 0; f < count; f++) {
+                out[f] = functions[f].apply(celsius, rhPercent);
+            }
+            return;
+        }
+        int tBand = Math.min((int) u, t.bands - 1);
+        int rhBand = Math.min((int) v, rh.bands - 1);
+        double x = (u - tBand) * t.cellsPerUnit[tBand];
+        double y = (v - rhBand) * rh.cellsPerUnit[rhBand];
+        int xCell = Math.min((int) x, t.cellsPerUnit[tBand] - 1);
+        int yCell = Math.min((int) y, rh.cellsPerUnit[rhBand] - 1);
+        double fx = x - xCell;
+        double fy = y - yCell;
+
+        int rowStride = rh.nodes.length * count;
+        int k = ((t.firstCell[tBand] + xCell) * rh.nodes.length + rh.firstCell[rhBand] + yCell) * count;
+        for (int f = 0; f < count; f++, k++) {
+            double low = values[k] + (values[k + count] - values[k]) * fy;
+            double high = values[k + rowStride] + (values[k + rowStride + count] - values[k + rowStride]) * fy;
+            out[f] = low + (high - low) * fx;
+        }
+    }
+
+    /**
+     * Estimate of the largest relative interpolation error inside the grid, from the grid's
+     * second differences (not a guaranteed bound)
+     */
+    public double getErrorEstimate() {
+        return errorEstimate;
+    }
+
+    public int getNodes() {
+        return values.length / functions.length;
+    }
+
+    /**
+     * Number of functions tabulated on the grid
+     */
+    public int getFunctions() {
+        return functions.length;
+    }
+
+    public long getBytes() {
+        return 8L * values.length;
+    }
+
+    /**
+     * Largest relative second differences |f''| / f in each T and each RH band, on a probe grid
+     * of PROBES_PER_BAND points per band
+     */
+    private static double[][] curvature(SurfaceFunction function, int tMin, int tMax, int rhMin, int rhMax) {
+        int tCount = (tMax - tMin) * PROBES_PER_BAND + 1;
+        int rhCount = (rhMax - rhMin) * PROBES_PER_BAND + 1;
+        double step = 1.0 / PROBES_PER_BAND;
+        double[] probe = new double[tCount * rhCount];
+        for (int i = 0; i < tCount; i++) {
+            for (int j = 0; j < rhCount; j++) {
+                probe[i * rhCount + j] = function.apply(tMin + i * step, rhMin + j * step);
+            }
+        }
+        double[] tCurvature = new double[tMax - tMin];
+        double[] rhCurvature = new double[rhMax - rhMin];
+        for (int i = 0; i < tCount; i++) {
+            for (int j = 0; j < rhCount; j++) {
+                int k = i * rhCount + j;
+                if (i > 0 && i < tCount - 1) {
+                    double second = Math.abs(probe[k - rhCount] - 2 * probe[k] + probe[k + rhCount]) / (step * step)
+                        / minOf(probe[k - rhCount], probe[k], probe[k + rhCount]);
+                    // A probe on a band edge counts for both bands
+                    int band = Math.min((i - 1) / PROBES_PER_BAND, tCurvature.length - 1);
+                    tCurvature[band] = Math.max(tCurvature[band], second);
+                    int next = Math.min((i + 1) / PROBES_PER_BAND, tCurvature.length - 1);
+                    tCurvature[next] = Math.max(tCurvature[next], second);
+                }
+                if (j > 0 && j < rhCount - 1) {
+                    double second = Math.abs(probe[k - 1] - 2 * probe[k] + probe[k + 1]) / (step * step)
+                        / minOf(probe[k - 1], probe[k], probe[k + 1]);
+                    int band = Math.min((j - 1) / PROBES_PER_BAND, rhCurvature.length - 1);
+                    rhCurvature[band] = Math.max(rhCurvature[band], second);
+                    int next = Math.min((j + 1) / PROBES_PER_BAND, rhCurvature.length - 1);
+                    rhCurvature[next] = Math.max(rhCurvature[next], second);
+                }
+            }
+        }
+        return new double[][] {tCurvature, rhCurvature};
+    }
+
+    /**
+     * Cells per band for h²/8 · curvature · margin ≤ tolerance / 2
+     */
+    private static int[] cells(double[] curvature, double tolerance) {
+        int[] cells = new int[curvature.length];
+        for (int band = 0; band < curvature.length; band++) {
+            double needed = curvature[band] * CURVATURE_MARGIN;
+            cells[band] = needed <= 0 ? 1 : (int) Math.min(1 << 16, Math.max(1, Math.ceil(Math.sqrt(needed / (4 * tolerance)))));
+        }
+        return cells;
+    }
+
+    /**
+     * Raise each band's cells to at least the other function's
+     */
+    private static void max(int[] cells, int[] other) {
+        for (int band = 0; band < cells.length; band++) {
+            cells[band] = Math.max(cells[band], other[band]);
+        }
+    }
+
+    private static void coarsen(int[] cells, double scale) {
+        for (int band = 0; band < cells.length; band++) {
+            cells[band] = Math.max(1, (int) (cells[band] * scale));
+        }
+    }
+
+    private static int sum(int[] cells) {
+        return Arrays.stream(cells).sum();
+    }
+
+    private static double[] tabulate(SurfaceFunction function, Axis t, Axis rh) {
+        int rhNodes = rh.nodes.length;
+        double[] values = new double[t.nodes.length * rhNodes];
+        for (int i = 0; i < t.nodes.length; i++) {
+            for (int j = 0; j < rhNodes; j++) {
+                values[i * rhNodes + j] = function.apply(t.nodes[i], rh.nodes[j]);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Values of every function side by side per node
+     */
+    private static double[] interleave(double[][] grids) {
+        int count = grids.length;
+        double[] values = new double[grids[0].length * count];
+        for (int f = 0; f < count; f++) {
+            for (int k = 0; k < grids[f].length; k++) {
+                values[k * count + f] = grids[f][k];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Scale up the cells of each band whose share of the error is above tolerance / 2
+     */
+    private static void refine(int[] cells, double[] errors, double tolerance) {
+        for (int band = 0; band < cells.length; band++) {
+            if (errors[band] > tolerance / 2) {
+                cells[band] = (int) Math.min(1 << 16, Math.ceil(cells[band] * Math.sqrt(errors[band] / (tolerance / 2)) * 1.05));
+            }
+        }
+    }
+
+    /**
+     * Largest estimated error of a cell from the grid's own second differences (a node's
+     * curvature applies to the cells next to it)
+     * @param tErrors, rhErrors Filled with the largest T and RH shares of the estimate in each band
+     */
+    private static double errorEstimate(Axis t, Axis rh, double[] values, double[] tErrors, double[] rhErrors) {
+        int tNodes = t.nodes.length;
+        int rhNodes = rh.nodes.length;
+        double[] tSecond = new double[values.length];
+        double[] rhSecond = new double[values.length];
+        for (int i = 0; i < tNodes; i++) {
+            for (int j = 0; j < rhNodes; j++) {
+                int k = i * rhNodes + j;
+                int ti = Math.max(1, Math.min(tNodes - 2, i));
+                int rj = Math.max(1, Math.min(rhNodes - 2, j));
+                tSecond[k] = tNodes < 3 ? 0 : second(t.nodes, ti,
+                    values[(ti - 1) * rhNodes + j], values[ti * rhNodes + j], values[(ti + 1) * rhNodes + j]);
+                rhSecond[k] = rhNodes < 3 ? 0 : second(rh.nodes, rj,
+                    values[i * rhNodes + rj - 1], values[i * rhNodes + rj], values[i * rhNodes + rj + 1]);
+            }
+        }
+
+        double estimate = 0;
+        for (int i = 0; i < tNodes - 1; i++) {
+            double tStep = t.nodes[i + 1] - t.nodes[i];
+            int tBand = t.bandOf(i);
+            for (int j = 0; j < rhNodes - 1; j++) {
+                double rhStep = rh.nodes[j + 1] - rh.nodes[j];
+                int rhBand = rh.bandOf(j);
+                int k = i * rhNodes + j;
+                double tCurvature = Math.max(Math.max(tSecond[k], tSecond[k + 1]),
+                    Math.max(tSecond[k + rhNodes], tSecond[k + rhNodes + 1]));
+                double rhCurvature = Math.max(Math.max(rhSecond[k], rhSecond[k + 1]),
+                    Math.max(rhSecond[k + rhNodes], rhSecond[k + rhNodes + 1]));
+                double smallest = Math.min(minOf(values[k], values[k + 1], values[k + rhNodes]), values[k + rhNodes + 1]);
+                double tError = CURVATURE_MARGIN * tStep * tStep * tCurvature / 8 / smallest;
+                double rhError = CURVATURE_MARGIN * rhStep * rhStep * rhCurvature / 8 / smallest;
+                tErrors[tBand] = Math.max(tErrors[tBand], tError);
+                rhErrors[rhBand] = Math.max(rhErrors[rhBand], rhError);
+                estimate = Math.max(estimate, tError + rhError);
+            }
+        }
+        return estimate;
+    }
+
+    /**
+     * |f''| at node i of an unevenly spaced axis from the values at nodes i − 1, i, i + 1
+     */
+    private static double second(double[] nodes, int i, double before, double at, double after) {
+        double hBefore = nodes[i] - nodes[i - 1];
+        double hAfter = nodes[i + 1] - nodes[i];
+        return Math.abs(2 * ((after - at) / hAfter - (at - before) / hBefore) / (hBefore + hAfter));
+    }
+
+    private static double minOf(double a, double b, double c) {
+        return Math.min(a, Math.min(b, c));
+    }
+
+    /**
+     * Grid axis of unit bands, each split into equal cells
+     */
+    private static final class Axis {
+        private final double min;
+        private final int bands;
+        private final int[] cellsPerUnit;
+        // Index of the first cell (and node) of each band
+        private final int[] firstCell;
+        private final double[] nodes;
+
+        Axis(int min, int[] cellsPerUnit) {
+            this.min = min;
+            this.bands = cellsPerUnit.length;
+            this.cellsPerUnit = cellsPerUnit;
+            firstCell = new int[bands];
+            nodes = new double[sum(cellsPerUnit) + 1];
+            int cell = 0;
+            for (int band = 0; band < bands; band++) {
+                firstCell[band] = cell;
+                for (int c = 0; c < cellsPerUnit[band]; c++) {
+                    nodes[cell++] = min + band + (double) c / cellsPerUnit[band];
+                }
+            }
+            nodes[cell] = min + bands;
+        }
+
+        /**
+         * Band of the cell starting at a node
+         */
+        int bandOf(int cell) {
+            int band = Arrays.binarySearch(firstCell, cell);
+            return band >= 0 ? band : -band - 2;
+        }
+    }
+
+    /**
+     * Function of temperature in °C and relative humidity in %
+     */
+    @FunctionalInterface
+    public interface SurfaceFunction {
+        double apply(double celsius, double rhPercent);
+    }
+}
@@ -0,0 +1,324 @@
+package digital.twin.mogao.deterioration;
+
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of lookup surfaces of the deterioration models, keyed by model and parameter set
+ * Tabulates over T −30..60 °C and RH 1..99 %:
+ * - the inverse lifetime multiplier 1/LM (LifetimeParameters)
+ * - the dark and the per-klux^p light fading rate constants (ChemicalParameters)
+ * - the Paltakari-Karlsson moisture content
+ * - the climate terms of the ClimateIntegrator (the first three) on one shared grid
+ * so hot loops read them by bilinear interpolation instead of calling log, pow and exp.
+ *
+ * Surfaces not used for mogao.surfaces.expire-after seconds are evicted, as are the least
+ * recently used beyond mogao.surfaces.max-bytes.
+ */
+@Singleton
+public class LookupSurfaces {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LookupSurfaces.class);
+
+    private static final int T_MIN = -30;
+    private static final int T_MAX = 60;
+    private static final int RH_MIN = 1;
+    private static final int RH_MAX = 99;
+    private static final int MAX_NODES = 1 << 20;
+
+    private final boolean enabled;
+    private final double tolerance;
+    private final long maxBytes;
+    private final long expireAfterMillis;
+
+    // Surfaces in access order (least recently used first)
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder buildMillis = new LongAdder();
+
+    @Inject
+    public LookupSurfaces(@Value("${mogao.surfaces.enabled:true}") boolean enabled,
+                          @Value("${mogao.surfaces.tolerance:1e-3}") double tolerance,
+                          @Value("${mogao.surfaces.max-bytes:67108864}") long maxBytes,
+                          @Value("${mogao.surfaces.expire-after:600}") long expireAfterSeconds) {
+        this.enabled = enabled;
+        this.tolerance = tolerance;
+        this.maxBytes = maxBytes;
+        this.expireAfterMillis = TimeUnit.SECONDS.toMillis(expireAfterSeconds);
+    }
+
+    /**
+     * Whether hot loops should use the surfaces (mogao.surfaces.enabled)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 1/LM over (T, RH)
+     */
+    public LookupSurface inverseLifetime(LifetimeParameters lifetime) {
+        LifetimeParameters params = copyOf(lifetime);
+        return get(lifetimeKey(params), inverseLifetimeFunction(params));
+    }
+
+    /**
+     * Dark fading rate constant k0_dark · [H₂O]^q · exp(−Ea_dark / RT), per day
+     */
+    public LookupSurface darkRate(ChemicalParameters chemical) {
+        ChemicalParameters params = copyOf(chemical);
+        return get(darkKey(params), darkRateFunction(params));
+    }
+
+    /**
+     * Light fading rate constant per klux^p, k0_light · [H₂O]^q · exp(−Ea_light / RT)
+     */
+    public LookupSurface lightRate(ChemicalParameters chemical) {
+        ChemicalParameters params = copyOf(chemical);
+        return get(lightKey(params), lightRateFunction(params));
+    }
+
+    /**
+     * 1/LM and the dark and light fading rate constants on one grid, in that order
+     */
+    public LookupSurface climateTerms(ChemicalParameters chemical, LifetimeParameters lifetime) {
+        ChemicalParameters chemicalParams = copyOf(chemical);
+        LifetimeParameters lifetimeParams = copyOf(lifetime);
+        String key = "climate:" + lifetimeKey(lifetimeParams) + ";" + darkKey(chemicalParams) + ";" + lightKey(chemicalParams);
+        return get(key, inverseLifetimeFunction(lifetimeParams), darkRateFunction(chemicalParams),
+            lightRateFunction(chemicalParams));
+    }
+
+    /**
+     * Equilibrium moisture content [H₂O] over (T, RH)
+     */
+    public LookupSurface moistureContent() {
+        return get("moisture", (celsius, rhPercent) ->
+            DeteriorationModels.moistureContent(rhPercent / 100.0, celsius + DeteriorationModels.KELVIN_OFFSET));
+    }
+
+    /**
+     * Surfaces a ClimateIntegrator with these parameters reads instead of the formulas
+     */
+    public ClimateIntegrator.Surfaces forIntegrator(ChemicalParameters chemical, LifetimeParameters lifetime) {
+        return new ClimateIntegrator.Surfaces(climateTerms(chemical, lifetime));
+    }
+
+    /**
+     * Drop every surface
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Point-in-time cache metrics (expired surfaces are evicted first)
+     */
+    public synchronized Metrics getMetrics() {
+        expire(System.currentTimeMillis());
+        return new Metrics(enabled, tolerance, hits.sum(), misses.sum(), evictions.sum(), entries.size(), bytes,
+            maxBytes, buildMillis.sum());
+    }
+
+    /**
+     * The cached surface, or a new one (built under the lock, so a parameter set is only
+     * tabulated once however many threads ask for it)
+     */
+    private synchronized LookupSurface get(String key, LookupSurface.SurfaceFunction... functions) {
+        long now = System.currentTimeMillis();
+        expire(now);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits.increment();
+            entry.lastAccess = now;
+            return entry.surface;
+        }
+        misses.increment();
+
+        long start = System.currentTimeMillis();
+        LookupSurface surface = new LookupSurface(functions, T_MIN, T_MAX, RH_MIN, RH_MAX, tolerance, MAX_NODES);
+        long elapsed = System.currentTimeMillis() - start;
+        buildMillis.add(elapsed);
+        LOG.info("Built {} surface: {} nodes, estimated error {} in {} ms", key, surface.getNodes(), surface.getErrorEstimate(),
+            elapsed);
+
+        entries.put(key, new Entry(surface, now));
+        bytes += surface.getBytes();
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            if (evicted.getKey().equals(key)) {
+                continue;
+            }
+            eldest.remove();
+            bytes -= evicted.getValue().surface.getBytes();
+            evictions.increment();
+        }
+        return surface;
+    }
+
+    private static String lifetimeKey(LifetimeParameters params) {
+        return "lifetime:" + params.getEa() + "," + params.getN() + "," + params.getT0() + "," + params.getRh0();
+    }
+
+    private static String darkKey(ChemicalParameters params) {
+        return "dark:" + params.getEaDark() + "," + params.getK0Dark() + "," + params.getQ();
+    }
+
+    private static String lightKey(ChemicalParameters params) {
+        return "light:" + params.getEaLight() + "," + params.getK0Light() + "," + params.getQ();
+    }
+
+    private static LookupSurface.SurfaceFunction inverseLifetimeFunction(LifetimeParameters params) {
+        return (celsius, rhPercent) -> 1 / DeteriorationModels.lifetimeMultiplier(celsius, rhPercent, params);
+    }
+
+    private static LookupSurface.SurfaceFunction darkRateFunction(ChemicalParameters params) {
+        return (celsius, rhPercent) -> DeteriorationModels.rateConstant(celsius, rhPercent, 0, params);
+    }
+
+    private static LookupSurface.SurfaceFunction lightRateFunction(ChemicalParameters params) {
+        return (celsius, rhPercent) -> {
+            double kelvin = celsius + DeteriorationModels.KELVIN_OFFSET;
+            return params.getK0Light() * Math.pow(DeteriorationModels.moistureContent(rhPercent / 100.0, kelvin), params.getQ())
+                * Math.exp(-params.getEaLight() / (DeteriorationModels.R * kelvin));
+        };
+    }
+
+    /**
+     * Evict the surfaces not used for expireAfterMillis
+     */
+    private void expire(long now) {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext()) {
+            Entry entry = eldest.next();
+            if (now - entry.lastAccess < expireAfterMillis) {
+                break;
+            }
+            eldest.remove();
+            bytes -= entry.surface.getBytes();
+            evictions.increment();
+        }
+    }
+
+    // The surface functions keep their own parameters, as the callers' may change later
+    private static LifetimeParameters copyOf(LifetimeParameters params) {
+        LifetimeParameters copy = new LifetimeParameters();
+        copy.setEa(params.getEa());
+        copy.setN(params.getN());
+        copy.setT0(params.getT0());
+        copy.setRh0(params.getRh0());
+        return copy;
+    }
+
+    private static ChemicalParameters copyOf(ChemicalParameters params) {
+        ChemicalParameters copy = new ChemicalParameters();
+        copy.setEaDark(params.getEaDark());
+        copy.setEaLight(params.getEaLight());
+        copy.setK0Dark(params.getK0Dark());
+        copy.setK0Light(params.getK0Light());
+        copy.setQ(params.getQ());
+        copy.setP(params.getP());
+        return copy;
+    }
+
+    private static class Entry {
+        private final LookupSurface surface;
+        private long lastAccess;
+
+        Entry(LookupSurface surface, long lastAccess) {
+            this.surface = surface;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counts and current size of the cache
+     */
+    public static class Metrics {
+        private final boolean enabled;
+        private final double tolerance;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int surfaces;
+        private final long bytes;
+        private final long maxBytes;
+        private final long buildMillis;
+
+        Metrics(boolean enabled, double tolerance, long hits, long misses, long evictions, int surfaces, long bytes,
+                long maxBytes, long buildMillis) {
+            this.enabled = enabled;
+            this.tolerance = tolerance;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.surfaces = surfaces;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+            this.buildMillis = buildMillis;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Relative interpolation error the surfaces are built for
+         */
+        public double getTolerance() {
+            return tolerance;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Lookups that built a surface
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Surfaces evicted after expire-after seconds unused or beyond maxBytes
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSurfaces() {
+            return surfaces;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        /**
+         * Time spent building surfaces
+         */
+        public long getBuildMillis() {
+            return buildMillis;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package digital.twin.mogao.deterioration;
+
+/**
+ * Parameters of the VTT mould growth model
+ * JSON names follow MOULD_DEFAULTS in frontend/deterioration/DeteriorationEngine.js.
+ */
+public class MouldParameters {
+
+    // Growth rate coefficient
+    private double growthCoeff = 0.13;
+    // Decline rate per day when dry
+    private double declineRate = -0.128;
+
+    public double getGrowthCoeff() {
+        return growthCoeff;
+    }
+
+    public void setGrowthCoeff(double growthCoeff) {
+        this.growthCoeff = growthCoeff;
+    }
+
+    public double getDeclineRate() {
+        return declineRate;
+    }
+
+    public void setDeclineRate(double declineRate) {
+        this.declineRate = declineRate;
+    }
+}
@@ -0,0 +1,55 @@
+package digital.twin.mogao.deterioration;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached risk state of one artifact: its ClimateState and how far its climate has been read
+ * Hours are integrated in order and never revisited (the time-series store only appends), so
+ * advancing the cached state with new hours gives the same result as starting over.
+ */
+final class RiskState {
+
+    static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    // Series gids the climate is read from; a change of source means starting over
+    final String temperatureSource;
+    final String humiditySource;
+    final String lightSource;
+
+    final ClimateState climate = new ClimateState();
+
+    // First hour not yet read
+    long nextHour = Long.MIN_VALUE;
+
+    // Last values seen, carried forward over hours without a reading of that kind
+    double celsius = Double.NaN;
+    double rhPercent = Double.NaN;
+    double lightKlux;
+
+    // First and last hour integrated
+    long firstHour = Long.MIN_VALUE;
+    long lastHour;
+
+    RiskState(String temperatureSource, String humiditySource, String lightSource) {
+        this.temperatureSource = temperatureSource;
+        this.humiditySource = humiditySource;
+        this.lightSource = lightSource;
+    }
+
+    boolean hasSources(String temperature, String humidity, String light) {
+        return Objects.equals(temperatureSource, temperature) && Objects.equals(humiditySource, humidity)
+            && Objects.equals(lightSource, light);
+    }
+
+    ArtifactRisk toRisk(ArtifactRef artifact) {
+        ArtifactRisk risk = new ArtifactRisk(artifact, temperatureSource);
+        if (climate.getSteps() == 0) {
+            return risk;
+        }
+        risk.setHistory(firstHour, lastHour + HOUR_MILLIS, climate.getSteps());
+        risk.setScores(climate.getLifetimeMultiplier(), climate.getMouldIndex(), climate.getMaxMouldIndex(),
+            climate.getSaltCycles(), climate.getSaltDamage(), climate.getChemicalDegradation());
+        return risk;
+    }
+}
@@ -0,0 +1,79 @@
+package digital.twin.mogao.deterioration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Parameters of the salt crystallization model (defaults: sodium sulphate in plaster)
+ * JSON names follow SALT_DEFAULTS in frontend/deterioration/DeteriorationEngine.js.
+ */
+public class SaltParameters {
+
+    // m³/mol - molar volume of Na₂SO₄ (thenardite)
+    private double vm = 5.33e-5;
+    // % - deliquescence RH at tRef
+    private double drhRef = 84.2;
+    // %/°C - temperature coefficient of the deliquescence RH
+    private double drhSlope = -0.17;
+    // °C - reference temperature of drhRef
+    private double tRef = 25;
+    // MPa - tensile strength of the substrate
+    private double tensileStrength = 3.0;
+    // Wet-dry cycles per year
+    private double cyclesPerYear = 120;
+
+    @JsonProperty("Vm")
+    public double getVm() {
+        return vm;
+    }
+
+    @JsonProperty("Vm")
+    public void setVm(double vm) {
+        this.vm = vm;
+    }
+
+    @JsonProperty("DRH_ref")
+    public double getDrhRef() {
+        return drhRef;
+    }
+
+    @JsonProperty("DRH_ref")
+    public void setDrhRef(double drhRef) {
+        this.drhRef = drhRef;
+    }
+
+    @JsonProperty("DRH_slope")
+    public double getDrhSlope() {
+        return drhSlope;
+    }
+
+    @JsonProperty("DRH_slope")
+    public void setDrhSlope(double drhSlope) {
+        this.drhSlope = drhSlope;
+    }
+
+    @JsonProperty("T_ref")
+    public double getTRef() {
+        return tRef;
+    }
+
+    @JsonProperty("T_ref")
+    public void setTRef(double tRef) {
+        this.tRef = tRef;
+    }
+
+    public double getTensileStrength() {
+        return tensileStrength;
+    }
+
+    public void setTensileStrength(double tensileStrength) {
+        this.tensileStrength = tensileStrength;
+    }
+
+    public double getCyclesPerYear() {
+        return cyclesPerYear;
+    }
+
+    public void setCyclesPerYear(double cyclesPerYear) {
+        this.cyclesPerYear = cyclesPerYear;
+    }
+}
@@ -0,0 +1,116 @@
+package digital.twin.mogao.deterioration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One artifact under one set-point of a sweep: its state after its recorded climate history
+ * followed by the set-point for the scenario's years
+ * Scores are those of the risk table (the lifetime multiplier is time-averaged over history and
+ * scenario), so an artifact without history is scored on the set-point alone.
+ */
+public class ScenarioResult {
+
+    private final String gid;
+    private final String type;
+    private final long historyHours;
+    private final double celsius;
+    private final double rhPercent;
+    private final double lightKlux;
+    private final double years;
+    private final double lifetimeMultiplier;
+    private final double mouldIndex;
+    private final int saltCycles;
+    private final double saltDamage;
+    private final double chemicalDegradation;
+    private final double riskScore;
+    private final String label;
+
+    ScenarioResult(ArtifactRef artifact, long historyHours, double celsius, double rhPercent, double lightKlux,
+                   double years, ClimateState state) {
+        this.gid = artifact.gid;
+        this.type = artifact.type;
+        this.historyHours = historyHours;
+        this.celsius = celsius;
+        this.rhPercent = rhPercent;
+        this.lightKlux = lightKlux;
+        this.years = years;
+        this.lifetimeMultiplier = state.getLifetimeMultiplier();
+        this.mouldIndex = state.getMouldIndex();
+        this.saltCycles = state.getSaltCycles();
+        this.saltDamage = state.getSaltDamage();
+        this.chemicalDegradation = state.getChemicalDegradation();
+        this.riskScore = ArtifactRisk.riskScore(lifetimeMultiplier, mouldIndex, saltDamage, chemicalDegradation);
+        this.label = ArtifactRisk.riskLabel(riskScore);
+    }
+
+    public String getGid() {
+        return gid;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Hours of recorded climate before the scenario
+     */
+    public long getHistoryHours() {
+        return historyHours;
+    }
+
+    @JsonProperty("T_celsius")
+    public double getCelsius() {
+        return celsius;
+    }
+
+    @JsonProperty("RH_percent")
+    public double getRhPercent() {
+        return rhPercent;
+    }
+
+    @JsonProperty("light_klux")
+    public double getLightKlux() {
+        return lightKlux;
+    }
+
+    public double getYears() {
+        return years;
+    }
+
+    public double getLifetimeMultiplier() {
+        return lifetimeMultiplier;
+    }
+
+    /**
+     * VTT mould index (0-6) at the end of the scenario
+     */
+    public double getMouldIndex() {
+        return mouldIndex;
+    }
+
+    public int getSaltCycles() {
+        return saltCycles;
+    }
+
+    /**
+     * Cumulative salt damage in % at the end of the scenario
+     */
+    public double getSaltDamage() {
+        return saltDamage;
+    }
+
+    /**
+     * Chemical degradation in % at the end of the scenario
+     */
+    public double getChemicalDegradation() {
+        return chemicalDegradation;
+    }
+
+    public double getRiskScore() {
+        return riskScore;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,147 @@
+package digital.twin.mogao.deterioration;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Climate-control what-if sweeps
+ * Evaluates a grid of set-points (T × RH × light × years, as the simulation panel's presets) for
+ * many artifacts at once, each starting from the state of its recorded climate history as kept by
+ * the FleetRiskScorer. A set-point held constant is one step of the ClimateIntegrator lasting the
+ * scenario's years: every model is linear in time under a constant climate, so a single step
+ * gives the same state as hourly ones, and a scenario costs a few hundred nanoseconds.
+ *
+ * Artifacts are evaluated in parallel on the risk scorer's fork-join pool (reading their history
+ * is the larger part of the work) and streamed as they complete, see SweepStream.
+ */
+@Singleton
+public class ScenarioSweep {
+
+    // Set-points per artifact
+    public static final int MAX_CELLS = 10000;
+    public static final double MAX_YEARS = 1000;
+
+    private final FleetRiskScorer scorer;
+    private final ClimateIntegrator integrator = new ClimateIntegrator();
+
+    @Inject
+    public ScenarioSweep(FleetRiskScorer scorer) {
+        this.scorer = scorer;
+    }
+
+    /**
+     * Stream of the results of every artifact under every set-point
+     * @throws IllegalArgumentException if a grid axis is missing or out of range, the grid has more than
+     *         MAX_CELLS set-points, or a gid is not a heritage artifact
+     */
+    public SweepStream<ScenarioResult> sweep(SweepRequest request) {
+        double[] celsius = request.getCelsius();
+        double[] rhPercent = request.getRhPercent();
+        double[] lightKlux = request.getLightKlux();
+        double[] years = request.getYears();
+        if (celsius == null || rhPercent == null || lightKlux == null || years == null
+                || celsius.length == 0 || rhPercent.length == 0 || lightKlux.length == 0 || years.length == 0) {
+            throw new IllegalArgumentException("T_celsius, RH_percent and years must each have at least one value");
+        }
+        long cells = (long) celsius.length * rhPercent.length * lightKlux.length * years.length;
+        if (cells > MAX_CELLS) {
+            throw new IllegalArgumentException("The grid has " + cells + " set-points, at most " + MAX_CELLS + " are allowed");
+        }
+        check(celsius, -50, 100, "T_celsius");
+        check(rhPercent, 0, 100, "RH_percent");
+        check(lightKlux, 0, 1000, "light_klux");
+        check(years, 0, MAX_YEARS, "years");
+        for (double value : years) {
+            if (value == 0) {
+                throw new IllegalArgumentException("years must be above 0");
+            }
+        }
+
+        List<ArtifactRef> artifacts = select(request.getGids(), request.getType());
+        Function<ArtifactRef, List<ScenarioResult>> evaluator =
+            artifact -> Arrays.asList(evaluate(artifact, celsius, rhPercent, lightKlux, years, (int) cells));
+        int window = 2 * scorer.pool().getParallelism();
+        return new SweepStream<>(artifacts, (int) cells, evaluator, scorer.pool(), window);
+    }
+
+    /**
+     * The requested artifacts in request order, or all (of the type) in model order
+     */
+    private List<ArtifactRef> select(List<String> gids, String type) {
+        List<ArtifactRef> all = scorer.artifacts();
+        if (gids == null) {
+            List<ArtifactRef> selected = new ArrayList<>();
+            for (ArtifactRef artifact : all) {
+                if (type == null || type.equals(artifact.type) || ("Exhibit".equals(type) && !"Cave".equals(artifact.type))) {
+                    selected.add(artifact);
+                }
+            }
+            return selected;
+        }
+
+        Map<String, ArtifactRef> byGid = new HashMap<>();
+        for (ArtifactRef artifact : all) {
+            byGid.put(artifact.gid, artifact);
+        }
+        List<ArtifactRef> selected = new ArrayList<>();
+        Set<String> unknown = new LinkedHashSet<>();
+        for (String gid : new LinkedHashSet<>(gids)) {
+            ArtifactRef artifact = byGid.get(gid);
+            if (artifact != null) {
+                selected.add(artifact);
+            } else {
+                unknown.add(gid);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Not heritage artifacts: " + String.join(", ", unknown));
+        }
+        return selected;
+    }
+
+    /**
+     * The artifact's history state continued with every set-point, in grid order
+     */
+    private ScenarioResult[] evaluate(ArtifactRef artifact, double[] celsius, double[] rhPercent, double[] lightKlux,
+                                      double[] years, int cells) {
+        ClimateState history = scorer.climateOf(artifact);
+        ScenarioResult[] results = new ScenarioResult[cells];
+        double[] t = new double[1];
+        double[] rh = new double[1];
+        double[] klux = new double[1];
+        int cell = 0;
+        for (double eachCelsius : celsius) {
+            t[0] = eachCelsius;
+            for (double eachRh : rhPercent) {
+                rh[0] = eachRh;
+                for (double eachKlux : lightKlux) {
+                    klux[0] = eachKlux;
+                    for (double eachYears : years) {
+                        ClimateState state = history.copy();
+                        integrator.integrate(state, t, rh, klux, eachYears * DeteriorationModels.DAYS_PER_YEAR, 0, 1);
+                        results[cell++] = new ScenarioResult(artifact, history.getSteps(), eachCelsius, eachRh,
+                            eachKlux, eachYears, state);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static void check(double[] values, double min, double max, String name) {
+        for (double value : values) {
+            if (!(value >= min && value <= max)) {
+                throw new IllegalArgumentException(name + " must be between " + min + " and " + max + ": " + value);
+            }
+        }
+    }
+}
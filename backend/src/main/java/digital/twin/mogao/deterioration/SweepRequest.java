@@ -0,0 +1,84 @@
+package digital.twin.mogao.deterioration;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Grid of climate set-points to evaluate for a set of artifacts
+ * Every combination of T_celsius × RH_percent × light_klux × years is a scenario: the set-point
+ * held constant for that many years, e.g. the simulation panel's presets
+ * {"T_celsius": [20, 25, 30, 40], "RH_percent": [50, 60, 80, 100], "light_klux": [0.15, 5, 10, 30], "years": [1, 10, 50, 100]}
+ */
+public class SweepRequest {
+
+    private List<String> gids;
+    private String type;
+    private double[] celsius;
+    private double[] rhPercent;
+    private double[] lightKlux = {0};
+    private double[] years;
+
+    /**
+     * Artifacts to evaluate (all, or all of the type, if omitted)
+     */
+    public List<String> getGids() {
+        return gids;
+    }
+
+    public void setGids(List<String> gids) {
+        this.gids = gids;
+    }
+
+    /**
+     * Cave, Exhibit, or an exhibit class (Statue, Mural, Painting, Inscription) when gids are omitted
+     */
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    @JsonProperty("T_celsius")
+    public double[] getCelsius() {
+        return celsius;
+    }
+
+    @JsonProperty("T_celsius")
+    public void setCelsius(double[] celsius) {
+        this.celsius = celsius;
+    }
+
+    @JsonProperty("RH_percent")
+    public double[] getRhPercent() {
+        return rhPercent;
+    }
+
+    @JsonProperty("RH_percent")
+    public void setRhPercent(double[] rhPercent) {
+        this.rhPercent = rhPercent;
+    }
+
+    /**
+     * Light intensities in klux (darkness only if omitted)
+     */
+    @JsonProperty("light_klux")
+    public double[] getLightKlux() {
+        return lightKlux;
+    }
+
+    @JsonProperty("light_klux")
+    public void setLightKlux(double[] lightKlux) {
+        this.lightKlux = lightKlux;
+    }
+
+    public double[] getYears() {
+        return years;
+    }
+
+    public void setYears(double[] years) {
+        this.years = years;
+    }
+}
@@ -0,0 +1,188 @@
+package digital.twin.mogao.deterioration;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Publisher of the results of a scenario sweep, artifact by artifact
+ * Artifacts are evaluated in parallel on the executor, at most window of them ahead of the
+ * subscriber (the HTTP response writer), so a sweep over the whole site is written as it is
+ * computed and only a few artifacts' results are held in memory. Results come in the order of
+ * the artifacts, and of the grid within an artifact. Conversions (map, perArtifact) run with the
+ * evaluation, in parallel.
+ *
+ * Single use, like ModelStream.
+ */
+public class SweepStream<T> implements Publisher<T> {
+
+    private final List<ArtifactRef> artifacts;
+    private final int cells;
+    // Items of one artifact
+    private final Function<ArtifactRef, List<T>> evaluator;
+    private final ExecutorService executor;
+    private final int window;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    SweepStream(List<ArtifactRef> artifacts, int cells, Function<ArtifactRef, List<T>> evaluator,
+                ExecutorService executor, int window) {
+        this.artifacts = artifacts;
+        this.cells = cells;
+        this.evaluator = evaluator;
+        this.executor = executor;
+        this.window = window;
+    }
+
+    /**
+     * Number of results: artifacts × set-points
+     */
+    public long getTotal() {
+        return (long) artifacts.size() * cells;
+    }
+
+    /**
+     * Stream of the same results with a further conversion applied (e.g. serialisation)
+     */
+    public <R> SweepStream<R> map(Function<? super T, R> mapper) {
+        return new SweepStream<>(artifacts, cells, evaluator.andThen(items -> {
+            List<R> mapped = new ArrayList<>(items.size());
+            for (T item : items) {
+                mapped.add(mapper.apply(item));
+            }
+            return mapped;
+        }), executor, window);
+    }
+
+    /**
+     * Stream of one item per artifact combining its items, e.g. their JSON lines into one chunk
+     * (far fewer writes than one per result)
+     */
+    public <R> SweepStream<R> perArtifact(Function<? super List<T>, R> combiner) {
+        return new SweepStream<>(artifacts, cells,
+            evaluator.andThen(items -> Collections.singletonList(combiner.apply(items))), executor, window);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("SweepStream allows only one subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new SweepSubscription(subscriber));
+    }
+
+    /**
+     * Keeps up to window artifacts evaluating and emits the oldest one's results as they are
+     * requested; drain() is entered by one thread at a time, from request() or from an
+     * evaluation completing
+     */
+    private class SweepSubscription implements Subscription {
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger draining = new AtomicInteger();
+        private volatile boolean cancelled;
+
+        // Evaluations in artifact order; only touched inside drain()
+        private final ArrayDeque<CompletableFuture<List<T>>> pending = new ArrayDeque<>();
+        private int submitted;
+        private List<T> batch;
+        private int row;
+
+        SweepSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Request must be positive: " + n));
+                return;
+            }
+            requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        private void drain() {
+            if (draining.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!cancelled) {
+                    while (submitted < artifacts.size() && pending.size() < window) {
+                        ArtifactRef artifact = artifacts.get(submitted++);
+                        CompletableFuture<List<T>> evaluation =
+                            CompletableFuture.supplyAsync(() -> evaluator.apply(artifact), executor);
+                        pending.add(evaluation);
+                        evaluation.whenComplete((results, error) -> drain());
+                    }
+
+                    if (batch != null && row < batch.size()) {
+                        if (requested.get() == 0) {
+                            break;
+                        }
+                        requested.decrementAndGet();
+                        subscriber.onNext(batch.get(row++));
+                        continue;
+                    }
+
+                    CompletableFuture<List<T>> next = pending.peek();
+                    if (next == null) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (!next.isDone()) {
+                        break;
+                    }
+                    pending.poll();
+                    try {
+                        batch = next.join();
+                        row = 0;
+                    } catch (CompletionException e) {
+                        fail(e.getCause() != null ? e.getCause() : e);
+                        return;
+                    }
+                }
+                if (cancelled) {
+                    // Evaluations already running finish on their own; their results are dropped
+                    pending.clear();
+                    batch = null;
+                }
+            } while (draining.decrementAndGet() != 0);
+        }
+
+        private void fail(Throwable t) {
+            cancelled = true;
+            pending.clear();
+            batch = null;
+            subscriber.onError(t);
+        }
+    }
+}
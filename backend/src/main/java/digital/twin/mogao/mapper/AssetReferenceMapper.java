@@ -0,0 +1,93 @@
+package digital.twin.mogao.mapper;
+
+import digital.twin.mogao.dto.AssetReferenceDTO;
+import digital.twin.mogao.util.DtoView;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+
+/**
+ * AssetReference Mapper
+ * Copies AssetReference objects to DTOs by feature ID instead of looking features up by name
+ * Auto-generated from mogao_dt.ecore model
+ */
+public final class AssetReferenceMapper {
+
+    // Feature IDs in AssetReference.eAllStructuralFeatures (resolved by the generator)
+    public static final int GID = 0;
+    public static final int MODEL_LOCATION = 1;
+    public static final int METADATA_LOCATION = 2;
+    public static final int TEXTURE_LOCATION = 3;
+
+    // Feature names, to check the IDs against the metamodel the model was loaded with
+    private static final int[] FEATURE_IDS = {
+        GID,
+        MODEL_LOCATION,
+        METADATA_LOCATION,
+        TEXTURE_LOCATION
+    };
+    private static final String[] FEATURE_NAMES = {
+        "gid",
+        "modelLocation",
+        "metadataLocation",
+        "textureLocation"
+    };
+
+    // Last EClass the feature IDs were checked against
+    private static volatile EClass verifiedClass;
+
+    private AssetReferenceMapper() {
+    }
+
+    /**
+     * Convert a AssetReference EObject to a DTO
+     */
+    public static AssetReferenceDTO toDTO(EObject eObject) {
+        return toDTO(eObject, DtoView.ALL);
+    }
+
+    /**
+     * Convert a AssetReference EObject to a DTO, filling in only the properties in the view
+     * and traversing only the containment references it descends into
+     */
+    public static AssetReferenceDTO toDTO(EObject eObject, DtoView view) {
+        if (eObject == null) return null;
+
+        InternalEObject object = (InternalEObject) eObject;
+        verify(object.eClass());
+        AssetReferenceDTO dto = new AssetReferenceDTO();
+
+        if (view.includes("gid")) {
+            dto.setGid((String) object.eGet(GID, true, true));
+        }
+        if (view.includes("modelLocation")) {
+            dto.setModelLocation((String) object.eGet(MODEL_LOCATION, true, true));
+        }
+        if (view.includes("metadataLocation")) {
+            dto.setMetadataLocation((String) object.eGet(METADATA_LOCATION, true, true));
+        }
+        if (view.includes("textureLocation")) {
+            dto.setTextureLocation((String) object.eGet(TEXTURE_LOCATION, true, true));
+        }
+
+        return dto;
+    }
+
+    /**
+     * Check the generated feature IDs against an EClass (once per EClass instance)
+     */
+    private static void verify(EClass eClass) {
+        if (eClass == verifiedClass) {
+            return;
+        }
+        for (int i = 0; i < FEATURE_IDS.length; i++) {
+            EStructuralFeature feature = eClass.getEStructuralFeature(FEATURE_IDS[i]);
+            if (feature == null || !feature.getName().equals(FEATURE_NAMES[i])) {
+                throw new IllegalStateException("AssetReferenceMapper does not match EClass " + eClass.getName()
+                    + " (feature " + FEATURE_NAMES[i] + "); regenerate the mappers");
+            }
+        }
+        verifiedClass = eClass;
+    }
+}
@@ -0,0 +1,75 @@
+package digital.twin.mogao.mapper;
+
+import digital.twin.mogao.dto.CoordinatesDTO;
+import digital.twin.mogao.util.DtoView;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+
+/**
+ * Coordinates Mapper
+ * Copies Coordinates objects to DTOs by feature ID instead of looking features up by name
+ * Auto-generated from mogao_dt.ecore model
+ */
+public final class CoordinatesMapper {
+
+    // Feature IDs in Coordinates.eAllStructuralFeatures (resolved by the generator)
+    public static final int GID = 0;
+
+    // Feature names, to check the IDs against the metamodel the model was loaded with
+    private static final int[] FEATURE_IDS = {
+        GID
+    };
+    private static final String[] FEATURE_NAMES = {
+        "gid"
+    };
+
+    // Last EClass the feature IDs were checked against
+    private static volatile EClass verifiedClass;
+
+    private CoordinatesMapper() {
+    }
+
+    /**
+     * Convert a Coordinates EObject to a DTO
+     */
+    public static CoordinatesDTO toDTO(EObject eObject) {
+        return toDTO(eObject, DtoView.ALL);
+    }
+
+    /**
+     * Convert a Coordinates EObject to a DTO, filling in only the properties in the view
+     * and traversing only the containment references it descends into
+     */
+    public static CoordinatesDTO toDTO(EObject eObject, DtoView view) {
+        if (eObject == null) return null;
+
+        InternalEObject object = (InternalEObject) eObject;
+        verify(object.eClass());
+        CoordinatesDTO dto = new CoordinatesDTO();
+
+        if (view.includes("gid")) {
+            dto.setGid((String) object.eGet(GID, true, true));
+        }
+
+        return dto;
+    }
+
+    /**
+     * Check the generated feature IDs against an EClass (once per EClass instance)
+     */
+    private static void verify(EClass eClass) {
+        if (eClass == verifiedClass) {
+            return;
+        }
+        for (int i = 0; i < FEATURE_IDS.length; i++) {
+            EStructuralFeature feature = eClass.getEStructuralFeature(FEATURE_IDS[i]);
+            if (feature == null || !feature.getName().equals(FEATURE_NAMES[i])) {
+                throw new IllegalStateException("CoordinatesMapper does not match EClass " + eClass.getName()
+                    + " (feature " + FEATURE_NAMES[i] + "); regenerate the mappers");
+            }
+        }
+        verifiedClass = eClass;
+    }
+}
@@ -0,0 +1,146 @@
+package digital.twin.mogao.mapper;
+
+import digital.twin.mogao.dto.DefectDTO;
+import digital.twin.mogao.util.DtoView;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+
+/**
+ * Defect Mapper
+ * Copies Defect objects to DTOs by feature ID instead of looking features up by name
+ * Auto-generated from mogao_dt.ecore model
+ */
+public final class DefectMapper {
+
+    // Feature IDs in Defect.eAllStructuralFeatures (resolved by the generator)
+    public static final int GID = 0;
+    public static final int NAME = 1;
+    public static final int DESCRIPTION = 2;
+    public static final int DEFECT_TYPE = 5;
+    public static final int SEVERITY = 6;
+    public static final int DETECTION_DATE = 7;
+    public static final int AFFECTED_AREA = 8;
+    public static final int TREATMENT_HISTORY = 9;
+    public static final int REQUIRES_IMMEDIATE_ACTION = 10;
+    public static final int REFERENCE = 3;
+    public static final int COORDINATES = 4;
+
+    // Feature names, to check the IDs against the metamodel the model was loaded with
+    private static final int[] FEATURE_IDS = {
+        GID,
+        NAME,
+        DESCRIPTION,
+        DEFECT_TYPE,
+        SEVERITY,
+        DETECTION_DATE,
+        AFFECTED_AREA,
+        TREATMENT_HISTORY,
+        REQUIRES_IMMEDIATE_ACTION,
+        REFERENCE,
+        COORDINATES
+    };
+    private static final String[] FEATURE_NAMES = {
+        "gid",
+        "name",
+        "description",
+        "defectType",
+        "severity",
+        "detectionDate",
+        "affectedArea",
+        "treatmentHistory",
+        "requiresImmediateAction",
+        "reference",
+        "coordinates"
+    };
+
+    // Last EClass the feature IDs were checked against
+    private static volatile EClass verifiedClass;
+
+    private DefectMapper() {
+    }
+
+    /**
+     * Convert a Defect EObject to a DTO
+     */
+    public static DefectDTO toDTO(EObject eObject) {
+        return toDTO(eObject, DtoView.ALL);
+    }
+
+    /**
+     * Convert a Defect EObject to a DTO, filling in only the properties in the view
+     * and traversing only the containment references it descends into
+     */
+    public static DefectDTO toDTO(EObject eObject, DtoView view) {
+        if (eObject == null) return null;
+
+        InternalEObject object = (InternalEObject) eObject;
+        verify(object.eClass());
+        DefectDTO dto = new DefectDTO();
+
+        if (view.includes("gid")) {
+            dto.setGid((String) object.eGet(GID, true, true));
+        }
+        if (view.includes("name")) {
+            dto.setName((String) object.eGet(NAME, true, true));
+        }
+        if (view.includes("description")) {
+            dto.setDescription((String) object.eGet(DESCRIPTION, true, true));
+        }
+        Object defectTypeVal = view.includes("defectType") ? object.eGet(DEFECT_TYPE, true, true) : null;
+        if (defectTypeVal != null) {
+            dto.setDefectType(defectTypeVal.toString());
+        }
+        Object severityVal = view.includes("severity") ? object.eGet(SEVERITY, true, true) : null;
+        if (severityVal != null) {
+            dto.setSeverity(severityVal.toString());
+        }
+        Object detectionDateVal = view.includes("detectionDate") ? object.eGet(DETECTION_DATE, true, true) : null;
+        if (detectionDateVal != null) {
+            dto.setDetectionDate(((Number) detectionDateVal).longValue());
+        }
+        Object affectedAreaVal = view.includes("affectedArea") ? object.eGet(AFFECTED_AREA, true, true) : null;
+        if (affectedAreaVal != null) {
+            dto.setAffectedArea(((Number) affectedAreaVal).doubleValue());
+        }
+        if (view.includes("treatmentHistory")) {
+            dto.setTreatmentHistory((String) object.eGet(TREATMENT_HISTORY, true, true));
+        }
+        Object requiresImmediateActionVal = view.includes("requiresImmediateAction") ? object.eGet(REQUIRES_IMMEDIATE_ACTION, true, true) : null;
+        if (requiresImmediateActionVal != null) {
+            dto.setRequiresImmediateAction((Boolean) requiresImmediateActionVal);
+        }
+
+        // Composite reference: reference
+        Object referenceObj = view.descends("reference") ? object.eGet(REFERENCE, true, true) : null;
+        if (referenceObj != null) {
+            dto.setReference(AssetReferenceMapper.toDTO((EObject) referenceObj, view.child("reference")));
+        }
+
+        // Composite reference: coordinates
+        Object coordinatesObj = view.descends("coordinates") ? object.eGet(COORDINATES, true, true) : null;
+        if (coordinatesObj != null) {
+            dto.setCoordinates(CoordinatesMapper.toDTO((EObject) coordinatesObj, view.child("coordinates")));
+        }
+
+        return dto;
+    }
+
+    /**
+     * Check the generated feature IDs against an EClass (once per EClass instance)
+     */
+    private static void verify(EClass eClass) {
+        if (eClass == verifiedClass) {
+            return;
+        }
+        for (int i = 0; i < FEATURE_IDS.length; i++) {
+            EStructuralFeature feature = eClass.getEStructuralFeature(FEATURE_IDS[i]);
+            if (feature == null || !feature.getName().equals(FEATURE_NAMES[i])) {
+                throw new IllegalStateException("DefectMapper does not match EClass " + eClass.getName()
+                    + " (feature " + FEATURE_NAMES[i] + "); regenerate the mappers");
+            }
+        }
+        verifiedClass = eClass;
+    }
+}
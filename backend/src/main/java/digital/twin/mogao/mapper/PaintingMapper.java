@@ -0,0 +1,169 @@
+package digital.twin.mogao.mapper;
+
+import digital.twin.mogao.dto.PaintingDTO;
+import digital.twin.mogao.util.DtoView;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+
+/**
+ * Painting Mapper
+ * Copies Painting objects to DTOs by feature ID instead of looking features up by name
+ * Auto-generated from mogao_dt.ecore model
+ */
+public final class PaintingMapper {
+
+    // Feature IDs in Painting.eAllStructuralFeatures (resolved by the generator)
+    public static final int GID = 0;
+    public static final int NAME = 1;
+    public static final int DESCRIPTION = 2;
+    public static final int LABEL = 5;
+    public static final int CREATION_PERIOD = 6;
+    public static final int LAST_INSPECTION_DATE = 7;
+    public static final int INSPECTION_NOTES = 8;
+    public static final int MATERIAL = 11;
+    public static final int PERIOD = 12;
+    public static final int CONSERVATION_STATUS = 13;
+    public static final int WIDTH = 14;
+    public static final int HEIGHT = 15;
+    public static final int STYLE = 16;
+    public static final int REFERENCE = 3;
+    public static final int COORDINATES = 4;
+
+    // Feature names, to check the IDs against the metamodel the model was loaded with
+    private static final int[] FEATURE_IDS = {
+        GID,
+        NAME,
+        DESCRIPTION,
+        LABEL,
+        CREATION_PERIOD,
+        LAST_INSPECTION_DATE,
+        INSPECTION_NOTES,
+        MATERIAL,
+        PERIOD,
+        CONSERVATION_STATUS,
+        WIDTH,
+        HEIGHT,
+        STYLE,
+        REFERENCE,
+        COORDINATES
+    };
+    private static final String[] FEATURE_NAMES = {
+        "gid",
+        "name",
+        "description",
+        "label",
+        "creationPeriod",
+        "lastInspectionDate",
+        "inspectionNotes",
+        "material",
+        "period",
+        "conservationStatus",
+        "width",
+        "height",
+        "style",
+        "reference",
+        "coordinates"
+    };
+
+    // Last EClass the feature IDs were checked against
+    private static volatile EClass verifiedClass;
+
+    private PaintingMapper() {
+    }
+
+    /**
+     * Convert a Painting EObject to a DTO
+     */
+    public static PaintingDTO toDTO(EObject eObject) {
+        return toDTO(eObject, DtoView.ALL);
+    }
+
+    /**
+     * Convert a Painting EObject to a DTO, filling in only the properties in the view
+     * and traversing only the containment references it descends into
+     */
+    public static PaintingDTO toDTO(EObject eObject, DtoView view) {
+        if (eObject == null) return null;
+
+        InternalEObject object = (InternalEObject) eObject;
+        verify(object.eClass());
+        PaintingDTO dto = new PaintingDTO();
+
+        if (view.includes("gid")) {
+            dto.setGid((String) object.eGet(GID, true, true));
+        }
+        if (view.includes("name")) {
+            dto.setName((String) object.eGet(NAME, true, true));
+        }
+        if (view.includes("description")) {
+            dto.setDescription((String) object.eGet(DESCRIPTION, true, true));
+        }
+        if (view.includes("label")) {
+            dto.setLabel((String) object.eGet(LABEL, true, true));
+        }
+        if (view.includes("creationPeriod")) {
+            dto.setCreationPeriod((String) object.eGet(CREATION_PERIOD, true, true));
+        }
+        Object lastInspectionDateVal = view.includes("lastInspectionDate") ? object.eGet(LAST_INSPECTION_DATE, true, true) : null;
+        if (lastInspectionDateVal != null) {
+            dto.setLastInspectionDate(((Number) lastInspectionDateVal).longValue());
+        }
+        if (view.includes("inspectionNotes")) {
+            dto.setInspectionNotes((String) object.eGet(INSPECTION_NOTES, true, true));
+        }
+        if (view.includes("material")) {
+            dto.setMaterial((String) object.eGet(MATERIAL, true, true));
+        }
+        if (view.includes("period")) {
+            dto.setPeriod((String) object.eGet(PERIOD, true, true));
+        }
+        Object conservationStatusVal = view.includes("conservationStatus") ? object.eGet(CONSERVATION_STATUS, true, true) : null;
+        if (conservationStatusVal != null) {
+            dto.setConservationStatus(conservationStatusVal.toString());
+        }
+        Object widthVal = view.includes("width") ? object.eGet(WIDTH, true, true) : null;
+        if (widthVal != null) {
+            dto.setWidth(((Number) widthVal).doubleValue());
+        }
+        Object heightVal = view.includes("height") ? object.eGet(HEIGHT, true, true) : null;
+        if (heightVal != null) {
+            dto.setHeight(((Number) heightVal).doubleValue());
+        }
+        if (view.includes("style")) {
+            dto.setStyle((String) object.eGet(STYLE, true, true));
+        }
+
+        // Composite reference: reference
+        Object referenceObj = view.descends("reference") ? object.eGet(REFERENCE, true, true) : null;
+        if (referenceObj != null) {
+            dto.setReference(AssetReferenceMapper.toDTO((EObject) referenceObj, view.child("reference")));
+        }
+
+        // Composite reference: coordinates
+        Object coordinatesObj = view.descends("coordinates") ? object.eGet(COORDINATES, true, true) : null;
+        if (coordinatesObj != null) {
+            dto.setCoordinates(CoordinatesMapper.toDTO((EObject) coordinatesObj, view.child("coordinates")));
+        }
+
+        return dto;
+    }
+
+    /**
+     * Check the generated feature IDs against an EClass (once per EClass instance)
+     */
+    private static void verify(EClass eClass) {
+        if (eClass == verifiedClass) {
+            return;
+        }
+        for (int i = 0; i < FEATURE_IDS.length; i++) {
+            EStructuralFeature feature = eClass.getEStructuralFeature(FEATURE_IDS[i]);
+            if (feature == null || !feature.getName().equals(FEATURE_NAMES[i])) {
+                throw new IllegalStateException("PaintingMapper does not match EClass " + eClass.getName()
+                    + " (feature " + FEATURE_NAMES[i] + "); regenerate the mappers");
+            }
+        }
+        verifiedClass = eClass;
+    }
+}
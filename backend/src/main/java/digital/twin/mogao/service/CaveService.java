@@ -1,14 +1,16 @@
 package digital.twin.mogao.service;
 
 import digital.twin.mogao.dto.CaveDTO;
+import digital.twin.mogao.mapper.CaveMapper;
+import digital.twin.mogao.util.DtoView;
 import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ModelQuery;
+import digital.twin.mogao.util.ModelStream;
+import digital.twin.mogao.util.Stamped;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Cave Business Service
  * Handles operations on Cave model objects
@@ -29,27 +31,51 @@ public class CaveService {
     }
 
     /**
-     * Get all Cave objects from the model
+     * Stream Cave objects matching a query, converting each one as it is written
+     * @param view Properties and depth to convert
      */
-    public List<CaveDTO> getAllCaves() {
+    public ModelStream<CaveDTO> streamCaves(ModelQuery query, DtoView view) {
         try {
-            LOG.info("Getting all Cave objects");
+            return modelManager.streamQuery(query, obj -> convertToDTO(obj, view));
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error("Failed to stream Cave objects", e);
+            throw new RuntimeException("Failed to stream Cave objects: " + e.getMessage(), e);
+        }
+    }
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getAllCaves");
+    /**
+     * Current model version (changes with every committed write)
+     */
+    public long getModelVersion() {
+        try {
+            return modelManager.getModelVersion();
+
+        } catch (Exception e) {
+            LOG.error("Failed to get model version", e);
+            throw new RuntimeException("Failed to get model version: " + e.getMessage(), e);
+        }
+    }
 
-            // Convert model objects to DTOs
-            if (result instanceof java.util.Collection) {
-                java.util.Collection<?> collection = (java.util.Collection<?>) result;
-                return collection.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-            }
+    /**
+     * Model version of the last change to a Cave (or to anything it contains)
+     */
+    public long getCaveVersion(String gid) {
+        return modelManager.getModificationStamp(gid);
+    }
 
-            return java.util.Collections.emptyList();
+    /**
+     * Whether a Cave with the GID exists
+     */
+    public boolean caveExists(String gid) {
+        try {
+            return modelManager.exists(gid, "Cave");
 
         } catch (Exception e) {
-            LOG.error("Failed to get Cave objects", e);
-            throw new RuntimeException("Failed to get Cave objects: " + e.getMessage(), e);
+            LOG.error("Failed to look up Cave with GID: {}", gid, e);
+            throw new RuntimeException("Failed to look up Cave: " + e.getMessage(), e);
         }
     }
 
@@ -57,17 +83,35 @@ public class CaveService {
      * Get Cave by GID
      */
     public CaveDTO getCaveByGid(String gid) {
+        return getCaveByGid(gid, DtoView.ALL);
+    }
+
+    /**
+     * Get Cave by GID, converting only what the view asks for
+     */
+    public CaveDTO getCaveByGid(String gid, DtoView view) {
         try {
             LOG.info("Getting Cave with GID: {}", gid);
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getCaveByGid", gid);
+            // Convert model object to DTO while its snapshot is still held
+            return modelManager.executeEolRead(SCRIPT_PATH, "getCaveByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
-            // Convert model object to DTO
-            if (result != null) {
-                return convertToDTO(result);
-            }
+        } catch (Exception e) {
+            LOG.error("Failed to get Cave with GID: {}", gid, e);
+            throw new RuntimeException("Failed to get Cave: " + e.getMessage(), e);
+        }
+    }
 
-            return null;
+    /**
+     * Get Cave by GID with the version of its last change, both read from the same model version
+     */
+    public Stamped<CaveDTO> getStampedCave(String gid, DtoView view) {
+        try {
+            LOG.info("Getting stamped Cave with GID: {}", gid);
+
+            return modelManager.executeEolReadStamped(SCRIPT_PATH, "getCaveByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
         } catch (Exception e) {
             LOG.error("Failed to get Cave with GID: {}", gid, e);
@@ -77,15 +121,27 @@ public class CaveService {
 
     /**
      * Create new Cave
+     * Creation, nested updates and the returned DTO share one loaded model and one save
      */
     public CaveDTO createCave(CaveDTO dto) {
         try {
             LOG.info("Creating new Cave");
 
-            // Create operation with DTO data
-            // TODO: Implement creation logic
+            // Generate GID if not provided
+            String gid = dto.getGid() != null && !dto.getGid().isEmpty()
+                ? dto.getGid()
+                : "cave-" + java.util.UUID.randomUUID().toString().substring(0, 8);
+
+            return modelManager.executeUnitOfWork(SCRIPT_PATH, tx -> {
+                // Create cave with basic fields
+                tx.call("createCave", gid, dto.getName(), dto.getLabel());
+
+                // Apply additional fields
+                applyUpdates(tx, gid, dto);
 
-            return dto;
+                // Return the created cave from the same context
+                return convertToDTO(tx.call("getCaveByGid", gid));
+            });
 
         } catch (Exception e) {
             LOG.error("Failed to create Cave", e);
@@ -100,21 +156,11 @@ public class CaveService {
         try {
             LOG.info("Updating Cave with GID: {}", gid);
 
-            // Update basic fields using EOL operation
-            modelManager.executeEolOperation(SCRIPT_PATH, "updateCave",
-                gid, dto.getName(), dto.getDescription());
-
-            // Update AssetReference if present
-            if (dto.getReference() != null) {
-                digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
-                modelManager.executeEolOperation(SCRIPT_PATH, "updateCaveReference",
-                    gid,
-                    refDTO.getModelLocation(),
-                    refDTO.getMetadataLocation(),
-                    refDTO.getTextureLocation());
-            }
-
-            // Model is automatically saved by executeEolOperation for update operations
+            // All updates are saved together (locked on the cave the object belongs to)
+            modelManager.executeUnitOfWork(SCRIPT_PATH, gid, tx -> {
+                applyUpdates(tx, gid, dto);
+                return null;
+            });
 
             LOG.info("Cave updated successfully: {}", gid);
 
@@ -139,52 +185,39 @@ public class CaveService {
         }
     }
 
+    /**
+     * Apply DTO fields to an existing Cave within a unit of work
+     */
+    private void applyUpdates(EpsilonModelManager.Transaction tx, String gid, CaveDTO dto) throws Exception {
+        // Update basic fields using EOL operation
+        tx.call("updateCave", gid, dto.getName(), dto.getDescription());
+
+        // Update AssetReference if present
+        if (dto.getReference() != null) {
+            digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
+            tx.call("updateCaveReference",
+                gid,
+                refDTO.getModelLocation(),
+                refDTO.getMetadataLocation(),
+                refDTO.getTextureLocation());
+        }
+    }
+
     /**
      * Convert EMF EObject to DTO
      */
     private CaveDTO convertToDTO(Object obj) {
+        return convertToDTO(obj, DtoView.ALL);
+    }
+
+    /**
+     * Convert EMF EObject to DTO, skipping what the view leaves out
+     */
+    private CaveDTO convertToDTO(Object obj, DtoView view) {
         if (obj == null) return null;
 
         try {
-            org.eclipse.emf.ecore.EObject eObject = (org.eclipse.emf.ecore.EObject) obj;
-            CaveDTO dto = new CaveDTO();
-
-            dto.setGid((String) eObject.eGet(eObject.eClass().getEStructuralFeature("gid")));
-            dto.setName((String) eObject.eGet(eObject.eClass().getEStructuralFeature("name")));
-            dto.setDescription((String) eObject.eGet(eObject.eClass().getEStructuralFeature("description")));
-            dto.setLabel((String) eObject.eGet(eObject.eClass().getEStructuralFeature("label")));
-            dto.setCreationPeriod((String) eObject.eGet(eObject.eClass().getEStructuralFeature("creationPeriod")));
-            Object lastInspectionDateVal = eObject.eGet(eObject.eClass().getEStructuralFeature("lastInspectionDate"));
-            if (lastInspectionDateVal != null) {
-                dto.setLastInspectionDate(((Number) lastInspectionDateVal).longValue());
-            }
-            dto.setInspectionNotes((String) eObject.eGet(eObject.eClass().getEStructuralFeature("inspectionNotes")));
-
-            // Handle composite reference: reference
-            Object referenceObj = eObject.eGet(eObject.eClass().getEStructuralFeature("reference"));
-            if (referenceObj != null) {
-                org.eclipse.emf.ecore.EObject referenceEObj = (org.eclipse.emf.ecore.EObject) referenceObj;
-                digital.twin.mogao.dto.AssetReferenceDTO referenceDTO = new digital.twin.mogao.dto.AssetReferenceDTO();
-
-                referenceDTO.setGid((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("gid")));
-                referenceDTO.setModelLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("modelLocation")));
-                referenceDTO.setMetadataLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("metadataLocation")));
-                referenceDTO.setTextureLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("textureLocation")));
-
-                dto.setReference(referenceDTO);
-            }
-            // Handle composite reference: coordinates
-            Object coordinatesObj = eObject.eGet(eObject.eClass().getEStructuralFeature("coordinates"));
-            if (coordinatesObj != null) {
-                org.eclipse.emf.ecore.EObject coordinatesEObj = (org.eclipse.emf.ecore.EObject) coordinatesObj;
-                digital.twin.mogao.dto.CoordinatesDTO coordinatesDTO = new digital.twin.mogao.dto.CoordinatesDTO();
-
-                coordinatesDTO.setGid((String) coordinatesEObj.eGet(coordinatesEObj.eClass().getEStructuralFeature("gid")));
-
-                dto.setCoordinates(coordinatesDTO);
-            }
-
-            return dto;
+            return CaveMapper.toDTO((org.eclipse.emf.ecore.EObject) obj, view);
 
         } catch (Exception e) {
             LOG.error("Failed to convert EObject to DTO", e);
@@ -1,14 +1,16 @@
 package digital.twin.mogao.service;
 
 import digital.twin.mogao.dto.DefectDTO;
+import digital.twin.mogao.mapper.DefectMapper;
+import digital.twin.mogao.util.DtoView;
 import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ModelQuery;
+import digital.twin.mogao.util.ModelStream;
+import digital.twin.mogao.util.Stamped;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Defect Business Service
  * Handles operations on Defect model objects
@@ -29,27 +31,51 @@ public class DefectService {
     }
 
     /**
-     * Get all Defect objects from the model
+     * Stream Defect objects matching a query, converting each one as it is written
+     * @param view Properties and depth to convert
      */
-    public List<DefectDTO> getAllDefects() {
+    public ModelStream<DefectDTO> streamDefects(ModelQuery query, DtoView view) {
         try {
-            LOG.info("Getting all Defect objects");
+            return modelManager.streamQuery(query, obj -> convertToDTO(obj, view));
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error("Failed to stream Defect objects", e);
+            throw new RuntimeException("Failed to stream Defect objects: " + e.getMessage(), e);
+        }
+    }
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getAllDefects");
+    /**
+     * Current model version (changes with every committed write)
+     */
+    public long getModelVersion() {
+        try {
+            return modelManager.getModelVersion();
+
+        } catch (Exception e) {
+            LOG.error("Failed to get model version", e);
+            throw new RuntimeException("Failed to get model version: " + e.getMessage(), e);
+        }
+    }
 
-            // Convert model objects to DTOs
-            if (result instanceof java.util.Collection) {
-                java.util.Collection<?> collection = (java.util.Collection<?>) result;
-                return collection.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-            }
+    /**
+     * Model version of the last change to a Defect (or to anything it contains)
+     */
+    public long getDefectVersion(String gid) {
+        return modelManager.getModificationStamp(gid);
+    }
 
-            return java.util.Collections.emptyList();
+    /**
+     * Whether a Defect with the GID exists
+     */
+    public boolean defectExists(String gid) {
+        try {
+            return modelManager.exists(gid, "Defect");
 
         } catch (Exception e) {
-            LOG.error("Failed to get Defect objects", e);
-            throw new RuntimeException("Failed to get Defect objects: " + e.getMessage(), e);
+            LOG.error("Failed to look up Defect with GID: {}", gid, e);
+            throw new RuntimeException("Failed to look up Defect: " + e.getMessage(), e);
         }
     }
 
@@ -57,17 +83,35 @@ public class DefectService {
      * Get Defect by GID
      */
     public DefectDTO getDefectByGid(String gid) {
+        return getDefectByGid(gid, DtoView.ALL);
+    }
+
+    /**
+     * Get Defect by GID, converting only what the view asks for
+     */
+    public DefectDTO getDefectByGid(String gid, DtoView view) {
         try {
             LOG.info("Getting Defect with GID: {}", gid);
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getDefectByGid", gid);
+            // Convert model object to DTO while its snapshot is still held
+            return modelManager.executeEolRead(SCRIPT_PATH, "getDefectByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
-            // Convert model object to DTO
-            if (result != null) {
-                return convertToDTO(result);
-            }
+        } catch (Exception e) {
+            LOG.error("Failed to get Defect with GID: {}", gid, e);
+            throw new RuntimeException("Failed to get Defect: " + e.getMessage(), e);
+        }
+    }
 
-            return null;
+    /**
+     * Get Defect by GID with the version of its last change, both read from the same model version
+     */
+    public Stamped<DefectDTO> getStampedDefect(String gid, DtoView view) {
+        try {
+            LOG.info("Getting stamped Defect with GID: {}", gid);
+
+            return modelManager.executeEolReadStamped(SCRIPT_PATH, "getDefectByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
         } catch (Exception e) {
             LOG.error("Failed to get Defect with GID: {}", gid, e);
@@ -77,15 +121,27 @@ public class DefectService {
 
     /**
      * Create new Defect
+     * Creation, nested updates and the returned DTO share one loaded model and one save
      */
     public DefectDTO createDefect(DefectDTO dto) {
         try {
             LOG.info("Creating new Defect");
 
-            // Create operation with DTO data
-            // TODO: Implement creation logic
+            // Generate GID if not provided
+            String gid = dto.getGid() != null && !dto.getGid().isEmpty()
+                ? dto.getGid()
+                : "defect-" + java.util.UUID.randomUUID().toString().substring(0, 8);
+
+            return modelManager.executeUnitOfWork(SCRIPT_PATH, tx -> {
+                // Create defect with basic fields
+                tx.call("createDefect", gid, dto.getName(), null);
+
+                // Apply additional fields
+                applyUpdates(tx, gid, dto);
 
-            return dto;
+                // Return the created defect from the same context
+                return convertToDTO(tx.call("getDefectByGid", gid));
+            });
 
         } catch (Exception e) {
             LOG.error("Failed to create Defect", e);
@@ -100,21 +156,11 @@ public class DefectService {
         try {
             LOG.info("Updating Defect with GID: {}", gid);
 
-            // Update basic fields using EOL operation
-            modelManager.executeEolOperation(SCRIPT_PATH, "updateDefect",
-                gid, dto.getName(), dto.getDescription());
-
-            // Update AssetReference if present
-            if (dto.getReference() != null) {
-                digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
-                modelManager.executeEolOperation(SCRIPT_PATH, "updateDefectReference",
-                    gid,
-                    refDTO.getModelLocation(),
-                    refDTO.getMetadataLocation(),
-                    refDTO.getTextureLocation());
-            }
-
-            // Model is automatically saved by executeEolOperation for update operations
+            // All updates are saved together (locked on the cave the object belongs to)
+            modelManager.executeUnitOfWork(SCRIPT_PATH, gid, tx -> {
+                applyUpdates(tx, gid, dto);
+                return null;
+            });
 
             LOG.info("Defect updated successfully: {}", gid);
 
@@ -139,66 +185,39 @@ public class DefectService {
         }
     }
 
+    /**
+     * Apply DTO fields to an existing Defect within a unit of work
+     */
+    private void applyUpdates(EpsilonModelManager.Transaction tx, String gid, DefectDTO dto) throws Exception {
+        // Update basic fields using EOL operation
+        tx.call("updateDefect", gid, dto.getName(), dto.getDescription());
+
+        // Update AssetReference if present
+        if (dto.getReference() != null) {
+            digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
+            tx.call("updateDefectReference",
+                gid,
+                refDTO.getModelLocation(),
+                refDTO.getMetadataLocation(),
+                refDTO.getTextureLocation());
+        }
+    }
+
     /**
      * Convert EMF EObject to DTO
      */
     private DefectDTO convertToDTO(Object obj) {
+        return convertToDTO(obj, DtoView.ALL);
+    }
+
+    /**
+     * Convert EMF EObject to DTO, skipping what the view leaves out
+     */
+    private DefectDTO convertToDTO(Object obj, DtoView view) {
         if (obj == null) return null;
 
         try {
-            org.eclipse.emf.ecore.EObject eObject = (org.eclipse.emf.ecore.EObject) obj;
-            DefectDTO dto = new DefectDTO();
-
-            dto.setGid((String) eObject.eGet(eObject.eClass().getEStructuralFeature("gid")));
-            dto.setName((String) eObject.eGet(eObject.eClass().getEStructuralFeature("name")));
-            dto.setDescription((String) eObject.eGet(eObject.eClass().getEStructuralFeature("description")));
-            Object defectTypeVal = eObject.eGet(eObject.eClass().getEStructuralFeature("defectType"));
-            if (defectTypeVal != null) {
-                dto.setDefectType(defectTypeVal.toString());
-            }
-            Object severityVal = eObject.eGet(eObject.eClass().getEStructuralFeature("severity"));
-            if (severityVal != null) {
-                dto.setSeverity(severityVal.toString());
-            }
-            Object detectionDateVal = eObject.eGet(eObject.eClass().getEStructuralFeature("detectionDate"));
-            if (detectionDateVal != null) {
-                dto.setDetectionDate(((Number) detectionDateVal).longValue());
-            }
-            Object affectedAreaVal = eObject.eGet(eObject.eClass().getEStructuralFeature("affectedArea"));
-            if (affectedAreaVal != null) {
-                dto.setAffectedArea(((Number) affectedAreaVal).doubleValue());
-            }
-            dto.setTreatmentHistory((String) eObject.eGet(eObject.eClass().getEStructuralFeature("treatmentHistory")));
-            Object requiresImmediateActionVal = eObject.eGet(eObject.eClass().getEStructuralFeature("requiresImmediateAction"));
-            if (requiresImmediateActionVal != null) {
-                dto.setRequiresImmediateAction((Boolean) requiresImmediateActionVal);
-            }
-
-            // Handle composite reference: reference
-            Object referenceObj = eObject.eGet(eObject.eClass().getEStructuralFeature("reference"));
-            if (referenceObj != null) {
-                org.eclipse.emf.ecore.EObject referenceEObj = (org.eclipse.emf.ecore.EObject) referenceObj;
-                digital.twin.mogao.dto.AssetReferenceDTO referenceDTO = new digital.twin.mogao.dto.AssetReferenceDTO();
-
-                referenceDTO.setGid((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("gid")));
-                referenceDTO.setModelLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("modelLocation")));
-                referenceDTO.setMetadataLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("metadataLocation")));
-                referenceDTO.setTextureLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("textureLocation")));
-
-                dto.setReference(referenceDTO);
-            }
-            // Handle composite reference: coordinates
-            Object coordinatesObj = eObject.eGet(eObject.eClass().getEStructuralFeature("coordinates"));
-            if (coordinatesObj != null) {
-                org.eclipse.emf.ecore.EObject coordinatesEObj = (org.eclipse.emf.ecore.EObject) coordinatesObj;
-                digital.twin.mogao.dto.CoordinatesDTO coordinatesDTO = new digital.twin.mogao.dto.CoordinatesDTO();
-
-                coordinatesDTO.setGid((String) coordinatesEObj.eGet(coordinatesEObj.eClass().getEStructuralFeature("gid")));
-
-                dto.setCoordinates(coordinatesDTO);
-            }
-
-            return dto;
+            return DefectMapper.toDTO((org.eclipse.emf.ecore.EObject) obj, view);
 
         } catch (Exception e) {
             LOG.error("Failed to convert EObject to DTO", e);
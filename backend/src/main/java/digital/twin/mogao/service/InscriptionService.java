@@ -1,14 +1,16 @@
 package digital.twin.mogao.service;
 
 import digital.twin.mogao.dto.InscriptionDTO;
+import digital.twin.mogao.mapper.InscriptionMapper;
+import digital.twin.mogao.util.DtoView;
 import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ModelQuery;
+import digital.twin.mogao.util.ModelStream;
+import digital.twin.mogao.util.Stamped;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Inscription Business Service
  * Handles operations on Inscription model objects
@@ -29,27 +31,51 @@ public class InscriptionService {
     }
 
     /**
-     * Get all Inscription objects from the model
+     * Stream Inscription objects matching a query, converting each one as it is written
+     * @param view Properties and depth to convert
      */
-    public List<InscriptionDTO> getAllInscriptions() {
+    public ModelStream<InscriptionDTO> streamInscriptions(ModelQuery query, DtoView view) {
         try {
-            LOG.info("Getting all Inscription objects");
+            return modelManager.streamQuery(query, obj -> convertToDTO(obj, view));
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error("Failed to stream Inscription objects", e);
+            throw new RuntimeException("Failed to stream Inscription objects: " + e.getMessage(), e);
+        }
+    }
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getAllInscriptions");
+    /**
+     * Current model version (changes with every committed write)
+     */
+    public long getModelVersion() {
+        try {
+            return modelManager.getModelVersion();
+
+        } catch (Exception e) {
+            LOG.error("Failed to get model version", e);
+            throw new RuntimeException("Failed to get model version: " + e.getMessage(), e);
+        }
+    }
 
-            // Convert model objects to DTOs
-            if (result instanceof java.util.Collection) {
-                java.util.Collection<?> collection = (java.util.Collection<?>) result;
-                return collection.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-            }
+    /**
+     * Model version of the last change to a Inscription (or to anything it contains)
+     */
+    public long getInscriptionVersion(String gid) {
+        return modelManager.getModificationStamp(gid);
+    }
 
-            return java.util.Collections.emptyList();
+    /**
+     * Whether a Inscription with the GID exists
+     */
+    public boolean inscriptionExists(String gid) {
+        try {
+            return modelManager.exists(gid, "Inscription");
 
         } catch (Exception e) {
-            LOG.error("Failed to get Inscription objects", e);
-            throw new RuntimeException("Failed to get Inscription objects: " + e.getMessage(), e);
+            LOG.error("Failed to look up Inscription with GID: {}", gid, e);
+            throw new RuntimeException("Failed to look up Inscription: " + e.getMessage(), e);
         }
     }
 
@@ -57,17 +83,35 @@ public class InscriptionService {
      * Get Inscription by GID
      */
     public InscriptionDTO getInscriptionByGid(String gid) {
+        return getInscriptionByGid(gid, DtoView.ALL);
+    }
+
+    /**
+     * Get Inscription by GID, converting only what the view asks for
+     */
+    public InscriptionDTO getInscriptionByGid(String gid, DtoView view) {
         try {
             LOG.info("Getting Inscription with GID: {}", gid);
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getInscriptionByGid", gid);
+            // Convert model object to DTO while its snapshot is still held
+            return modelManager.executeEolRead(SCRIPT_PATH, "getInscriptionByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
-            // Convert model object to DTO
-            if (result != null) {
-                return convertToDTO(result);
-            }
+        } catch (Exception e) {
+            LOG.error("Failed to get Inscription with GID: {}", gid, e);
+            throw new RuntimeException("Failed to get Inscription: " + e.getMessage(), e);
+        }
+    }
 
-            return null;
+    /**
+     * Get Inscription by GID with the version of its last change, both read from the same model version
+     */
+    public Stamped<InscriptionDTO> getStampedInscription(String gid, DtoView view) {
+        try {
+            LOG.info("Getting stamped Inscription with GID: {}", gid);
+
+            return modelManager.executeEolReadStamped(SCRIPT_PATH, "getInscriptionByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
         } catch (Exception e) {
             LOG.error("Failed to get Inscription with GID: {}", gid, e);
@@ -77,15 +121,27 @@ public class InscriptionService {
 
     /**
      * Create new Inscription
+     * Creation, nested updates and the returned DTO share one loaded model and one save
      */
     public InscriptionDTO createInscription(InscriptionDTO dto) {
         try {
             LOG.info("Creating new Inscription");
 
-            // Create operation with DTO data
-            // TODO: Implement creation logic
+            // Generate GID if not provided
+            String gid = dto.getGid() != null && !dto.getGid().isEmpty()
+                ? dto.getGid()
+                : "inscription-" + java.util.UUID.randomUUID().toString().substring(0, 8);
+
+            return modelManager.executeUnitOfWork(SCRIPT_PATH, tx -> {
+                // Create inscription with basic fields
+                tx.call("createInscription", gid, dto.getName(), dto.getLabel());
+
+                // Apply additional fields
+                applyUpdates(tx, gid, dto);
 
-            return dto;
+                // Return the created inscription from the same context
+                return convertToDTO(tx.call("getInscriptionByGid", gid));
+            });
 
         } catch (Exception e) {
             LOG.error("Failed to create Inscription", e);
@@ -100,21 +156,11 @@ public class InscriptionService {
         try {
             LOG.info("Updating Inscription with GID: {}", gid);
 
-            // Update basic fields using EOL operation
-            modelManager.executeEolOperation(SCRIPT_PATH, "updateInscription",
-                gid, dto.getName(), dto.getDescription());
-
-            // Update AssetReference if present
-            if (dto.getReference() != null) {
-                digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
-                modelManager.executeEolOperation(SCRIPT_PATH, "updateInscriptionReference",
-                    gid,
-                    refDTO.getModelLocation(),
-                    refDTO.getMetadataLocation(),
-                    refDTO.getTextureLocation());
-            }
-
-            // Model is automatically saved by executeEolOperation for update operations
+            // All updates are saved together (locked on the cave the object belongs to)
+            modelManager.executeUnitOfWork(SCRIPT_PATH, gid, tx -> {
+                applyUpdates(tx, gid, dto);
+                return null;
+            });
 
             LOG.info("Inscription updated successfully: {}", gid);
 
@@ -139,60 +185,39 @@ public class InscriptionService {
         }
     }
 
+    /**
+     * Apply DTO fields to an existing Inscription within a unit of work
+     */
+    private void applyUpdates(EpsilonModelManager.Transaction tx, String gid, InscriptionDTO dto) throws Exception {
+        // Update basic fields using EOL operation
+        tx.call("updateInscription", gid, dto.getName(), dto.getDescription());
+
+        // Update AssetReference if present
+        if (dto.getReference() != null) {
+            digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
+            tx.call("updateInscriptionReference",
+                gid,
+                refDTO.getModelLocation(),
+                refDTO.getMetadataLocation(),
+                refDTO.getTextureLocation());
+        }
+    }
+
     /**
      * Convert EMF EObject to DTO
      */
     private InscriptionDTO convertToDTO(Object obj) {
+        return convertToDTO(obj, DtoView.ALL);
+    }
+
+    /**
+     * Convert EMF EObject to DTO, skipping what the view leaves out
+     */
+    private InscriptionDTO convertToDTO(Object obj, DtoView view) {
         if (obj == null) return null;
 
         try {
-            org.eclipse.emf.ecore.EObject eObject = (org.eclipse.emf.ecore.EObject) obj;
-            InscriptionDTO dto = new InscriptionDTO();
-
-            dto.setGid((String) eObject.eGet(eObject.eClass().getEStructuralFeature("gid")));
-            dto.setName((String) eObject.eGet(eObject.eClass().getEStructuralFeature("name")));
-            dto.setDescription((String) eObject.eGet(eObject.eClass().getEStructuralFeature("description")));
-            dto.setLabel((String) eObject.eGet(eObject.eClass().getEStructuralFeature("label")));
-            dto.setCreationPeriod((String) eObject.eGet(eObject.eClass().getEStructuralFeature("creationPeriod")));
-            Object lastInspectionDateVal = eObject.eGet(eObject.eClass().getEStructuralFeature("lastInspectionDate"));
-            if (lastInspectionDateVal != null) {
-                dto.setLastInspectionDate(((Number) lastInspectionDateVal).longValue());
-            }
-            dto.setInspectionNotes((String) eObject.eGet(eObject.eClass().getEStructuralFeature("inspectionNotes")));
-            dto.setMaterial((String) eObject.eGet(eObject.eClass().getEStructuralFeature("material")));
-            dto.setPeriod((String) eObject.eGet(eObject.eClass().getEStructuralFeature("period")));
-            Object conservationStatusVal = eObject.eGet(eObject.eClass().getEStructuralFeature("conservationStatus"));
-            if (conservationStatusVal != null) {
-                dto.setConservationStatus(conservationStatusVal.toString());
-            }
-            dto.setLanguage((String) eObject.eGet(eObject.eClass().getEStructuralFeature("language")));
-            dto.setContent((String) eObject.eGet(eObject.eClass().getEStructuralFeature("content")));
-
-            // Handle composite reference: reference
-            Object referenceObj = eObject.eGet(eObject.eClass().getEStructuralFeature("reference"));
-            if (referenceObj != null) {
-                org.eclipse.emf.ecore.EObject referenceEObj = (org.eclipse.emf.ecore.EObject) referenceObj;
-                digital.twin.mogao.dto.AssetReferenceDTO referenceDTO = new digital.twin.mogao.dto.AssetReferenceDTO();
-
-                referenceDTO.setGid((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("gid")));
-                referenceDTO.setModelLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("modelLocation")));
-                referenceDTO.setMetadataLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("metadataLocation")));
-                referenceDTO.setTextureLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("textureLocation")));
-
-                dto.setReference(referenceDTO);
-            }
-            // Handle composite reference: coordinates
-            Object coordinatesObj = eObject.eGet(eObject.eClass().getEStructuralFeature("coordinates"));
-            if (coordinatesObj != null) {
-                org.eclipse.emf.ecore.EObject coordinatesEObj = (org.eclipse.emf.ecore.EObject) coordinatesObj;
-                digital.twin.mogao.dto.CoordinatesDTO coordinatesDTO = new digital.twin.mogao.dto.CoordinatesDTO();
-
-                coordinatesDTO.setGid((String) coordinatesEObj.eGet(coordinatesEObj.eClass().getEStructuralFeature("gid")));
-
-                dto.setCoordinates(coordinatesDTO);
-            }
-
-            return dto;
+            return InscriptionMapper.toDTO((org.eclipse.emf.ecore.EObject) obj, view);
 
         } catch (Exception e) {
             LOG.error("Failed to convert EObject to DTO", e);
@@ -1,14 +1,16 @@
 package digital.twin.mogao.service;
 
 import digital.twin.mogao.dto.MuralDTO;
+import digital.twin.mogao.mapper.MuralMapper;
+import digital.twin.mogao.util.DtoView;
 import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ModelQuery;
+import digital.twin.mogao.util.ModelStream;
+import digital.twin.mogao.util.Stamped;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Mural Business Service
  * Handles operations on Mural model objects
@@ -29,27 +31,51 @@ public class MuralService {
     }
 
     /**
-     * Get all Mural objects from the model
+     * Stream Mural objects matching a query, converting each one as it is written
+     * @param view Properties and depth to convert
      */
-    public List<MuralDTO> getAllMurals() {
+    public ModelStream<MuralDTO> streamMurals(ModelQuery query, DtoView view) {
         try {
-            LOG.info("Getting all Mural objects");
+            return modelManager.streamQuery(query, obj -> convertToDTO(obj, view));
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error("Failed to stream Mural objects", e);
+            throw new RuntimeException("Failed to stream Mural objects: " + e.getMessage(), e);
+        }
+    }
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getAllMurals");
+    /**
+     * Current model version (changes with every committed write)
+     */
+    public long getModelVersion() {
+        try {
+            return modelManager.getModelVersion();
+
+        } catch (Exception e) {
+            LOG.error("Failed to get model version", e);
+            throw new RuntimeException("Failed to get model version: " + e.getMessage(), e);
+        }
+    }
 
-            // Convert model objects to DTOs
-            if (result instanceof java.util.Collection) {
-                java.util.Collection<?> collection = (java.util.Collection<?>) result;
-                return collection.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-            }
+    /**
+     * Model version of the last change to a Mural (or to anything it contains)
+     */
+    public long getMuralVersion(String gid) {
+        return modelManager.getModificationStamp(gid);
+    }
 
-            return java.util.Collections.emptyList();
+    /**
+     * Whether a Mural with the GID exists
+     */
+    public boolean muralExists(String gid) {
+        try {
+            return modelManager.exists(gid, "Mural");
 
         } catch (Exception e) {
-            LOG.error("Failed to get Mural objects", e);
-            throw new RuntimeException("Failed to get Mural objects: " + e.getMessage(), e);
+            LOG.error("Failed to look up Mural with GID: {}", gid, e);
+            throw new RuntimeException("Failed to look up Mural: " + e.getMessage(), e);
         }
     }
 
@@ -57,17 +83,35 @@ public class MuralService {
      * Get Mural by GID
      */
     public MuralDTO getMuralByGid(String gid) {
+        return getMuralByGid(gid, DtoView.ALL);
+    }
+
+    /**
+     * Get Mural by GID, converting only what the view asks for
+     */
+    public MuralDTO getMuralByGid(String gid, DtoView view) {
         try {
             LOG.info("Getting Mural with GID: {}", gid);
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getMuralByGid", gid);
+            // Convert model object to DTO while its snapshot is still held
+            return modelManager.executeEolRead(SCRIPT_PATH, "getMuralByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
-            // Convert model object to DTO
-            if (result != null) {
-                return convertToDTO(result);
-            }
+        } catch (Exception e) {
+            LOG.error("Failed to get Mural with GID: {}", gid, e);
+            throw new RuntimeException("Failed to get Mural: " + e.getMessage(), e);
+        }
+    }
 
-            return null;
+    /**
+     * Get Mural by GID with the version of its last change, both read from the same model version
+     */
+    public Stamped<MuralDTO> getStampedMural(String gid, DtoView view) {
+        try {
+            LOG.info("Getting stamped Mural with GID: {}", gid);
+
+            return modelManager.executeEolReadStamped(SCRIPT_PATH, "getMuralByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
         } catch (Exception e) {
             LOG.error("Failed to get Mural with GID: {}", gid, e);
@@ -77,15 +121,27 @@ public class MuralService {
 
     /**
      * Create new Mural
+     * Creation, nested updates and the returned DTO share one loaded model and one save
      */
     public MuralDTO createMural(MuralDTO dto) {
         try {
             LOG.info("Creating new Mural");
 
-            // Create operation with DTO data
-            // TODO: Implement creation logic
+            // Generate GID if not provided
+            String gid = dto.getGid() != null && !dto.getGid().isEmpty()
+                ? dto.getGid()
+                : "mural-" + java.util.UUID.randomUUID().toString().substring(0, 8);
+
+            return modelManager.executeUnitOfWork(SCRIPT_PATH, tx -> {
+                // Create mural with basic fields
+                tx.call("createMural", gid, dto.getName(), dto.getLabel());
+
+                // Apply additional fields
+                applyUpdates(tx, gid, dto);
 
-            return dto;
+                // Return the created mural from the same context
+                return convertToDTO(tx.call("getMuralByGid", gid));
+            });
 
         } catch (Exception e) {
             LOG.error("Failed to create Mural", e);
@@ -100,21 +156,11 @@ public class MuralService {
         try {
             LOG.info("Updating Mural with GID: {}", gid);
 
-            // Update basic fields using EOL operation
-            modelManager.executeEolOperation(SCRIPT_PATH, "updateMural",
-                gid, dto.getName(), dto.getDescription());
-
-            // Update AssetReference if present
-            if (dto.getReference() != null) {
-                digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
-                modelManager.executeEolOperation(SCRIPT_PATH, "updateMuralReference",
-                    gid,
-                    refDTO.getModelLocation(),
-                    refDTO.getMetadataLocation(),
-                    refDTO.getTextureLocation());
-            }
-
-            // Model is automatically saved by executeEolOperation for update operations
+            // All updates are saved together (locked on the cave the object belongs to)
+            modelManager.executeUnitOfWork(SCRIPT_PATH, gid, tx -> {
+                applyUpdates(tx, gid, dto);
+                return null;
+            });
 
             LOG.info("Mural updated successfully: {}", gid);
 
@@ -139,67 +185,39 @@ public class MuralService {
         }
     }
 
+    /**
+     * Apply DTO fields to an existing Mural within a unit of work
+     */
+    private void applyUpdates(EpsilonModelManager.Transaction tx, String gid, MuralDTO dto) throws Exception {
+        // Update basic fields using EOL operation
+        tx.call("updateMural", gid, dto.getName(), dto.getDescription());
+
+        // Update AssetReference if present
+        if (dto.getReference() != null) {
+            digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
+            tx.call("updateMuralReference",
+                gid,
+                refDTO.getModelLocation(),
+                refDTO.getMetadataLocation(),
+                refDTO.getTextureLocation());
+        }
+    }
+
     /**
      * Convert EMF EObject to DTO
      */
     private MuralDTO convertToDTO(Object obj) {
+        return convertToDTO(obj, DtoView.ALL);
+    }
+
+    /**
+     * Convert EMF EObject to DTO, skipping what the view leaves out
+     */
+    private MuralDTO convertToDTO(Object obj, DtoView view) {
         if (obj == null) return null;
 
         try {
-            org.eclipse.emf.ecore.EObject eObject = (org.eclipse.emf.ecore.EObject) obj;
-            MuralDTO dto = new MuralDTO();
-
-            dto.setGid((String) eObject.eGet(eObject.eClass().getEStructuralFeature("gid")));
-            dto.setName((String) eObject.eGet(eObject.eClass().getEStructuralFeature("name")));
-            dto.setDescription((String) eObject.eGet(eObject.eClass().getEStructuralFeature("description")));
-            dto.setLabel((String) eObject.eGet(eObject.eClass().getEStructuralFeature("label")));
-            dto.setCreationPeriod((String) eObject.eGet(eObject.eClass().getEStructuralFeature("creationPeriod")));
-            Object lastInspectionDateVal = eObject.eGet(eObject.eClass().getEStructuralFeature("lastInspectionDate"));
-            if (lastInspectionDateVal != null) {
-                dto.setLastInspectionDate(((Number) lastInspectionDateVal).longValue());
-            }
-            dto.setInspectionNotes((String) eObject.eGet(eObject.eClass().getEStructuralFeature("inspectionNotes")));
-            dto.setMaterial((String) eObject.eGet(eObject.eClass().getEStructuralFeature("material")));
-            dto.setPeriod((String) eObject.eGet(eObject.eClass().getEStructuralFeature("period")));
-            Object conservationStatusVal = eObject.eGet(eObject.eClass().getEStructuralFeature("conservationStatus"));
-            if (conservationStatusVal != null) {
-                dto.setConservationStatus(conservationStatusVal.toString());
-            }
-            Object widthVal = eObject.eGet(eObject.eClass().getEStructuralFeature("width"));
-            if (widthVal != null) {
-                dto.setWidth(((Number) widthVal).doubleValue());
-            }
-            Object heightVal = eObject.eGet(eObject.eClass().getEStructuralFeature("height"));
-            if (heightVal != null) {
-                dto.setHeight(((Number) heightVal).doubleValue());
-            }
-            dto.setTechnique((String) eObject.eGet(eObject.eClass().getEStructuralFeature("technique")));
-
-            // Handle composite reference: reference
-            Object referenceObj = eObject.eGet(eObject.eClass().getEStructuralFeature("reference"));
-            if (referenceObj != null) {
-                org.eclipse.emf.ecore.EObject referenceEObj = (org.eclipse.emf.ecore.EObject) referenceObj;
-                digital.twin.mogao.dto.AssetReferenceDTO referenceDTO = new digital.twin.mogao.dto.AssetReferenceDTO();
-
-                referenceDTO.setGid((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("gid")));
-                referenceDTO.setModelLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("modelLocation")));
-                referenceDTO.setMetadataLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("metadataLocation")));
-                referenceDTO.setTextureLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("textureLocation")));
-
-                dto.setReference(referenceDTO);
-            }
-            // Handle composite reference: coordinates
-            Object coordinatesObj = eObject.eGet(eObject.eClass().getEStructuralFeature("coordinates"));
-            if (coordinatesObj != null) {
-                org.eclipse.emf.ecore.EObject coordinatesEObj = (org.eclipse.emf.ecore.EObject) coordinatesObj;
-                digital.twin.mogao.dto.CoordinatesDTO coordinatesDTO = new digital.twin.mogao.dto.CoordinatesDTO();
-
-                coordinatesDTO.setGid((String) coordinatesEObj.eGet(coordinatesEObj.eClass().getEStructuralFeature("gid")));
-
-                dto.setCoordinates(coordinatesDTO);
-            }
-
-            return dto;
+            return MuralMapper.toDTO((org.eclipse.emf.ecore.EObject) obj, view);
 
         } catch (Exception e) {
             LOG.error("Failed to convert EObject to DTO", e);
@@ -1,14 +1,16 @@
 package digital.twin.mogao.service;
 
 import digital.twin.mogao.dto.PaintingDTO;
+import digital.twin.mogao.mapper.PaintingMapper;
+import digital.twin.mogao.util.DtoView;
 import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ModelQuery;
+import digital.twin.mogao.util.ModelStream;
+import digital.twin.mogao.util.Stamped;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Painting Business Service
  * Handles operations on Painting model objects
@@ -29,27 +31,51 @@ public class PaintingService {
     }
 
     /**
-     * Get all Painting objects from the model
+     * Stream Painting objects matching a query, converting each one as it is written
+     * @param view Properties and depth to convert
      */
-    public List<PaintingDTO> getAllPaintings() {
+    public ModelStream<PaintingDTO> streamPaintings(ModelQuery query, DtoView view) {
         try {
-            LOG.info("Getting all Painting objects");
+            return modelManager.streamQuery(query, obj -> convertToDTO(obj, view));
+
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error("Failed to stream Painting objects", e);
+            throw new RuntimeException("Failed to stream Painting objects: " + e.getMessage(), e);
+        }
+    }
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getAllPaintings");
+    /**
+     * Current model version (changes with every committed write)
+     */
+    public long getModelVersion() {
+        try {
+            return modelManager.getModelVersion();
+
+        } catch (Exception e) {
+            LOG.error("Failed to get model version", e);
+            throw new RuntimeException("Failed to get model version: " + e.getMessage(), e);
+        }
+    }
 
-            // Convert model objects to DTOs
-            if (result instanceof java.util.Collection) {
-                java.util.Collection<?> collection = (java.util.Collection<?>) result;
-                return collection.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-            }
+    /**
+     * Model version of the last change to a Painting (or to anything it contains)
+     */
+    public long getPaintingVersion(String gid) {
+        return modelManager.getModificationStamp(gid);
+    }
 
-            return java.util.Collections.emptyList();
+    /**
+     * Whether a Painting with the GID exists
+     */
+    public boolean paintingExists(String gid) {
+        try {
+            return modelManager.exists(gid, "Painting");
 
         } catch (Exception e) {
-            LOG.error("Failed to get Painting objects", e);
-            throw new RuntimeException("Failed to get Painting objects: " + e.getMessage(), e);
+            LOG.error("Failed to look up Painting with GID: {}", gid, e);
+            throw new RuntimeException("Failed to look up Painting: " + e.getMessage(), e);
         }
     }
 
@@ -57,17 +83,35 @@ public class PaintingService {
      * Get Painting by GID
      */
     public PaintingDTO getPaintingByGid(String gid) {
+        return getPaintingByGid(gid, DtoView.ALL);
+    }
+
+    /**
+     * Get Painting by GID, converting only what the view asks for
+     */
+    public PaintingDTO getPaintingByGid(String gid, DtoView view) {
         try {
             LOG.info("Getting Painting with GID: {}", gid);
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getPaintingByGid", gid);
+            // Convert model object to DTO while its snapshot is still held
+            return modelManager.executeEolRead(SCRIPT_PATH, "getPaintingByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
-            // Convert model object to DTO
-            if (result != null) {
-                return convertToDTO(result);
-            }
+        } catch (Exception e) {
+            LOG.error("Failed to get Painting with GID: {}", gid, e);
+            throw new RuntimeException("Failed to get Painting: " + e.getMessage(), e);
+        }
+    }
 
-            return null;
+    /**
+     * Get Painting by GID with the version of its last change, both read from the same model version
+     */
+    public Stamped<PaintingDTO> getStampedPainting(String gid, DtoView view) {
+        try {
+            LOG.info("Getting stamped Painting with GID: {}", gid);
+
+            return modelManager.executeEolReadStamped(SCRIPT_PATH, "getPaintingByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
         } catch (Exception e) {
             LOG.error("Failed to get Painting with GID: {}", gid, e);
@@ -77,15 +121,27 @@ public class PaintingService {
 
     /**
      * Create new Painting
+     * Creation, nested updates and the returned DTO share one loaded model and one save
      */
     public PaintingDTO createPainting(PaintingDTO dto) {
         try {
             LOG.info("Creating new Painting");
 
-            // Create operation with DTO data
-            // TODO: Implement creation logic
+            // Generate GID if not provided
+            String gid = dto.getGid() != null && !dto.getGid().isEmpty()
+                ? dto.getGid()
+                : "painting-" + java.util.UUID.randomUUID().toString().substring(0, 8);
+
+            return modelManager.executeUnitOfWork(SCRIPT_PATH, tx -> {
+                // Create painting with basic fields
+                tx.call("createPainting", gid, dto.getName(), dto.getLabel());
+
+                // Apply additional fields
+                applyUpdates(tx, gid, dto);
 
-            return dto;
+                // Return the created painting from the same context
+                return convertToDTO(tx.call("getPaintingByGid", gid));
+            });
 
         } catch (Exception e) {
             LOG.error("Failed to create Painting", e);
@@ -100,21 +156,11 @@ public class PaintingService {
         try {
             LOG.info("Updating Painting with GID: {}", gid);
 
-            // Update basic fields using EOL operation
-            modelManager.executeEolOperation(SCRIPT_PATH, "updatePainting",
-                gid, dto.getName(), dto.getDescription());
-
-            // Update AssetReference if present
-            if (dto.getReference() != null) {
-                digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
-                modelManager.executeEolOperation(SCRIPT_PATH, "updatePaintingReference",
-                    gid,
-                    refDTO.getModelLocation(),
-                    refDTO.getMetadataLocation(),
-                    refDTO.getTextureLocation());
-            }
-
-            // Model is automatically saved by executeEolOperation for update operations
+            // All updates are saved together (locked on the cave the object belongs to)
+            modelManager.executeUnitOfWork(SCRIPT_PATH, gid, tx -> {
+                applyUpdates(tx, gid, dto);
+                return null;
+            });
 
             LOG.info("Painting updated successfully: {}", gid);
 
@@ -139,67 +185,39 @@ public class PaintingService {
         }
     }
 
+    /**
+     * Apply DTO fields to an existing Painting within a unit of work
+     */
+    private void applyUpdates(EpsilonModelManager.Transaction tx, String gid, PaintingDTO dto) throws Exception {
+        // Update basic fields using EOL operation
+        tx.call("updatePainting", gid, dto.getName(), dto.getDescription());
+
+        // Update AssetReference if present
+        if (dto.getReference() != null) {
+            digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
+            tx.call("updatePaintingReference",
+                gid,
+                refDTO.getModelLocation(),
+                refDTO.getMetadataLocation(),
+                refDTO.getTextureLocation());
+        }
+    }
+
     /**
      * Convert EMF EObject to DTO
      */
     private PaintingDTO convertToDTO(Object obj) {
+        return convertToDTO(obj, DtoView.ALL);
+    }
+
+    /**
+     * Convert EMF EObject to DTO, skipping what the view leaves out
+     */
+    private PaintingDTO convertToDTO(Object obj, DtoView view) {
         if (obj == null) return null;
 
         try {
-            org.eclipse.emf.ecore.EObject eObject = (org.eclipse.emf.ecore.EObject) obj;
-            PaintingDTO dto = new PaintingDTO();
-
-            dto.setGid((String) eObject.eGet(eObject.eClass().getEStructuralFeature("gid")));
-            dto.setName((String) eObject.eGet(eObject.eClass().getEStructuralFeature("name")));
-            dto.setDescription((String) eObject.eGet(eObject.eClass().getEStructuralFeature("description")));
-            dto.setLabel((String) eObject.eGet(eObject.eClass().getEStructuralFeature("label")));
-            dto.setCreationPeriod((String) eObject.eGet(eObject.eClass().getEStructuralFeature("creationPeriod")));
-            Object lastInspectionDateVal = eObject.eGet(eObject.eClass().getEStructuralFeature("lastInspectionDate"));
-            if (lastInspectionDateVal != null) {
-                dto.setLastInspectionDate(((Number) lastInspectionDateVal).longValue());
-            }
-            dto.setInspectionNotes((String) eObject.eGet(eObject.eClass().getEStructuralFeature("inspectionNotes")));
-            dto.setMaterial((String) eObject.eGet(eObject.eClass().getEStructuralFeature("material")));
-            dto.setPeriod((String) eObject.eGet(eObject.eClass().getEStructuralFeature("period")));
-            Object conservationStatusVal = eObject.eGet(eObject.eClass().getEStructuralFeature("conservationStatus"));
-            if (conservationStatusVal != null) {
-                dto.setConservationStatus(conservationStatusVal.toString());
-            }
-            Object widthVal = eObject.eGet(eObject.eClass().getEStructuralFeature("width"));
-            if (widthVal != null) {
-                dto.setWidth(((Number) widthVal).doubleValue());
-            }
-            Object heightVal = eObject.eGet(eObject.eClass().getEStructuralFeature("height"));
-            if (heightVal != null) {
-                dto.setHeight(((Number) heightVal).doubleValue());
-            }
-            dto.setStyle((String) eObject.eGet(eObject.eClass().getEStructuralFeature("style")));
-
-            // Handle composite reference: reference
-            Object referenceObj = eObject.eGet(eObject.eClass().getEStructuralFeature("reference"));
-            if (referenceObj != null) {
-                org.eclipse.emf.ecore.EObject referenceEObj = (org.eclipse.emf.ecore.EObject) referenceObj;
-                digital.twin.mogao.dto.AssetReferenceDTO referenceDTO = new digital.twin.mogao.dto.AssetReferenceDTO();
-
-                referenceDTO.setGid((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("gid")));
-                referenceDTO.setModelLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("modelLocation")));
-                referenceDTO.setMetadataLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("metadataLocation")));
-                referenceDTO.setTextureLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("textureLocation")));
-
-                dto.setReference(referenceDTO);
-            }
-            // Handle composite reference: coordinates
-            Object coordinatesObj = eObject.eGet(eObject.eClass().getEStructuralFeature("coordinates"));
-            if (coordinatesObj != null) {
-                org.eclipse.emf.ecore.EObject coordinatesEObj = (org.eclipse.emf.ecore.EObject) coordinatesObj;
-                digital.twin.mogao.dto.CoordinatesDTO coordinatesDTO = new digital.twin.mogao.dto.CoordinatesDTO();
-
-                coordinatesDTO.setGid((String) coordinatesEObj.eGet(coordinatesEObj.eClass().getEStructuralFeature("gid")));
-
-                dto.setCoordinates(coordinatesDTO);
-            }
-
-            return dto;
+            return PaintingMapper.toDTO((org.eclipse.emf.ecore.EObject) obj, view);
 
         } catch (Exception e) {
             LOG.error("Failed to convert EObject to DTO", e);
@@ -1,14 +1,16 @@
 package digital.twin.mogao.service;
 
 import digital.twin.mogao.dto.StatueDTO;
+import digital.twin.mogao.mapper.StatueMapper;
+import digital.twin.mogao.util.DtoView;
 import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ModelQuery;
+import digital.twin.mogao.util.ModelStream;
+import digital.twin.mogao.util.Stamped;
 import jakarta.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
  * Statue Business Service
  * Handles operations on Statue model objects
@@ -29,27 +31,51 @@ public class StatueService {
     }
 
     /**
-     * Get all Statue objects from the model
+     * Stream Statue objects matching a query, converting each one as it is written
+     * @param view Properties and depth to convert
      */
-    public List<StatueDTO> getAllStatues() {
+    public ModelStream<StatueDTO> streamStatues(ModelQuery query, DtoView view) {
         try {
-            LOG.info("Getting all Statue objects");
+            return modelManager.streamQuery(query, obj -> convertToDTO(obj, view));
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getAllStatues");
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            LOG.error("Failed to stream Statue objects", e);
+            throw new RuntimeException("Failed to stream Statue objects: " + e.getMessage(), e);
+        }
+    }
 
-            // Convert model objects to DTOs
-            if (result instanceof java.util.Collection) {
-                java.util.Collection<?> collection = (java.util.Collection<?>) result;
-                return collection.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
-            }
+    /**
+     * Current model version (changes with every committed write)
+     */
+    public long getModelVersion() {
+        try {
+            return modelManager.getModelVersion();
 
-            return java.util.Collections.emptyList();
+        } catch (Exception e) {
+            LOG.error("Failed to get model version", e);
+            throw new RuntimeException("Failed to get model version: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Model version of the last change to a Statue (or to anything it contains)
+     */
+    public long getStatueVersion(String gid) {
+        return modelManager.getModificationStamp(gid);
+    }
+
+    /**
+     * Whether a Statue with the GID exists
+     */
+    public boolean statueExists(String gid) {
+        try {
+            return modelManager.exists(gid, "Statue");
 
         } catch (Exception e) {
-            LOG.error("Failed to get Statue objects", e);
-            throw new RuntimeException("Failed to get Statue objects: " + e.getMessage(), e);
+            LOG.error("Failed to look up Statue with GID: {}", gid, e);
+            throw new RuntimeException("Failed to look up Statue: " + e.getMessage(), e);
         }
     }
 
@@ -57,17 +83,35 @@ public class StatueService {
      * Get Statue by GID
      */
     public StatueDTO getStatueByGid(String gid) {
+        return getStatueByGid(gid, DtoView.ALL);
+    }
+
+    /**
+     * Get Statue by GID, converting only what the view asks for
+     */
+    public StatueDTO getStatueByGid(String gid, DtoView view) {
         try {
             LOG.info("Getting Statue with GID: {}", gid);
 
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getStatueByGid", gid);
+            // Convert model object to DTO while its snapshot is still held
+            return modelManager.executeEolRead(SCRIPT_PATH, "getStatueByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
-            // Convert model object to DTO
-            if (result != null) {
-                return convertToDTO(result);
-            }
+        } catch (Exception e) {
+            LOG.error("Failed to get Statue with GID: {}", gid, e);
+            throw new RuntimeException("Failed to get Statue: " + e.getMessage(), e);
+        }
+    }
 
-            return null;
+    /**
+     * Get Statue by GID with the version of its last change, both read from the same model version
+     */
+    public Stamped<StatueDTO> getStampedStatue(String gid, DtoView view) {
+        try {
+            LOG.info("Getting stamped Statue with GID: {}", gid);
+
+            return modelManager.executeEolReadStamped(SCRIPT_PATH, "getStatueByGid",
+                result -> result != null ? convertToDTO(result, view) : null, gid);
 
         } catch (Exception e) {
             LOG.error("Failed to get Statue with GID: {}", gid, e);
@@ -77,40 +121,27 @@ public class StatueService {
 
     /**
      * Create new Statue
+     * Creation, nested updates and the returned DTO share one loaded model and one save
      */
     public StatueDTO createStatue(StatueDTO dto) {
         try {
             LOG.info("Creating new Statue");
 
             // Generate GID if not provided
-            String gid = dto.getGid();
-            if (gid == null || gid.isEmpty()) {
-                gid = "statue-" + java.util.UUID.randomUUID().toString().substring(0, 8);
-            }
-
-            // Create statue with basic fields
-            Object createdObj = modelManager.executeEolOperation(SCRIPT_PATH, "createStatue",
-                gid, dto.getName(), dto.getLabel());
-
-            // Update additional fields using update operation
-            modelManager.executeEolOperation(SCRIPT_PATH, "updateStatue",
-                gid, dto.getName(), dto.getDescription());
-
-            // Update AssetReference if present
-            if (dto.getReference() != null) {
-                digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
-                modelManager.executeEolOperation(SCRIPT_PATH, "updateStatueReference",
-                    gid,
-                    refDTO.getModelLocation(),
-                    refDTO.getMetadataLocation(),
-                    refDTO.getTextureLocation());
-            }
-
-            // Model is automatically saved by executeEolOperation for create operations
-
-            // Fetch and return the created statue
-            Object result = modelManager.executeEolOperation(SCRIPT_PATH, "getStatueByGid", gid);
-            return convertToDTO(result);
+            String gid = dto.getGid() != null && !dto.getGid().isEmpty()
+                ? dto.getGid()
+                : "statue-" + java.util.UUID.randomUUID().toString().substring(0, 8);
+
+            return modelManager.executeUnitOfWork(SCRIPT_PATH, tx -> {
+                // Create statue with basic fields
+                tx.call("createStatue", gid, dto.getName(), dto.getLabel());
+
+                // Apply additional fields
+                applyUpdates(tx, gid, dto);
+
+                // Return the created statue from the same context
+                return convertToDTO(tx.call("getStatueByGid", gid));
+            });
 
         } catch (Exception e) {
             LOG.error("Failed to create Statue", e);
@@ -125,21 +156,11 @@ public class StatueService {
         try {
             LOG.info("Updating Statue with GID: {}", gid);
 
-            // Update basic fields using EOL operation
-            modelManager.executeEolOperation(SCRIPT_PATH, "updateStatue",
-                gid, dto.getName(), dto.getDescription());
-
-            // Update AssetReference if present
-            if (dto.getReference() != null) {
-                digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
-                modelManager.executeEolOperation(SCRIPT_PATH, "updateStatueReference",
-                    gid,
-                    refDTO.getModelLocation(),
-                    refDTO.getMetadataLocation(),
-                    refDTO.getTextureLocation());
-            }
-
-            // Model is automatically saved by executeEolOperation for update operations
+            // All updates are saved together (locked on the cave the object belongs to)
+            modelManager.executeUnitOfWork(SCRIPT_PATH, gid, tx -> {
+                applyUpdates(tx, gid, dto);
+                return null;
+            });
 
             LOG.info("Statue updated successfully: {}", gid);
 
@@ -164,71 +185,39 @@ public class StatueService {
         }
     }
 
+    /**
+     * Apply DTO fields to an existing Statue within a unit of work
+     */
+    private void applyUpdates(EpsilonModelManager.Transaction tx, String gid, StatueDTO dto) throws Exception {
+        // Update basic fields using EOL operation
+        tx.call("updateStatue", gid, dto.getName(), dto.getDescription());
+
+        // Update AssetReference if present
+        if (dto.getReference() != null) {
+            digital.twin.mogao.dto.AssetReferenceDTO refDTO = dto.getReference();
+            tx.call("updateStatueReference",
+                gid,
+                refDTO.getModelLocation(),
+                refDTO.getMetadataLocation(),
+                refDTO.getTextureLocation());
+        }
+    }
+
     /**
      * Convert EMF EObject to DTO
      */
     private StatueDTO convertToDTO(Object obj) {
+        return convertToDTO(obj, DtoView.ALL);
+    }
+
+    /**
+     * Convert EMF EObject to DTO, skipping what the view leaves out
+     */
+    private StatueDTO convertToDTO(Object obj, DtoView view) {
         if (obj == null) return null;
 
         try {
-            org.eclipse.emf.ecore.EObject eObject = (org.eclipse.emf.ecore.EObject) obj;
-            StatueDTO dto = new StatueDTO();
-
-            dto.setGid((String) eObject.eGet(eObject.eClass().getEStructuralFeature("gid")));
-            dto.setName((String) eObject.eGet(eObject.eClass().getEStructuralFeature("name")));
-            dto.setDescription((String) eObject.eGet(eObject.eClass().getEStructuralFeature("description")));
-            dto.setLabel((String) eObject.eGet(eObject.eClass().getEStructuralFeature("label")));
-            dto.setCreationPeriod((String) eObject.eGet(eObject.eClass().getEStructuralFeature("creationPeriod")));
-            Object lastInspectionDateVal = eObject.eGet(eObject.eClass().getEStructuralFeature("lastInspectionDate"));
-            if (lastInspectionDateVal != null) {
-                dto.setLastInspectionDate(((Number) lastInspectionDateVal).longValue());
-            }
-            dto.setInspectionNotes((String) eObject.eGet(eObject.eClass().getEStructuralFeature("inspectionNotes")));
-            dto.setMaterial((String) eObject.eGet(eObject.eClass().getEStructuralFeature("material")));
-            dto.setPeriod((String) eObject.eGet(eObject.eClass().getEStructuralFeature("period")));
-            Object conservationStatusVal = eObject.eGet(eObject.eClass().getEStructuralFeature("conservationStatus"));
-            if (conservationStatusVal != null) {
-                dto.setConservationStatus(conservationStatusVal.toString());
-            }
-            Object widthVal = eObject.eGet(eObject.eClass().getEStructuralFeature("width"));
-            if (widthVal != null) {
-                dto.setWidth(((Number) widthVal).doubleValue());
-            }
-            Object depthVal = eObject.eGet(eObject.eClass().getEStructuralFeature("depth"));
-            if (depthVal != null) {
-                dto.setDepth(((Number) depthVal).doubleValue());
-            }
-            Object heightVal = eObject.eGet(eObject.eClass().getEStructuralFeature("height"));
-            if (heightVal != null) {
-                dto.setHeight(((Number) heightVal).doubleValue());
-            }
-            dto.setSubject((String) eObject.eGet(eObject.eClass().getEStructuralFeature("subject")));
-
-            // Handle composite reference: reference
-            Object referenceObj = eObject.eGet(eObject.eClass().getEStructuralFeature("reference"));
-            if (referenceObj != null) {
-                org.eclipse.emf.ecore.EObject referenceEObj = (org.eclipse.emf.ecore.EObject) referenceObj;
-                digital.twin.mogao.dto.AssetReferenceDTO referenceDTO = new digital.twin.mogao.dto.AssetReferenceDTO();
-
-                referenceDTO.setGid((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("gid")));
-                referenceDTO.setModelLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("modelLocation")));
-                referenceDTO.setMetadataLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("metadataLocation")));
-                referenceDTO.setTextureLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("textureLocation")));
-
-                dto.setReference(referenceDTO);
-            }
-            // Handle composite reference: coordinates
-            Object coordinatesObj = eObject.eGet(eObject.eClass().getEStructuralFeature("coordinates"));
-            if (coordinatesObj != null) {
-                org.eclipse.emf.ecore.EObject coordinatesEObj = (org.eclipse.emf.ecore.EObject) coordinatesObj;
-                digital.twin.mogao.dto.CoordinatesDTO coordinatesDTO = new digital.twin.mogao.dto.CoordinatesDTO();
-
-                coordinatesDTO.setGid((String) coordinatesEObj.eGet(coordinatesEObj.eClass().getEStructuralFeature("gid")));
-
-                dto.setCoordinates(coordinatesDTO);
-            }
-
-            return dto;
+            return StatueMapper.toDTO((org.eclipse.emf.ecore.EObject) obj, view);
 
         } catch (Exception e) {
             LOG.error("Failed to convert EObject to DTO", e);
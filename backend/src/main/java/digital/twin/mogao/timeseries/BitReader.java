@@ -0,0 +1,42 @@
+package digital.twin.mogao.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bit stream reader (most significant bit first) over a region of a byte buffer
+ * Reads with absolute indexes, so a shared (e.g. memory-mapped) buffer is never repositioned.
+ */
+final class BitReader {
+
+    private final ByteBuffer buffer;
+    private int position;
+    private int current;
+    private int available;
+
+    BitReader(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.position = offset;
+    }
+
+    /**
+     * Read count bits (1..64) as an unsigned value
+     */
+    long readBits(int count) {
+        long result = 0;
+        while (count > 0) {
+            if (available == 0) {
+                current = buffer.get(position++) & 0xFF;
+                available = 8;
+            }
+            int take = Math.min(count, available);
+            result = (result << take) | ((current >>> (available - take)) & ((1 << take) - 1));
+            available -= take;
+            count -= take;
+        }
+        return result;
+    }
+
+    boolean readBit() {
+        return readBits(1) != 0;
+    }
+}
@@ -0,0 +1,59 @@
+package digital.twin.mogao.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Bit stream writer (most significant bit first) over a growing byte array
+ */
+final class BitWriter {
+
+    private byte[] bytes;
+    private int position;
+    private int current;
+    private int used;
+
+    BitWriter(int initialBytes) {
+        bytes = new byte[Math.max(16, initialBytes)];
+    }
+
+    /**
+     * Append the low count bits of value (count 1..64)
+     */
+    void writeBits(long value, int count) {
+        while (count > 0) {
+            int take = Math.min(count, 8 - used);
+            int chunk = (int) ((value >>> (count - take)) & ((1 << take) - 1));
+            current = (current << take) | chunk;
+            used += take;
+            count -= take;
+            if (used == 8) {
+                appendByte();
+            }
+        }
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    /**
+     * The bits written so far, the last byte padded with zeros
+     */
+    byte[] toByteArray() {
+        if (used > 0) {
+            current <<= 8 - used;
+            used = 8;
+            appendByte();
+        }
+        return Arrays.copyOf(bytes, position);
+    }
+
+    private void appendByte() {
+        if (position == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        bytes[position++] = (byte) current;
+        current = 0;
+        used = 0;
+    }
+}
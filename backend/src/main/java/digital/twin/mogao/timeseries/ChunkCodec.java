@@ -0,0 +1,167 @@
+package digital.twin.mogao.timeseries;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Gorilla-style compression of a chunk of readings
+ * Timestamps are stored as delta-of-deltas, so readings at a steady interval cost one bit each;
+ * values are XORed with the previous value and only the meaningful bits are stored, so an
+ * unchanged value costs one bit and a slowly drifting one a few.
+ *
+ * Layout (bit stream): first timestamp (64), first value (64), then per reading:
+ *   timestamp delta-of-delta: '0' | '10'+7 bits | '110'+9 bits | '1110'+12 bits | '1111'+64 bits
+ *   value XOR: '0' (same value) | '10'+bits in the previous window
+ *              | '11'+leading zeros (5)+meaningful bits - 1 (6)+bits
+ */
+final class ChunkCodec {
+
+    private ChunkCodec() {
+    }
+
+    /**
+     * Compress readings (in timestamp order)
+     */
+    static byte[] encode(long[] timestamps, double[] values, int count) {
+        BitWriter out = new BitWriter(count * 2 + 16);
+        if (count == 0) {
+            return out.toByteArray();
+        }
+
+        long previousTimestamp = timestamps[0];
+        long previousDelta = 0;
+        long previousBits = Double.doubleToRawLongBits(values[0]);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        out.writeBits(previousTimestamp, 64);
+        out.writeBits(previousBits, 64);
+
+        for (int i = 1; i < count; i++) {
+            long delta = timestamps[i] - previousTimestamp;
+            writeDeltaOfDelta(out, delta - previousDelta);
+            previousTimestamp = timestamps[i];
+            previousDelta = delta;
+
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previousBits;
+            previousBits = bits;
+            if (xor == 0) {
+                out.writeBit(false);
+                continue;
+            }
+            out.writeBit(true);
+
+            int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                // Fits the previous window of meaningful bits
+                out.writeBit(false);
+                out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                out.writeBit(true);
+                out.writeBits(leading, 5);
+                out.writeBits(meaningful - 1, 6);
+                out.writeBits(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompress a chunk, passing readings in [from, to) to the consumer
+     * @param data Buffer holding the chunk
+     * @param offset Offset of the chunk's bit stream in the buffer
+     * @param count Number of readings in the chunk
+     * @return false if the consumer asked to stop
+     */
+    static boolean decode(ByteBuffer data, int offset, int count, long from, long to,
+                          TimeSeriesStore.ReadingConsumer consumer) {
+        if (count == 0) {
+            return true;
+        }
+        BitReader in = new BitReader(data, offset);
+
+        long timestamp = in.readBits(64);
+        long bits = in.readBits(64);
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+        if (!emit(timestamp, bits, from, to, consumer)) {
+            return false;
+        }
+
+        for (int i = 1; i < count; i++) {
+            delta += readDeltaOfDelta(in);
+            timestamp += delta;
+
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int meaningful = (int) in.readBits(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                bits ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            if (timestamp >= to) {
+                return true;
+            }
+            if (!emit(timestamp, bits, from, to, consumer)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean emit(long timestamp, long bits, long from, long to,
+                                TimeSeriesStore.ReadingConsumer consumer) {
+        if (timestamp < from || timestamp >= to) {
+            return true;
+        }
+        return consumer.accept(timestamp, Double.longBitsToDouble(bits));
+    }
+
+    private static void writeDeltaOfDelta(BitWriter out, long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            out.writeBit(false);
+        } else if (fits(deltaOfDelta, 7)) {
+            out.writeBits(0b10, 2);
+            out.writeBits(deltaOfDelta, 7);
+        } else if (fits(deltaOfDelta, 9)) {
+            out.writeBits(0b110, 3);
+            out.writeBits(deltaOfDelta, 9);
+        } else if (fits(deltaOfDelta, 12)) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(deltaOfDelta, 12);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(7), 7);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(9), 9);
+        }
+        if (!in.readBit()) {
+            return signExtend(in.readBits(12), 12);
+        }
+        return in.readBits(64);
+    }
+
+    private static boolean fits(long value, int bits) {
+        long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    private static long signExtend(long value, int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+}
@@ -0,0 +1,307 @@
+package digital.twin.mogao.timeseries;
+
+import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ModelQuery;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.eclipse.emf.common.util.Enumerator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Environmental readings of heritage artifacts
+ * Links the TimeSeriesStore to the model: series are keyed by the GID of a HeritageArtifact
+ * (a Cave or an exhibit), and readings are served as the DTOs of the EnvironmentCondition
+ * subclasses (TemperatureDTO, HumidityDTO, LightIntensityDTO).
+ *
+ * EnvironmentCondition objects still in the model can be copied into the store at startup
+ * (mogao.timeseries.import-model-conditions, off by default) or by calling importFromModel.
+ * The import only reads the model: readings the store already has are skipped, so it can be
+ * run again, and the conditions are left for the model's owner to remove. Values are converted
+ * from the Parameter's unit to the kind's; conditions with a unit that does not fit the kind
+ * or an impossible value (a temperature below MIN_KELVIN, most likely given in °C) are
+ * rejected and logged.
+ *
+ * Long ranges are served as per-step aggregates (getHistory) computed from the store's minute,
+ * hour or day rollups, so the cost depends on the number of steps rather than of readings.
+ */
+@Singleton
+public class EnvironmentReadings {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EnvironmentReadings.class);
+
+    // EClass every artifact with readings is an instance of
+    public static final String ARTIFACT_CLASS = "HeritageArtifact";
+    private static final String CONDITION_CLASS = "EnvironmentCondition";
+    // Unit literal of a Parameter without a unit
+    private static final String NO_UNIT = "null";
+    // Lowest temperature an artifact can plausibly have been measured at, in K
+    static final double MIN_KELVIN = 150;
+
+    // Most steps a history may have, and the number aimed for when no step is given
+    public static final int MAX_STEPS = 10000;
+    private static final int DEFAULT_STEPS = 500;
+    private static final long[] DEFAULT_STEP_MILLIS = {
+        TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(5), TimeUnit.MINUTES.toMillis(15),
+        TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(6), TimeUnit.DAYS.toMillis(1),
+        TimeUnit.DAYS.toMillis(7), TimeUnit.DAYS.toMillis(30)
+    };
+
+    private final EpsilonModelManager modelManager;
+    private final TimeSeriesStore store;
+    private final boolean importModelConditions;
+
+    @Inject
+    public EnvironmentReadings(EpsilonModelManager modelManager, TimeSeriesStore store,
+                               @Value("${mogao.timeseries.import-model-conditions:false}") boolean importModelConditions) {
+        this.modelManager = modelManager;
+        this.store = store;
+        this.importModelConditions = importModelConditions;
+    }
+
+    /**
+     * Copy the readings still modelled as EnvironmentCondition objects into the store, if enabled
+     */
+    @EventListener
+    public void onStartup(StartupEvent event) {
+        if (!importModelConditions) {
+            return;
+        }
+        try {
+            importFromModel();
+        } catch (Exception e) {
+            LOG.warn("Environment conditions could not be imported from the model: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Copy EnvironmentCondition objects into the store, leaving the model unchanged
+     * @return Number of readings added
+     */
+    public int importFromModel() throws Exception {
+        ModelQuery query = new ModelQuery(CONDITION_CLASS).sortBy("timestamp");
+        List<ModelledReading> modelled = modelManager.executeQuery(query, EnvironmentReadings::toReading).getItems();
+
+        int added = 0;
+        int present = 0;
+        int rejected = 0;
+        for (ModelledReading reading : modelled) {
+            if (reading == null) {
+                rejected++;
+            } else if (store.append(reading.artifactGid, reading.kind, reading.timestamp, reading.value)) {
+                added++;
+            } else if (isStored(reading)) {
+                // Imported by an earlier run
+                present++;
+            } else {
+                LOG.warn("Environment condition {} is older than the last {} reading of {}, not imported",
+                    reading.conditionGid, reading.kind.getSlug(), reading.artifactGid);
+                rejected++;
+            }
+        }
+        LOG.info("Imported {} of {} environment conditions from the model ({} already stored, {} rejected)",
+            added, modelled.size(), present, rejected);
+        return added;
+    }
+
+    /**
+     * Whether the store has a modelled reading (same timestamp and value)
+     */
+    private boolean isStored(ModelledReading reading) {
+        boolean[] found = new boolean[1];
+        store.read(reading.artifactGid, reading.kind, reading.timestamp, reading.timestamp + 1, (timestamp, value) -> {
+            found[0] = Double.compare(value, reading.value) == 0;
+            return false;
+        });
+        return found[0];
+    }
+
+    /**
+     * Whether the GID is a heritage artifact in the model
+     */
+    public boolean isArtifact(String gid) {
+        try {
+            return modelManager.exists(gid, ARTIFACT_CLASS);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to look up artifact: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Readings of an artifact in [from, to), oldest first
+     * @param kind Kind of reading, or null for every kind (grouped by kind)
+     * @param limit Maximum number of readings
+     * @return DTOs of the EnvironmentCondition subclasses
+     */
+    public List<Object> getReadings(String artifactGid, ReadingKind kind, long from, long to, int limit) {
+        List<Object> readings = new ArrayList<>();
+        for (ReadingKind each : kind != null ? List.of(kind) : store.kindsOf(artifactGid)) {
+            store.read(artifactGid, each, from, to, (timestamp, value) -> {
+                if (readings.size() >= limit) {
+                    return false;
+                }
+                readings.add(each.toDTO(artifactGid, timestamp, value));
+                return true;
+            });
+        }
+        return readings;
+    }
+
+    /**
+     * Most recent reading of each kind for an artifact
+     */
+    public List<Object> getLatest(String artifactGid) {
+        List<Object> readings = new ArrayList<>();
+        for (ReadingKind kind : store.kindsOf(artifactGid)) {
+            store.latest(artifactGid, kind, (timestamp, value) -> readings.add(kind.toDTO(artifactGid, timestamp, value)));
+        }
+        return readings;
+    }
+
+    /**
+     * Readings of an artifact in [from, to) aggregated per step (count, min, max, mean, percentiles)
+     * Steps are aligned to the epoch; steps that tile into minute, hour or day buckets are computed
+     * from the rollups, others from the readings.
+     * @param kind Kind of reading, or null for every kind
+     * @param step Length of a step in milliseconds, or null to pick one giving about 500 steps
+     * @throws IllegalArgumentException for an empty range or more than MAX_STEPS steps
+     */
+    public List<HistorySeries> getHistory(String artifactGid, ReadingKind kind, long from, long to, Long step) {
+        if (from >= to) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        long stepMillis = step != null ? step : defaultStep(from, to);
+        if (stepMillis <= 0) {
+            throw new IllegalArgumentException("step must be positive");
+        }
+        // Widen the range to whole steps
+        long first = Math.floorDiv(from, stepMillis) * stepMillis;
+        if (to - first <= 0 || (to - first - 1) / stepMillis + 1 > MAX_STEPS) {
+            throw new IllegalArgumentException("More than " + MAX_STEPS + " steps, use a larger step");
+        }
+        long last = Math.floorDiv(to - 1, stepMillis) * stepMillis;
+        long end = last > Long.MAX_VALUE - stepMillis ? Long.MAX_VALUE : last + stepMillis;
+
+        Resolution resolution = Resolution.finerThan(stepMillis);
+        List<HistorySeries> history = new ArrayList<>();
+        for (ReadingKind each : kind != null ? List.of(kind) : store.kindsOf(artifactGid)) {
+            StepAggregator aggregator = new StepAggregator(stepMillis);
+            if (resolution != null) {
+                store.readRollup(artifactGid, each, resolution, first, end, aggregator);
+            } else {
+                store.read(artifactGid, each, first, end, aggregator);
+            }
+            history.add(aggregator.toSeries(each, resolution != null ? resolution.name().toLowerCase() : "raw"));
+        }
+        return history;
+    }
+
+    /**
+     * Parse a step given in milliseconds or as a duration such as 30s, 15m, 1h, 1d or 1w
+     * @throws IllegalArgumentException if it is neither
+     */
+    public static long parseStep(String step) {
+        try {
+            if (step.isEmpty()) {
+                throw new IllegalArgumentException("Empty step");
+            }
+            char unit = Character.toLowerCase(step.charAt(step.length() - 1));
+            if (Character.isDigit(unit)) {
+                return Long.parseLong(step);
+            }
+            long amount = Long.parseLong(step.substring(0, step.length() - 1));
+            switch (unit) {
+                case 's': return TimeUnit.SECONDS.toMillis(amount);
+                case 'm': return TimeUnit.MINUTES.toMillis(amount);
+                case 'h': return TimeUnit.HOURS.toMillis(amount);
+                case 'd': return TimeUnit.DAYS.toMillis(amount);
+                case 'w': return TimeUnit.DAYS.toMillis(7 * amount);
+                default: throw new IllegalArgumentException("Unknown step unit: " + step);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid step: " + step);
+        }
+    }
+
+    /**
+     * Smallest of the usual steps giving at most DEFAULT_STEPS steps over the range
+     */
+    private static long defaultStep(long from, long to) {
+        for (long step : DEFAULT_STEP_MILLIS) {
+            if ((to - from) / step <= DEFAULT_STEPS) {
+                return step;
+            }
+        }
+        long longest = DEFAULT_STEP_MILLIS[DEFAULT_STEP_MILLIS.length - 1];
+        return ((to - from) / DEFAULT_STEPS / longest + 1) * longest;
+    }
+
+    /**
+     * Reading of a modelled EnvironmentCondition in the kind's unit, or null (logged) if it is
+     * incomplete, in a unit that does not fit the kind or impossible
+     */
+    private static ModelledReading toReading(EObject condition) {
+        ReadingKind kind = ReadingKind.ofClassName(condition.eClass().getName());
+        EObject artifact = condition.eContainer();
+        Object timestamp = get(condition, "timestamp");
+        Object parameter = get(condition, "reading");
+        Object value = parameter instanceof EObject ? get((EObject) parameter, "value") : null;
+        Object unit = parameter instanceof EObject ? get((EObject) parameter, "unit") : null;
+        Object artifactGid = artifact != null ? get(artifact, "gid") : null;
+        Object conditionGid = get(condition, "gid");
+        if (kind == null || !(conditionGid instanceof String) || !(artifactGid instanceof String)
+                || !(timestamp instanceof Number) || !(value instanceof Number)) {
+            LOG.warn("Environment condition {} is incomplete, not imported", conditionGid);
+            return null;
+        }
+        String unitName = unit instanceof Enumerator ? ((Enumerator) unit).getLiteral() : null;
+        double reading;
+        try {
+            reading = kind.toUnit(((Number) value).doubleValue(), NO_UNIT.equals(unitName) ? null : unitName);
+        } catch (IllegalArgumentException e) {
+            LOG.warn("Environment condition {} not imported: {}", conditionGid, e.getMessage());
+            return null;
+        }
+        if (!Double.isFinite(reading)) {
+            LOG.warn("Environment condition {} not imported: value is not a finite number", conditionGid);
+            return null;
+        }
+        if (kind == ReadingKind.TEMPERATURE && reading < MIN_KELVIN) {
+            LOG.warn("Environment condition {} not imported: {} K is not a possible temperature (given in °C?)",
+                conditionGid, reading);
+            return null;
+        }
+        return new ModelledReading((String) conditionGid, (String) artifactGid, kind, ((Number) timestamp).longValue(),
+            reading);
+    }
+
+    private static Object get(EObject eObject, String featureName) {
+        EStructuralFeature feature = eObject.eClass().getEStructuralFeature(featureName);
+        return feature != null ? eObject.eGet(feature) : null;
+    }
+
+    private static class ModelledReading {
+        private final String conditionGid;
+        private final String artifactGid;
+        private final ReadingKind kind;
+        private final long timestamp;
+        private final double value;
+
+        ModelledReading(String conditionGid, String artifactGid, ReadingKind kind, long timestamp, double value) {
+            this.conditionGid = conditionGid;
+            this.artifactGid = artifactGid;
+            this.kind = kind;
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+    }
+}
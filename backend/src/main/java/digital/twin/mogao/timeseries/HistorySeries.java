@@ -0,0 +1,87 @@
+package digital.twin.mogao.timeseries;
+
+/**
+ * Readings of one kind aggregated per step, in columns (one entry per step with readings)
+ * Percentiles are of the readings when the resolution is "raw", otherwise estimated from the
+ * count, mean, standard deviation, min and max of the rollup buckets making up the step (see
+ * StepAggregator).
+ */
+public class HistorySeries {
+
+    private final String kind;
+    private final String unit;
+    private final String resolution;
+    private final long[] timestamps;
+    private final long[] count;
+    private final double[] min;
+    private final double[] max;
+    private final double[] mean;
+    private final double[] p10;
+    private final double[] p50;
+    private final double[] p90;
+
+    HistorySeries(String kind, String unit, String resolution, long[] timestamps, long[] count,
+                  double[] min, double[] max, double[] mean, double[] p10, double[] p50, double[] p90) {
+        this.kind = kind;
+        this.unit = unit;
+        this.resolution = resolution;
+        this.timestamps = timestamps;
+        this.count = count;
+        this.min = min;
+        this.max = max;
+        this.mean = mean;
+        this.p10 = p10;
+        this.p50 = p50;
+        this.p90 = p90;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Data the steps were computed from: raw, minute, hour or day
+     */
+    public String getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Start of each step (epoch milliseconds)
+     */
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    public long[] getCount() {
+        return count;
+    }
+
+    public double[] getMin() {
+        return min;
+    }
+
+    public double[] getMax() {
+        return max;
+    }
+
+    public double[] getMean() {
+        return mean;
+    }
+
+    public double[] getP10() {
+        return p10;
+    }
+
+    public double[] getP50() {
+        return p50;
+    }
+
+    public double[] getP90() {
+        return p90;
+    }
+}
@@ -0,0 +1,118 @@
+package digital.twin.mogao.timeseries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Readings received in one ingestion request, in columns
+ * Also counts the records that were rejected, keeping the first few reasons.
+ * Once queued, the ReadingIngestor completes whenWritten() after appending its readings.
+ */
+public final class ReadingBatch {
+
+    private static final int MAX_ERRORS = 10;
+
+    private String[] artifactGids;
+    private ReadingKind[] kinds;
+    private long[] timestamps;
+    private double[] values;
+    private int size;
+
+    private int rejected;
+    private final List<String> errors = new ArrayList<>();
+
+    // Readings that failed to be written (set by the ingestion writer)
+    private int failed;
+    private final CompletableFuture<Integer> written = new CompletableFuture<>();
+
+    public ReadingBatch() {
+        this(256);
+    }
+
+    public ReadingBatch(int capacity) {
+        capacity = Math.max(capacity, 16);
+        artifactGids = new String[capacity];
+        kinds = new ReadingKind[capacity];
+        timestamps = new long[capacity];
+        values = new double[capacity];
+    }
+
+    /**
+     * Add a reading (value in the kind's unit)
+     */
+    public void add(String artifactGid, ReadingKind kind, long timestamp, double value) {
+        if (size == timestamps.length) {
+            int capacity = size * 2;
+            artifactGids = Arrays.copyOf(artifactGids, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        artifactGids[size] = artifactGid;
+        kinds[size] = kind;
+        timestamps[size] = timestamp;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Count a rejected record
+     * @param record Position of the record in the request (0-based)
+     */
+    public void reject(int record, String reason) {
+        rejected++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("record " + record + ": " + reason);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Reasons of the first rejected records
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Completes once every reading has been appended to the store (and is on disk) or has
+     * failed to be; the value is the number that failed
+     */
+    public CompletableFuture<Integer> whenWritten() {
+        return written;
+    }
+
+    void fail(int readings) {
+        failed += readings;
+    }
+
+    void completeWritten() {
+        written.complete(Math.min(failed, size));
+    }
+
+    String artifactGid(int index) {
+        return artifactGids[index];
+    }
+
+    ReadingKind kind(int index) {
+        return kinds[index];
+    }
+
+    long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    double value(int index) {
+        return values[index];
+    }
+}
@@ -0,0 +1,370 @@
+package digital.twin.mogao.timeseries;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ShutdownEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batching writer for ingested readings
+ * Requests hand their ReadingBatch to a queue bounded by the number of pending readings
+ * (mogao.ingest.queue-capacity); a full queue refuses the batch so the logger can retry later.
+ * One writer thread drains up to mogao.ingest.max-batch readings at a time, groups them by
+ * series, sorts each group by timestamp and appends it to the TimeSeriesStore under a single
+ * series lock.
+ *
+ * Readings not newer than the last one of their series are dropped by the store (late or
+ * duplicate readings); they are counted but not reported to the sender.
+ *
+ * A batch's whenWritten() completes once its readings are appended, which the store does
+ * durably, so a sender can be acknowledged only then. A series that fails to be written
+ * fails only the readings of that series.
+ */
+@Singleton
+public class ReadingIngestor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReadingIngestor.class);
+
+    private static final long POLL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 30000;
+
+    private final TimeSeriesStore store;
+    private final int queueCapacity;
+    private final int maxBatch;
+
+    private final LinkedBlockingQueue<ReadingBatch> queue = new LinkedBlockingQueue<>();
+    // Readings submitted and not yet written
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean running = true;
+    private final Thread writer;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+
+    @Inject
+    public ReadingIngestor(TimeSeriesStore store,
+                           @Value("${mogao.ingest.queue-capacity:100000}") int queueCapacity,
+                           @Value("${mogao.ingest.max-batch:10000}") int maxBatch) {
+        this.store = store;
+        this.queueCapacity = queueCapacity;
+        this.maxBatch = maxBatch;
+
+        writer = new Thread(this::writeLoop, "reading-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queue the readings of a batch for writing (see ReadingBatch.whenWritten)
+     * A batch larger than the queue is accepted when the queue is empty.
+     * @return false if the queue has no room for the batch (nothing is queued)
+     */
+    public boolean submit(ReadingBatch batch) {
+        rejected.add(batch.getRejected());
+        int size = batch.size();
+        if (size == 0) {
+            batch.completeWritten();
+            return true;
+        }
+        while (true) {
+            int current = pending.get();
+            if (!running || (current > 0 && current + size > queueCapacity)) {
+                refused.add(size);
+                return false;
+            }
+            if (pending.compareAndSet(current, current + size)) {
+                break;
+            }
+        }
+        queue.add(batch);
+        // Shutdown may have drained the queue meanwhile
+        if (!running && queue.remove(batch)) {
+            pending.addAndGet(-size);
+            refused.add(size);
+            return false;
+        }
+        accepted.add(size);
+        return true;
+    }
+
+    /**
+     * Write the queued readings before the store is closed
+     */
+    @EventListener
+    public void onShutdown(ShutdownEvent event) {
+        running = false;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (pending.get() > 0) {
+            LOG.warn("{} ingested readings were not written before shutdown", pending.get());
+        }
+        // Senders still waiting are told their readings were not written
+        ReadingBatch abandoned;
+        while ((abandoned = queue.poll()) != null) {
+            abandoned.fail(abandoned.size());
+            abandoned.completeWritten();
+        }
+    }
+
+    private void writeLoop() {
+        List<ReadingBatch> drained = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            ReadingBatch first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (first == null) {
+                continue;
+            }
+
+            drained.add(first);
+            int readings = first.size();
+            ReadingBatch next;
+            while (readings < maxBatch && (next = queue.poll()) != null) {
+                drained.add(next);
+                readings += next.size();
+            }
+
+            long start = System.nanoTime();
+            try {
+                write(drained);
+            } catch (RuntimeException e) {
+                // Failed before any series was appended
+                LOG.error("Failed to write {} ingested readings", readings, e);
+                failed.add(readings);
+                for (ReadingBatch batch : drained) {
+                    batch.fail(batch.size());
+                }
+            } finally {
+                writeNanos.add(System.nanoTime() - start);
+                batches.increment();
+                pending.addAndGet(-readings);
+                for (ReadingBatch batch : drained) {
+                    batch.completeWritten();
+                }
+                drained.clear();
+            }
+        }
+    }
+
+    /**
+     * Append the readings of the batches, one series at a time
+     */
+    private void write(List<ReadingBatch> drained) {
+        Map<String, SeriesBuffer> bySeries = new LinkedHashMap<>();
+        for (ReadingBatch batch : drained) {
+            for (int i = 0; i < batch.size(); i++) {
+                String artifactGid = batch.artifactGid(i);
+                ReadingKind kind = batch.kind(i);
+                bySeries.computeIfAbsent(kind.getSlug() + ":" + artifactGid, key -> new SeriesBuffer(artifactGid, kind))
+                    .add(batch, batch.timestamp(i), batch.value(i));
+            }
+        }
+
+        // A failing series (e.g. its file cannot be written) does not stop the others
+        for (SeriesBuffer buffer : bySeries.values()) {
+            try {
+                buffer.sort();
+                int appended = store.appendAll(buffer.artifactGid, buffer.kind, buffer.timestamps, buffer.values, 0, buffer.size);
+                written.add(appended);
+                dropped.add(buffer.size - appended);
+            } catch (RuntimeException e) {
+                LOG.error("Failed to write {} ingested readings of {} {}", buffer.size, buffer.artifactGid, buffer.kind, e);
+                failed.add(buffer.size);
+                buffer.failSources();
+            }
+        }
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(accepted.sum(), rejected.sum(), refused.sum(), written.sum(), dropped.sum(), failed.sum(),
+            batches.sum(), writeNanos.sum(), pending.get(), queueCapacity);
+    }
+
+    /**
+     * Readings of one series drained from the queue
+     */
+    private static class SeriesBuffer {
+        private final String artifactGid;
+        private final ReadingKind kind;
+        private long[] timestamps = new long[16];
+        private double[] values = new double[16];
+        private int size;
+        private boolean sorted = true;
+
+        // Batches the readings came from, with the number from each (batches are drained in turn)
+        private final List<ReadingBatch> sources = new ArrayList<>();
+        private int[] sourceCounts = new int[4];
+
+        SeriesBuffer(String artifactGid, ReadingKind kind) {
+            this.artifactGid = artifactGid;
+            this.kind = kind;
+        }
+
+        void add(ReadingBatch source, long timestamp, double value) {
+            int last = sources.size() - 1;
+            if (last < 0 || sources.get(last) != source) {
+                sources.add(source);
+                last++;
+                if (last == sourceCounts.length) {
+                    sourceCounts = Arrays.copyOf(sourceCounts, last * 2);
+                }
+            }
+            sourceCounts[last]++;
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            if (size > 0 && timestamp < timestamps[size - 1]) {
+                sorted = false;
+            }
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+        }
+
+        /**
+         * Count the readings of this series as failed in the batches they came from
+         */
+        void failSources() {
+            for (int i = 0; i < sources.size(); i++) {
+                sources.get(i).fail(sourceCounts[i]);
+            }
+        }
+
+        /**
+         * Order the readings by timestamp (stable, so the first of equal timestamps is kept)
+         */
+        void sort() {
+            if (sorted) {
+                return;
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(timestamps[a], timestamps[b]));
+            long[] sortedTimestamps = new long[size];
+            double[] sortedValues = new double[size];
+            for (int i = 0; i < size; i++) {
+                sortedTimestamps[i] = timestamps[order[i]];
+                sortedValues[i] = values[order[i]];
+            }
+            timestamps = sortedTimestamps;
+            values = sortedValues;
+            sorted = true;
+        }
+    }
+
+    /**
+     * Counts of the ingestion queue
+     */
+    public static class Metrics {
+        private final long accepted;
+        private final long rejected;
+        private final long refused;
+        private final long written;
+        private final long dropped;
+        private final long failed;
+        private final long batches;
+        private final long writeNanos;
+        private final int queued;
+        private final int queueCapacity;
+
+        Metrics(long accepted, long rejected, long refused, long written, long dropped, long failed,
+                long batches, long writeNanos, int queued, int queueCapacity) {
+            this.accepted = accepted;
+            this.rejected = rejected;
+            this.refused = refused;
+            this.written = written;
+            this.dropped = dropped;
+            this.failed = failed;
+            this.batches = batches;
+            this.writeNanos = writeNanos;
+            this.queued = queued;
+            this.queueCapacity = queueCapacity;
+        }
+
+        /**
+         * Readings queued for writing
+         */
+        public long getAccepted() {
+            return accepted;
+        }
+
+        /**
+         * Invalid records (unknown kind, unit or artifact, malformed values)
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Readings refused because the queue was full
+         */
+        public long getRefused() {
+            return refused;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        /**
+         * Readings not newer than the last one of their series
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Readings lost to write errors
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * Write rounds of the writer thread
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        public double getAverageBatchMillis() {
+            return batches == 0 ? 0 : writeNanos / 1e6 / batches;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package digital.twin.mogao.timeseries;
+
+import digital.twin.mogao.dto.HumidityDTO;
+import digital.twin.mogao.dto.LightIntensityDTO;
+import digital.twin.mogao.dto.ParameterDTO;
+import digital.twin.mogao.dto.TemperatureDTO;
+
+/**
+ * Kinds of environmental readings, one per concrete EnvironmentCondition class
+ * Values are stored in the kind's unit (a literal of the metamodel's Unit enum).
+ */
+public enum ReadingKind {
+
+    TEMPERATURE("Temperature", "temperature", "K"),
+    HUMIDITY("Humidity", "humidity", "RH"),
+    LIGHT_INTENSITY("LightIntensity", "light", "lux");
+
+    private final String className;
+    private final String slug;
+    private final String unit;
+
+    ReadingKind(String className, String slug, String unit) {
+        this.className = className;
+        this.slug = slug;
+        this.unit = unit;
+    }
+
+    /**
+     * EClass name of the EnvironmentCondition subclass
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Short name used in file names and request parameters
+     */
+    public String getSlug() {
+        return slug;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Convert a value given in some unit to the kind's unit
+     * @param unit Unit of the value (null or empty: already in the kind's unit)
+     * @throws IllegalArgumentException for a unit that does not fit the kind
+     */
+    public double toUnit(double value, String unit) {
+        if (unit == null || unit.isEmpty() || unit.equalsIgnoreCase(this.unit)) {
+            return value;
+        }
+        String name = unit.toLowerCase();
+        switch (this) {
+            case TEMPERATURE:
+                if (name.equals("c") || name.equals("°c") || name.equals("celsius")) {
+                    return value + 273.15;
+                }
+                if (name.equals("f") || name.equals("°f") || name.equals("fahrenheit")) {
+                    return (value - 32) * 5 / 9 + 273.15;
+                }
+                if (name.equals("kelvin")) {
+                    return value;
+                }
+                break;
+            case HUMIDITY:
+                if (name.equals("%") || name.equals("percent")) {
+                    return value;
+                }
+                break;
+            default:
+                if (name.equals("lx")) {
+                    return value;
+                }
+                if (name.equals("klux") || name.equals("klx")) {
+                    return value * 1000;
+                }
+        }
+        throw new IllegalArgumentException("Unknown unit for " + slug + ": " + unit);
+    }
+
+    /**
+     * Kind for a slug, EClass name or enum name (case-insensitive)
+     * @throws IllegalArgumentException for an unknown kind
+     */
+    public static ReadingKind of(String name) {
+        for (ReadingKind kind : values()) {
+            if (kind.slug.equalsIgnoreCase(name) || kind.className.equalsIgnoreCase(name)
+                    || kind.name().equalsIgnoreCase(name)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown reading kind: " + name);
+    }
+
+    /**
+     * Kind for an EClass name, or null if the class is not a reading
+     */
+    public static ReadingKind ofClassName(String className) {
+        for (ReadingKind kind : values()) {
+            if (kind.className.equals(className)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * DTO of a stored reading (the DTO of the EnvironmentCondition subclass)
+     * The gid is derived from the artifact, kind and timestamp, as readings are not model objects;
+     * the name is the kind's EClass name.
+     */
+    public Object toDTO(String artifactGid, long timestamp, double value) {
+        String gid = artifactGid + "/" + slug + "/" + timestamp;
+        ParameterDTO reading = new ParameterDTO();
+        reading.setValue(value);
+        reading.setUnit(unit);
+
+        switch (this) {
+            case TEMPERATURE:
+                TemperatureDTO temperature = new TemperatureDTO();
+                temperature.setGid(gid);
+                temperature.setName(className);
+                temperature.setTimestamp(timestamp);
+                temperature.setReading(reading);
+                return temperature;
+            case HUMIDITY:
+                HumidityDTO humidity = new HumidityDTO();
+                humidity.setGid(gid);
+                humidity.setName(className);
+                humidity.setTimestamp(timestamp);
+                humidity.setReading(reading);
+                return humidity;
+            default:
+                LightIntensityDTO light = new LightIntensityDTO();
+                light.setGid(gid);
+                light.setName(className);
+                light.setTimestamp(timestamp);
+                light.setReading(reading);
+                return light;
+        }
+    }
+}
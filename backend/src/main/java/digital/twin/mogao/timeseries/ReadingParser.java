@@ -0,0 +1,151 @@
+package digital.twin.mogao.timeseries;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Parser of ingestion requests
+ * Records are (artifactGid, kind, timestamp, value, unit), either as a JSON array of objects
+ * or as CSV lines (artifactGid,kind,timestamp,value[,unit]; an optional header line and lines
+ * starting with # are skipped). Timestamps are epoch milliseconds or ISO-8601 instants; values
+ * are converted to the kind's unit. Invalid records are rejected one by one, the rest are kept.
+ */
+public final class ReadingParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final Predicate<String> isArtifact;
+    private final Map<String, Boolean> artifacts = new HashMap<>();
+
+    /**
+     * @param isArtifact Whether a GID is an artifact readings may be added to (asked once per GID)
+     */
+    public ReadingParser(Predicate<String> isArtifact) {
+        this.isArtifact = isArtifact;
+    }
+
+    /**
+     * Parse a JSON array of reading objects
+     * @throws IOException if the body is not a JSON array of objects
+     */
+    public ReadingBatch parseJson(byte[] body) throws IOException {
+        ReadingBatch batch = new ReadingBatch(body.length / 64);
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of readings");
+            }
+            int record = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a reading object at record " + record);
+                }
+                String artifactGid = null;
+                String kind = null;
+                String timestamp = null;
+                String value = null;
+                String unit = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken fieldValue = parser.nextToken();
+                    if (fieldValue == JsonToken.START_OBJECT || fieldValue == JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    String text = fieldValue == JsonToken.VALUE_NULL ? null : parser.getText();
+                    switch (field) {
+                        case "artifactGid": artifactGid = text; break;
+                        case "kind": kind = text; break;
+                        case "timestamp": timestamp = text; break;
+                        case "value": value = text; break;
+                        case "unit": unit = text; break;
+                        default: break;
+                    }
+                }
+                add(batch, record++, artifactGid, kind, timestamp, value, unit);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Parse CSV lines artifactGid,kind,timestamp,value[,unit]
+     */
+    public ReadingBatch parseCsv(byte[] body) {
+        String text = new String(body, StandardCharsets.UTF_8);
+        ReadingBatch batch = new ReadingBatch(body.length / 40);
+        int record = 0;
+        int start = 0;
+        while (start < text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0) {
+                end = text.length();
+            }
+            String line = text.substring(start, end).trim();
+            start = end + 1;
+            if (line.isEmpty() || line.startsWith("#") || (record == 0 && line.startsWith("artifactGid"))) {
+                continue;
+            }
+            String[] columns = line.split(",", -1);
+            if (columns.length < 4 || columns.length > 5) {
+                batch.reject(record++, "expected artifactGid,kind,timestamp,value[,unit]");
+                continue;
+            }
+            add(batch, record++, columns[0].trim(), columns[1].trim(), columns[2].trim(), columns[3].trim(),
+                columns.length == 5 ? columns[4].trim() : null);
+        }
+        return batch;
+    }
+
+    private void add(ReadingBatch batch, int record, String artifactGid, String kindName, String timestamp,
+                     String value, String unit) {
+        if (artifactGid == null || artifactGid.isEmpty() || kindName == null || timestamp == null || value == null) {
+            batch.reject(record, "artifactGid, kind, timestamp and value are required");
+            return;
+        }
+        try {
+            ReadingKind kind = ReadingKind.of(kindName);
+            double reading = kind.toUnit(parseValue(value), unit);
+            if (!Double.isFinite(reading)) {
+                batch.reject(record, "value is not a finite number");
+                return;
+            }
+            long time = parseTimestamp(timestamp);
+            if (!artifacts.computeIfAbsent(artifactGid, isArtifact::test)) {
+                batch.reject(record, "unknown artifact " + artifactGid);
+                return;
+            }
+            batch.add(artifactGid, kind, time, reading);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            batch.reject(record, e.getMessage());
+        }
+    }
+
+    private static double parseValue(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("value is not a number: " + value);
+        }
+    }
+
+    private static long parseTimestamp(String timestamp) {
+        char first = timestamp.isEmpty() ? ' ' : timestamp.charAt(0);
+        if (Character.isDigit(first) || first == '-') {
+            try {
+                return Long.parseLong(timestamp);
+            } catch (NumberFormatException e) {
+                // Not epoch milliseconds, may still be an ISO-8601 instant
+            }
+        }
+        return Instant.parse(timestamp).toEpochMilli();
+    }
+}
@@ -0,0 +1,57 @@
+package digital.twin.mogao.timeseries;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolutions of the rollups kept next to every series
+ */
+public enum Resolution {
+
+    MINUTE(TimeUnit.MINUTES.toMillis(1), "1m"),
+    HOUR(TimeUnit.HOURS.toMillis(1), "1h"),
+    DAY(TimeUnit.DAYS.toMillis(1), "1d");
+
+    private final long millis;
+    private final String suffix;
+
+    Resolution(long millis, String suffix) {
+        this.millis = millis;
+        this.suffix = suffix;
+    }
+
+    /**
+     * Length of a bucket
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * File name suffix of the rollup files
+     */
+    String getSuffix() {
+        return suffix;
+    }
+
+    /**
+     * Start of the bucket holding a timestamp (buckets are aligned to the epoch, in UTC)
+     */
+    public long bucketOf(long timestamp) {
+        return Math.floorDiv(timestamp, millis) * millis;
+    }
+
+    /**
+     * Coarsest resolution whose buckets tile a step of the given length, or null if the step
+     * must be computed from the raw readings
+     */
+    public static Resolution finerThan(long step) {
+        Resolution[] resolutions = values();
+        for (int i = resolutions.length - 1; i >= 0; i--) {
+            long millis = resolutions[i].millis;
+            if (millis < step && step % millis == 0) {
+                return resolutions[i];
+            }
+        }
+        return null;
+    }
+}
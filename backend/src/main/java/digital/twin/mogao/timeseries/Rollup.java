@@ -0,0 +1,244 @@
+package digital.twin.mogao.timeseries;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Aggregates of one series at one Resolution, maintained as readings are appended
+ * Each bucket holds count, min, max, sum and sum of squares of its readings (a moment sketch,
+ * from which StepAggregator estimates percentiles) and the timestamp of the last one.
+ * Closed buckets are fixed-size records in an append-only file read through a memory mapping;
+ * the open (most recent) bucket is kept in memory and written after the closed ones on flush,
+ * to be reopened from there when the file is loaded again.
+ *
+ * File layout: magic (8), then per bucket: start (8), last timestamp (8), count (8), min (8),
+ * max (8), sum (8), sum of squares (8). A file in the earlier layout (without sums of squares)
+ * is emptied, and the owning Series adds the readings again. Not thread-safe: the owning
+ * Series guards it.
+ */
+final class Rollup {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Rollup.class);
+
+    private static final long MAGIC = 0x4D47525530303032L; // "MGRU0002"
+    private static final long PREVIOUS_MAGIC = 0x4D47525530303031L; // "MGRU0001": no sums of squares
+    private static final int FILE_HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 56;
+
+    private final Resolution resolution;
+    private final Path file;
+    private final FileChannel channel;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+
+    // Closed buckets are records [0, closed) of the file
+    private int closed;
+    private MappedByteBuffer mapped;
+
+    // Open bucket (count == 0: none)
+    private long openStart;
+    private long openLast = Long.MIN_VALUE;
+    private long openCount;
+    private double openMin;
+    private double openMax;
+    private double openSum;
+    private double openSumSquares;
+
+    Rollup(Resolution resolution, Path file) throws IOException {
+        this.resolution = resolution;
+        this.file = file;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > 0 && !load(size)) {
+            LOG.info("Rebuilding {} in the current layout", file);
+            channel.truncate(0);
+            size = 0;
+        }
+        if (size == 0) {
+            channel.write(ByteBuffer.allocate(FILE_HEADER_BYTES).putLong(0, MAGIC), 0);
+        }
+    }
+
+    Resolution getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Timestamp of the last reading aggregated (Long.MIN_VALUE if there is none)
+     */
+    long lastTimestamp() {
+        return openLast;
+    }
+
+    /**
+     * Add a reading; readings older than the open bucket are ignored
+     */
+    void add(long timestamp, double value) throws IOException {
+        long start = resolution.bucketOf(timestamp);
+        if (openCount > 0 && start != openStart) {
+            if (start < openStart) {
+                return;
+            }
+            writeOpen();
+            closed++;
+            openCount = 0;
+        }
+        if (openCount == 0) {
+            openStart = start;
+            openMin = value;
+            openMax = value;
+            openSum = 0;
+            openSumSquares = 0;
+        }
+        openCount++;
+        openMin = Math.min(openMin, value);
+        openMax = Math.max(openMax, value);
+        openSum += value;
+        openSumSquares += value * value;
+        openLast = Math.max(openLast, timestamp);
+    }
+
+    /**
+     * Current buckets, to be read outside the owner's lock
+     */
+    Snapshot snapshot() throws IOException {
+        long end = FILE_HEADER_BYTES + (long) closed * RECORD_BYTES;
+        if (mapped == null || mapped.capacity() < end) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+        }
+        return new Snapshot(mapped, closed, openCount, openStart, openMin, openMax, openSum, openSumSquares);
+    }
+
+    long bytes() {
+        return FILE_HEADER_BYTES + (long) (closed + (openCount > 0 ? 1 : 0)) * RECORD_BYTES;
+    }
+
+    /**
+     * Write the open bucket after the closed ones, so it survives a restart
+     */
+    void flush() throws IOException {
+        if (openCount > 0) {
+            writeOpen();
+        }
+        channel.force(false);
+    }
+
+    void close() throws IOException {
+        flush();
+        channel.close();
+    }
+
+    private void writeOpen() throws IOException {
+        record.clear();
+        record.putLong(openStart).putLong(openLast).putLong(openCount)
+            .putDouble(openMin).putDouble(openMax).putDouble(openSum).putDouble(openSumSquares)
+            .flip();
+        long offset = FILE_HEADER_BYTES + (long) closed * RECORD_BYTES;
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+    }
+
+    /**
+     * Index the records and reopen the last bucket, cutting off a torn record
+     * @return false if the file is in the earlier layout
+     */
+    private boolean load(long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        channel.read(header, 0);
+        if (size >= FILE_HEADER_BYTES && header.getLong(0) == PREVIOUS_MAGIC) {
+            return false;
+        }
+        if (size < FILE_HEADER_BYTES || header.getLong(0) != MAGIC) {
+            throw new IOException("Not a rollup file: " + file);
+        }
+        long records = (size - FILE_HEADER_BYTES) / RECORD_BYTES;
+        long end = FILE_HEADER_BYTES + records * RECORD_BYTES;
+        if (end < size) {
+            LOG.warn("Cutting off torn rollup record at {} in {}", end, file);
+            channel.truncate(end);
+        }
+        if (records == 0) {
+            return true;
+        }
+        closed = (int) records - 1;
+        ByteBuffer last = ByteBuffer.allocate(RECORD_BYTES);
+        channel.read(last, FILE_HEADER_BYTES + (long) closed * RECORD_BYTES);
+        last.flip();
+        openStart = last.getLong();
+        openLast = last.getLong();
+        openCount = last.getLong();
+        openMin = last.getDouble();
+        openMax = last.getDouble();
+        openSum = last.getDouble();
+        openSumSquares = last.getDouble();
+        return true;
+    }
+
+    /**
+     * Buckets of a rollup at one point in time, readable without the owner's lock
+     */
+    static final class Snapshot {
+        private final MappedByteBuffer buffer;
+        private final int closed;
+        private final long openCount;
+        private final long openStart;
+        private final double openMin;
+        private final double openMax;
+        private final double openSum;
+        private final double openSumSquares;
+
+        Snapshot(MappedByteBuffer buffer, int closed, long openCount, long openStart,
+                 double openMin, double openMax, double openSum, double openSumSquares) {
+            this.buffer = buffer;
+            this.closed = closed;
+            this.openCount = openCount;
+            this.openStart = openStart;
+            this.openMin = openMin;
+            this.openMax = openMax;
+            this.openSum = openSum;
+            this.openSumSquares = openSumSquares;
+        }
+
+        /**
+         * Pass the buckets starting in [from, to) to the consumer, oldest first
+         */
+        void read(long from, long to, TimeSeriesStore.BucketConsumer consumer) {
+            // Records are ordered by start: find the first one at or after from
+            int low = 0;
+            int high = closed;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (startOf(middle) < from) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            for (int i = low; i < closed; i++) {
+                int position = FILE_HEADER_BYTES + i * RECORD_BYTES;
+                long start = buffer.getLong(position);
+                if (start >= to) {
+                    return;
+                }
+                if (!consumer.accept(start, buffer.getLong(position + 16), buffer.getDouble(position + 24),
+                        buffer.getDouble(position + 32), buffer.getDouble(position + 40), buffer.getDouble(position + 48))) {
+                    return;
+                }
+            }
+            if (openCount > 0 && openStart >= from && openStart < to) {
+                consumer.accept(openStart, openCount, openMin, openMax, openSum, openSumSquares);
+            }
+        }
+
+        private long startOf(int index) {
+            return buffer.getLong(FILE_HEADER_BYTES + index * RECORD_BYTES);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package digital.twin.mogao.timeseries;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Readings of one kind for one artifact
+ * Readings are kept in time chunks: the open (head) chunk in primitive arrays, sealed chunks
+ * Gorilla-compressed (ChunkCodec) in an append-only file that is read through a memory mapping.
+ *
+ * File layout: magic (8), then per sealed chunk: first timestamp (8), last timestamp (8),
+ * reading count (4), byte length (4), compressed bits. A chunk torn by a crash is cut off
+ * when the file is opened.
+ *
+ * The readings of the open chunk are also written to a head log next to the series file
+ * (e.g. cave-001.ts.head: timestamp (8), value bits (8) per reading), forced to disk before an
+ * append returns and emptied when the chunk is sealed. The log is replayed when the series is
+ * opened, so appended readings survive a crash; a torn last record is cut off.
+ *
+ * Every appended reading is also added to a Rollup per Resolution (files next to the series
+ * file, e.g. cave-001.ts.1h). Readings a rollup is missing when the series is opened, e.g.
+ * for series written before rollups existed or rollups rebuilt in a new layout, are added
+ * from the stored readings.
+ */
+final class Series {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Series.class);
+
+    private static final long MAGIC = 0x4D47545330303031L; // "MGTS0001"
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int CHUNK_HEADER_BYTES = 24;
+    private static final String HEAD_LOG_SUFFIX = ".head";
+    private static final int HEAD_RECORD_BYTES = 16;
+
+    private final String artifactGid;
+    private final ReadingKind kind;
+    private final Path file;
+    private final long chunkDuration;
+    private final FileChannel channel;
+    private long fileSize;
+
+    // Mapping of the sealed chunks (remapped when the file has grown past it)
+    private volatile MappedByteBuffer mapped;
+
+    // Sealed chunk index; the arrays only grow, so a reader may keep an older array
+    private long[] chunkFirst = new long[16];
+    private long[] chunkLast = new long[16];
+    private int[] chunkCount = new int[16];
+    private long[] chunkOffset = new long[16];
+    private int chunks;
+    private long sealedReadings;
+
+    // Open chunk: readings in [headWindow, headWindow + chunkDuration)
+    private long[] headTimestamps = new long[64];
+    private double[] headValues = new double[64];
+    private int headSize;
+    private long headWindow;
+
+    // Head log: the first headLogged head readings are in it
+    private final FileChannel headLog;
+    private int headLogged;
+
+    private long lastTimestamp = Long.MIN_VALUE;
+    private double lastValue = Double.NaN;
+
+    private final Rollup[] rollups;
+
+    Series(String artifactGid, ReadingKind kind, Path file, long chunkDuration) throws IOException {
+        this.artifactGid = artifactGid;
+        this.kind = kind;
+        this.file = file;
+        this.chunkDuration = chunkDuration;
+
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        fileSize = channel.size();
+        if (fileSize == 0) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).putLong(0, MAGIC);
+            channel.write(header, 0);
+            fileSize = FILE_HEADER_BYTES;
+        } else {
+            loadIndex();
+        }
+        headLog = FileChannel.open(file.resolveSibling(file.getFileName() + HEAD_LOG_SUFFIX),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        replayHeadLog();
+
+        Resolution[] resolutions = Resolution.values();
+        rollups = new Rollup[resolutions.length];
+        for (int i = 0; i < resolutions.length; i++) {
+            rollups[i] = new Rollup(resolutions[i], file.resolveSibling(file.getFileName() + "." + resolutions[i].getSuffix()));
+            catchUp(rollups[i]);
+        }
+    }
+
+    String getArtifactGid() {
+        return artifactGid;
+    }
+
+    ReadingKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Append a reading; readings must arrive in timestamp order.
+     * The reading is on disk (sealed or in the head log) when this returns.
+     * @return false if the reading is not newer than the last one (it is dropped)
+     */
+    synchronized boolean append(long timestamp, double value) throws IOException {
+        boolean appended = add(timestamp, value);
+        logHead();
+        return appended;
+    }
+
+    /**
+     * Append readings [from, to) of the arrays under one lock, in order, with one write and
+     * force of the head log
+     * @return Number of readings appended (older ones are dropped, as in append)
+     */
+    synchronized int appendAll(long[] timestamps, double[] values, int from, int to) throws IOException {
+        int appended = 0;
+        for (int i = from; i < to; i++) {
+            if (add(timestamps[i], values[i])) {
+                appended++;
+            }
+        }
+        logHead();
+        return appended;
+    }
+
+    /**
+     * Add a reading to the open chunk (sealing it first if the reading is in a later window)
+     * and to the rollups
+     */
+    private boolean add(long timestamp, double value) throws IOException {
+        if (timestamp <= lastTimestamp) {
+            return false;
+        }
+        long window = Math.floorDiv(timestamp, chunkDuration) * chunkDuration;
+        if (headSize > 0 && window != headWindow) {
+            seal();
+        }
+        if (headSize == 0) {
+            headWindow = window;
+        }
+        addToHead(timestamp, value);
+        for (Rollup rollup : rollups) {
+            rollup.add(timestamp, value);
+        }
+        return true;
+    }
+
+    private void addToHead(long timestamp, double value) {
+        if (headSize == headTimestamps.length) {
+            headTimestamps = Arrays.copyOf(headTimestamps, headSize * 2);
+            headValues = Arrays.copyOf(headValues, headSize * 2);
+        }
+        headTimestamps[headSize] = timestamp;
+        headValues[headSize] = value;
+        headSize++;
+        lastTimestamp = timestamp;
+        lastValue = value;
+    }
+
+    /**
+     * Pass readings in [from, to) to the consumer, in timestamp order.
+     * Sealed chunks are decoded outside the lock, so appends are not held up by long reads.
+     */
+    void read(long from, long to, TimeSeriesStore.ReadingConsumer consumer) throws IOException {
+        long[] first;
+        long[] last;
+        int[] counts;
+        long[] offsets;
+        int sealed;
+        long[] head;
+        double[] headCopy;
+        MappedByteBuffer buffer;
+        synchronized (this) {
+            first = chunkFirst;
+            last = chunkLast;
+            counts = chunkCount;
+            offsets = chunkOffset;
+            sealed = chunks;
+            buffer = mapping();
+            head = Arrays.copyOf(headTimestamps, headSize);
+            headCopy = Arrays.copyOf(headValues, headSize);
+        }
+
+        for (int i = 0; i < sealed; i++) {
+            if (last[i] < from) {
+                continue;
+            }
+            if (first[i] >= to) {
+                return;
+            }
+            int offset = (int) offsets[i] + CHUNK_HEADER_BYTES;
+            if (!ChunkCodec.decode(buffer, offset, counts[i], from, to, consumer)) {
+                return;
+            }
+        }
+        for (int i = 0; i < head.length; i++) {
+            if (head[i] >= to) {
+                return;
+            }
+            if (head[i] >= from && !consumer.accept(head[i], headCopy[i])) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Pass the buckets of a rollup starting in [from, to) to the consumer, oldest first.
+     * As for readings, the file is read outside the lock.
+     */
+    void readRollup(Resolution resolution, long from, long to, TimeSeriesStore.BucketConsumer consumer) throws IOException {
+        Rollup.Snapshot snapshot;
+        synchronized (this) {
+            snapshot = rollups[resolution.ordinal()].snapshot();
+        }
+        snapshot.read(from, to, consumer);
+    }
+
+    /**
+     * Pass the most recent reading to the consumer, if there is one
+     */
+    synchronized boolean latest(TimeSeriesStore.ReadingConsumer consumer) {
+        if (lastTimestamp == Long.MIN_VALUE) {
+            return false;
+        }
+        consumer.accept(lastTimestamp, lastValue);
+        return true;
+    }
+
+    synchronized long size() {
+        return sealedReadings + headSize;
+    }
+
+    synchronized long sealedBytes() {
+        return fileSize;
+    }
+
+    synchronized long sealedReadings() {
+        return sealedReadings;
+    }
+
+    synchronized long rollupBytes() {
+        long bytes = 0;
+        for (Rollup rollup : rollups) {
+            bytes += rollup.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Seal the open chunk and write the open rollup buckets, so everything read so far is on disk
+     */
+    synchronized void flush() throws IOException {
+        if (headSize > 0) {
+            seal();
+        }
+        for (Rollup rollup : rollups) {
+            rollup.flush();
+        }
+    }
+
+    synchronized void close() throws IOException {
+        flush();
+        channel.close();
+        headLog.close();
+        for (Rollup rollup : rollups) {
+            rollup.close();
+        }
+    }
+
+    /**
+     * Add the sealed readings newer than the rollup's last one
+     */
+    private void catchUp(Rollup rollup) throws IOException {
+        if (rollup.lastTimestamp() >= lastTimestamp) {
+            return;
+        }
+        long[] added = new long[1];
+        IOException[] failure = new IOException[1];
+        read(rollup.lastTimestamp() + 1, Long.MAX_VALUE, (timestamp, value) -> {
+            try {
+                rollup.add(timestamp, value);
+                added[0]++;
+                return true;
+            } catch (IOException e) {
+                failure[0] = e;
+                return false;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        LOG.info("Added {} readings of {} {} to the {} rollup", added[0], artifactGid, kind, rollup.getResolution());
+    }
+
+    /**
+     * Compress the open chunk and append it to the file
+     */
+    private void seal() throws IOException {
+        byte[] bits = ChunkCodec.encode(headTimestamps, headValues, headSize);
+        ByteBuffer record = ByteBuffer.allocate(CHUNK_HEADER_BYTES + bits.length);
+        record.putLong(headTimestamps[0])
+            .putLong(headTimestamps[headSize - 1])
+            .putInt(headSize)
+            .putInt(bits.length)
+            .put(bits)
+            .flip();
+
+        long offset = fileSize;
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+        channel.force(false);
+
+        addChunk(headTimestamps[0], headTimestamps[headSize - 1], headSize, offset);
+        fileSize = offset + CHUNK_HEADER_BYTES + bits.length;
+        headSize = 0;
+
+        // The sealed readings are durable, so the log starts over
+        headLog.truncate(0);
+        headLogged = 0;
+    }
+
+    /**
+     * Write the head readings not yet in the head log, and force it to disk
+     */
+    private void logHead() throws IOException {
+        if (headLogged == headSize) {
+            return;
+        }
+        ByteBuffer records = ByteBuffer.allocate((headSize - headLogged) * HEAD_RECORD_BYTES);
+        for (int i = headLogged; i < headSize; i++) {
+            records.putLong(headTimestamps[i]).putLong(Double.doubleToRawLongBits(headValues[i]));
+        }
+        records.flip();
+        long offset = (long) headLogged * HEAD_RECORD_BYTES;
+        while (records.hasRemaining()) {
+            headLog.write(records, offset + records.position());
+        }
+        headLog.force(false);
+        headLogged = headSize;
+    }
+
+    /**
+     * Restore the open chunk from the head log, skipping readings already sealed (the log is
+     * emptied after its chunk is sealed, so a crash in between leaves them in both)
+     */
+    private void replayHeadLog() throws IOException {
+        long size = headLog.size();
+        long complete = size - size % HEAD_RECORD_BYTES;
+        if (complete < size) {
+            LOG.warn("Cutting off torn head log record at {} of {}", complete, file);
+        }
+        ByteBuffer records = ByteBuffer.allocate((int) complete);
+        while (records.hasRemaining()) {
+            if (headLog.read(records, records.position()) < 0) {
+                break;
+            }
+        }
+        records.flip();
+
+        while (records.hasRemaining()) {
+            long timestamp = records.getLong();
+            double value = Double.longBitsToDouble(records.getLong());
+            if (timestamp <= lastTimestamp) {
+                continue;
+            }
+            if (headSize == 0) {
+                headWindow = Math.floorDiv(timestamp, chunkDuration) * chunkDuration;
+            }
+            addToHead(timestamp, value);
+        }
+
+        // Keep just the restored readings: rewrite them from the start, then cut off the rest
+        long restoredBytes = (long) headSize * HEAD_RECORD_BYTES;
+        if (restoredBytes != size) {
+            headLogged = 0;
+            logHead();
+            headLog.truncate(restoredBytes);
+        }
+        headLogged = headSize;
+        if (headSize > 0) {
+            LOG.info("Restored {} open readings of {} {} from the head log", headSize, artifactGid, kind);
+        }
+    }
+
+    private void addChunk(long first, long last, int count, long offset) {
+        if (chunks == chunkFirst.length) {
+            int size = chunks * 2;
+            chunkFirst = Arrays.copyOf(chunkFirst, size);
+            chunkLast = Arrays.copyOf(chunkLast, size);
+            chunkCount = Arrays.copyOf(chunkCount, size);
+            chunkOffset = Arrays.copyOf(chunkOffset, size);
+        }
+        chunkFirst[chunks] = first;
+        chunkLast[chunks] = last;
+        chunkCount[chunks] = count;
+        chunkOffset[chunks] = offset;
+        chunks++;
+        sealedReadings += count;
+    }
+
+    /**
+     * Mapping covering every sealed chunk
+     */
+    private MappedByteBuffer mapping() throws IOException {
+        MappedByteBuffer current = mapped;
+        if (current == null || current.capacity() < fileSize) {
+            current = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            mapped = current;
+        }
+        return current;
+    }
+
+    /**
+     * Rebuild the chunk index from the file, cutting off a torn last chunk
+     */
+    private void loadIndex() throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        if (fileSize < FILE_HEADER_BYTES || buffer.getLong(0) != MAGIC) {
+            throw new IOException("Not a time series file: " + file);
+        }
+
+        long offset = FILE_HEADER_BYTES;
+        while (offset + CHUNK_HEADER_BYTES <= fileSize) {
+            int position = (int) offset;
+            long first = buffer.getLong(position);
+            long last = buffer.getLong(position + 8);
+            int count = buffer.getInt(position + 16);
+            int length = buffer.getInt(position + 20);
+            if (count <= 0 || length < 0 || offset + CHUNK_HEADER_BYTES + length > fileSize) {
+                break;
+            }
+            addChunk(first, last, count, offset);
+            lastTimestamp = last;
+            offset += CHUNK_HEADER_BYTES + length;
+        }
+
+        if (offset < fileSize) {
+            LOG.warn("Cutting off torn chunk at {} in {}", offset, file);
+            channel.truncate(offset);
+            fileSize = offset;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        }
+        mapped = buffer;
+
+        if (chunks > 0) {
+            ChunkCodec.decode(buffer, (int) chunkOffset[chunks - 1] + CHUNK_HEADER_BYTES, chunkCount[chunks - 1],
+                lastTimestamp, Long.MAX_VALUE, (timestamp, value) -> {
+                    lastValue = value;
+                    return true;
+                });
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package digital.twin.mogao.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Folds readings or rollup buckets, in timestamp order, into fixed steps
+ * Percentiles of a step made of readings are exact. A rollup bucket only keeps the moments
+ * of its readings, so for a step made of buckets each bucket's readings are taken to be
+ * normally distributed with the bucket's mean and standard deviation (what lies beyond its min
+ * and max taken as the min and max), and the percentiles are those of the mixture of the
+ * buckets weighted by their counts.
+ */
+final class StepAggregator implements TimeSeriesStore.BucketConsumer, TimeSeriesStore.ReadingConsumer {
+
+    // Bisection steps for a percentile of a mixture (the interval shrinks to 2^-48 of the step's range)
+    private static final int BISECTIONS = 48;
+
+    private final long step;
+
+    // Step being filled: one part per reading or bucket
+    private long current = Long.MIN_VALUE;
+    private double[] partMeans = new double[64];
+    private double[] partDeviations = new double[64];
+    private double[] partMins = new double[64];
+    private double[] partMaxs = new double[64];
+    private long[] partWeights = new long[64];
+    private int parts;
+    // Whether some part is a bucket of differing readings (not a single value)
+    private boolean spread;
+    private long count;
+    private double min;
+    private double max;
+    private double sum;
+
+    // Finished steps
+    private long[] timestamps = new long[64];
+    private long[] counts = new long[64];
+    private double[] mins = new double[64];
+    private double[] maxs = new double[64];
+    private double[] means = new double[64];
+    private double[] p10 = new double[64];
+    private double[] p50 = new double[64];
+    private double[] p90 = new double[64];
+    private int steps;
+
+    StepAggregator(long step) {
+        this.step = step;
+    }
+
+    @Override
+    public boolean accept(long timestamp, double value) {
+        return accept(timestamp, 1, value, value, value, value * value);
+    }
+
+    @Override
+    public boolean accept(long start, long bucketCount, double bucketMin, double bucketMax, double bucketSum,
+                          double bucketSumSquares) {
+        long stepStart = Math.floorDiv(start, step) * step;
+        if (stepStart != current) {
+            finishStep();
+            current = stepStart;
+            min = bucketMin;
+            max = bucketMax;
+        }
+        if (parts == partMeans.length) {
+            int size = parts * 2;
+            partMeans = Arrays.copyOf(partMeans, size);
+            partDeviations = Arrays.copyOf(partDeviations, size);
+            partMins = Arrays.copyOf(partMins, size);
+            partMaxs = Arrays.copyOf(partMaxs, size);
+            partWeights = Arrays.copyOf(partWeights, size);
+        }
+        double mean = bucketSum / bucketCount;
+        partMeans[parts] = mean;
+        // Sample standard deviation (the readings are a sample of the bucket's conditions)
+        double variance = Math.max(0, bucketSumSquares / bucketCount - mean * mean);
+        partDeviations[parts] = bucketCount > 1 ? Math.sqrt(variance * bucketCount / (bucketCount - 1)) : 0;
+        partMins[parts] = bucketMin;
+        partMaxs[parts] = bucketMax;
+        partWeights[parts] = bucketCount;
+        parts++;
+        spread |= bucketMax > bucketMin;
+        count += bucketCount;
+        min = Math.min(min, bucketMin);
+        max = Math.max(max, bucketMax);
+        sum += bucketSum;
+        return true;
+    }
+
+    HistorySeries toSeries(ReadingKind kind, String resolution) {
+        finishStep();
+        return new HistorySeries(kind.getSlug(), kind.getUnit(), resolution, Arrays.copyOf(timestamps, steps),
+            Arrays.copyOf(counts, steps), Arrays.copyOf(mins, steps), Arrays.copyOf(maxs, steps),
+            Arrays.copyOf(means, steps), Arrays.copyOf(p10, steps), Arrays.copyOf(p50, steps), Arrays.copyOf(p90, steps));
+    }
+
+    private void finishStep() {
+        if (parts == 0) {
+            return;
+        }
+        if (steps == timestamps.length) {
+            int size = steps * 2;
+            timestamps = Arrays.copyOf(timestamps, size);
+            counts = Arrays.copyOf(counts, size);
+            mins = Arrays.copyOf(mins, size);
+            maxs = Arrays.copyOf(maxs, size);
+            means = Arrays.copyOf(means, size);
+            p10 = Arrays.copyOf(p10, size);
+            p50 = Arrays.copyOf(p50, size);
+            p90 = Arrays.copyOf(p90, size);
+        }
+
+        timestamps[steps] = current;
+        counts[steps] = count;
+        mins[steps] = min;
+        maxs[steps] = max;
+        means[steps] = sum / count;
+        if (spread) {
+            p10[steps] = mixtureQuantile(0.1);
+            p50[steps] = mixtureQuantile(0.5);
+            p90[steps] = mixtureQuantile(0.9);
+        } else {
+            // Parts by value, then the first whose cumulative weight reaches each quantile
+            Integer[] order = new Integer[parts];
+            for (int i = 0; i < parts; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(partMeans[a], partMeans[b]));
+            p10[steps] = quantile(order, 0.1);
+            p50[steps] = quantile(order, 0.5);
+            p90[steps] = quantile(order, 0.9);
+        }
+        steps++;
+
+        parts = 0;
+        spread = false;
+        count = 0;
+        sum = 0;
+    }
+
+    private double quantile(Integer[] order, double q) {
+        double target = q * count;
+        long cumulative = 0;
+        for (Integer index : order) {
+            cumulative += partWeights[index];
+            if (cumulative >= target) {
+                return partMeans[index];
+            }
+        }
+        return partMeans[order[order.length - 1]];
+    }
+
+    /**
+     * Smallest value below which q of the step's readings are estimated to lie
+     */
+    private double mixtureQuantile(double q) {
+        double target = q * count;
+        double low = min;
+        double high = max;
+        for (int i = 0; i < BISECTIONS; i++) {
+            double middle = (low + high) / 2;
+            if (weightBelow(middle) < target) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Estimated number of the step's readings at or below a value
+     */
+    private double weightBelow(double value) {
+        double weight = 0;
+        for (int i = 0; i < parts; i++) {
+            weight += partWeights[i] * partShareBelow(i, value);
+        }
+        return weight;
+    }
+
+    /**
+     * Share of a part's readings at or below a value: a normal distribution, with what lies
+     * beyond the part's min and max at the min and max
+     */
+    private double partShareBelow(int part, double value) {
+        if (value < partMins[part]) {
+            return 0;
+        }
+        if (value >= partMaxs[part]) {
+            return 1;
+        }
+        double deviation = partDeviations[part];
+        if (deviation == 0) {
+            return value >= partMeans[part] ? 1 : 0;
+        }
+        return normalCdf((value - partMeans[part]) / deviation);
+    }
+
+    /**
+     * Standard normal distribution function (Abramowitz and Stegun 26.2.17, error below 7.5e-8)
+     */
+    static double normalCdf(double z) {
+        double t = 1 / (1 + 0.2316419 * Math.abs(z));
+        double density = Math.exp(-z * z / 2) / Math.sqrt(2 * Math.PI);
+        double tail = density * t * (0.319381530 + t * (-0.356563782 + t * (1.781477937
+            + t * (-1.821255978 + t * 1.330274429))));
+        return z >= 0 ? 1 - tail : tail;
+    }
+}
@@ -0,0 +1,297 @@
+package digital.twin.mogao.timeseries;
+
+import digital.twin.mogao.util.EpsilonModelManager;
+import io.micronaut.context.annotation.Value;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-series store for environmental readings
+ * Readings (timestamp, value) are kept per artifact GID and ReadingKind instead of as
+ * EnvironmentCondition objects in the model: one Series per artifact and kind, chunked by time
+ * (mogao.timeseries.chunk-duration) and compressed on disk under mogao.timeseries.dir
+ * (timeseries/ next to the model file by default).
+ *
+ * Open chunks are in memory until their time window ends or the application shuts down; their
+ * readings are also logged to disk before an append returns, and restored from that log when
+ * the store is opened after a crash.
+ * Minute, hour and day rollups (count, min, max, sum, sum of squares) are kept up to date on every append,
+ * so long ranges can be charted without decoding the readings.
+ */
+@Singleton
+public class TimeSeriesStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimeSeriesStore.class);
+
+    private static final String FILE_EXTENSION = ".ts";
+    private static final String DEFAULT_DIR = "timeseries";
+
+    private final File directory;
+    private final long chunkDurationMillis;
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    @Inject
+    public TimeSeriesStore(EpsilonModelManager modelManager,
+                           @Value("${mogao.timeseries.dir:}") String directory,
+                           @Value("${mogao.timeseries.chunk-duration:7200}") long chunkDurationSeconds) throws Exception {
+        this(directory.isEmpty() ? new File(modelManager.getModelDirectory(), DEFAULT_DIR) : new File(directory),
+            chunkDurationSeconds);
+    }
+
+    public TimeSeriesStore(File directory, long chunkDurationSeconds) throws IOException {
+        this.directory = directory;
+        this.chunkDurationMillis = TimeUnit.SECONDS.toMillis(chunkDurationSeconds);
+        openExisting();
+    }
+
+    /**
+     * Append a reading
+     * @return false if it is not newer than the last reading of its series (it is dropped)
+     */
+    public boolean append(String artifactGid, ReadingKind kind, long timestamp, double value) {
+        try {
+            return seriesFor(artifactGid, kind).append(timestamp, value);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append reading: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Append readings [from, to) of the arrays, which must be in timestamp order
+     * @return Number of readings appended (readings not newer than the series' last one are dropped)
+     */
+    public int appendAll(String artifactGid, ReadingKind kind, long[] timestamps, double[] values, int from, int to) {
+        try {
+            return seriesFor(artifactGid, kind).appendAll(timestamps, values, from, to);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append readings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pass the readings in [from, to) to the consumer, in timestamp order
+     */
+    public void read(String artifactGid, ReadingKind kind, long from, long to, ReadingConsumer consumer) {
+        Series existing = series.get(key(artifactGid, kind));
+        if (existing == null) {
+            return;
+        }
+        try {
+            existing.read(from, to, consumer);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read readings: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pass the rollup buckets starting in [from, to) to the consumer, oldest first
+     */
+    public void readRollup(String artifactGid, ReadingKind kind, Resolution resolution, long from, long to,
+                           BucketConsumer consumer) {
+        Series existing = series.get(key(artifactGid, kind));
+        if (existing == null) {
+            return;
+        }
+        try {
+            existing.readRollup(resolution, from, to, consumer);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read rollup: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pass the most recent reading to the consumer
+     * @return false if the artifact has no readings of this kind
+     */
+    public boolean latest(String artifactGid, ReadingKind kind, ReadingConsumer consumer) {
+        Series existing = series.get(key(artifactGid, kind));
+        return existing != null && existing.latest(consumer);
+    }
+
+    /**
+     * Kinds of readings recorded for an artifact
+     */
+    public List<ReadingKind> kindsOf(String artifactGid) {
+        List<ReadingKind> kinds = new ArrayList<>();
+        for (ReadingKind kind : ReadingKind.values()) {
+            if (series.containsKey(key(artifactGid, kind))) {
+                kinds.add(kind);
+            }
+        }
+        return kinds;
+    }
+
+    /**
+     * Seal every open chunk
+     */
+    public void flush() {
+        for (Series each : series.values()) {
+            try {
+                each.flush();
+            } catch (IOException e) {
+                LOG.error("Failed to flush readings of {} {}", each.getArtifactGid(), each.getKind(), e);
+            }
+        }
+    }
+
+    /**
+     * Seal open chunks and close the files (after the shutdown listeners, e.g. the ingestion
+     * writer, have added their last readings)
+     */
+    @PreDestroy
+    public void close() {
+        for (Series each : series.values()) {
+            try {
+                each.close();
+            } catch (IOException e) {
+                LOG.error("Failed to close readings of {} {}", each.getArtifactGid(), each.getKind(), e);
+            }
+        }
+    }
+
+    /**
+     * Number of series, readings, and bytes on disk
+     */
+    public Stats getStats() {
+        long readings = 0;
+        long sealedReadings = 0;
+        long bytes = 0;
+        long rollupBytes = 0;
+        for (Series each : series.values()) {
+            readings += each.size();
+            sealedReadings += each.sealedReadings();
+            bytes += each.sealedBytes();
+            rollupBytes += each.rollupBytes();
+        }
+        return new Stats(series.size(), readings, sealedReadings, bytes, rollupBytes);
+    }
+
+    private Series seriesFor(String artifactGid, ReadingKind kind) throws IOException {
+        String key = key(artifactGid, kind);
+        Series existing = series.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (series) {
+            existing = series.get(key);
+            if (existing == null) {
+                existing = new Series(artifactGid, kind, fileOf(artifactGid, kind), chunkDurationMillis);
+                series.put(key, existing);
+            }
+            return existing;
+        }
+    }
+
+    private Path fileOf(String artifactGid, ReadingKind kind) {
+        String name = URLEncoder.encode(artifactGid, StandardCharsets.UTF_8) + FILE_EXTENSION;
+        return new File(new File(directory, kind.getSlug()), name).toPath();
+    }
+
+    private void openExisting() throws IOException {
+        int opened = 0;
+        for (ReadingKind kind : ReadingKind.values()) {
+            File[] files = new File(directory, kind.getSlug()).listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+            if (files == null) {
+                continue;
+            }
+            for (File file : files) {
+                String name = file.getName();
+                String artifactGid = URLDecoder.decode(name.substring(0, name.length() - FILE_EXTENSION.length()),
+                    StandardCharsets.UTF_8);
+                series.put(key(artifactGid, kind), new Series(artifactGid, kind, file.toPath(), chunkDurationMillis));
+                opened++;
+            }
+        }
+        LOG.info("Time series store at {}: {} series", directory, opened);
+    }
+
+    private static String key(String artifactGid, ReadingKind kind) {
+        return kind.getSlug() + ":" + artifactGid;
+    }
+
+    /**
+     * Receives readings; return false to stop reading
+     */
+    @FunctionalInterface
+    public interface ReadingConsumer {
+        boolean accept(long timestamp, double value);
+    }
+
+    /**
+     * Receives rollup buckets; return false to stop reading
+     */
+    @FunctionalInterface
+    public interface BucketConsumer {
+        boolean accept(long start, long count, double min, double max, double sum, double sumSquares);
+    }
+
+    /**
+     * Size of the store
+     */
+    public static class Stats {
+        private final int series;
+        private final long readings;
+        private final long sealedReadings;
+        private final long bytes;
+        private final long rollupBytes;
+
+        Stats(int series, long readings, long sealedReadings, long bytes, long rollupBytes) {
+            this.series = series;
+            this.readings = readings;
+            this.sealedReadings = sealedReadings;
+            this.bytes = bytes;
+            this.rollupBytes = rollupBytes;
+        }
+
+        public int getSeries() {
+            return series;
+        }
+
+        public long getReadings() {
+            return readings;
+        }
+
+        /**
+         * Readings in sealed (compressed, on disk) chunks
+         */
+        public long getSealedReadings() {
+            return sealedReadings;
+        }
+
+        /**
+         * Bytes of the series files
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Bytes of the minute, hour and day rollups
+         */
+        public long getRollupBytes() {
+            return rollupBytes;
+        }
+
+        /**
+         * Bytes per sealed reading on disk, headers included (16 uncompressed)
+         */
+        public double getBytesPerReading() {
+            return sealedReadings == 0 ? 0 : (double) bytes / sealedReadings;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package digital.twin.mogao.util;
+
+import digital.twin.mogao.dto.AssetReferenceDTO;
+import digital.twin.mogao.mapper.AssetReferenceMapper;
+import io.micronaut.context.annotation.Value;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store of uploaded assets (3D models, textures, metadata)
+ * An asset is stored once under the SHA-256 of its content (computed by UploadStore while the
+ * upload is written), as mogao.assets.dir/ab/abcd...ef.ext and served from
+ * /exhibit_models/blobs/ab/abcd...ef.ext, so the same texture uploaded for several murals is
+ * kept once. The extension is part of the name, as the viewer picks its loader by extension.
+ *
+ * Blobs are reference-counted from the modelLocation, metadataLocation and textureLocation of
+ * the model's AssetReferences. A background collector (every mogao.assets.gc-interval seconds)
+ * deletes blobs without references once they are older than mogao.assets.gc-grace seconds: an
+ * upload is referenced only when the form it belongs to is saved, later.
+ */
+@Singleton
+public class AssetStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AssetStore.class);
+
+    public static final String URL_PREFIX = "/exhibit_models/blobs/";
+    private static final Pattern BLOB_NAME = Pattern.compile("[0-9a-f]{64}(\\.[a-z0-9]{1,16})?");
+    private static final Pattern EXTENSION = Pattern.compile("\\.[a-z0-9]{1,16}");
+
+    private final EpsilonModelManager modelManager;
+    private final Path dir;
+    private final long graceMillis;
+    private ScheduledExecutorService collector;
+
+    // Commits seen, to tell whether references changed during a collection
+    private final AtomicLong commits = new AtomicLong();
+
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder collected = new LongAdder();
+    private final LongAdder collectedBytes = new LongAdder();
+    private volatile long lastCollection;
+
+    @Inject
+    public AssetStore(EpsilonModelManager modelManager,
+                      @Value("${mogao.assets.dir:data/asset-blobs}") String dir,
+                      @Value("${mogao.assets.gc-interval:3600}") long gcIntervalSeconds,
+                      @Value("${mogao.assets.gc-grace:86400}") long gcGraceSeconds) {
+        this.modelManager = modelManager;
+        this.dir = Paths.get(dir);
+        this.graceMillis = TimeUnit.SECONDS.toMillis(gcGraceSeconds);
+        modelManager.addCommitListener((version, changedGids) -> commits.incrementAndGet());
+
+        if (gcIntervalSeconds > 0) {
+            collector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "asset-collector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            collector.scheduleWithFixedDelay(() -> {
+                try {
+                    collectGarbage();
+                } catch (Exception e) {
+                    LOG.error("Failed to collect unreferenced assets", e);
+                }
+            }, gcIntervalSeconds, gcIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (collector != null) {
+            collector.shutdownNow();
+        }
+    }
+
+    /**
+     * Store a staged upload under its SHA-256, or drop it if the content is already stored
+     * @param filename Original filename, whose extension the blob keeps
+     */
+    public StoredAsset add(UploadStore.StagedFile staged, String filename) throws IOException {
+        String name = staged.getSha256() + extensionOf(filename);
+        String shard = name.substring(0, 2);
+        Path blob = dir.resolve(shard).resolve(name);
+        boolean existing;
+        synchronized (this) {
+            existing = Files.exists(blob);
+            if (existing) {
+                Files.delete(staged.getFile());
+                // Restart the grace period, the blob is about to be referenced again
+                Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()));
+                deduplicated.increment();
+            } else {
+                UploadStore.publish(staged, blob);
+                stored.increment();
+            }
+        }
+        return new StoredAsset(URL_PREFIX + shard + "/" + name, existing);
+    }
+
+    /**
+     * References to each blob (by file name) from the model's AssetReferences
+     */
+    public Map<String, Integer> referenceCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        try {
+            for (AssetReferenceDTO reference : modelManager.executeQuery(new ModelQuery("AssetReference"),
+                    AssetReferenceMapper::toDTO).getItems()) {
+                count(counts, reference.getModelLocation());
+                count(counts, reference.getMetadataLocation());
+                count(counts, reference.getTextureLocation());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to count asset references: " + e.getMessage(), e);
+        }
+        return counts;
+    }
+
+    /**
+     * Delete the blobs without references that are older than the grace period
+     * @return Number of blobs deleted
+     */
+    public int collectGarbage() throws IOException {
+        long commitsBefore = commits.get();
+        Map<String, Integer> counts = referenceCounts();
+        long now = System.currentTimeMillis();
+        int deleted = 0;
+        synchronized (this) {
+            if (commits.get() != commitsBefore) {
+                // References may have changed since they were counted: next time
+                return 0;
+            }
+            for (Path blob : blobs()) {
+                String name = blob.getFileName().toString();
+                if (counts.containsKey(name) || now - Files.getLastModifiedTime(blob).toMillis() < graceMillis) {
+                    continue;
+                }
+                long size = Files.size(blob);
+                Files.delete(blob);
+                collected.increment();
+                collectedBytes.add(size);
+                deleted++;
+            }
+        }
+        lastCollection = now;
+        if (deleted > 0) {
+            LOG.info("Collected {} unreferenced assets", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Blob and reference counts, sizes and collector totals
+     */
+    public Metrics getMetrics() {
+        Map<String, Integer> counts = referenceCounts();
+        int blobs = 0;
+        int referencedBlobs = 0;
+        long bytes = 0;
+        try {
+            for (Path blob : blobs()) {
+                blobs++;
+                bytes += Files.size(blob);
+                if (counts.containsKey(blob.getFileName().toString())) {
+                    referencedBlobs++;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list assets: " + e.getMessage(), e);
+        }
+        int references = 0;
+        for (int count : counts.values()) {
+            references += count;
+        }
+        return new Metrics(blobs, bytes, referencedBlobs, references, stored.sum(), deduplicated.sum(),
+            collected.sum(), collectedBytes.sum(), lastCollection);
+    }
+
+    private static void count(Map<String, Integer> counts, String location) {
+        if (location != null && location.startsWith(URL_PREFIX)) {
+            String name = location.substring(location.lastIndexOf('/') + 1);
+            counts.merge(name, 1, Integer::sum);
+        }
+    }
+
+    private static String extensionOf(String filename) {
+        int dotIndex = filename != null ? filename.lastIndexOf('.') : -1;
+        if (dotIndex <= 0) {
+            return "";
+        }
+        String extension = filename.substring(dotIndex).toLowerCase(Locale.ROOT);
+        return EXTENSION.matcher(extension).matches() ? extension : "";
+    }
+
+    /**
+     * Blob files, in their shard directories
+     */
+    private List<Path> blobs() throws IOException {
+        List<Path> blobs = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return blobs;
+        }
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(shard)) {
+                    for (Path file : files) {
+                        if (BLOB_NAME.matcher(file.getFileName().toString()).matches()) {
+                            blobs.add(file);
+                        }
+                    }
+                }
+            }
+        }
+        return blobs;
+    }
+
+    /**
+     * Where an upload was stored, and whether its content was there already
+     */
+    public static final class StoredAsset {
+        private final String path;
+        private final boolean deduplicated;
+
+        StoredAsset(String path, boolean deduplicated) {
+            this.path = path;
+            this.deduplicated = deduplicated;
+        }
+
+        /**
+         * Server path of the blob, e.g. /exhibit_models/blobs/ab/abcd...ef.obj
+         */
+        public String getPath() {
+            return path;
+        }
+
+        public boolean isDeduplicated() {
+            return deduplicated;
+        }
+    }
+
+    /**
+     * Size of the store and what the collector did
+     */
+    public static class Metrics {
+        private final int blobs;
+        private final long bytes;
+        private final int referencedBlobs;
+        private final int references;
+        private final long stored;
+        private final long deduplicated;
+        private final long collected;
+        private final long collectedBytes;
+        private final long lastCollection;
+
+        Metrics(int blobs, long bytes, int referencedBlobs, int references, long stored, long deduplicated,
+                long collected, long collectedBytes, long lastCollection) {
+            this.blobs = blobs;
+            this.bytes = bytes;
+            this.referencedBlobs = referencedBlobs;
+            this.references = references;
+            this.stored = stored;
+            this.deduplicated = deduplicated;
+            this.collected = collected;
+            this.collectedBytes = collectedBytes;
+            this.lastCollection = lastCollection;
+        }
+
+        public int getBlobs() {
+            return blobs;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Blobs referenced by at least one AssetReference
+         */
+        public int getReferencedBlobs() {
+            return referencedBlobs;
+        }
+
+        /**
+         * AssetReference locations pointing at blobs
+         */
+        public int getReferences() {
+            return references;
+        }
+
+        /**
+         * Uploads stored as new blobs
+         */
+        public long getStored() {
+            return stored;
+        }
+
+        /**
+         * Uploads whose content was already stored
+         */
+        public long getDeduplicated() {
+            return deduplicated;
+        }
+
+        /**
+         * Blobs deleted by the collector
+         */
+        public long getCollected() {
+            return collected;
+        }
+
+        public long getCollectedBytes() {
+            return collectedBytes;
+        }
+
+        /**
+         * Time of the last collection (epoch milliseconds, 0 if none yet)
+         */
+        public long getLastCollection() {
+            return lastCollection;
+        }
+    }
+}
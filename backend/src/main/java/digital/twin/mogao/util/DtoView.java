@@ -0,0 +1,136 @@
+package digital.twin.mogao.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which parts of an object a DTO conversion fills in
+ * Skipped properties are left null (and so omitted from the JSON), and skipped containment
+ * references are not traversed at all.
+ *
+ * From request parameters:
+ *   fields=name,label,conservationStatus   only these properties (gid is always included)
+ *   fields=name,reference.modelLocation    dotted paths select inside contained objects
+ *   depth=0                                 attributes only, no contained objects
+ */
+public class DtoView {
+
+    // Request parameters
+    public static final String FIELDS = "fields";
+    public static final String DEPTH = "depth";
+
+    private static final String GID = "gid";
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * Every property, at any depth
+     */
+    public static final DtoView ALL = new DtoView(null, UNLIMITED);
+
+    // Selected property -> view of its contents (null: all properties); null map: everything
+    private final Map<String, DtoView> fields;
+    private final int depth;
+
+    private DtoView(Map<String, DtoView> fields, int depth) {
+        this.fields = fields;
+        this.depth = depth;
+    }
+
+    /**
+     * Build a view from request parameters (ALL if neither fields nor depth is given)
+     * @throws IllegalArgumentException for a malformed depth
+     */
+    public static DtoView fromParameters(Map<String, List<String>> parameters) {
+        int depth = UNLIMITED;
+        List<String> depthValues = parameters.get(DEPTH);
+        if (depthValues != null && !depthValues.isEmpty()) {
+            try {
+                depth = Integer.parseInt(depthValues.get(0).trim());
+            } catch (NumberFormatException e) {
+                depth = -1;
+            }
+            if (depth < 0) {
+                throw new IllegalArgumentException("Invalid " + DEPTH + ": " + depthValues.get(0));
+            }
+        }
+
+        List<String> fieldValues = parameters.get(FIELDS);
+        if (fieldValues == null || fieldValues.isEmpty()) {
+            return depth == UNLIMITED ? ALL : new DtoView(null, depth);
+        }
+
+        Map<String, List<String>> paths = new HashMap<>();
+        for (String value : fieldValues) {
+            for (String path : value.split(",")) {
+                path = path.trim();
+                if (!path.isEmpty()) {
+                    int dot = path.indexOf('.');
+                    String field = dot < 0 ? path : path.substring(0, dot);
+                    List<String> subPaths = paths.computeIfAbsent(field, name -> new ArrayList<>());
+                    if (dot < 0) {
+                        // The whole property was asked for
+                        subPaths.add(null);
+                    } else {
+                        subPaths.add(path.substring(dot + 1));
+                    }
+                }
+            }
+        }
+        return new DtoView(children(paths, depth), depth);
+    }
+
+    private static Map<String, DtoView> children(Map<String, List<String>> paths, int depth) {
+        Map<String, DtoView> fields = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : paths.entrySet()) {
+            fields.put(entry.getKey(), childView(entry.getValue(), depth == UNLIMITED ? UNLIMITED : depth - 1));
+        }
+        return fields;
+    }
+
+    private static DtoView childView(List<String> subPaths, int depth) {
+        if (subPaths.contains(null)) {
+            return null;
+        }
+        Map<String, List<String>> nested = new HashMap<>();
+        for (String subPath : subPaths) {
+            int dot = subPath.indexOf('.');
+            String field = dot < 0 ? subPath : subPath.substring(0, dot);
+            nested.computeIfAbsent(field, name -> new ArrayList<>())
+                .add(dot < 0 ? null : subPath.substring(dot + 1));
+        }
+        return new DtoView(children(nested, depth), depth);
+    }
+
+    /**
+     * Whether an attribute is filled in
+     */
+    public boolean includes(String field) {
+        return fields == null || fields.containsKey(field) || GID.equals(field);
+    }
+
+    /**
+     * Whether a containment reference is traversed
+     */
+    public boolean descends(String reference) {
+        return depth > 0 && (fields == null || fields.containsKey(reference));
+    }
+
+    /**
+     * View for the objects contained in a reference
+     */
+    public DtoView child(String reference) {
+        int childDepth = depth == UNLIMITED ? UNLIMITED : depth - 1;
+        if (fields == null) {
+            return childDepth == UNLIMITED ? ALL : new DtoView(null, childDepth);
+        }
+        DtoView selected = fields.get(reference);
+        return selected != null ? selected : new DtoView(null, childDepth);
+    }
+
+    @Override
+    public String toString() {
+        return "fields=" + (fields == null ? "*" : fields.keySet()) + " depth=" + (depth == UNLIMITED ? "*" : depth);
+    }
+}
@@ -0,0 +1,191 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.epsilon.eol.EolModule;
+import org.eclipse.epsilon.eol.dom.Operation;
+import org.eclipse.epsilon.eol.execute.context.EolContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cache of parsed EOL operation scripts
+ * Keyed by script path and invalidated when the file's content hash changes
+ *
+ * Epsilon resolves model types through the module's own context, so a parsed module
+ * cannot serve two executions at once. Each entry therefore keeps a small pool of parsed
+ * modules: a request borrows one, gets a fresh context bound to it, and returns it when done.
+ * Parsing only happens when the pool is empty or the script has changed on disk.
+ */
+public class EolScriptCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EolScriptCache.class);
+
+    // Idle parsed modules kept per script
+    private static final int MAX_IDLE_MODULES = 8;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Borrow a parsed script bound to a fresh execution context
+     * @param scriptPath EOL script path (relative to resources directory)
+     */
+    public ParsedScript borrow(String scriptPath) throws Exception {
+        Entry entry = currentEntry(scriptPath);
+
+        ParsedScript script = entry.idle.poll();
+        if (script == null) {
+            script = parse(entry);
+        }
+
+        // Bind a fresh context and drop types resolved against a previous model
+        script.module.setContext(new EolContext());
+        for (Operation operation : script.operations.values()) {
+            operation.clearCache();
+        }
+        return script;
+    }
+
+    /**
+     * Return a borrowed script to its pool
+     */
+    public void release(ParsedScript script) {
+        if (script == null) {
+            return;
+        }
+        Entry entry = entries.get(script.entry.scriptPath);
+        if (entry != null && entry.idle == script.entry.idle && entry.idle.size() < MAX_IDLE_MODULES) {
+            entry.idle.offer(script);
+        }
+    }
+
+    /**
+     * Get the entry for a script, replacing it if the file content has changed
+     */
+    private Entry currentEntry(String scriptPath) throws Exception {
+        URL scriptUrl = getClass().getClassLoader().getResource(scriptPath);
+        if (scriptUrl == null) {
+            throw new RuntimeException("EOL script not found: " + scriptPath);
+        }
+        File scriptFile = new File(scriptUrl.toURI());
+        long lastModified = scriptFile.lastModified();
+        long length = scriptFile.length();
+
+        Entry entry = entries.get(scriptPath);
+        if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+            return entry;
+        }
+
+        synchronized (entries) {
+            entry = entries.get(scriptPath);
+            if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+                return entry;
+            }
+
+            String contentHash = hash(scriptFile);
+            if (entry != null && entry.contentHash.equals(contentHash)) {
+                // Touched but not changed: keep the parsed modules
+                entry = new Entry(entry, lastModified, length);
+            } else {
+                if (entry != null) {
+                    LOG.info("EOL script changed, re-parsing: {}", scriptPath);
+                }
+                entry = new Entry(scriptPath, scriptFile, lastModified, length, contentHash);
+            }
+            entries.put(scriptPath, entry);
+            return entry;
+        }
+    }
+
+    private ParsedScript parse(Entry entry) throws Exception {
+        LOG.debug("Parsing EOL script: {}", entry.scriptPath);
+
+        EolModule module = new EolModule();
+        module.parse(entry.scriptFile);
+        if (!module.getParseProblems().isEmpty()) {
+            throw new RuntimeException("Failed to parse EOL script " + entry.scriptPath + ": "
+                + module.getParseProblems());
+        }
+
+        Map<String, Operation> operations = new HashMap<>();
+        for (Operation operation : module.getOperations()) {
+            operations.putIfAbsent(operation.getName(), operation);
+        }
+        return new ParsedScript(entry, module, Collections.unmodifiableMap(operations));
+    }
+
+    private static String hash(File file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(digest.digest(Files.readAllBytes(file.toPath())));
+    }
+
+    /**
+     * Cached state for one script file
+     */
+    private static class Entry {
+        private final String scriptPath;
+        private final File scriptFile;
+        private final long lastModified;
+        private final long length;
+        private final String contentHash;
+        private final Queue<ParsedScript> idle;
+
+        Entry(String scriptPath, File scriptFile, long lastModified, long length, String contentHash) {
+            this.scriptPath = scriptPath;
+            this.scriptFile = scriptFile;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.contentHash = contentHash;
+            this.idle = new ConcurrentLinkedQueue<>();
+        }
+
+        Entry(Entry previous, long lastModified, long length) {
+            this.scriptPath = previous.scriptPath;
+            this.scriptFile = previous.scriptFile;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.contentHash = previous.contentHash;
+            this.idle = previous.idle;
+        }
+    }
+
+    /**
+     * A parsed module with its operations indexed by name
+     */
+    public static class ParsedScript {
+        private final Entry entry;
+        private final EolModule module;
+        private final Map<String, Operation> operations;
+
+        ParsedScript(Entry entry, EolModule module, Map<String, Operation> operations) {
+            this.entry = entry;
+            this.module = module;
+            this.operations = operations;
+        }
+
+        public EolModule getModule() {
+            return module;
+        }
+
+        /**
+         * Find an operation by name
+         */
+        public Operation getOperation(String name) {
+            Operation operation = operations.get(name);
+            if (operation == null) {
+                throw new RuntimeException("Operation not found: " + name);
+            }
+            return operation;
+        }
+    }
+}
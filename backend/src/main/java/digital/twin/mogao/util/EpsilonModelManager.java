@@ -1,29 +1,91 @@
 package digital.twin.mogao.util;
 
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.ShutdownEvent;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.eclipse.epsilon.eol.EolModule;
 import org.eclipse.epsilon.egl.EglTemplateFactory;
+import org.eclipse.epsilon.emc.emf.DefaultXMIResource;
 import org.eclipse.epsilon.emc.emf.EmfModel;
+import org.eclipse.epsilon.emc.emf.InMemoryEmfModel;
+import org.eclipse.epsilon.eol.execute.context.IEolContext;
+import org.eclipse.epsilon.eol.execute.context.Variable;
+import org.eclipse.epsilon.eol.models.IModel;
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
 import org.eclipse.emf.ecore.xmi.impl.EcoreResourceFactoryImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 /**
  * Epsilon Model Manager for Mogao Digital Twin
  * Handles loading/saving EMF models and executing EOL/EGL scripts
+ *
+ * In resident mode (mogao.model.resident, on by default) the model is parsed once and
+ * published as a versioned snapshot. Readers run against the current snapshot without locking
+ * and never see it change. Writers run optimistically on a private copy and commit it as the
+ * next version; a writer whose base version is stale is checked against the writes committed
+ * since, and either catches up with them (nothing it touched was changed) or is retried.
+ * A write that keeps conflicting finally runs with commits blocked.
+ *
+ * A writer's private copy is normally a retired snapshot that no reader holds any more,
+ * brought up to date by re-applying the writes committed since it was retired, so a write
+ * costs what it and those writes touch instead of a copy of the whole model. Readers hold
+ * the snapshot they read from until they are done with its objects; snapshots whose objects
+ * are handed to callers (getSnapshot, raw operation results) are pinned and never reused.
+ *
+ * Resident writes to an existing object are also serialized per Cave (or per top-level
+ * object outside caves) through a StripedWriteLock, so writes to the same cave queue up
+ * instead of conflicting and retrying, while writes to different caves run in parallel.
+ *
+ * With the journal (mogao.model.journal.enabled, resident mode only) a write appends its
+ * operation calls to a ModelJournal instead of rewriting the model file; the full model is
+ * written by a periodic checkpoint and the journal is replayed on startup.
+ *
+ * Every committed write produces the next model version, and the objects it changed are
+ * stamped with that version (ModificationStamps), for conditional requests (ETag) and for
+ * queries of the objects changed and deleted since a version.
  */
 @Singleton
 public class EpsilonModelManager {
@@ -31,13 +93,748 @@ public class EpsilonModelManager {
     private static final Logger LOG = LoggerFactory.getLogger(EpsilonModelManager.class);
 
     // Model file paths
-    private static final String MODEL_PATH = "models/instances/mogao.model";
+    private static final String MODEL_DIR = "models/instances/";
+    private static final String MODEL_PATH = MODEL_DIR + ModelPersistence.Format.XMI.getFileName();
     private static final String METAMODEL_PATH = "metamodel/mogao_dt.ecore";
     private static final String INIT_SCRIPT_PATH = "eol-scripts/common/InitializeModel.eol";
 
-    // Read-write lock for thread safety
+    // Read-write lock for thread safety (non-resident mode: every write rewrites the model file)
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
+    // Per-cave write lock stripes (resident mode)
+    private static final String CAVE_CLASS = "Cave";
+    private static final String PACKAGE_CLASS = "DTPackage";
+    private final StripedWriteLock writeStripes;
+
+    // Parsed operation scripts, reused across requests
+    private final EolScriptCache scriptCache = new EolScriptCache();
+
+    // Resident model mode: keep the loaded model and serve reads from an immutable snapshot
+    private final boolean residentMode;
+    private final AtomicReference<ModelVersion> snapshot = new AtomicReference<>();
+
+    // Optimistic concurrency: writes committed recently, by the version they produced
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+    private static final int COMMIT_HISTORY_SIZE = 1024;
+    private static final long CONFLICT = -2;
+    private final Object commitLock = new Object();
+    private final NavigableMap<Long, CommittedWrite> commitHistory = new TreeMap<>();
+
+    // Retired snapshots kept for reuse as writers' copies (guarded by commitLock)
+    private static final int SPARE_COPIES = 2;
+    private final Deque<ModelVersion> spares = new ArrayDeque<>();
+    private final AtomicLong fullCopies = new AtomicLong();
+
+    // Model version and per-object modification stamps; fileVersion is the version in non-resident mode
+    private final ModificationStamps stamps = new ModificationStamps();
+    private final AtomicLong fileVersion = new AtomicLong(stamps.getBaseVersion());
+    private final List<CommitListener> commitListeners = new CopyOnWriteArrayList<>();
+
+    // On-disk format of the instance model (mogao.model.format: xmi or binary)
+    private final ModelPersistence.Format format;
+
+    // Directory the instance model is saved to; null: models/instances, located through the classpath
+    private final File modelDirectory;
+
+    // Write-ahead journal and checkpointing (resident mode only)
+    private static final long NO_COMMIT = -1;
+    private final boolean journalEnabled;
+    private final long checkpointIntervalSeconds;
+    private final Object checkpointLock = new Object();
+    private volatile ModelJournal journal;
+    private volatile long snapshotSequence;
+    private long checkpointSequence;
+    private ScheduledExecutorService checkpointer;
+
+    /**
+     * Create a manager in resident mode (used by the code generator and tools)
+     */
+    public EpsilonModelManager() {
+        this(true, "xmi", false, 0, 64);
+    }
+
+    @Inject
+    public EpsilonModelManager(@Value("${mogao.model.resident:true}") boolean residentMode,
+                               @Value("${mogao.model.format:xmi}") String format,
+                               @Value("${mogao.model.journal.enabled:true}") boolean journalEnabled,
+                               @Value("${mogao.model.journal.checkpoint-interval:60}") long checkpointIntervalSeconds,
+                               @Value("${mogao.model.write-lock-stripes:64}") int writeLockStripes) {
+        this(residentMode, format, journalEnabled, checkpointIntervalSeconds, writeLockStripes, null);
+    }
+
+    /**
+     * Create a manager saving the instance model to a directory of its own (e.g. for tests);
+     * the classpath model is loaded until a model has been saved there
+     */
+    EpsilonModelManager(boolean residentMode, String format, boolean journalEnabled, long checkpointIntervalSeconds,
+                        int writeLockStripes, File modelDirectory) {
+        this.residentMode = residentMode;
+        this.writeStripes = new StripedWriteLock(writeLockStripes);
+        this.format = ModelPersistence.Format.of(format);
+        this.journalEnabled = residentMode && journalEnabled;
+        this.checkpointIntervalSeconds = checkpointIntervalSeconds;
+        this.modelDirectory = modelDirectory;
+    }
+
+    /**
+     * Load the resident model when the application starts, so the first request does not pay for it
+     */
+    @EventListener
+    public void onStartup(StartupEvent event) {
+        if (residentMode) {
+            try {
+                getSnapshot();
+            } catch (Exception e) {
+                LOG.warn("Resident model could not be loaded at startup: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write a final checkpoint and close the journal
+     */
+    @EventListener
+    public void onShutdown(ShutdownEvent event) {
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+        }
+        if (journal != null) {
+            try {
+                checkpoint();
+                journal.close();
+            } catch (Exception e) {
+                LOG.error("Failed to checkpoint model at shutdown", e);
+            }
+        }
+    }
+
+    /**
+     * Get the current model snapshot, loading it on first use.
+     * The returned model must be treated as read-only; it is shared by all readers
+     * and is never reused as a writer's copy.
+     */
+    public EmfModel getSnapshot() throws Exception {
+        ModelVersion current = acquireCurrent();
+        try {
+            current.pin();
+            return current.model;
+        } finally {
+            current.release();
+        }
+    }
+
+    /**
+     * Get the current snapshot with its version, loading it on first use
+     */
+    private ModelVersion currentVersion() throws Exception {
+        ModelVersion current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (snapshot) {
+            current = snapshot.get();
+            if (current == null) {
+                EmfModel model = loadModel();
+                if (journalEnabled) {
+                    recoverJournal(model);
+                }
+                // Epsilon fills its type caches lazily, which is not safe on a shared model
+                model.setCachingEnabled(false);
+                current = new ModelVersion(model, stamps.getBaseVersion());
+                // Epsilon shares loaded resources by URI, so the loaded model is never reused
+                current.pin();
+                snapshot.set(current);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Hold the current snapshot for reading, so it is not reused as a writer's copy meanwhile
+     */
+    private ModelVersion acquireCurrent() throws Exception {
+        while (true) {
+            ModelVersion current = currentVersion();
+            // Fails only if it was retired and claimed by a writer since it was read
+            if (current.tryAcquire()) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Private, writable copy of a snapshot the caller holds: a retired snapshot brought up to
+     * date with the writes committed since it was retired, or a full copy if none can be reused
+     */
+    private EmfModel workingCopy(ModelVersion base) throws Exception {
+        ModelVersion spare = null;
+        List<CommittedWrite> missed = null;
+        synchronized (commitLock) {
+            // Newest first: it has the fewest writes to catch up with
+            Iterator<ModelVersion> retired = spares.descendingIterator();
+            while (retired.hasNext()) {
+                ModelVersion candidate = retired.next();
+                if (candidate.isPinned()) {
+                    retired.remove();
+                } else if (candidate.version < base.version && !commitHistory.isEmpty()
+                        && commitHistory.firstKey() <= candidate.version + 1 && candidate.tryClaim()) {
+                    retired.remove();
+                    spare = candidate;
+                    missed = new ArrayList<>(commitHistory.subMap(candidate.version, false, base.version, true).values());
+                    break;
+                }
+            }
+        }
+
+        if (spare != null) {
+            try {
+                for (CommittedWrite committed : missed) {
+                    applyRecord(spare.model, committed.record);
+                }
+                return spare.model;
+            } catch (Exception e) {
+                LOG.warn("Retired snapshot could not be brought up to date, copying the model: {}", e.getMessage());
+            }
+        }
+        fullCopies.incrementAndGet();
+        return copySnapshot(base);
+    }
+
+    /**
+     * Number of writer copies made by copying the whole model
+     */
+    long getFullCopyCount() {
+        return fullCopies.get();
+    }
+
+    /**
+     * Keep a snapshot that is no longer current for reuse as a writer's copy (holding commitLock)
+     */
+    private void retire(ModelVersion version) {
+        if (version.isPinned()) {
+            return;
+        }
+        spares.addLast(version);
+        while (spares.size() > SPARE_COPIES) {
+            spares.pollFirst();
+        }
+    }
+
+    /**
+     * Create a private, writable copy of a snapshot
+     */
+    private EmfModel copySnapshot(ModelVersion base) throws Exception {
+        EmfModel source = base.model;
+        Resource sourceResource = source.getResource();
+
+        ResourceSet resourceSet = new ResourceSetImpl();
+        DefaultXMIResource target = new DefaultXMIResource(sourceResource.getURI());
+        resourceSet.getResources().add(target);
+
+        EcoreUtil.Copier copier = new EcoreUtil.Copier();
+        Collection<EObject> roots = copier.copyAll(sourceResource.getContents());
+        copier.copyReferences();
+        target.getContents().addAll(roots);
+
+        // Keep XMI IDs stable across snapshots
+        if (sourceResource instanceof XMLResource) {
+            XMLResource xmlSource = (XMLResource) sourceResource;
+            for (Map.Entry<EObject, EObject> entry : copier.entrySet()) {
+                String id = xmlSource.getID(entry.getKey());
+                if (id != null) {
+                    target.setID(entry.getValue(), id);
+                }
+            }
+        }
+
+        Set<EPackage> packages = new LinkedHashSet<>();
+        for (EObject root : sourceResource.getContents()) {
+            packages.add(root.eClass().getEPackage());
+        }
+
+        GidIndex.of(target);
+
+        InMemoryEmfModel copy = new RecordingEmfModel(source.getName(), target, new ArrayList<>(packages));
+        copy.setCachingEnabled(false);
+        return copy;
+    }
+
+    /**
+     * Model for reads with its version: the shared snapshot, held until released (resident mode),
+     * or a freshly loaded model
+     */
+    private ModelVersion acquireVersion() throws Exception {
+        if (residentMode) {
+            return acquireCurrent();
+        }
+        // Read before loading: if a write slips in between, the version reported is older, never newer
+        long version = fileVersion.get();
+        return new ModelVersion(loadModel(), version);
+    }
+
+    /**
+     * Release a model acquired for reading
+     */
+    private void releaseVersion(ModelVersion version) {
+        if (residentMode) {
+            version.release();
+        } else {
+            version.model.dispose();
+        }
+    }
+
+    /**
+     * Current model version; changes with every committed write
+     */
+    public long getModelVersion() throws Exception {
+        return residentMode ? currentVersion().version : fileVersion.get();
+    }
+
+    /**
+     * Model version of the last write that changed an object or its contents, or deleted it
+     */
+    public long getModificationStamp(String gid) {
+        return stamps.stampOf(gid);
+    }
+
+    /**
+     * Whether an object with the GID exists and is an instance of the named EClass (or a subclass)
+     */
+    public boolean exists(String gid, String typeName) throws Exception {
+        return lookup(gid, typeName, eObject -> eObject) != null;
+    }
+
+    /**
+     * Convert the object with a GID through the GID index, if it is an instance of the named
+     * EClass (or a subclass), while its model version is held
+     *
+     * @return The converted object, or null if there is no such object
+     */
+    public <T> T lookup(String gid, String typeName, Function<EObject, T> converter) throws Exception {
+        ModelVersion current = acquireVersion();
+        try {
+            EObject eObject = GidIndex.of(current.model.getResource()).byGid(gid, typeName);
+            return eObject != null ? converter.apply(eObject) : null;
+        } finally {
+            releaseVersion(current);
+        }
+    }
+
+    /**
+     * Directory of the instance model, where data kept beside it (journal, time series) lives
+     */
+    public File getModelDirectory() throws Exception {
+        return writableModelFile().getParentFile();
+    }
+
+    /**
+     * Register a listener for committed writes (called while commits are blocked, so keep it short)
+     */
+    public void addCommitListener(CommitListener listener) {
+        commitListeners.add(listener);
+    }
+
+    private void notifyCommitted(long version, Set<String> changedGids) {
+        for (CommitListener listener : commitListeners) {
+            try {
+                listener.committed(version, changedGids);
+            } catch (RuntimeException e) {
+                LOG.error("Commit listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Run a write.
+     * In resident mode the attempt runs on a private copy of the current snapshot, holding only
+     * the write stripe of the cave the target object is in, recording the objects it touches,
+     * and is then committed; on a conflict with a concurrent write it is run again on the newer
+     * snapshot, so it must not have side effects outside the model. Otherwise the model is
+     * loaded, written and saved under the write lock.
+     * @param targetGid GID of the object the write changes, or null if unknown (e.g. a create)
+     */
+    private <T> T executeWrite(String targetGid, WriteAttempt<T> attempt) throws Exception {
+        if (!residentMode) {
+            lock.writeLock().lock();
+            EmfModel model = null;
+            try {
+                model = loadModel();
+                GidIndex index = GidIndex.of(model.getResource());
+                GidIndex.TouchSet touched = index.startRecording();
+                Written<T> written;
+                try {
+                    written = attempt.run(model);
+                } finally {
+                    index.stopRecording();
+                }
+                if (written.modified) {
+                    saveModel(model);
+                    long version = fileVersion.get() + 1;
+                    stamps.stamp(touched.getChanged(), version);
+                    stamps.delete(index.deleted(touched), version);
+                    fileVersion.set(version);
+                    notifyCommitted(version, touched.getChanged());
+                }
+                return written.result;
+            } finally {
+                disposeModel(model);
+                lock.writeLock().unlock();
+            }
+        }
+
+        // Writes with no known target only rely on conflict detection
+        String key = writeLockKey(targetGid);
+        if (key == null) {
+            return executeOptimistic(attempt);
+        }
+        StripedWriteLock.Stripe stripe = writeStripes.lock(key);
+        try {
+            return executeOptimistic(attempt);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Run a write on a private copy and commit it, retrying on conflicts
+     */
+    private <T> T executeOptimistic(WriteAttempt<T> attempt) throws Exception {
+        for (int attemptNumber = 1; attemptNumber <= OPTIMISTIC_ATTEMPTS; attemptNumber++) {
+            ModelVersion base = acquireCurrent();
+            EmfModel copy;
+            try {
+                copy = workingCopy(base);
+            } finally {
+                base.release();
+            }
+
+            GidIndex index = GidIndex.of(copy.getResource());
+            GidIndex.TouchSet touched = index.startRecording();
+            Written<T> written;
+            try {
+                written = attempt.run(copy);
+            } finally {
+                index.stopRecording();
+            }
+            if (!written.modified) {
+                return written.result;
+            }
+
+            long commit = commitWrite(base.version, copy, touched, written.record);
+            if (commit != CONFLICT) {
+                awaitCommit(commit);
+                return written.result;
+            }
+            LOG.debug("Write conflicted with a concurrent write (attempt {})", attemptNumber);
+        }
+
+        // Heavily contended: run the write with commits blocked so it cannot conflict again
+        Written<T> written;
+        long commit = NO_COMMIT;
+        synchronized (commitLock) {
+            ModelVersion base = acquireCurrent();
+            EmfModel copy;
+            try {
+                copy = workingCopy(base);
+            } finally {
+                base.release();
+            }
+
+            GidIndex index = GidIndex.of(copy.getResource());
+            GidIndex.TouchSet touched = index.startRecording();
+            try {
+                written = attempt.run(copy);
+            } finally {
+                index.stopRecording();
+            }
+            if (written.modified) {
+                commit = commitWrite(base.version, copy, touched, written.record);
+            }
+        }
+        awaitCommit(commit);
+        return written.result;
+    }
+
+    /**
+     * Write lock key of an object: the gid of its Cave, or of the top-level object
+     * (a root or a direct child of a DTPackage) it is contained in
+     * @return The key, or null if the object does not exist yet
+     */
+    private String writeLockKey(String gid) throws Exception {
+        if (gid == null) {
+            return null;
+        }
+        ModelVersion current = acquireCurrent();
+        try {
+            return writeLockKey(GidIndex.of(current.model.getResource()).byGid(gid), gid);
+        } finally {
+            current.release();
+        }
+    }
+
+    private static String writeLockKey(EObject eObject, String gid) {
+        if (eObject == null) {
+            return null;
+        }
+
+        EObject topLevel = eObject;
+        for (EObject current = eObject; current != null; current = current.eContainer()) {
+            if (CAVE_CLASS.equals(current.eClass().getName())) {
+                return GidIndex.gidOf(current);
+            }
+            EObject container = current.eContainer();
+            if (container == null || PACKAGE_CLASS.equals(container.eClass().getName())) {
+                topLevel = current;
+                break;
+            }
+        }
+        String key = GidIndex.gidOf(topLevel);
+        return key != null ? key : gid;
+    }
+
+    /**
+     * Contention metrics of the per-cave write lock stripes that have been used
+     */
+    public java.util.List<StripedWriteLock.StripeMetrics> getWriteLockMetrics() {
+        return writeStripes.getMetrics();
+    }
+
+    /**
+     * Number of per-cave write lock stripes
+     */
+    public int getWriteLockStripeCount() {
+        return writeStripes.getStripeCount();
+    }
+
+    /**
+     * Publish a written copy as the next snapshot version.
+     * If other writes were committed since the copy's base version and none of them changed
+     * anything this write touched, they are applied to the copy and the commit is tried again.
+     * @return Journal sequence number, NO_COMMIT if the model was saved directly, or CONFLICT
+     */
+    private long commitWrite(long baseVersion, EmfModel copy, GidIndex.TouchSet touched,
+                             ModelJournal.Record record) throws Exception {
+        long version = baseVersion;
+        while (true) {
+            List<CommittedWrite> newer;
+            long headVersion;
+
+            synchronized (commitLock) {
+                ModelVersion head = snapshot.get();
+                if (head.version == version) {
+                    long sequence = NO_COMMIT;
+                    if (journal != null) {
+                        sequence = journal.append(record);
+                        snapshotSequence = sequence;
+                    } else {
+                        saveModel(copy);
+                    }
+
+                    commitHistory.put(version + 1, new CommittedWrite(touched, record));
+                    while (commitHistory.size() > COMMIT_HISTORY_SIZE) {
+                        commitHistory.pollFirstEntry();
+                    }
+                    // Stamp before publishing, so readers of the new version see its stamps
+                    stamps.stamp(touched.getChanged(), version + 1);
+                    stamps.delete(GidIndex.of(copy.getResource()).deleted(touched), version + 1);
+                    retire(head);
+                    snapshot.set(new ModelVersion(copy, version + 1));
+                    notifyCommitted(version + 1, touched.getChanged());
+                    return sequence;
+                }
+
+                // Writes older than the history cannot be checked
+                if (commitHistory.isEmpty() || commitHistory.firstKey() > version + 1) {
+                    return CONFLICT;
+                }
+                headVersion = head.version;
+                newer = new ArrayList<>(commitHistory.subMap(version, false, headVersion, true).values());
+            }
+
+            for (CommittedWrite committed : newer) {
+                if (touched.conflictsWith(committed.touched)) {
+                    return CONFLICT;
+                }
+            }
+
+            // Catch up with the writes committed meanwhile; they touched nothing this write did
+            for (CommittedWrite committed : newer) {
+                applyRecord(copy, committed.record);
+            }
+            version = headVersion;
+        }
+    }
+
+    /**
+     * Wait for a journaled write to be durable (group commit: one fsync covers every
+     * write appended while the previous fsync was running)
+     */
+    private void awaitCommit(long sequence) throws IOException {
+        if (sequence != NO_COMMIT) {
+            journal.awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Replay journaled writes made after the last checkpoint, then open the journal
+     */
+    private void recoverJournal(EmfModel model) throws Exception {
+        // The journal lives where checkpoints are saved, which is not where the model was loaded from before the first one
+        File modelFile = resolveModelFile();
+        ModelJournal modelJournal = new ModelJournal(writableModelFile().getParentFile());
+
+        long baseSequence = modelJournal.readCheckpoint().sequenceFor(hash(modelFile));
+        long[] replayed = {0};
+        long lastSequence = modelJournal.replay(baseSequence, (sequence, record) -> {
+            applyRecord(model, record);
+            replayed[0]++;
+        });
+        if (replayed[0] > 0) {
+            LOG.info("Replayed {} journaled writes ({} to {})", replayed[0], baseSequence + 1, lastSequence);
+        }
+
+        modelJournal.open(lastSequence);
+        snapshotSequence = lastSequence;
+        checkpointSequence = baseSequence;
+        journal = modelJournal;
+
+        if (checkpointIntervalSeconds > 0) {
+            checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "model-checkpointer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            checkpointer.scheduleWithFixedDelay(() -> {
+                try {
+                    checkpoint();
+                } catch (Exception e) {
+                    LOG.error("Failed to checkpoint model", e);
+                }
+            }, checkpointIntervalSeconds, checkpointIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Re-run a journaled write against a model
+     */
+    private void applyRecord(EmfModel model, ModelJournal.Record record) throws Exception {
+        if (record.isScript()) {
+            EolModule module = new EolModule();
+            URL scriptUrl = getClass().getClassLoader().getResource(record.getScriptPath());
+            if (scriptUrl == null) {
+                throw new RuntimeException("EOL script not found: " + record.getScriptPath());
+            }
+            module.parse(new java.net.URI(scriptUrl.toString()));
+            try {
+                bindModel(module.getContext(), model);
+                for (Map.Entry<String, Object> entry : record.getParameters().entrySet()) {
+                    module.getContext().getFrameStack().put(entry.getKey(), entry.getValue());
+                }
+                module.execute();
+            } finally {
+                releaseModel(module.getContext(), model);
+            }
+            return;
+        }
+
+        EolScriptCache.ParsedScript script = scriptCache.borrow(record.getScriptPath());
+        try {
+            bindModel(script.getModule().getContext(), model);
+            for (OperationCall call : record.getCalls()) {
+                script.getOperation(call.getName()).execute(null, call.getParameters(), script.getModule().getContext());
+            }
+        } finally {
+            releaseModel(script.getModule().getContext(), model);
+            scriptCache.release(script);
+        }
+    }
+
+    /**
+     * Write the current snapshot to the model file and drop the journal segments it covers.
+     * Commits are only blocked while the journal segment is rotated, not while the model is saved.
+     */
+    public void checkpoint() throws Exception {
+        if (journal == null) {
+            return;
+        }
+        synchronized (checkpointLock) {
+            ModelVersion current;
+            long sequence;
+
+            synchronized (commitLock) {
+                current = snapshot.get();
+                sequence = snapshotSequence;
+                if (current == null || sequence == checkpointSequence) {
+                    return;
+                }
+                journal.rotate();
+                // The current snapshot is never claimed, so this cannot fail
+                current.tryAcquire();
+            }
+
+            // Held snapshots are never modified, so the model can be saved without the lock
+            File modelFile = writableModelFile();
+            File pendingFile = new File(modelFile.getParentFile(), modelFile.getName() + ".checkpoint");
+            try {
+                ModelPersistence.save(current.model.getResource(), pendingFile, format);
+            } finally {
+                current.release();
+            }
+
+            journal.checkpoint(sequence, hash(pendingFile), checkpointSequence, () ->
+                Files.move(pendingFile.toPath(), modelFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE));
+            checkpointSequence = sequence;
+
+            LOG.info("Model checkpoint written at journal sequence {}: {}", sequence, modelFile.getAbsolutePath());
+        }
+    }
+
+    private static String hash(File file) throws Exception {
+        if (!file.exists()) {
+            return null;
+        }
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) != -1) {
+                // Digested as it is read
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Add the model and its GID index (as the EOL variable "Index") to an Epsilon context
+     */
+    private void bindModel(IEolContext context, EmfModel model) {
+        context.getModelRepository().addModel(model);
+        context.getFrameStack().putGlobal(
+            Variable.createReadOnlyVariable(GidIndex.EOL_VARIABLE, GidIndex.of(model.getResource())));
+    }
+
+    /**
+     * Detach the model from an Epsilon context without disposing shared snapshots
+     */
+    private void releaseModel(IEolContext context, IModel model) {
+        if (context == null) {
+            return;
+        }
+        if (model != null) {
+            context.getModelRepository().removeModel(model);
+        }
+        context.getModelRepository().dispose();
+    }
+
+    /**
+     * Dispose a model unless it is (or may become) a resident snapshot
+     */
+    private void disposeModel(EmfModel model) {
+        if (model != null && !residentMode) {
+            model.dispose();
+        }
+    }
+
     /**
      * Load EMF model
      */
@@ -68,6 +865,15 @@ public class EpsilonModelManager {
                     ePackage.getName(), ePackage.getNsURI());
             }
 
+            // Binary models are read directly into an in-memory resource
+            File modelFile = resolveModelFile();
+            if (ModelPersistence.Format.forFile(modelFile) == ModelPersistence.Format.BINARY) {
+                return loadBinaryModel(modelFile);
+            }
+            if (format == ModelPersistence.Format.BINARY) {
+                LOG.warn("Binary model not found, loading {} (it will be saved as binary)", MODEL_PATH);
+            }
+
             // Create and configure EmfModel
             EmfModel model = new EmfModel();
             model.setName("M");
@@ -78,16 +884,14 @@ public class EpsilonModelManager {
             File metamodelFile = new File(metamodelUrl.toURI());
             model.setMetamodelFile(metamodelFile.getAbsolutePath());
 
-            URL modelUrl = getClass().getClassLoader().getResource(MODEL_PATH);
-            if (modelUrl == null) {
-                throw new RuntimeException("Model file not found: " + MODEL_PATH);
-            }
-            File modelFile = new File(modelUrl.toURI());
             model.setModelFile(modelFile.getAbsolutePath());
 
             // Load model
             model.load();
 
+            // Index objects by GID
+            GidIndex.of(model.getResource());
+
             LOG.info("Model loaded successfully with {} root elements",
                 model.getResource() != null ? model.getResource().getContents().size() : 0);
 
@@ -101,6 +905,25 @@ public class EpsilonModelManager {
         }
     }
 
+    /**
+     * Load a binary model file
+     */
+    private EmfModel loadBinaryModel(File modelFile) throws Exception {
+        Resource resource = ModelPersistence.load(modelFile, ModelPersistence.Format.BINARY);
+
+        Set<EPackage> packages = new LinkedHashSet<>();
+        for (EObject root : resource.getContents()) {
+            packages.add(root.eClass().getEPackage());
+        }
+
+        // Index objects by GID
+        GidIndex.of(resource);
+
+        LOG.info("Binary model loaded successfully with {} root elements", resource.getContents().size());
+
+        return new InMemoryEmfModel("M", resource, new ArrayList<>(packages));
+    }
+
     /**
      * Initialize model with demo data if empty
      */
@@ -149,24 +972,7 @@ public class EpsilonModelManager {
         try {
             LOG.info("Saving EMF model");
 
-            // Get model file classpath
-            URL modelUrl = getClass().getClassLoader().getResource(MODEL_PATH);
-            if (modelUrl == null) {
-                throw new RuntimeException("Model file not found: " + MODEL_PATH);
-            }
-
-            // Get file path
-            String path = modelUrl.getPath();
-            if (path.startsWith("/") && System.getProperty("os.name").toLowerCase().contains("windows")) {
-                path = path.substring(1);
-            }
-
-            // Replace target/classes with src/main/resources
-            // This ensures changes are saved to source files and won't be lost on recompilation
-            path = path.replace("target\\classes", "src\\main\\resources")
-                       .replace("target/classes", "src/main/resources");
-
-            File modelFile = new File(path);
+            File modelFile = writableModelFile();
 
             // Ensure parent directory exists
             if (!modelFile.getParentFile().exists()) {
@@ -176,14 +982,7 @@ public class EpsilonModelManager {
             Resource resource = model.getResource();
             resource.setURI(URI.createFileURI(modelFile.getAbsolutePath()));
 
-            // Use proper XMI save options
-            Map<Object, Object> saveOptions = new HashMap<>();
-            saveOptions.put(org.eclipse.emf.ecore.xmi.XMLResource.OPTION_SAVE_TYPE_INFORMATION, Boolean.TRUE);
-            saveOptions.put(org.eclipse.emf.ecore.xmi.XMLResource.OPTION_SCHEMA_LOCATION, Boolean.TRUE);
-            saveOptions.put(org.eclipse.emf.ecore.xmi.XMLResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
-            saveOptions.put(org.eclipse.emf.ecore.xmi.XMLResource.OPTION_ENCODING, "UTF-8");
-
-            resource.save(saveOptions);
+            ModelPersistence.save(resource, modelFile, format);
 
             LOG.info("Model saved successfully: {}", modelFile.getAbsolutePath());
 
@@ -195,6 +994,53 @@ public class EpsilonModelManager {
         }
     }
 
+    /**
+     * Model file that saves go to (in src/main/resources, so changes are not lost on recompilation)
+     */
+    private File writableModelFile() throws Exception {
+        if (modelDirectory != null) {
+            return new File(modelDirectory, format.getFileName());
+        }
+
+        // The XMI model on the classpath locates models/instances for every format
+        URL modelUrl = getClass().getClassLoader().getResource(MODEL_PATH);
+        if (modelUrl == null) {
+            throw new RuntimeException("Model file not found: " + MODEL_PATH);
+        }
+
+        // Get file path
+        String path = modelUrl.getPath();
+        if (path.startsWith("/") && System.getProperty("os.name").toLowerCase().contains("windows")) {
+            path = path.substring(1);
+        }
+
+        // Replace target/classes with src/main/resources
+        path = path.replace("target\\classes", "src\\main\\resources")
+                   .replace("target/classes", "src/main/resources");
+
+        return new File(new File(path).getParentFile(), format.getFileName());
+    }
+
+    /**
+     * Model file to load: the last saved file if there is one, otherwise the classpath copy.
+     * Falls back to the XMI model when no binary model exists yet.
+     */
+    private File resolveModelFile() throws Exception {
+        File writable = writableModelFile();
+        if (writable.exists()) {
+            return writable;
+        }
+        URL modelUrl = getClass().getClassLoader().getResource(MODEL_DIR + format.getFileName());
+        if (modelUrl != null) {
+            return new File(modelUrl.toURI());
+        }
+        File writableXmi = new File(writable.getParentFile(), ModelPersistence.Format.XMI.getFileName());
+        if (writableXmi.exists()) {
+            return writableXmi;
+        }
+        return new File(getClass().getClassLoader().getResource(MODEL_PATH).toURI());
+    }
+
     /**
      * Execute EOL script
      * @param scriptPath EOL script path (relative to resources directory)
@@ -202,26 +1048,48 @@ public class EpsilonModelManager {
      * @return Execution result
      */
     public Object executeEolScript(String scriptPath, Map<String, Object> parameters) throws Exception {
-        EmfModel model = null;
-        EolModule module = null;
-
         try {
-            // Load model
-            model = loadModel();
+            LOG.info("Executing EOL script: {}", scriptPath);
 
-            // Create EOL module
-            module = new EolModule();
+            // Save model if modified
+            if (isModifyingScript(scriptPath)) {
+                return executeWrite(null, model -> new Written<>(runScript(model, scriptPath, parameters),
+                    ModelJournal.Record.script(scriptPath, parameters), true));
+            }
 
-            // Load EOL script
-            URL scriptUrl = getClass().getClassLoader().getResource(scriptPath);
-            if (scriptUrl == null) {
-                throw new RuntimeException("EOL script not found: " + scriptPath);
+            ModelVersion current = acquireVersion();
+            try {
+                // The result may hold model objects, so the snapshot is never reused
+                current.pin();
+                return runScript(current.model, scriptPath, parameters);
+            } finally {
+                releaseVersion(current);
             }
 
-            module.parse(new java.net.URI(scriptUrl.toString()));
+        } catch (Exception e) {
+            LOG.error("Failed to execute EOL script: {}", scriptPath, e);
+            throw e;
+        }
+    }
 
+    /**
+     * Parse and run an EOL script against a model
+     */
+    private Object runScript(EmfModel model, String scriptPath, Map<String, Object> parameters) throws Exception {
+        // Create EOL module
+        EolModule module = new EolModule();
+
+        // Load EOL script
+        URL scriptUrl = getClass().getClassLoader().getResource(scriptPath);
+        if (scriptUrl == null) {
+            throw new RuntimeException("EOL script not found: " + scriptPath);
+        }
+
+        module.parse(new java.net.URI(scriptUrl.toString()));
+
+        try {
             // Add model to context
-            module.getContext().getModelRepository().addModel(model);
+            bindModel(module.getContext(), model);
 
             // Set parameters
             if (parameters != null) {
@@ -231,27 +1099,9 @@ public class EpsilonModelManager {
             }
 
             // Execute script
-            LOG.info("Executing EOL script: {}", scriptPath);
-            Object result = module.execute();
-
-            // Save model if modified
-            if (isModifyingScript(scriptPath)) {
-                saveModel(model);
-            }
-
-            return result;
-
-        } catch (Exception e) {
-            LOG.error("Failed to execute EOL script: {}", scriptPath, e);
-            throw e;
+            return module.execute();
         } finally {
-            // Clean up resources
-            if (module != null) {
-                module.getContext().getModelRepository().dispose();
-            }
-            if (model != null) {
-                model.dispose();
-            }
+            releaseModel(module.getContext(), model);
         }
     }
 
@@ -262,6 +1112,44 @@ public class EpsilonModelManager {
         return executeEolScript(scriptPath, null);
     }
 
+    /**
+     * Run a query (filter, sort, page) directly on the model objects of one type
+     * @param query Query to run
+     * @param converter Converts each object of the requested page (e.g. to a DTO)
+     * @return The page of converted objects with the total number of matches
+     */
+    public <T> ModelQuery.Page<T> executeQuery(ModelQuery query, Function<EObject, T> converter) throws Exception {
+        LOG.info("Executing model query: {}", query);
+
+        ModelVersion current = acquireVersion();
+        try {
+            return query.execute(current.model.getResource(), stamps, converter);
+        } finally {
+            releaseVersion(current);
+        }
+    }
+
+    /**
+     * Run a query on the model objects of one type and stream the page, converting each object
+     * only when the stream's subscriber requests it. The model stays acquired until the stream
+     * completes or is cancelled.
+     * @param query Query to run
+     * @param converter Converts each object of the requested page (e.g. to a DTO)
+     * @return Single-use stream of converted objects with the total number of matches and the model version
+     */
+    public <T> ModelStream<T> streamQuery(ModelQuery query, Function<EObject, T> converter) throws Exception {
+        LOG.info("Streaming model query: {}", query);
+
+        ModelVersion current = acquireVersion();
+        try {
+            return new ModelStream<>(query.select(current.model.getResource(), stamps), current.version, converter,
+                () -> releaseVersion(current));
+        } catch (Exception e) {
+            releaseVersion(current);
+            throw e;
+        }
+    }
+
     /**
      * Execute EGL template for code generation
      * @param templatePath EGL template path (relative to resources directory)
@@ -269,16 +1157,18 @@ public class EpsilonModelManager {
      * @return Generated text
      */
     public String executeEglTemplate(String templatePath, Map<String, Object> parameters) throws Exception {
+        ModelVersion current = null;
         EmfModel model = null;
         EglTemplateFactory templateFactory = null;
 
         try {
             // Load model
-            model = loadModel();
+            current = acquireVersion();
+            model = current.model;
 
             // Create EGL template factory
             templateFactory = new EglTemplateFactory();
-            templateFactory.getContext().getModelRepository().addModel(model);
+            bindModel(templateFactory.getContext(), model);
 
             // Set parameters
             if (parameters != null) {
@@ -307,10 +1197,10 @@ public class EpsilonModelManager {
         } finally {
             // Clean up resources
             if (templateFactory != null) {
-                templateFactory.getContext().getModelRepository().dispose();
+                releaseModel(templateFactory.getContext(), model);
             }
-            if (model != null) {
-                model.dispose();
+            if (current != null) {
+                releaseVersion(current);
             }
         }
     }
@@ -375,65 +1265,127 @@ public class EpsilonModelManager {
      * @return Execution result
      */
     public Object executeEolOperation(String baseScriptPath, String operationName, Object... parameters) throws Exception {
-        EmfModel model = null;
-        EolModule module = null;
-
         try {
-            model = loadModel();
-            module = new EolModule();
+            LOG.info("Executing EOL operation: {}", operationName);
 
-            // Load base script file
-            URL scriptUrl = getClass().getClassLoader().getResource(baseScriptPath);
-            if (scriptUrl == null) {
-                throw new RuntimeException("EOL script not found: " + baseScriptPath);
+            // If it's a modifying operation (setter), save model
+            if (isModifyingOperation(operationName)) {
+                return executeWrite(writeTarget(parameters), model -> new Written<>(runOperation(model, baseScriptPath, operationName, parameters),
+                    ModelJournal.Record.operations(baseScriptPath,
+                        Collections.singletonList(new OperationCall(operationName, parameters))), true));
             }
 
-            File scriptFile = new File(scriptUrl.toURI());
+            ModelVersion current = acquireVersion();
+            try {
+                // The result may hold model objects, so the snapshot is never reused
+                current.pin();
+                return runOperation(current.model, baseScriptPath, operationName, parameters);
+            } finally {
+                releaseVersion(current);
+            }
 
-            LOG.info("Executing EOL operation: {}", operationName);
+        } catch (Exception e) {
+            LOG.error("Failed to execute EOL operation: {}", operationName, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Call a read-only EOL operation and convert its result while the model is held
+     * @param baseScriptPath Base script path (provides imports and operation definitions)
+     * @param operationName Operation name to call (e.g., "getStatueByGid")
+     * @param converter Converts the result (e.g. to a DTO); it must not keep model objects
+     * @param parameters Operation parameters
+     * @return Converted result
+     */
+    public <T> T executeEolRead(String baseScriptPath, String operationName, Function<Object, T> converter,
+                                Object... parameters) throws Exception {
+        try {
+            LOG.info("Executing EOL read: {}", operationName);
 
-            // Parse script
-            module.parse(scriptFile);
+            ModelVersion current = acquireVersion();
+            try {
+                return converter.apply(runOperation(current.model, baseScriptPath, operationName, parameters));
+            } finally {
+                releaseVersion(current);
+            }
 
-            // Add model to context
-            module.getContext().getModelRepository().addModel(model);
+        } catch (Exception e) {
+            LOG.error("Failed to execute EOL read: {}", operationName, e);
+            throw e;
+        }
+    }
 
-            // Find operation
-            org.eclipse.epsilon.eol.dom.Operation operation = null;
-            for (org.eclipse.epsilon.eol.dom.Operation op : module.getOperations()) {
-                if (op.getName().equals(operationName)) {
-                    operation = op;
-                    break;
+    /**
+     * Call a read-only EOL operation on an object and convert its result, together with the
+     * object's modification stamp as of the same model version, so a response rendered from the
+     * result is tagged (and cached) with the version it actually shows.
+     * @param gid GID of the object, passed as the operation's only parameter
+     * @return Converted result with the object's stamp
+     */
+    public <T> Stamped<T> executeEolReadStamped(String baseScriptPath, String operationName,
+                                                Function<Object, T> converter, String gid) throws Exception {
+        try {
+            LOG.info("Executing stamped EOL read: {}", operationName);
+
+            if (!residentMode) {
+                // Writes save and stamp under the write lock, so the file and stamps agree
+                lock.readLock().lock();
+                try {
+                    ModelVersion current = acquireVersion();
+                    try {
+                        return new Stamped<>(stamps.stampOf(gid),
+                            converter.apply(runOperation(current.model, baseScriptPath, operationName, gid)));
+                    } finally {
+                        releaseVersion(current);
+                    }
+                } finally {
+                    lock.readLock().unlock();
                 }
             }
 
-            if (operation == null) {
-                throw new RuntimeException("Operation not found: " + operationName);
+            while (true) {
+                ModelVersion current = acquireCurrent();
+                try {
+                    // Stamps are set just before a write's version is published, so a stamp newer
+                    // than the snapshot is a commit in progress: read again once it is published
+                    long stamp = stamps.stampOf(gid);
+                    if (stamp <= current.version) {
+                        return new Stamped<>(stamp,
+                            converter.apply(runOperation(current.model, baseScriptPath, operationName, gid)));
+                    }
+                } finally {
+                    current.release();
+                }
+                Thread.onSpinWait();
             }
 
-            // Execute operation (convert parameters array to List)
-            Object result = operation.execute(null, java.util.Arrays.asList(parameters), module.getContext());
+        } catch (Exception e) {
+            LOG.error("Failed to execute stamped EOL read: {}", operationName, e);
+            throw e;
+        }
+    }
 
-            // If it's a modifying operation (setter), save model
-            if (operationName.toLowerCase().startsWith("set") ||
-                operationName.toLowerCase().startsWith("create") ||
-                operationName.toLowerCase().startsWith("update") ||
-                operationName.toLowerCase().startsWith("delete")) {
-                saveModel(model);
-            }
+    /**
+     * Run one operation of a cached script against a model
+     */
+    private Object runOperation(EmfModel model, String baseScriptPath, String operationName, Object... parameters) throws Exception {
+        // Get parsed script (bound to a fresh context)
+        EolScriptCache.ParsedScript script = scriptCache.borrow(baseScriptPath);
+        try {
+            EolModule module = script.getModule();
 
-            return result;
+            // Add model to context
+            bindModel(module.getContext(), model);
 
-        } catch (Exception e) {
-            LOG.error("Failed to execute EOL operation: {}", operationName, e);
-            throw e;
+            // Find operation
+            org.eclipse.epsilon.eol.dom.Operation operation = script.getOperation(operationName);
+
+            // Execute operation (convert parameters array to List)
+            return operation.execute(null, java.util.Arrays.asList(parameters), module.getContext());
         } finally {
-            if (module != null) {
-                module.getContext().getModelRepository().dispose();
-            }
-            if (model != null) {
-                model.dispose();
-            }
+            releaseModel(script.getModule().getContext(), model);
+            scriptCache.release(script);
         }
     }
 
@@ -443,63 +1395,229 @@ public class EpsilonModelManager {
      * @param operations List of operations to execute (name -> parameters)
      */
     public void executeBatchOperations(String baseScriptPath, java.util.List<OperationCall> operations) throws Exception {
-        EmfModel model = null;
-        EolModule module = null;
+        LOG.info("Batch executing {} EOL operations", operations.size());
+
+        String targetGid = operations.isEmpty() ? null : writeTarget(operations.get(0).getParameters().toArray());
+        executeUnitOfWork(baseScriptPath, targetGid, transaction -> {
+            // Execute all operations sequentially
+            for (OperationCall opCall : operations) {
+                LOG.info("  - Executing: {}", opCall.getName());
+                transaction.call(opCall.getName(), opCall.getParameters().toArray());
+            }
+            return null;
+        });
+
+        LOG.info("Batch operations completed, model saved");
+    }
+
+    /**
+     * Execute a unit of work: load the model once, run every operation the work calls
+     * in the same context, and save once at the end if any of them modified the model.
+     * The work can read results (e.g. build a DTO) before the context is released.
+     * The work may be run more than once if it conflicts with a concurrent write.
+     * @param baseScriptPath EOL script path
+     * @param work Work to run against the model
+     * @return The work's result
+     */
+    public <T> T executeUnitOfWork(String baseScriptPath, UnitOfWork<T> work) throws Exception {
+        return executeUnitOfWork(baseScriptPath, null, work);
+    }
 
+    /**
+     * Execute a unit of work that changes an existing object.
+     * In resident mode it only waits for writes to the same cave.
+     * @param baseScriptPath EOL script path
+     * @param targetGid GID of the object the work changes
+     * @param work Work to run against the model
+     * @return The work's result
+     */
+    public <T> T executeUnitOfWork(String baseScriptPath, String targetGid, UnitOfWork<T> work) throws Exception {
         try {
-            model = loadModel();
-            module = new EolModule();
+            return executeWrite(targetGid, model -> {
+                // Get parsed script (bound to a fresh context)
+                EolScriptCache.ParsedScript script = scriptCache.borrow(baseScriptPath);
+                try {
+                    // Add model to context
+                    bindModel(script.getModule().getContext(), model);
+
+                    Transaction transaction = new Transaction(script);
+                    T result = work.execute(transaction);
+
+                    // Save once for the whole unit of work
+                    return new Written<>(result,
+                        ModelJournal.Record.operations(baseScriptPath, transaction.getCalls()),
+                        transaction.isModified());
+                } finally {
+                    releaseModel(script.getModule().getContext(), model);
+                    scriptCache.release(script);
+                }
+            });
 
-            // Load base script file
-            URL scriptUrl = getClass().getClassLoader().getResource(baseScriptPath);
-            if (scriptUrl == null) {
-                throw new RuntimeException("EOL script not found: " + baseScriptPath);
-            }
+        } catch (Exception e) {
+            LOG.error("Failed to execute unit of work on {}", baseScriptPath, e);
+            throw e;
+        }
+    }
 
-            File scriptFile = new File(scriptUrl.toURI());
+    /**
+     * Work executed against one loaded model
+     */
+    @FunctionalInterface
+    public interface UnitOfWork<T> {
+        T execute(Transaction transaction) throws Exception;
+    }
 
-            LOG.info("Batch executing {} EOL operations", operations.size());
+    /**
+     * Operations available to a unit of work
+     */
+    public class Transaction {
+        private final EolScriptCache.ParsedScript script;
+        private final java.util.List<OperationCall> calls = new ArrayList<>();
+        private boolean modified;
 
-            // Parse script
-            module.parse(scriptFile);
+        private Transaction(EolScriptCache.ParsedScript script) {
+            this.script = script;
+        }
 
-            // Add model to context
-            module.getContext().getModelRepository().addModel(model);
+        /**
+         * Call an EOL operation in this unit of work
+         * @param operationName Operation name to call (e.g., "updateStatue")
+         * @param parameters Operation parameters
+         * @return Execution result
+         */
+        public Object call(String operationName, Object... parameters) throws Exception {
+            org.eclipse.epsilon.eol.dom.Operation operation = script.getOperation(operationName);
+            OperationCall call = new OperationCall(operationName, parameters);
+
+            Object result = operation.execute(null, call.getParameters(), script.getModule().getContext());
+
+            calls.add(call);
+            if (isModifyingOperation(operationName)) {
+                modified = true;
+            }
+            return result;
+        }
 
-            // Execute all operations sequentially
-            for (OperationCall opCall : operations) {
-                // Find operation
-                org.eclipse.epsilon.eol.dom.Operation operation = null;
-                for (org.eclipse.epsilon.eol.dom.Operation op : module.getOperations()) {
-                    if (op.getName().equals(opCall.getName())) {
-                        operation = op;
-                        break;
-                    }
-                }
+        /**
+         * Operations called so far, in order
+         */
+        public java.util.List<OperationCall> getCalls() {
+            return Collections.unmodifiableList(calls);
+        }
 
-                if (operation == null) {
-                    throw new RuntimeException("Operation not found: " + opCall.getName());
-                }
+        public boolean isModified() {
+            return modified;
+        }
+    }
 
-                // Execute operation
-                LOG.info("  - Executing: {}", opCall.getName());
-                operation.execute(null, opCall.getParameters(), module.getContext());
+    /**
+     * A published snapshot and its version (the base version plus the number of commits since it was loaded)
+     */
+    private static class ModelVersion {
+        private static final int CLAIMED = -1;
+
+        private final EmfModel model;
+        private final long version;
+        // Readers holding the snapshot, or CLAIMED once a writer reuses it
+        private final AtomicInteger readers = new AtomicInteger();
+        private volatile boolean pinned;
+
+        ModelVersion(EmfModel model, long version) {
+            this.model = model;
+            this.version = version;
+        }
+
+        /**
+         * Hold the snapshot for reading, unless a writer has claimed it
+         */
+        boolean tryAcquire() {
+            while (true) {
+                int count = readers.get();
+                if (count == CLAIMED) {
+                    return false;
+                }
+                if (readers.compareAndSet(count, count + 1)) {
+                    return true;
+                }
             }
+        }
 
-            // Batch save model (save only once)
-            saveModel(model);
-            LOG.info("Batch operations completed, model saved");
+        void release() {
+            readers.decrementAndGet();
+        }
 
-        } catch (Exception e) {
-            LOG.error("Failed to batch execute EOL operations", e);
-            throw e;
-        } finally {
-            if (module != null) {
-                module.getContext().getModelRepository().dispose();
+        /**
+         * Never reuse the snapshot: its objects are held beyond any reader's release
+         */
+        void pin() {
+            pinned = true;
+        }
+
+        boolean isPinned() {
+            return pinned;
+        }
+
+        /**
+         * Claim a retired snapshot for reuse if no reader holds it and it is not pinned
+         */
+        boolean tryClaim() {
+            if (!readers.compareAndSet(0, CLAIMED)) {
+                return false;
             }
-            if (model != null) {
-                model.dispose();
+            // Checked after claiming: a reader pins before it releases
+            if (pinned) {
+                readers.set(0);
+                return false;
             }
+            return true;
+        }
+    }
+
+    /**
+     * A committed write: what it changed and how to re-apply it
+     */
+    private static class CommittedWrite {
+        private final GidIndex.TouchSet touched;
+        private final ModelJournal.Record record;
+
+        CommittedWrite(GidIndex.TouchSet touched, ModelJournal.Record record) {
+            this.touched = touched;
+            this.record = record;
+        }
+    }
+
+    /**
+     * Notified of every committed write
+     */
+    @FunctionalInterface
+    public interface CommitListener {
+        /**
+         * @param version Model version the write produced
+         * @param changedGids GIDs of the objects it changed and of the objects containing them
+         */
+        void committed(long version, Set<String> changedGids);
+    }
+
+    /**
+     * One attempt at a write against a writable model
+     */
+    @FunctionalInterface
+    private interface WriteAttempt<T> {
+        Written<T> run(EmfModel model) throws Exception;
+    }
+
+    /**
+     * Outcome of a write attempt
+     */
+    private static class Written<T> {
+        private final T result;
+        private final ModelJournal.Record record;
+        private final boolean modified;
+
+        Written(T result, ModelJournal.Record record, boolean modified) {
+            this.result = result;
+            this.record = record;
+            this.modified = modified;
         }
     }
 
@@ -524,6 +1642,24 @@ public class EpsilonModelManager {
         }
     }
 
+    /**
+     * Target of a modifying operation: by convention its first parameter is the object's GID
+     */
+    private static String writeTarget(Object... parameters) {
+        return parameters.length > 0 && parameters[0] instanceof String ? (String) parameters[0] : null;
+    }
+
+    /**
+     * Check if operation modifies the model
+     */
+    private boolean isModifyingOperation(String operationName) {
+        String lowerName = operationName.toLowerCase();
+        return lowerName.startsWith("set") ||
+               lowerName.startsWith("create") ||
+               lowerName.startsWith("update") ||
+               lowerName.startsWith("delete");
+    }
+
     /**
      * Check if script modifies the model
      */
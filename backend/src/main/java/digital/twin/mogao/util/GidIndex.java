@@ -0,0 +1,364 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * GID index for a model resource
+ * Maps every DTElement gid to its EObject and is kept current by EMF notifications,
+ * so lookups by GID are O(1) instead of a scan over Object.all.
+ *
+ * Exposed to EOL scripts as the native tool "Index", e.g. Index.byGid(gid, "Statue").
+ *
+ * On a writer's private copy the index can also record which objects the writer looked up
+ * and changed (see TouchSet), for conflict detection when the copy is committed. Lookups
+ * made through the copy's model (property reads, X.all) are reported by RecordingEmfModel.
+ */
+public class GidIndex extends EContentAdapter {
+
+    // Name of the EOL variable the index is bound to
+    public static final String EOL_VARIABLE = "Index";
+
+    private static final String GID_FEATURE = "gid";
+
+    // Read kind recorded for a query over every object in the model
+    static final String ALL_KINDS = "*";
+
+    private final Map<String, EObject> objects = new ConcurrentHashMap<>();
+
+    // Objects touched by the writer that owns this copy, if recording
+    private volatile TouchSet recording;
+
+    /**
+     * Get the index attached to a resource, attaching a new one if needed
+     */
+    public static GidIndex of(Resource resource) {
+        for (Adapter adapter : resource.eAdapters()) {
+            if (adapter instanceof GidIndex) {
+                return (GidIndex) adapter;
+            }
+        }
+        GidIndex index = new GidIndex();
+        resource.eAdapters().add(index);
+        return index;
+    }
+
+    /**
+     * Find any object by GID
+     */
+    public EObject byGid(String gid) {
+        EObject eObject = gid != null ? objects.get(gid) : null;
+        TouchSet touched = recording;
+        if (touched != null && eObject != null) {
+            touched.read(eObject);
+        }
+        return eObject;
+    }
+
+    /**
+     * Record that the writer read an object (e.g. one of its properties)
+     */
+    void recordRead(EObject eObject) {
+        TouchSet touched = recording;
+        if (touched != null) {
+            touched.read(eObject);
+        }
+    }
+
+    /**
+     * Record that the writer listed every object of a kind (ALL_KINDS: every object)
+     */
+    void recordKindRead(String typeName) {
+        TouchSet touched = recording;
+        if (touched != null) {
+            touched.readKinds.add(typeName);
+        }
+    }
+
+    /**
+     * Find an object by GID, only if it is an instance of the named EClass (or a subclass)
+     */
+    public EObject byGid(String gid, String typeName) {
+        EObject eObject = byGid(gid);
+        if (eObject == null) {
+            return null;
+        }
+        return isKindOf(eObject.eClass(), typeName) ? eObject : null;
+    }
+
+    /**
+     * Number of indexed objects
+     */
+    public int size() {
+        return objects.size();
+    }
+
+    /**
+     * Start recording the objects looked up and changed through this index's resource
+     */
+    public TouchSet startRecording() {
+        TouchSet touched = new TouchSet();
+        recording = touched;
+        return touched;
+    }
+
+    /**
+     * Stop recording (changes made afterwards are not attributed to the writer)
+     */
+    public void stopRecording() {
+        recording = null;
+    }
+
+    @Override
+    public void notifyChanged(Notification notification) {
+        super.notifyChanged(notification);
+
+        TouchSet touched = recording;
+        if (touched != null && !notification.isTouch()) {
+            recordWrite(touched, notification);
+        }
+
+        // Re-key objects whose gid changes
+        Object feature = notification.getFeature();
+        if (feature instanceof EAttribute && GID_FEATURE.equals(((EAttribute) feature).getName())
+                && notification.getNotifier() instanceof EObject) {
+            EObject eObject = (EObject) notification.getNotifier();
+            Object oldGid = notification.getOldValue();
+            if (oldGid != null) {
+                objects.remove(oldGid, eObject);
+            }
+            Object newGid = notification.getNewValue();
+            if (newGid != null) {
+                objects.put((String) newGid, eObject);
+            }
+        }
+    }
+
+    @Override
+    protected void setTarget(EObject target) {
+        super.setTarget(target);
+        String gid = gidOf(target);
+        if (gid != null) {
+            objects.put(gid, target);
+        }
+    }
+
+    @Override
+    protected void unsetTarget(EObject target) {
+        super.unsetTarget(target);
+        String gid = gidOf(target);
+        if (gid != null) {
+            objects.remove(gid, target);
+        }
+    }
+
+    private static void recordWrite(TouchSet touched, Notification notification) {
+        if (notification.getNotifier() instanceof EObject) {
+            touched.write((EObject) notification.getNotifier());
+        }
+        // Objects added to or removed from a containment (or the resource's roots) are changed too
+        Object feature = notification.getFeature();
+        if (feature instanceof EReference && ((EReference) feature).isContainment()
+                || notification.getNotifier() instanceof Resource
+                    && notification.getFeatureID(Resource.class) == Resource.RESOURCE__CONTENTS) {
+            recordValues(touched, notification.getOldValue(), true);
+            recordValues(touched, notification.getNewValue(), false);
+        }
+    }
+
+    private static void recordValues(TouchSet touched, Object value, boolean removed) {
+        if (value instanceof EObject) {
+            recordValue(touched, (EObject) value, removed);
+        } else if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                if (element instanceof EObject) {
+                    recordValue(touched, (EObject) element, removed);
+                }
+            }
+        }
+    }
+
+    private static void recordValue(TouchSet touched, EObject eObject, boolean removed) {
+        touched.write(eObject);
+        touched.addedOrRemoved(eObject);
+        if (removed) {
+            touched.removed(eObject);
+        }
+    }
+
+    /**
+     * Objects a writer removed that are no longer in the model (rather than moved elsewhere),
+     * by gid with their EClass
+     */
+    public Map<String, EClass> deleted(TouchSet touched) {
+        Map<String, EClass> deleted = new HashMap<>();
+        for (Map.Entry<String, EClass> entry : touched.removed.entrySet()) {
+            if (!objects.containsKey(entry.getKey())) {
+                deleted.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return deleted;
+    }
+
+    static String gidOf(EObject eObject) {
+        EStructuralFeature feature = eObject.eClass().getEStructuralFeature(GID_FEATURE);
+        if (feature == null) {
+            return null;
+        }
+        Object value = eObject.eGet(feature);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private static boolean isKindOf(EClass eClass, String typeName) {
+        if (eClass.getName().equals(typeName)) {
+            return true;
+        }
+        for (EClass superType : eClass.getEAllSuperTypes()) {
+            if (superType.getName().equals(typeName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * GIDs of the objects a writer read and changed, and the kinds of objects it listed or
+     * added and removed.
+     * Changes are attributed to the nearest object with a gid (e.g. an AssetReference change
+     * to its Statue). The containers of every touched object count as read, so deleting a
+     * cave conflicts with a concurrent edit inside it. Listing a kind (Statue.all) conflicts
+     * with a concurrent write that adds or removes an object of that kind.
+     */
+    public static class TouchSet {
+        private final Set<String> reads = ConcurrentHashMap.newKeySet();
+        private final Set<String> writes = ConcurrentHashMap.newKeySet();
+        private final Set<String> changed = ConcurrentHashMap.newKeySet();
+        private final Set<String> readKinds = ConcurrentHashMap.newKeySet();
+        private final Set<String> addedKinds = ConcurrentHashMap.newKeySet();
+        // Objects removed from a containment, and their contents, some of which may have been added elsewhere
+        private final Map<String, EClass> removed = new ConcurrentHashMap<>();
+
+        void read(EObject eObject) {
+            for (EObject current = eObject; current != null; current = current.eContainer()) {
+                String gid = gidOf(current);
+                if (gid != null) {
+                    reads.add(gid);
+                }
+            }
+        }
+
+        void write(EObject eObject) {
+            EObject current = eObject;
+            while (current != null && gidOf(current) == null) {
+                current = current.eContainer();
+            }
+            if (current != null) {
+                writes.add(gidOf(current));
+                read(current.eContainer());
+            }
+            for (current = eObject; current != null; current = current.eContainer()) {
+                String gid = gidOf(current);
+                if (gid != null) {
+                    changed.add(gid);
+                }
+            }
+        }
+
+        /**
+         * Record the kinds (EClass and supertypes) of an object added or removed, and of its contents
+         */
+        void addedOrRemoved(EObject eObject) {
+            addKinds(eObject.eClass());
+            for (Iterator<EObject> contents = eObject.eAllContents(); contents.hasNext(); ) {
+                addKinds(contents.next().eClass());
+            }
+        }
+
+        /**
+         * Record an object removed from a containment, with its contents
+         */
+        void removed(EObject eObject) {
+            String gid = gidOf(eObject);
+            if (gid != null) {
+                removed.put(gid, eObject.eClass());
+            }
+            for (Iterator<EObject> contents = eObject.eAllContents(); contents.hasNext(); ) {
+                EObject content = contents.next();
+                gid = gidOf(content);
+                if (gid != null) {
+                    removed.put(gid, content.eClass());
+                }
+            }
+        }
+
+        private void addKinds(EClass eClass) {
+            if (addedKinds.add(eClass.getName())) {
+                for (EClass superType : eClass.getEAllSuperTypes()) {
+                    addedKinds.add(superType.getName());
+                }
+            }
+        }
+
+        /**
+         * GIDs of changed objects
+         */
+        public Set<String> getWrites() {
+            return writes;
+        }
+
+        /**
+         * GIDs of changed objects and of every object containing one (whose contents changed)
+         */
+        public Set<String> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Whether this writer read or changed any object changed by another committed writer
+         */
+        public boolean conflictsWith(Set<String> committedWrites) {
+            for (String gid : committedWrites) {
+                if (writes.contains(gid) || reads.contains(gid)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Whether this writer read or changed anything another committed writer changed,
+         * including the members of a kind it listed
+         */
+        public boolean conflictsWith(TouchSet committed) {
+            if (conflictsWith(committed.writes)) {
+                return true;
+            }
+            if (committed.addedKinds.isEmpty()) {
+                return false;
+            }
+            if (readKinds.contains(ALL_KINDS)) {
+                return true;
+            }
+            for (String kind : readKinds) {
+                if (committed.addedKinds.contains(kind)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package digital.twin.mogao.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Newline-delimited JSON (application/x-ndjson)
+ * One compact JSON document per line, regardless of the mapper's indentation setting.
+ */
+public final class JsonLines {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private JsonLines() {
+    }
+
+    /**
+     * Whether newline-delimited JSON is the client's preferred type
+     * (the Accept entry with the highest quality, which is also what the router responds with)
+     */
+    public static boolean isAccepted(HttpRequest<?> request) {
+        Iterator<MediaType> accepted = request.accept().iterator();
+        return accepted.hasNext() && MEDIA_TYPE.equals(accepted.next().getName());
+    }
+
+    /**
+     * Encoder turning each value into one line of JSON
+     */
+    public static <T> Function<T, byte[]> encoder(ObjectMapper objectMapper) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        return value -> {
+            try {
+                byte[] json = writer.writeValueAsBytes(value);
+                byte[] line = new byte[json.length + 1];
+                System.arraycopy(json, 0, line, 0, json.length);
+                line[json.length] = '\n';
+                return line;
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to write JSON line: " + e.getMessage(), e);
+            }
+        };
+    }
+
+    /**
+     * Encoder turning a list of values into one chunk of lines of JSON
+     */
+    public static <T> Function<List<T>, byte[]> batchEncoder(ObjectMapper objectMapper) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        return values -> {
+            ByteArrayOutputStream lines = new ByteArrayOutputStream();
+            try {
+                for (T value : values) {
+                    writer.writeValue(lines, value);
+                    lines.write('\n');
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to write JSON lines: " + e.getMessage(), e);
+            }
+            return lines.toByteArray();
+        };
+    }
+}
@@ -0,0 +1,159 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.xmi.impl.EcoreResourceFactoryImpl;
+import org.eclipse.epsilon.emc.emf.DefaultXMIResource;
+import org.eclipse.epsilon.flexmi.FlexmiResourceFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Model format converter
+ * Converts XMI (.model) and Flexmi (.flexmi) instance models to the binary format, or back to XMI.
+ * The output format follows the output file extension (.bin for binary, anything else for XMI).
+ *
+ * Usage: ModelConverter <input.model|input.flexmi|input.bin> <output.bin|output.model>
+ */
+public class ModelConverter {
+
+    private static final String METAMODEL_PATH = "metamodel/mogao_dt.ecore";
+    private static final String XSI_TYPE = "xsi:type";
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: ModelConverter <input.model|input.flexmi|input.bin> <output.bin|output.model>");
+            System.exit(1);
+        }
+
+        try {
+            File input = new File(args[0]);
+            File output = new File(args[1]);
+
+            long start = System.currentTimeMillis();
+            new ModelConverter().convert(input, output);
+
+            System.out.printf("Converted %s (%d bytes) -> %s (%d bytes) in %d ms%n",
+                input, input.length(), output, output.length(), System.currentTimeMillis() - start);
+
+        } catch (Exception e) {
+            System.err.println("Error converting model: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Convert a model file, choosing formats by file extension
+     */
+    public void convert(File input, File output) throws Exception {
+        registerMetamodel();
+
+        Resource source = load(input);
+        ModelPersistence.Format outputFormat = ModelPersistence.Format.forFile(output);
+
+        Resource target = source;
+        if (outputFormat == ModelPersistence.Format.XMI && !(source instanceof DefaultXMIResource)) {
+            // Flexmi resources cannot be written as XMI directly
+            DefaultXMIResource xmiResource = new DefaultXMIResource(URI.createFileURI(output.getAbsolutePath()));
+            source.getResourceSet().getResources().add(xmiResource);
+            List<EObject> roots = new ArrayList<>(source.getContents());
+            xmiResource.getContents().addAll(roots);
+            ModelPersistence.assignIdsFromGid(xmiResource);
+            target = xmiResource;
+        }
+
+        File parent = output.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            parent.mkdirs();
+        }
+
+        target.setURI(URI.createFileURI(output.getAbsolutePath()));
+        ModelPersistence.save(target, output.getAbsoluteFile(), outputFormat);
+    }
+
+    /**
+     * Load an input model file of any supported format
+     */
+    private Resource load(File input) throws Exception {
+        if (!input.exists()) {
+            throw new RuntimeException("Model file not found: " + input);
+        }
+
+        ResourceSet resourceSet = new ResourceSetImpl();
+        if (input.getName().endsWith(".flexmi")) {
+            resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap()
+                .put("flexmi", new FlexmiResourceFactory());
+            Resource resource = resourceSet.createResource(URI.createFileURI(input.getAbsolutePath()));
+            try (InputStream in = new ByteArrayInputStream(resolveTypeAttributes(input))) {
+                resource.load(in, null);
+            }
+            return resource;
+        }
+        return ModelPersistence.load(input, ModelPersistence.Format.forFile(input), resourceSet);
+    }
+
+    /**
+     * Flexmi selects types by element name and ignores xsi:type, so rewrite
+     * <objects xsi:type="Cave"> as <cave>; Flexmi then places it in the matching containment
+     */
+    private byte[] resolveTypeAttributes(File input) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        Document document = factory.newDocumentBuilder().parse(input);
+
+        NodeList elements = document.getElementsByTagName("*");
+        List<Element> typed = new ArrayList<>();
+        for (int i = 0; i < elements.getLength(); i++) {
+            Element element = (Element) elements.item(i);
+            if (element.hasAttribute(XSI_TYPE)) {
+                typed.add(element);
+            }
+        }
+        for (Element element : typed) {
+            String type = element.getAttribute(XSI_TYPE);
+            element.removeAttribute(XSI_TYPE);
+            document.renameNode(element, null, Character.toLowerCase(type.charAt(0)) + type.substring(1));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransformerFactory.newInstance().newTransformer()
+            .transform(new DOMSource(document), new StreamResult(out));
+        return out.toByteArray();
+    }
+
+    /**
+     * Register the Mogao metamodel so models can be resolved by nsURI
+     */
+    private void registerMetamodel() throws Exception {
+        Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap()
+            .putIfAbsent("ecore", new EcoreResourceFactoryImpl());
+
+        URL metamodelUrl = getClass().getClassLoader().getResource(METAMODEL_PATH);
+        if (metamodelUrl == null) {
+            throw new RuntimeException("Metamodel file not found: " + METAMODEL_PATH);
+        }
+
+        ResourceSet resourceSet = new ResourceSetImpl();
+        Resource metamodelResource = resourceSet.getResource(URI.createURI(metamodelUrl.toString()), true);
+        EPackage ePackage = (EPackage) metamodelResource.getContents().get(0);
+        EPackage.Registry.INSTANCE.put(ePackage.getNsURI(), ePackage);
+    }
+}
@@ -0,0 +1,70 @@
+package digital.twin.mogao.util;
+
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Entity tags derived from model versions
+ * A list's tag is the model version, an object's tag the version of its last change
+ * (see ModificationStamps), so a conditional GET is answered without reading the model.
+ * Tags are weak: the JSON and newline-delimited JSON representations share them, so list
+ * responses carry Vary: Accept. The view parameters (fields, depth) are part of the URL, which
+ * caches already key on.
+ */
+public final class ModelETag {
+
+    // Response header carrying the model version a list was read at (the value for since=)
+    public static final String MODEL_VERSION_HEADER = "X-Model-Version";
+
+    // Vary header value of negotiated (JSON or newline-delimited JSON) responses
+    public static final String VARY_ACCEPT = HttpHeaders.ACCEPT;
+
+    private static final String WEAK_PREFIX = "W/";
+    private static final String ANY = "*";
+
+    private ModelETag() {
+    }
+
+    /**
+     * Entity tag for a model version
+     */
+    public static String of(long version) {
+        return WEAK_PREFIX + "\"" + version + "\"";
+    }
+
+    /**
+     * Whether the request's If-None-Match names the tag (weak comparison), i.e. the client's copy
+     * is current, for a resource that always exists (e.g. a list)
+     */
+    public static boolean matches(HttpRequest<?> request, String etag) {
+        return matches(request, etag, () -> true);
+    }
+
+    /**
+     * Whether the request's If-None-Match names the tag (weak comparison), i.e. the client's copy is current
+     * @param exists Whether the resource exists; * matches only an existing resource, so it is
+     *               asked only for *
+     */
+    public static boolean matches(HttpRequest<?> request, String etag, BooleanSupplier exists) {
+        String ifNoneMatch = request.getHeaders().get(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = opaqueTag(etag);
+        boolean any = false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (opaqueTag(candidate).equals(opaque)) {
+                return true;
+            }
+            any |= candidate.equals(ANY);
+        }
+        return any && exists.getAsBoolean();
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+    }
+}
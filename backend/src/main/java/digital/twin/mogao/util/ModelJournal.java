@@ -0,0 +1,551 @@
+package digital.twin.mogao.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal for model mutations
+ *
+ * Every committed write is appended as one record: the EOL script and the operation calls
+ * (or script parameters) it ran. Records are fsynced by a single flusher thread, so writers
+ * that commit while a flush is running share the next fsync (group commit). A periodic
+ * checkpoint writes the full model and drops the segments it covers; on startup the records
+ * after the last checkpoint are replayed on top of the model file.
+ *
+ * Files, next to the model file:
+ *   mogao-&lt;firstSeq&gt;.journal  journal segments, one per checkpoint interval
+ *   mogao.checkpoint           sequence number and hash of the last checkpointed model
+ *
+ * Record layout: int payload length, long sequence, int CRC32 (sequence + payload), payload.
+ */
+public class ModelJournal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ModelJournal.class);
+
+    private static final String SEGMENT_PREFIX = "mogao-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "mogao.checkpoint";
+
+    private static final byte KIND_OPERATIONS = 1;
+    private static final byte KIND_SCRIPT = 2;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_INTEGER = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_DOUBLE = 4;
+    private static final byte TAG_FLOAT = 5;
+    private static final byte TAG_BOOLEAN = 6;
+
+    private static final int HEADER_SIZE = 16;
+
+    private final File directory;
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private FileChannel channel;
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private long nextSequence;
+    private long durableSequence;
+    private IOException failure;
+    private boolean running;
+
+    private Thread flusher;
+
+    /**
+     * @param directory Directory holding the model file
+     */
+    public ModelJournal(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Open the journal for appending, continuing after the given sequence number
+     */
+    public void open(long lastSequence) throws IOException {
+        synchronized (lock) {
+            nextSequence = lastSequence + 1;
+            durableSequence = lastSequence;
+            channel = openSegment(nextSequence);
+            running = true;
+        }
+        flusher = new Thread(this::flushLoop, "model-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Append a record and return its sequence number.
+     * The record is durable once awaitDurable(sequence) returns.
+     */
+    public long append(Record record) throws IOException {
+        byte[] payload = record.encode();
+
+        synchronized (lock) {
+            if (failure != null) {
+                throw new IOException("Journal is unavailable after a write failure", failure);
+            }
+            if (!running) {
+                throw new IOException("Journal is not open");
+            }
+
+            long sequence = nextSequence++;
+
+            CRC32 crc = new CRC32();
+            crc.update(ByteBuffer.allocate(8).putLong(0, sequence));
+            crc.update(payload);
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+            buffer.putInt(payload.length).putLong(sequence).putInt((int) crc.getValue()).put(payload).flip();
+            pending.add(buffer);
+
+            lock.notifyAll();
+            return sequence;
+        }
+    }
+
+    /**
+     * Wait until the record with the given sequence number has been fsynced
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        synchronized (lock) {
+            while (durableSequence < sequence && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the journal", e);
+                }
+            }
+            if (durableSequence < sequence) {
+                throw new IOException("Journal write failed", failure);
+            }
+        }
+    }
+
+    /**
+     * Start a new segment for records after the current one.
+     * Everything appended so far is fsynced into the old segment first.
+     */
+    public void rotate() throws IOException {
+        synchronized (lock) {
+            awaitDurable(nextSequence - 1);
+            channel.close();
+            channel = openSegment(nextSequence);
+        }
+    }
+
+    /**
+     * Record a checkpoint and delete the segments it makes redundant.
+     * The marker is written before the model file is moved into place; recovery uses the
+     * model file's hash to tell whether that move happened.
+     * @param sequence Last sequence number included in the checkpointed model
+     * @param modelHash SHA-256 of the checkpointed model file
+     * @param currentSequence Sequence number of the model file being replaced
+     * @param publish Moves the checkpointed model file into place
+     */
+    public void checkpoint(long sequence, String modelHash, long currentSequence, CheckpointAction publish) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("sequence", Long.toString(sequence));
+        properties.setProperty("hash", modelHash);
+        properties.setProperty("previousSequence", Long.toString(currentSequence));
+
+        File marker = new File(directory, CHECKPOINT_FILE);
+        File tempMarker = new File(directory, CHECKPOINT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(tempMarker.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            properties.store(Channels.newOutputStream(out), "Mogao model checkpoint");
+            out.force(true);
+        }
+        Files.move(tempMarker.toPath(), marker.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        publish.run();
+
+        // Segments whose records are all in the checkpoint are no longer needed
+        List<Long> segments = listSegments();
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (segments.get(i + 1) - 1 <= sequence) {
+                Files.deleteIfExists(segmentFile(segments.get(i)).toPath());
+            }
+        }
+    }
+
+    /**
+     * Last checkpoint recorded in this directory
+     */
+    public Checkpoint readCheckpoint() throws IOException {
+        File marker = new File(directory, CHECKPOINT_FILE);
+        if (!marker.exists()) {
+            return new Checkpoint(0, null, 0);
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(marker.toPath())) {
+            properties.load(in);
+        }
+        return new Checkpoint(
+            Long.parseLong(properties.getProperty("sequence", "0")),
+            properties.getProperty("hash"),
+            Long.parseLong(properties.getProperty("previousSequence", "0")));
+    }
+
+    /**
+     * Read every intact record after the given sequence number, in order.
+     * A torn record at the end of the last segment (crash during append) is truncated.
+     * @return Last sequence number found (or afterSequence if there are none)
+     */
+    public long replay(long afterSequence, RecordHandler handler) throws Exception {
+        long lastSequence = afterSequence;
+        List<Long> segments = listSegments();
+
+        for (int i = 0; i < segments.size(); i++) {
+            File segment = segmentFile(segments.get(i));
+            long validLength = 0;
+
+            try (DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Files.newInputStream(segment.toPath())))) {
+                while (true) {
+                    int length;
+                    try {
+                        length = in.readInt();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    long sequence;
+                    int storedCrc;
+                    byte[] payload;
+                    try {
+                        sequence = in.readLong();
+                        storedCrc = in.readInt();
+                        if (length < 0) {
+                            break;
+                        }
+                        payload = new byte[length];
+                        in.readFully(payload);
+                    } catch (EOFException e) {
+                        break;
+                    }
+
+                    CRC32 crc = new CRC32();
+                    crc.update(ByteBuffer.allocate(8).putLong(0, sequence));
+                    crc.update(payload);
+                    if ((int) crc.getValue() != storedCrc) {
+                        break;
+                    }
+
+                    validLength += HEADER_SIZE + length;
+                    if (sequence > lastSequence) {
+                        handler.handle(sequence, Record.decode(payload));
+                        lastSequence = sequence;
+                    }
+                }
+            }
+
+            if (validLength < segment.length()) {
+                if (i < segments.size() - 1) {
+                    throw new IOException("Journal segment is corrupt: " + segment);
+                }
+                LOG.warn("Truncating incomplete journal record at {} in {}", validLength, segment);
+                try (FileChannel out = FileChannel.open(segment.toPath(), StandardOpenOption.WRITE)) {
+                    out.truncate(validLength);
+                }
+            }
+        }
+        return lastSequence;
+    }
+
+    /**
+     * Stop the flusher after writing everything appended so far
+     */
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (!running) {
+                return;
+            }
+            if (failure == null) {
+                awaitDurable(nextSequence - 1);
+            }
+            running = false;
+            lock.notifyAll();
+            channel.close();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<ByteBuffer> batch;
+            long batchSequence;
+            FileChannel target;
+
+            synchronized (lock) {
+                while (pending.isEmpty() && running) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!running) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                batchSequence = nextSequence - 1;
+                target = channel;
+            }
+
+            try {
+                target.write(batch.toArray(new ByteBuffer[0]));
+                target.force(false);
+            } catch (IOException e) {
+                LOG.error("Journal write failed", e);
+                synchronized (lock) {
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            synchronized (lock) {
+                durableSequence = batchSequence;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        return FileChannel.open(segmentFile(firstSequence).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private File segmentFile(long firstSequence) {
+        return new File(directory, String.format("%s%019d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Handles replayed records
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+        void handle(long sequence, Record record) throws Exception;
+    }
+
+    /**
+     * Publishes a checkpointed model file
+     */
+    @FunctionalInterface
+    public interface CheckpointAction {
+        void run() throws Exception;
+    }
+
+    /**
+     * Checkpoint marker contents
+     */
+    public static class Checkpoint {
+        private final long sequence;
+        private final String hash;
+        private final long previousSequence;
+
+        Checkpoint(long sequence, String hash, long previousSequence) {
+            this.sequence = sequence;
+            this.hash = hash;
+            this.previousSequence = previousSequence;
+        }
+
+        /**
+         * Sequence number the given model file corresponds to: the marker's sequence if the
+         * file is the checkpointed one, otherwise the previous checkpoint's (the crash happened
+         * between writing the marker and moving the model file into place)
+         * @param modelHash SHA-256 of the model file on disk
+         */
+        public long sequenceFor(String modelHash) {
+            if (hash == null || hash.equals(modelHash)) {
+                return sequence;
+            }
+            return previousSequence;
+        }
+    }
+
+    /**
+     * One journaled mutation: operation calls on an EOL script, or a whole script run with parameters
+     */
+    public static class Record {
+        private final String scriptPath;
+        private final List<EpsilonModelManager.OperationCall> calls;
+        private final Map<String, Object> parameters;
+
+        private Record(String scriptPath, List<EpsilonModelManager.OperationCall> calls, Map<String, Object> parameters) {
+            this.scriptPath = scriptPath;
+            this.calls = calls;
+            this.parameters = parameters;
+        }
+
+        public static Record operations(String scriptPath, List<EpsilonModelManager.OperationCall> calls) {
+            return new Record(scriptPath, calls, null);
+        }
+
+        public static Record script(String scriptPath, Map<String, Object> parameters) {
+            return new Record(scriptPath, null, parameters != null ? parameters : Collections.emptyMap());
+        }
+
+        public String getScriptPath() {
+            return scriptPath;
+        }
+
+        public boolean isScript() {
+            return calls == null;
+        }
+
+        public List<EpsilonModelManager.OperationCall> getCalls() {
+            return calls;
+        }
+
+        public Map<String, Object> getParameters() {
+            return parameters;
+        }
+
+        byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+
+            writeString(out, scriptPath);
+            if (isScript()) {
+                out.writeByte(KIND_SCRIPT);
+                out.writeInt(parameters.size());
+                for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeValue(out, entry.getValue());
+                }
+            } else {
+                out.writeByte(KIND_OPERATIONS);
+                out.writeInt(calls.size());
+                for (EpsilonModelManager.OperationCall call : calls) {
+                    writeString(out, call.getName());
+                    out.writeInt(call.getParameters().size());
+                    for (Object value : call.getParameters()) {
+                        writeValue(out, value);
+                    }
+                }
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+
+        static Record decode(byte[] payload) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+            String scriptPath = readString(in);
+            byte kind = in.readByte();
+            int count = in.readInt();
+
+            if (kind == KIND_SCRIPT) {
+                Map<String, Object> parameters = new LinkedHashMap<>();
+                for (int i = 0; i < count; i++) {
+                    String name = readString(in);
+                    parameters.put(name, readValue(in));
+                }
+                return script(scriptPath, parameters);
+            }
+
+            List<EpsilonModelManager.OperationCall> calls = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = readString(in);
+                Object[] values = new Object[in.readInt()];
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = readValue(in);
+                }
+                calls.add(new EpsilonModelManager.OperationCall(name, values));
+            }
+            return operations(scriptPath, calls);
+        }
+
+        private static void writeValue(DataOutputStream out, Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(TAG_NULL);
+            } else if (value instanceof String) {
+                out.writeByte(TAG_STRING);
+                writeString(out, (String) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(TAG_INTEGER);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(TAG_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(TAG_DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Float) {
+                out.writeByte(TAG_FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(TAG_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            } else {
+                throw new IllegalArgumentException("Cannot journal parameter of type " + value.getClass().getName());
+            }
+        }
+
+        private static Object readValue(DataInputStream in) throws IOException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case TAG_NULL: return null;
+                case TAG_STRING: return readString(in);
+                case TAG_INTEGER: return in.readInt();
+                case TAG_LONG: return in.readLong();
+                case TAG_DOUBLE: return in.readDouble();
+                case TAG_FLOAT: return in.readFloat();
+                case TAG_BOOLEAN: return in.readBoolean();
+                default: throw new IOException("Unknown journal value tag: " + tag);
+            }
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
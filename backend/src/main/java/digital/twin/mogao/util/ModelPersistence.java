@@ -0,0 +1,175 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.eclipse.epsilon.emc.emf.DefaultXMIResource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Model persistence formats for models/instances
+ *
+ * The in-memory model is always an XMI resource (Epsilon and the XMI IDs rely on it);
+ * the format only decides how it is written to and read from disk. The binary format
+ * uses EMF's BinaryResourceImpl streams, which skip XML parsing and type information
+ * and store numbers in binary, so large environment histories load and save much faster.
+ */
+public final class ModelPersistence {
+
+    /**
+     * Supported on-disk formats
+     */
+    public enum Format {
+        XMI("mogao.model"),
+        BINARY("mogao.bin");
+
+        private final String fileName;
+
+        Format(String fileName) {
+            this.fileName = fileName;
+        }
+
+        /**
+         * Model file name in models/instances
+         */
+        public String getFileName() {
+            return fileName;
+        }
+
+        /**
+         * Parse a format name (xmi, binary), case-insensitive
+         */
+        public static Format of(String name) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(name)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown model format: " + name);
+        }
+
+        /**
+         * Guess the format of a model file from its extension
+         */
+        public static Format forFile(File file) {
+            return file.getName().endsWith(".bin") ? BINARY : XMI;
+        }
+    }
+
+    private static final String GID_FEATURE = "gid";
+
+    private ModelPersistence() {
+    }
+
+    /**
+     * Save options used for XMI model files
+     */
+    public static Map<Object, Object> xmiSaveOptions() {
+        Map<Object, Object> saveOptions = new HashMap<>();
+        saveOptions.put(XMLResource.OPTION_SAVE_TYPE_INFORMATION, Boolean.TRUE);
+        saveOptions.put(XMLResource.OPTION_SCHEMA_LOCATION, Boolean.TRUE);
+        saveOptions.put(XMLResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
+        saveOptions.put(XMLResource.OPTION_ENCODING, "UTF-8");
+        return saveOptions;
+    }
+
+    /**
+     * Options used for binary model files
+     */
+    public static Map<Object, Object> binaryOptions() {
+        Map<Object, Object> options = new HashMap<>();
+        options.put(BinaryResourceImpl.OPTION_VERSION, BinaryResourceImpl.BinaryIO.Version.VERSION_1_1);
+        options.put(BinaryResourceImpl.OPTION_STYLE_BINARY_FLOATING_POINT, Boolean.TRUE);
+        options.put(BinaryResourceImpl.OPTION_STYLE_BINARY_ENUMERATOR, Boolean.TRUE);
+        return options;
+    }
+
+    /**
+     * Save a resource to a file in the given format.
+     * The file is written next to the target and moved into place, so a failed save
+     * never leaves a truncated model behind.
+     */
+    public static void save(Resource resource, File file, Format format) throws Exception {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+            OutputStream out = new BufferedOutputStream(fileOut, 64 * 1024);
+            if (format == Format.BINARY) {
+                BinaryResourceImpl.EObjectOutputStream eObjectOut =
+                    new BinaryResourceImpl.EObjectOutputStream(out, binaryOptions());
+                eObjectOut.saveResource(resource);
+                eObjectOut.flush();
+            } else {
+                resource.save(out, xmiSaveOptions());
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a model file into a new XMI resource.
+     * Metamodel packages must already be registered (globally or in the resource set).
+     */
+    public static Resource load(File file, Format format, ResourceSet resourceSet) throws Exception {
+        URI uri = URI.createFileURI(file.getAbsolutePath());
+        DefaultXMIResource resource = new DefaultXMIResource(uri);
+        resourceSet.getResources().add(resource);
+
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file), 64 * 1024)) {
+            if (format == Format.BINARY) {
+                BinaryResourceImpl.EObjectInputStream eObjectIn =
+                    new BinaryResourceImpl.EObjectInputStream(in, binaryOptions());
+                eObjectIn.loadResource(resource);
+                assignIdsFromGid(resource);
+            } else {
+                resource.load(in, null);
+            }
+        }
+        return resource;
+    }
+
+    /**
+     * Load a model file into a new resource set
+     */
+    public static Resource load(File file, Format format) throws Exception {
+        return load(file, format, new ResourceSetImpl());
+    }
+
+    /**
+     * The binary format does not store XMI IDs; the model uses each element's gid as its ID
+     */
+    static void assignIdsFromGid(XMLResource resource) {
+        TreeIterator<EObject> contents = resource.getAllContents();
+        while (contents.hasNext()) {
+            EObject eObject = contents.next();
+            EStructuralFeature feature = eObject.eClass().getEStructuralFeature(GID_FEATURE);
+            if (feature != null) {
+                Object gid = eObject.eGet(feature);
+                if (gid instanceof String) {
+                    resource.setID(eObject, (String) gid);
+                }
+            }
+        }
+    }
+}
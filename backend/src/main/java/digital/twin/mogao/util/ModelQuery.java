@@ -0,0 +1,353 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.common.util.Enumerator;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Query over the objects of one EClass in a model
+ * Filters (attribute equals one of the given values), sorts and pages directly on the EObjects,
+ * so only the objects of the requested page are converted to DTOs.
+ *
+ * From request parameters: offset=20&limit=10&sort=-severity,name&severity=critical&requiresImmediateAction=true
+ * Every parameter that is not a query option is a filter on the attribute of the same name;
+ * parameters that name no attribute (e.g. a cache-busting _=123) are ignored.
+ * since=version keeps only objects changed after that model version, and lists the objects
+ * deleted after it (see ModificationStamps).
+ */
+public class ModelQuery {
+
+    // Query and view options (every other request parameter is a filter)
+    public static final String OFFSET = "offset";
+    public static final String LIMIT = "limit";
+    public static final String SORT = "sort";
+    public static final String SINCE = "since";
+    private static final Set<String> OPTIONS = Set.of(OFFSET, LIMIT, SORT, SINCE, DtoView.FIELDS, DtoView.DEPTH);
+
+    private static final int NO_LIMIT = -1;
+    private static final long ANY_VERSION = -1;
+
+    private final String typeName;
+    private final Map<String, List<String>> filters = new LinkedHashMap<>();
+    private final List<String> sort = new ArrayList<>();
+    private int offset;
+    private int limit = NO_LIMIT;
+    private long since = ANY_VERSION;
+
+    public ModelQuery(String typeName) {
+        this.typeName = typeName;
+    }
+
+    /**
+     * Build a query from request parameters
+     * @param typeName EClass name, e.g. "Defect"
+     * @param parameters Request parameters (name -> values)
+     */
+    public static ModelQuery fromParameters(String typeName, Map<String, List<String>> parameters) {
+        ModelQuery query = new ModelQuery(typeName);
+        for (Map.Entry<String, List<String>> entry : parameters.entrySet()) {
+            String name = entry.getKey();
+            List<String> values = entry.getValue();
+            if (values == null || values.isEmpty()) {
+                continue;
+            }
+            switch (name) {
+                case OFFSET:
+                    query.page(parseCount(name, values.get(0)), query.limit);
+                    break;
+                case LIMIT:
+                    query.page(query.offset, parseCount(name, values.get(0)));
+                    break;
+                case SINCE:
+                    query.changedSince(parseVersion(values.get(0)));
+                    break;
+                case SORT:
+                    for (String value : values) {
+                        for (String field : value.split(",")) {
+                            if (!field.isBlank()) {
+                                query.sortBy(field.trim());
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    if (!isOption(name)) {
+                        query.where(name, values);
+                    }
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Whether a request parameter is a query or view option rather than a filter
+     */
+    public static boolean isOption(String parameterName) {
+        return OPTIONS.contains(parameterName);
+    }
+
+    /**
+     * Keep objects whose attribute equals one of the values (given as strings)
+     */
+    public ModelQuery where(String attributeName, List<String> values) {
+        filters.computeIfAbsent(attributeName, name -> new ArrayList<>()).addAll(values);
+        return this;
+    }
+
+    /**
+     * Sort by an attribute; prefix with "-" for descending. Enums sort by their value.
+     */
+    public ModelQuery sortBy(String field) {
+        sort.add(field);
+        return this;
+    }
+
+    /**
+     * Return at most limit objects starting at offset (limit -1: all)
+     */
+    public ModelQuery page(int offset, int limit) {
+        this.offset = offset;
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Keep only objects changed after a model version
+     */
+    public ModelQuery changedSince(long version) {
+        this.since = version;
+        return this;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /**
+     * Run the query on a resource, converting the objects of the page
+     * @param stamps Modification stamps of the resource's objects (for since)
+     * @throws IllegalArgumentException for unknown sort attributes or filter values that do not fit their type
+     * @throws ModificationStamps.ExpiredVersionException if since is older than the stamps' horizon
+     */
+    public <T> Page<T> execute(Resource resource, ModificationStamps stamps, Function<EObject, T> converter) {
+        Page<EObject> selection = select(resource, stamps);
+        List<T> items = new ArrayList<>(selection.getItems().size());
+        for (EObject eObject : selection.getItems()) {
+            items.add(converter.apply(eObject));
+        }
+        return new Page<>(items, selection.getTotal(), offset, limit, selection.getDeleted());
+    }
+
+    /**
+     * Run the query on a resource, returning the objects of the page unconverted
+     * @param stamps Modification stamps of the resource's objects (for since)
+     * @throws IllegalArgumentException for unknown sort attributes or filter values that do not fit their type
+     * @throws ModificationStamps.ExpiredVersionException if since is older than the stamps' horizon
+     */
+    public Page<EObject> select(Resource resource, ModificationStamps stamps) {
+        EClass eClass = findEClass(resource);
+        if (eClass == null) {
+            return new Page<>(Collections.emptyList(), 0, offset, limit, Collections.emptyList());
+        }
+        List<String> deleted = since == ANY_VERSION ? Collections.emptyList() : stamps.deletedSince(eClass, since);
+
+        List<Filter> compiledFilters = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : filters.entrySet()) {
+            // Not a filter: a parameter the client added for itself
+            if (isAttribute(eClass, entry.getKey())) {
+                compiledFilters.add(new Filter(attribute(eClass, entry.getKey()), entry.getValue()));
+            }
+        }
+        Comparator<EObject> comparator = comparator(eClass);
+
+        List<EObject> matches = new ArrayList<>();
+        TreeIterator<EObject> contents = resource.getAllContents();
+        while (contents.hasNext()) {
+            EObject eObject = contents.next();
+            if (eClass.isSuperTypeOf(eObject.eClass()) && matchesAll(compiledFilters, eObject)
+                    && (since == ANY_VERSION || stamps.stampOf(eObject) > since)) {
+                matches.add(eObject);
+            }
+        }
+        if (comparator != null) {
+            matches.sort(comparator);
+        }
+
+        int from = Math.min(offset, matches.size());
+        int to = limit == NO_LIMIT ? matches.size() : (int) Math.min((long) from + limit, matches.size());
+        return new Page<>(matches.subList(from, to), matches.size(), offset, limit, deleted);
+    }
+
+    private EClass findEClass(Resource resource) {
+        Set<Object> seen = new HashSet<>();
+        for (EObject root : resource.getContents()) {
+            if (seen.add(root.eClass().getEPackage())) {
+                EClassifier classifier = root.eClass().getEPackage().getEClassifier(typeName);
+                if (classifier instanceof EClass) {
+                    return (EClass) classifier;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Comparator<EObject> comparator(EClass eClass) {
+        Comparator<EObject> comparator = null;
+        for (String field : sort) {
+            boolean descending = field.startsWith("-");
+            EAttribute attribute = attribute(eClass, descending ? field.substring(1) : field);
+
+            Comparator<Comparable<Object>> order = descending
+                ? Comparator.<Comparable<Object>>reverseOrder() : Comparator.<Comparable<Object>>naturalOrder();
+            Comparator<EObject> next = Comparator.comparing(eObject -> sortKey(eObject, attribute),
+                Comparator.nullsLast(order));
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> sortKey(EObject eObject, EAttribute attribute) {
+        Object value = eObject.eGet(attribute);
+        if (value instanceof Enumerator) {
+            value = ((Enumerator) value).getValue();
+        }
+        return value instanceof Comparable ? (Comparable<Object>) value : null;
+    }
+
+    private static boolean isAttribute(EClass eClass, String name) {
+        EStructuralFeature feature = eClass.getEStructuralFeature(name);
+        return feature instanceof EAttribute && !feature.isMany();
+    }
+
+    private static EAttribute attribute(EClass eClass, String name) {
+        EStructuralFeature feature = eClass.getEStructuralFeature(name);
+        if (!(feature instanceof EAttribute) || feature.isMany()) {
+            throw new IllegalArgumentException("Unknown " + eClass.getName() + " attribute: " + name);
+        }
+        return (EAttribute) feature;
+    }
+
+    private static boolean matchesAll(List<Filter> filters, EObject eObject) {
+        for (Filter filter : filters) {
+            if (!filter.matches(eObject)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int parseCount(String name, String value) {
+        try {
+            int count = Integer.parseInt(value.trim());
+            if (count >= 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + name + ": " + value);
+    }
+
+    private static long parseVersion(String value) {
+        try {
+            long version = Long.parseLong(value.trim());
+            if (version >= 0) {
+                return version;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid " + SINCE + ": " + value);
+    }
+
+    @Override
+    public String toString() {
+        return typeName + " filters=" + filters + " sort=" + sort + " offset=" + offset + " limit=" + limit
+            + (since != ANY_VERSION ? " since=" + since : "");
+    }
+
+    /**
+     * Attribute equals one of a set of values, converted to the attribute's type once
+     */
+    private static class Filter {
+        private final EAttribute attribute;
+        private final Set<Object> values = new HashSet<>();
+
+        Filter(EAttribute attribute, List<String> literals) {
+            this.attribute = attribute;
+            for (String literal : literals) {
+                Object value = EcoreUtil.createFromString(attribute.getEAttributeType(), literal);
+                if (value == null) {
+                    throw new IllegalArgumentException("Invalid value for " + attribute.getName() + ": " + literal);
+                }
+                values.add(value);
+            }
+        }
+
+        boolean matches(EObject eObject) {
+            return values.contains(eObject.eGet(attribute));
+        }
+    }
+
+    /**
+     * One page of query results
+     */
+    public static class Page<T> {
+        private final List<T> items;
+        private final int total;
+        private final int offset;
+        private final int limit;
+        private final List<String> deleted;
+
+        Page(List<T> items, int total, int offset, int limit, List<String> deleted) {
+            this.items = items;
+            this.total = total;
+            this.offset = offset;
+            this.limit = limit;
+            this.deleted = deleted;
+        }
+
+        public List<T> getItems() {
+            return items;
+        }
+
+        /**
+         * Number of objects matching the filters, across all pages
+         */
+        public int getTotal() {
+            return total;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLimit() {
+            return limit;
+        }
+
+        /**
+         * GIDs of the objects of the type deleted after the since version (none without since)
+         */
+        public List<String> getDeleted() {
+            return deleted;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.ecore.EObject;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Publisher of converted model objects
+ * Converts each object only when the subscriber (the HTTP response writer) requests it, so
+ * a list response is written as it is converted and never held in memory as a whole.
+ *
+ * Single use: the model is released (see EpsilonModelManager.streamQuery) when the stream
+ * completes, fails or is cancelled, or if nothing subscribes to it within a timeout (e.g. the
+ * response was never written); a stream subscribed to after that fails.
+ */
+public class ModelStream<T> implements Publisher<T> {
+
+    // Time a stream holds its model waiting for a subscriber
+    static final long SUBSCRIBE_TIMEOUT_MILLIS = 30_000;
+
+    private static final ScheduledExecutorService EXPIRY = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "model-stream-expiry");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Source source;
+    private final long version;
+    private final Function<EObject, T> converter;
+
+    ModelStream(ModelQuery.Page<EObject> selection, long version, Function<EObject, T> converter, Runnable onClose) {
+        this(selection, version, converter, onClose, SUBSCRIBE_TIMEOUT_MILLIS);
+    }
+
+    ModelStream(ModelQuery.Page<EObject> selection, long version, Function<EObject, T> converter, Runnable onClose,
+                long subscribeTimeoutMillis) {
+        this(new Source(selection.getItems(), selection.getTotal(), selection.getDeleted(), onClose), version, converter);
+        source.expireAfter(subscribeTimeoutMillis);
+    }
+
+    private ModelStream(Source source, long version, Function<EObject, T> converter) {
+        this.source = source;
+        this.version = version;
+        this.converter = converter;
+    }
+
+    /**
+     * Number of objects matching the query, across all pages
+     */
+    public int getTotal() {
+        return source.total;
+    }
+
+    /**
+     * GIDs of the objects of the queried type deleted after the query's since version
+     */
+    public List<String> getDeleted() {
+        return source.deleted;
+    }
+
+    /**
+     * Version of the model the query ran on
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Stream of the same objects with a further conversion applied (e.g. serialisation);
+     * only one of the two can be subscribed to
+     */
+    public <R> ModelStream<R> map(Function<? super T, R> mapper) {
+        return new ModelStream<>(source, version, converter.andThen(mapper));
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber) {
+        String refusal = source.claim();
+        if (refusal != null) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException(refusal));
+            return;
+        }
+        subscriber.onSubscribe(new StreamSubscription(subscriber));
+    }
+
+    /**
+     * The selected objects, shared by a stream and the streams mapped from it, and the model they hold
+     */
+    private static class Source {
+        private static final int NEW = 0;
+        private static final int SUBSCRIBED = 1;
+        private static final int EXPIRED = 2;
+
+        private final List<EObject> objects;
+        private final int total;
+        private final List<String> deleted;
+        private final Runnable onClose;
+        private final AtomicInteger state = new AtomicInteger(NEW);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile ScheduledFuture<?> expiry;
+
+        Source(List<EObject> objects, int total, List<String> deleted, Runnable onClose) {
+            this.objects = objects;
+            this.total = total;
+            this.deleted = deleted;
+            this.onClose = onClose;
+        }
+
+        void expireAfter(long timeoutMillis) {
+            expiry = EXPIRY.schedule(() -> {
+                if (state.compareAndSet(NEW, EXPIRED)) {
+                    close();
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Take the objects for a subscriber
+         * @return Why the subscriber cannot have them, or null
+         */
+        String claim() {
+            if (state.compareAndSet(NEW, SUBSCRIBED)) {
+                ScheduledFuture<?> pending = expiry;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+                return null;
+            }
+            return state.get() == EXPIRED
+                ? "ModelStream was not subscribed to in time and has released its model"
+                : "ModelStream allows only one subscriber";
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true) && onClose != null) {
+                onClose.run();
+            }
+        }
+    }
+
+    /**
+     * Emits objects as they are requested; drain() is entered by one thread at a time
+     */
+    private class StreamSubscription implements Subscription {
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger draining = new AtomicInteger();
+        private volatile boolean cancelled;
+        private int index;
+
+        StreamSubscription(Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Request must be positive: " + n));
+                return;
+            }
+            requested.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            source.close();
+        }
+
+        private void drain() {
+            if (draining.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                while (!cancelled && requested.get() > 0 && index < source.objects.size()) {
+                    T item;
+                    try {
+                        item = converter.apply(source.objects.get(index++));
+                    } catch (Throwable t) {
+                        cancel();
+                        subscriber.onError(t);
+                        return;
+                    }
+                    requested.decrementAndGet();
+                    subscriber.onNext(item);
+                }
+                if (!cancelled && index >= source.objects.size()) {
+                    cancel();
+                    subscriber.onComplete();
+                    return;
+                }
+            } while (draining.decrementAndGet() != 0);
+        }
+    }
+}
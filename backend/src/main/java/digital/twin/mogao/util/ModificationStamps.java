@@ -0,0 +1,193 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Model version of the last change to each object, and of the deletion of deleted objects
+ * Every committed write produces the next model version, and the objects it changed (as
+ * recorded by the GidIndex adapter, together with the objects containing them) are stamped
+ * with that version by gid; the objects it deleted leave a tombstone with that version, so
+ * a delta (changes since a version) can list deletions too. Objects not changed since the
+ * model was loaded carry the base version.
+ *
+ * The base version is taken from the clock in microseconds, so versions keep increasing across
+ * restarts: a version a client got from an earlier run is always older than the current ones.
+ *
+ * At most capacity stamps and tombstones are kept. Beyond that the oldest are forgotten and
+ * the horizon rises to the newest version forgotten: objects without a stamp are then taken to
+ * have changed at the horizon, and deltas from versions older than the horizon (or from an
+ * earlier run, whose deletions were never recorded) cannot be computed.
+ * Stamps are written by one committing writer at a time and read concurrently.
+ */
+public class ModificationStamps {
+
+    // Stamps and tombstones kept by default
+    static final int DEFAULT_CAPACITY = 100_000;
+
+    private final long baseVersion;
+    private final int capacity;
+    private final Map<String, Long> stamps = new ConcurrentHashMap<>();
+    private final Map<String, Tombstone> tombstones = new ConcurrentHashMap<>();
+    private volatile long horizon;
+
+    public ModificationStamps() {
+        this(TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis()), DEFAULT_CAPACITY);
+    }
+
+    ModificationStamps(long baseVersion, int capacity) {
+        this.baseVersion = baseVersion;
+        this.capacity = capacity;
+        this.horizon = baseVersion;
+    }
+
+    /**
+     * Version of the model as loaded
+     */
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * Oldest version a delta can be computed from
+     */
+    public long getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * Stamp changed objects with the version of the write that changed them
+     */
+    public void stamp(Collection<String> gids, long version) {
+        for (String gid : gids) {
+            // A gid can be reused by an object created after the deletion
+            tombstones.remove(gid);
+            stamps.merge(gid, version, Math::max);
+        }
+        prune();
+    }
+
+    /**
+     * Record the objects a write deleted, by gid with their EClass
+     */
+    public void delete(Map<String, EClass> deleted, long version) {
+        for (Map.Entry<String, EClass> entry : deleted.entrySet()) {
+            tombstones.put(entry.getKey(), new Tombstone(entry.getKey(), entry.getValue(), version));
+            stamps.remove(entry.getKey());
+        }
+        prune();
+    }
+
+    /**
+     * Version of the last change to an object, or of its deletion (the base version, or the
+     * horizon if that is newer, if it has not changed since)
+     */
+    public long stampOf(String gid) {
+        if (gid == null) {
+            return horizon;
+        }
+        Long stamp = stamps.get(gid);
+        if (stamp != null) {
+            return stamp;
+        }
+        Tombstone tombstone = tombstones.get(gid);
+        return tombstone != null ? tombstone.version : horizon;
+    }
+
+    /**
+     * Version of the last change to an object (the base version, or the horizon if that is
+     * newer, if it has not changed since)
+     */
+    public long stampOf(EObject eObject) {
+        return stampOf(GidIndex.gidOf(eObject));
+    }
+
+    /**
+     * GIDs of the objects of a kind (EClass or a subclass) deleted after a version
+     * @throws ExpiredVersionException if the version is older than the horizon
+     */
+    public List<String> deletedSince(EClass eClass, long version) {
+        if (version < horizon) {
+            throw new ExpiredVersionException(version, horizon);
+        }
+        List<String> deleted = new ArrayList<>();
+        for (Tombstone tombstone : tombstones.values()) {
+            if (tombstone.version > version && eClass.isSuperTypeOf(tombstone.eClass)) {
+                deleted.add(tombstone.gid);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Number of stamps and tombstones kept
+     */
+    int size() {
+        return stamps.size() + tombstones.size();
+    }
+
+    /**
+     * Forget the oldest quarter of the stamps and tombstones once there are more than
+     * capacity, so pruning runs once per capacity / 4 changes
+     */
+    private void prune() {
+        int size = size();
+        if (size <= capacity) {
+            return;
+        }
+        long[] versions = new long[size];
+        int count = 0;
+        for (long version : stamps.values()) {
+            if (count < versions.length) {
+                versions[count++] = version;
+            }
+        }
+        for (Tombstone tombstone : tombstones.values()) {
+            if (count < versions.length) {
+                versions[count++] = tombstone.version;
+            }
+        }
+        Arrays.sort(versions, 0, count);
+        long cutoff = versions[Math.max(0, count - capacity * 3 / 4 - 1)];
+
+        // Raise the horizon first, so a reader never finds a stamp missing below it
+        horizon = Math.max(horizon, cutoff);
+        stamps.values().removeIf(version -> version <= cutoff);
+        tombstones.values().removeIf(tombstone -> tombstone.version <= cutoff);
+    }
+
+    /**
+     * A deleted object and the version of the write that deleted it
+     */
+    private static final class Tombstone {
+        private final String gid;
+        private final EClass eClass;
+        private final long version;
+
+        Tombstone(String gid, EClass eClass, long version) {
+            this.gid = gid;
+            this.eClass = eClass;
+            this.version = version;
+        }
+    }
+
+    /**
+     * A delta was asked for from a version older than the horizon; the client has to list
+     * everything again
+     */
+    public static class ExpiredVersionException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        ExpiredVersionException(long version, long horizon) {
+            super("Changes since version " + version + " are no longer known (oldest: " + horizon + ")");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.epsilon.emc.emf.EmfPropertyGetter;
+import org.eclipse.epsilon.emc.emf.InMemoryEmfModel;
+import org.eclipse.epsilon.eol.exceptions.EolRuntimeException;
+import org.eclipse.epsilon.eol.exceptions.models.EolModelElementTypeNotFoundException;
+import org.eclipse.epsilon.eol.execute.context.IEolContext;
+
+import java.util.Collection;
+
+/**
+ * In-memory model of a writer's private copy that reports what EOL reads to the copy's GidIndex
+ * Property reads record the object read and type queries (Statue.all, allInstances) record the
+ * kind listed, so a write that decided something from objects it did not look up by GID still
+ * conflicts with a concurrent change to them. Nothing is recorded unless the index is recording.
+ */
+class RecordingEmfModel extends InMemoryEmfModel {
+
+    private final GidIndex index;
+
+    RecordingEmfModel(String name, Resource resource, Collection<EPackage> packages) {
+        super(name, resource, packages);
+        this.index = GidIndex.of(resource);
+        this.propertyGetter = new RecordingPropertyGetter(index);
+    }
+
+    @Override
+    protected Collection<EObject> getAllOfTypeFromModel(String type) throws EolModelElementTypeNotFoundException {
+        recordKindRead(simpleName(type));
+        return super.getAllOfTypeFromModel(type);
+    }
+
+    @Override
+    protected Collection<EObject> getAllOfKindFromModel(String kind) throws EolModelElementTypeNotFoundException {
+        recordKindRead(simpleName(kind));
+        return super.getAllOfKindFromModel(kind);
+    }
+
+    @Override
+    protected Collection<EObject> allContentsFromModel() {
+        recordKindRead(GidIndex.ALL_KINDS);
+        return super.allContentsFromModel();
+    }
+
+    private void recordKindRead(String kind) {
+        // The superclass constructor already lists objects, before the index is set
+        if (index != null) {
+            index.recordKindRead(kind);
+        }
+    }
+
+    /**
+     * Type name without its package (mogao::Statue)
+     */
+    private static String simpleName(String type) {
+        int separator = type.lastIndexOf("::");
+        return separator >= 0 ? type.substring(separator + 2) : type;
+    }
+
+    /**
+     * Records the object whose property is read
+     */
+    private static class RecordingPropertyGetter extends EmfPropertyGetter {
+        private final GidIndex index;
+
+        RecordingPropertyGetter(GidIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public Object invoke(Object object, String property, IEolContext context) throws EolRuntimeException {
+            if (object instanceof EObject) {
+                index.recordRead((EObject) object);
+            }
+            return super.invoke(object, property, context);
+        }
+    }
+}
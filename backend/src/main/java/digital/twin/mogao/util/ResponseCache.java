@@ -0,0 +1,259 @@
+package digital.twin.mogao.util;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.HttpRequest;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of serialised responses
+ * Holds the JSON bytes of object responses, so a hot object is served without converting and
+ * serialising it again. Keys are the route, the request parameters and the version of the
+ * object's last change (see ModificationStamps), so a changed object is never served stale.
+ * Entries are also dropped as soon as a write commits a change to their object (the objects a
+ * write changed are recorded from EMF notifications), and the least recently used entries are
+ * evicted beyond mogao.cache.max-bytes.
+ */
+@Singleton
+public class ResponseCache {
+
+    private final boolean enabled;
+    private final long maxBytes;
+
+    // Entries in access order (least recently used first), and their keys by object gid
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<String>> keysByGid = new HashMap<>();
+    private long bytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Inject
+    public ResponseCache(EpsilonModelManager modelManager,
+                         @Value("${mogao.cache.enabled:true}") boolean enabled,
+                         @Value("${mogao.cache.max-bytes:67108864}") long maxBytes) {
+        this.enabled = enabled;
+        this.maxBytes = maxBytes;
+        modelManager.addCommitListener((version, changedGids) -> invalidate(changedGids));
+    }
+
+    /**
+     * Cache key of a request for a given object version: path, sorted parameters and version
+     */
+    public static String key(HttpRequest<?> request, long version) {
+        StringBuilder key = new StringBuilder(request.getPath());
+        Map<String, List<String>> parameters = new TreeMap<>(request.getParameters().asMap());
+        char separator = '?';
+        for (Map.Entry<String, List<String>> parameter : parameters.entrySet()) {
+            for (String value : parameter.getValue()) {
+                key.append(separator).append(parameter.getKey()).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.append('@').append(version).toString();
+    }
+
+    /**
+     * Get the cached response for an object version, or render and cache it.
+     * The rendered response is cached under the version it was rendered from, which is newer
+     * than the one asked for if the object changed in between.
+     * @param request Request whose path and parameters are part of the key (see key())
+     * @param version Version of the object's last change the response is expected to show
+     * @param gid GID of the object the response shows; its changes invalidate the entry
+     * @param renderer Renders the response bytes with the stamp of the version they show
+     * @return The response bytes with the version they show; the bytes are null if the
+     *         renderer had nothing to show (not cached)
+     */
+    public Stamped<byte[]> get(HttpRequest<?> request, long version, String gid, Renderer renderer) {
+        if (enabled) {
+            synchronized (this) {
+                Entry entry = entries.get(key(request, version));
+                if (entry != null) {
+                    hits.increment();
+                    return new Stamped<>(version, entry.body);
+                }
+            }
+        }
+        misses.increment();
+
+        Stamped<byte[]> rendered;
+        try {
+            rendered = renderer.render();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to render response: " + e.getMessage(), e);
+        }
+        byte[] body = rendered.getValue();
+        if (body != null && enabled && body.length <= maxBytes) {
+            put(key(request, rendered.getStamp()), gid, body);
+        }
+        return rendered;
+    }
+
+    private synchronized void put(String key, String gid, byte[] body) {
+        Entry previous = entries.put(key, new Entry(gid, body));
+        if (previous != null) {
+            bytes -= previous.body.length;
+        }
+        bytes += body.length;
+        keysByGid.computeIfAbsent(gid, id -> new HashSet<>()).add(key);
+
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Entry> evicted = eldest.next();
+            eldest.remove();
+            forget(evicted.getKey(), evicted.getValue());
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Drop the entries of changed objects
+     */
+    public synchronized void invalidate(Set<String> gids) {
+        for (String gid : gids) {
+            Set<String> keys = keysByGid.remove(gid);
+            if (keys == null) {
+                continue;
+            }
+            for (String key : keys) {
+                Entry entry = entries.remove(key);
+                if (entry != null) {
+                    bytes -= entry.body.length;
+                    invalidations.increment();
+                }
+            }
+        }
+    }
+
+    private void forget(String key, Entry entry) {
+        bytes -= entry.body.length;
+        Set<String> keys = keysByGid.get(entry.gid);
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByGid.remove(entry.gid);
+            }
+        }
+    }
+
+    /**
+     * Point-in-time cache metrics
+     */
+    public synchronized Metrics getMetrics() {
+        return new Metrics(enabled, hits.sum(), misses.sum(), evictions.sum(), invalidations.sum(),
+            entries.size(), bytes, maxBytes, keysByGid.size());
+    }
+
+    /**
+     * Renders a response body on a cache miss, with the stamp of the object version it shows
+     */
+    @FunctionalInterface
+    public interface Renderer {
+        Stamped<byte[]> render() throws Exception;
+    }
+
+    private static class Entry {
+        private final String gid;
+        private final byte[] body;
+
+        Entry(String gid, byte[] body) {
+            this.gid = gid;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counts and current size of the cache
+     */
+    public static class Metrics {
+        private final boolean enabled;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int entries;
+        private final long bytes;
+        private final long maxBytes;
+        private final int objects;
+
+        Metrics(boolean enabled, long hits, long misses, long evictions, long invalidations,
+                int entries, long bytes, long maxBytes, int objects) {
+            this.enabled = enabled;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.entries = entries;
+            this.bytes = bytes;
+            this.maxBytes = maxBytes;
+            this.objects = objects;
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Share of lookups served from the cache
+         */
+        public double getHitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        /**
+         * Entries evicted to stay within maxBytes
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Entries dropped because their object changed
+         */
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        /**
+         * Number of distinct objects with cached responses
+         */
+        public int getObjects() {
+            return objects;
+        }
+    }
+}
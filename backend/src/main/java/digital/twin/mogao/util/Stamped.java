@@ -0,0 +1,30 @@
+package digital.twin.mogao.util;
+
+/**
+ * A value read from the model with the modification stamp of the object it shows, both taken
+ * from the same model version (see EpsilonModelManager.executeEolReadStamped)
+ */
+public final class Stamped<T> {
+
+    private final long stamp;
+    private final T value;
+
+    public Stamped(long stamp, T value) {
+        this.stamp = stamp;
+        this.value = value;
+    }
+
+    /**
+     * Version of the object's last change as of the model version the value was read from
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * The value, or null if there was nothing to read (e.g. no such object)
+     */
+    public T getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,163 @@
+package digital.twin.mogao.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped write lock
+ * Writes are serialized per stripe instead of globally; the stripe is chosen by hashing a key
+ * (the gid of the Cave or top-level object a write lands in), so writes to different caves
+ * usually take different stripes and do not wait on each other.
+ *
+ * Each stripe counts acquisitions, contended acquisitions (the stripe was already held)
+ * and time spent waiting, so hot caves and too few stripes show up in the metrics.
+ */
+public class StripedWriteLock {
+
+    private final Stripe[] stripes;
+
+    /**
+     * @param stripeCount Number of stripes (rounded up to a power of two)
+     */
+    public StripedWriteLock(int stripeCount) {
+        int size = 1;
+        while (size < Math.max(1, stripeCount)) {
+            size <<= 1;
+        }
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe(i);
+        }
+    }
+
+    /**
+     * Acquire the stripe for a key, waiting if another writer holds it
+     * @return The locked stripe; call unlock() on it when done
+     */
+    public Stripe lock(String key) {
+        Stripe stripe = stripeFor(key);
+        stripe.acquire(key);
+        return stripe;
+    }
+
+    /**
+     * Stripe a key maps to
+     */
+    public Stripe stripeFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Metrics of every stripe that has been used
+     */
+    public List<StripeMetrics> getMetrics() {
+        List<StripeMetrics> metrics = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            if (stripe.acquisitions.sum() > 0) {
+                metrics.add(stripe.metrics());
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * One lock stripe and its counters
+     */
+    public static class Stripe {
+        private final int index;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+        private volatile String lastKey;
+
+        Stripe(int index) {
+            this.index = index;
+        }
+
+        private void acquire(String key) {
+            if (!lock.tryLock()) {
+                long start = System.nanoTime();
+                lock.lock();
+                long waited = System.nanoTime() - start;
+                contended.increment();
+                waitNanos.add(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+            }
+            acquisitions.increment();
+            lastKey = key;
+        }
+
+        public void unlock() {
+            lock.unlock();
+        }
+
+        private StripeMetrics metrics() {
+            return new StripeMetrics(index, acquisitions.sum(), contended.sum(),
+                waitNanos.sum() / 1_000_000.0, maxWaitNanos.get() / 1_000_000.0,
+                lock.getQueueLength(), lastKey);
+        }
+    }
+
+    /**
+     * Point-in-time metrics of one stripe
+     */
+    public static class StripeMetrics {
+        private final int stripe;
+        private final long acquisitions;
+        private final long contended;
+        private final double waitTimeMs;
+        private final double maxWaitMs;
+        private final int queueLength;
+        private final String lastKey;
+
+        StripeMetrics(int stripe, long acquisitions, long contended, double waitTimeMs,
+                      double maxWaitMs, int queueLength, String lastKey) {
+            this.stripe = stripe;
+            this.acquisitions = acquisitions;
+            this.contended = contended;
+            this.waitTimeMs = waitTimeMs;
+            this.maxWaitMs = maxWaitMs;
+            this.queueLength = queueLength;
+            this.lastKey = lastKey;
+        }
+
+        public int getStripe() {
+            return stripe;
+        }
+
+        public long getAcquisitions() {
+            return acquisitions;
+        }
+
+        public long getContended() {
+            return contended;
+        }
+
+        public double getWaitTimeMs() {
+            return waitTimeMs;
+        }
+
+        public double getMaxWaitMs() {
+            return maxWaitMs;
+        }
+
+        public int getQueueLength() {
+            return queueLength;
+        }
+
+        public String getLastKey() {
+            return lastKey;
+        }
+    }
+}
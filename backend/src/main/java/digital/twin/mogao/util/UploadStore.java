@@ -0,0 +1,413 @@
+package digital.twin.mogao.util;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.http.multipart.PartData;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Staging area of file uploads
+ * Uploads are written to disk as they arrive, through a FileChannel, with their SHA-256 computed
+ * on the way, so an upload of any size takes constant memory:
+ * - receive() writes a streamed multipart file part by part
+ * - sessions take a file in chunks, each with its own SHA-256, and resume after a failed chunk
+ *   or a dropped connection from the offset the session has reached
+ * Staged files are then published (moved) to where they are served.
+ *
+ * Sessions unused for mogao.upload.session-expiry seconds are dropped with their file. Sessions
+ * are not kept across restarts: their files are deleted at startup.
+ */
+@Singleton
+public class UploadStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UploadStore.class);
+    private static final String PART_SUFFIX = ".part";
+
+    private final Path stagingDir;
+    private final int maxChunkSize;
+    private final long sessionExpiryMillis;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    @Inject
+    public UploadStore(@Value("${mogao.upload.staging-dir:target/uploads}") String stagingDir,
+                       @Value("${mogao.upload.max-chunk-size:16777216}") int maxChunkSize,
+                       @Value("${mogao.upload.session-expiry:86400}") long sessionExpirySeconds) {
+        this.stagingDir = Paths.get(stagingDir);
+        this.maxChunkSize = maxChunkSize;
+        this.sessionExpiryMillis = TimeUnit.SECONDS.toMillis(sessionExpirySeconds);
+        try {
+            Files.createDirectories(this.stagingDir);
+            try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(this.stagingDir, "*" + PART_SUFFIX)) {
+                for (Path leftover : leftovers) {
+                    Files.deleteIfExists(leftover);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to prepare upload staging directory: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Largest chunk a session accepts, in bytes (mogao.upload.max-chunk-size)
+     */
+    public int getMaxChunkSize() {
+        return maxChunkSize;
+    }
+
+    /**
+     * Write a streamed upload to a staging file as its parts arrive
+     * @return The staged file once the upload is complete; failed (and the file deleted) if the
+     *         upload or a write fails
+     */
+    public CompletableFuture<StagedFile> receive(Publisher<PartData> parts) {
+        CompletableFuture<StagedFile> result = new CompletableFuture<>();
+        Path file = newStagingFile();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            result.completeExceptionally(new RuntimeException("Failed to create staging file: " + e.getMessage(), e));
+            return result;
+        }
+        parts.subscribe(new ChannelWriter(file, channel, result));
+        return result;
+    }
+
+    /**
+     * Start a chunked upload
+     * @param size Expected size in bytes, or null if unknown
+     * @throws IOException if the staging file cannot be created
+     */
+    public Session open(String filename, String category, Long size) throws IOException {
+        expire();
+        if (filename == null || filename.isEmpty()) {
+            throw new IllegalArgumentException("filename is required");
+        }
+        if (size != null && size < 0) {
+            throw new IllegalArgumentException("size must not be negative");
+        }
+        Path file = newStagingFile();
+        Files.createFile(file);
+        Session session = new Session(file.getFileName().toString().replace(PART_SUFFIX, ""), filename, category,
+            size, file);
+        sessions.put(session.id, session);
+        return session;
+    }
+
+    /**
+     * The session, or null if it is unknown, finished or expired
+     */
+    public Session get(String id) {
+        expire();
+        return id != null ? sessions.get(id) : null;
+    }
+
+    /**
+     * Write a chunk at the session's offset
+     * A chunk already received (offset + length up to the session's offset, e.g. resent after a
+     * lost response) is acknowledged without writing it again.
+     * @param checksum SHA-256 of the chunk, hex encoded
+     * @return The session, advanced past the chunk
+     * @throws IllegalArgumentException if the chunk is too large, goes beyond the declared size,
+     *         has no checksum or does not match it
+     * @throws IllegalStateException if the offset is not the session's offset
+     * @throws IOException if the chunk cannot be written; the session stays at its offset, so
+     *         the chunk can be sent again
+     */
+    public Session append(Session session, long offset, byte[] chunk, String checksum) throws IOException {
+        if (chunk.length > maxChunkSize) {
+            throw new IllegalArgumentException("Chunk of " + chunk.length + " bytes is larger than " + maxChunkSize);
+        }
+        if (checksum == null || checksum.isEmpty()) {
+            throw new IllegalArgumentException("Chunk has no SHA-256");
+        }
+        if (!checksum.equalsIgnoreCase(sha256(chunk))) {
+            throw new IllegalArgumentException("Chunk does not match its SHA-256");
+        }
+        synchronized (session) {
+            if (session.closed) {
+                throw new IllegalStateException("Upload session " + session.id + " is finished");
+            }
+            session.lastAccess = System.currentTimeMillis();
+            if (offset < session.offset && offset + chunk.length <= session.offset) {
+                return session;
+            }
+            if (offset != session.offset) {
+                throw new IllegalStateException("Upload session " + session.id + " is at offset " + session.offset);
+            }
+            if (session.size != null && offset + chunk.length > session.size) {
+                throw new IllegalArgumentException("Chunk goes beyond the declared size of " + session.size + " bytes");
+            }
+            try (FileChannel channel = FileChannel.open(session.file, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(chunk);
+                long position = offset;
+                try {
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                } catch (IOException e) {
+                    // Drop what was written of the chunk, the file ends at the session's offset
+                    try {
+                        channel.truncate(offset);
+                    } catch (IOException truncateFailure) {
+                        e.addSuppressed(truncateFailure);
+                    }
+                    throw e;
+                }
+            }
+            // Chunks arrive in order, so the file's digest is carried along
+            session.digest.update(chunk);
+            session.offset += chunk.length;
+            return session;
+        }
+    }
+
+    /**
+     * Finish a chunked upload
+     * @param checksum SHA-256 of the whole file (hex), or null not to check it
+     * @return The staged file; the session is gone
+     * @throws IllegalArgumentException if the file is shorter than declared or does not match the checksum
+     */
+    public StagedFile complete(Session session, String checksum) {
+        synchronized (session) {
+            if (session.closed) {
+                throw new IllegalStateException("Upload session " + session.id + " is finished");
+            }
+            if (session.size != null && session.offset != session.size) {
+                throw new IllegalArgumentException("Received " + session.offset + " of " + session.size + " bytes");
+            }
+            String sha256 = HexFormat.of().formatHex(session.digest.digest());
+            if (checksum != null && !checksum.equalsIgnoreCase(sha256)) {
+                abort(session);
+                throw new IllegalArgumentException("File does not match its SHA-256, the upload was discarded");
+            }
+            session.closed = true;
+            sessions.remove(session.id);
+            return new StagedFile(session.file, session.offset, sha256);
+        }
+    }
+
+    /**
+     * Drop a session and its file
+     */
+    public void abort(Session session) {
+        synchronized (session) {
+            session.closed = true;
+            sessions.remove(session.id);
+            deleteQuietly(session.file);
+        }
+    }
+
+    /**
+     * Move a staged file to its destination, creating the directory
+     */
+    public static void publish(StagedFile staged, Path destination) throws IOException {
+        Files.createDirectories(destination.getParent());
+        Files.move(staged.getFile(), destination, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path newStagingFile() {
+        return stagingDir.resolve(UUID.randomUUID() + PART_SUFFIX);
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Session session = iterator.next();
+            if (now - session.lastAccess >= sessionExpiryMillis) {
+                LOG.info("Upload session {} of {} expired at offset {}", session.id, session.filename, session.offset);
+                abort(session);
+            }
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Failed to create SHA-256 digest: " + e.getMessage(), e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.warn("Failed to delete staging file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes parts to the channel one at a time, requesting the next once one is written
+     */
+    private static final class ChannelWriter implements Subscriber<PartData> {
+        private final Path file;
+        private final FileChannel channel;
+        private final CompletableFuture<StagedFile> result;
+        private final MessageDigest digest = newDigest();
+        private Subscription subscription;
+        private long size;
+
+        ChannelWriter(Path file, FileChannel channel, CompletableFuture<StagedFile> result) {
+            this.file = file;
+            this.channel = channel;
+            this.result = result;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(PartData part) {
+            try {
+                ByteBuffer buffer = part.getByteBuffer();
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    size += channel.write(buffer);
+                }
+            } catch (IOException e) {
+                subscription.cancel();
+                fail(new RuntimeException("Failed to write upload: " + e.getMessage(), e));
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            fail(t);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                fail(new RuntimeException("Failed to write upload: " + e.getMessage(), e));
+                return;
+            }
+            result.complete(new StagedFile(file, size, HexFormat.of().formatHex(digest.digest())));
+        }
+
+        private void fail(Throwable t) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                t.addSuppressed(e);
+            }
+            deleteQuietly(file);
+            result.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * Chunked upload in progress
+     */
+    public static final class Session {
+        private final String id;
+        private final String filename;
+        private final String category;
+        private final Long size;
+        private final Path file;
+        private final MessageDigest digest = newDigest();
+        private long offset;
+        private long lastAccess = System.currentTimeMillis();
+        private boolean closed;
+
+        Session(String id, String filename, String category, Long size, Path file) {
+            this.id = id;
+            this.filename = filename;
+            this.category = category;
+            this.size = size;
+            this.file = file;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getFilename() {
+            return filename;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        /**
+         * Declared size in bytes, or null if unknown
+         */
+        public Long getSize() {
+            return size;
+        }
+
+        /**
+         * Bytes received so far: the offset of the next chunk
+         */
+        public synchronized long getOffset() {
+            return offset;
+        }
+    }
+
+    /**
+     * Upload written to the staging area, with its size and SHA-256
+     */
+    public static final class StagedFile {
+        private final Path file;
+        private final long size;
+        private final String sha256;
+
+        StagedFile(Path file, long size, String sha256) {
+            this.file = file;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * SHA-256 of the content, hex encoded
+         */
+        public String getSha256() {
+            return sha256;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package digital.twin.mogao.bench;
+
+import digital.twin.mogao.deterioration.ChemicalParameters;
+import digital.twin.mogao.deterioration.ClimateIntegrator;
+import digital.twin.mogao.deterioration.ClimateState;
+import digital.twin.mogao.deterioration.LifetimeParameters;
+import digital.twin.mogao.deterioration.LookupSurfaces;
+import digital.twin.mogao.deterioration.MouldParameters;
+import digital.twin.mogao.deterioration.SaltParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Climate history integration benchmark
+ * Integrates ten years of hourly readings (87600 steps) with daily and seasonal cycles,
+ * in the dark and lit, with the formulas and with lookup surfaces; the score is per step, so
+ * 1 / score is the steps per microsecond. With the surfaces a step should take under 100 ns
+ * (10M steps per second per core), dark or lit.
+ *
+ * Usage: mvn test-compile exec:exec@integration-benchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClimateIntegrationBenchmark {
+
+    private static final int STEPS = 10 * 365 * 24;
+
+    private final ClimateIntegrator integrator = new ClimateIntegrator();
+    private ClimateIntegrator tabulated;
+    private double[] celsius;
+    private double[] rhPercent;
+    private double[] lightKlux;
+
+    @Setup
+    public void setUp() {
+        ChemicalParameters chemical = new ChemicalParameters();
+        LifetimeParameters lifetime = new LifetimeParameters();
+        tabulated = new ClimateIntegrator(chemical, lifetime, new MouldParameters(), new SaltParameters(),
+            new LookupSurfaces(true, 1e-3, Long.MAX_VALUE, Long.MAX_VALUE / 1000).forIntegrator(chemical, lifetime));
+        Random random = new Random(1);
+        celsius = new double[STEPS];
+        rhPercent = new double[STEPS];
+        lightKlux = new double[STEPS];
+        for (int i = 0; i < STEPS; i++) {
+            double day = i / 24.0;
+            celsius[i] = 12 + 10 * Math.sin(2 * Math.PI * day / 365) + 5 * Math.sin(2 * Math.PI * day) + random.nextGaussian();
+            rhPercent[i] = Math.max(0, Math.min(100, 65 + 20 * Math.sin(2 * Math.PI * day + 1) + 5 * random.nextGaussian()));
+            lightKlux[i] = Math.max(0, 0.2 * Math.sin(2 * Math.PI * day));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public ClimateState dark() {
+        ClimateState state = new ClimateState();
+        integrator.integrate(state, celsius, rhPercent, null, 1.0 / 24, 0, STEPS);
+        return state;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public ClimateState lit() {
+        ClimateState state = new ClimateState();
+        integrator.integrate(state, celsius, rhPercent, lightKlux, 1.0 / 24, 0, STEPS);
+        return state;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public ClimateState darkSurfaces() {
+        ClimateState state = new ClimateState();
+        tabulated.integrate(state, celsius, rhPercent, null, 1.0 / 24, 0, STEPS);
+        return state;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public ClimateState litSurfaces() {
+        ClimateState state = new ClimateState();
+        tabulated.integrate(state, celsius, rhPercent, lightKlux, 1.0 / 24, 0, STEPS);
+        return state;
+    }
+}
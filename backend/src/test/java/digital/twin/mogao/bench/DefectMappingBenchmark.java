@@ -0,0 +1,170 @@
+package digital.twin.mogao.bench;
+
+import digital.twin.mogao.dto.AssetReferenceDTO;
+import digital.twin.mogao.dto.DefectDTO;
+import digital.twin.mogao.mapper.DefectMapper;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.EcoreResourceFactoryImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Defect DTO mapping benchmark
+ * Maps N Defect objects (each with an AssetReference) to DTOs, once with the name-based
+ * eGet(getEStructuralFeature(name)) lookups the services used before, once with the
+ * generated DefectMapper.
+ *
+ * Usage: mvn test-compile exec:exec@mapping-benchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefectMappingBenchmark {
+
+    private static final String METAMODEL_PATH = "metamodel/mogao_dt.ecore";
+
+    @Param({"100000"})
+    private int defects;
+
+    private EPackage ePackage;
+    private List<EObject> objects;
+
+    @Setup
+    public void setUp() throws Exception {
+        registerMetamodel();
+
+        String[] types = {"cracking", "flaking", "blistering", "detachment"};
+        String[] severities = {"minor", "moderate", "severe", "critical"};
+
+        objects = new ArrayList<>(defects);
+        for (int i = 0; i < defects; i++) {
+            EObject defect = create("Defect");
+            set(defect, "gid", "defect-" + i);
+            set(defect, "name", "Defect " + i);
+            set(defect, "description", "Benchmark defect");
+            set(defect, "defectType", types[i % types.length]);
+            set(defect, "severity", severities[i % severities.length]);
+            set(defect, "detectionDate", 1704067200000L + i);
+            set(defect, "affectedArea", i / 100.0);
+            set(defect, "requiresImmediateAction", i % 2 == 0);
+
+            EObject reference = create("AssetReference");
+            set(reference, "gid", "ref-" + i);
+            set(reference, "modelLocation", "models/defect-" + i + ".glb");
+            set(defect, "reference", reference);
+
+            objects.add(defect);
+        }
+    }
+
+    @Benchmark
+    public void byFeatureName(Blackhole blackhole) {
+        for (EObject eObject : objects) {
+            blackhole.consume(convertByName(eObject));
+        }
+    }
+
+    @Benchmark
+    public void generatedMapper(Blackhole blackhole) {
+        for (EObject eObject : objects) {
+            blackhole.consume(DefectMapper.toDTO(eObject));
+        }
+    }
+
+    /**
+     * The conversion the generated services used before the mappers
+     */
+    private static DefectDTO convertByName(EObject eObject) {
+        DefectDTO dto = new DefectDTO();
+
+        dto.setGid((String) eObject.eGet(eObject.eClass().getEStructuralFeature("gid")));
+        dto.setName((String) eObject.eGet(eObject.eClass().getEStructuralFeature("name")));
+        dto.setDescription((String) eObject.eGet(eObject.eClass().getEStructuralFeature("description")));
+        Object defectTypeVal = eObject.eGet(eObject.eClass().getEStructuralFeature("defectType"));
+        if (defectTypeVal != null) {
+            dto.setDefectType(defectTypeVal.toString());
+        }
+        Object severityVal = eObject.eGet(eObject.eClass().getEStructuralFeature("severity"));
+        if (severityVal != null) {
+            dto.setSeverity(severityVal.toString());
+        }
+        Object detectionDateVal = eObject.eGet(eObject.eClass().getEStructuralFeature("detectionDate"));
+        if (detectionDateVal != null) {
+            dto.setDetectionDate(((Number) detectionDateVal).longValue());
+        }
+        Object affectedAreaVal = eObject.eGet(eObject.eClass().getEStructuralFeature("affectedArea"));
+        if (affectedAreaVal != null) {
+            dto.setAffectedArea(((Number) affectedAreaVal).doubleValue());
+        }
+        dto.setTreatmentHistory((String) eObject.eGet(eObject.eClass().getEStructuralFeature("treatmentHistory")));
+        Object requiresImmediateActionVal = eObject.eGet(eObject.eClass().getEStructuralFeature("requiresImmediateAction"));
+        if (requiresImmediateActionVal != null) {
+            dto.setRequiresImmediateAction((Boolean) requiresImmediateActionVal);
+        }
+
+        Object referenceObj = eObject.eGet(eObject.eClass().getEStructuralFeature("reference"));
+        if (referenceObj != null) {
+            EObject referenceEObj = (EObject) referenceObj;
+            AssetReferenceDTO referenceDTO = new AssetReferenceDTO();
+            referenceDTO.setGid((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("gid")));
+            referenceDTO.setModelLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("modelLocation")));
+            referenceDTO.setMetadataLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("metadataLocation")));
+            referenceDTO.setTextureLocation((String) referenceEObj.eGet(referenceEObj.eClass().getEStructuralFeature("textureLocation")));
+            dto.setReference(referenceDTO);
+        }
+        return dto;
+    }
+
+    private EObject create(String className) {
+        return EcoreUtil.create((EClass) ePackage.getEClassifier(className));
+    }
+
+    private void set(EObject eObject, String featureName, Object value) {
+        EStructuralFeature feature = eObject.eClass().getEStructuralFeature(featureName);
+        if (feature.getEType() instanceof EEnum) {
+            value = EcoreUtil.createFromString((EDataType) feature.getEType(), (String) value);
+        }
+        eObject.eSet(feature, value);
+    }
+
+    private void registerMetamodel() throws Exception {
+        ResourceSetImpl resourceSet = new ResourceSetImpl();
+        resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap()
+            .put("ecore", new EcoreResourceFactoryImpl());
+
+        URL metamodelUrl = getClass().getClassLoader().getResource(METAMODEL_PATH);
+        if (metamodelUrl == null) {
+            throw new RuntimeException("Metamodel file not found: " + METAMODEL_PATH);
+        }
+
+        Resource metamodelResource = resourceSet.getResource(URI.createURI(metamodelUrl.toString()), true);
+        ePackage = (EPackage) metamodelResource.getContents().get(0);
+    }
+}
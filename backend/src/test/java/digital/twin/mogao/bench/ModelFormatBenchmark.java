@@ -0,0 +1,157 @@
+package digital.twin.mogao.bench;
+
+import digital.twin.mogao.util.ModelPersistence;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.impl.EcoreResourceFactoryImpl;
+import org.eclipse.epsilon.emc.emf.DefaultXMIResource;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.file.Files;
+
+/**
+ * Model persistence format benchmark
+ * Builds a cave with N Temperature/Humidity readings and compares save time, load time
+ * and file size of each ModelPersistence format.
+ *
+ * Usage: mvn test-compile exec:java@model-format-benchmark [-Dexec.args="10000 100000"]
+ * The 1M case needs a large heap (MAVEN_OPTS=-Xmx6g).
+ */
+public class ModelFormatBenchmark {
+
+    private static final String METAMODEL_PATH = "metamodel/mogao_dt.ecore";
+    private static final int[] DEFAULT_SIZES = {10_000, 100_000, 1_000_000};
+    private static final int ROUNDS = 3;
+
+    private EPackage ePackage;
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        ModelFormatBenchmark benchmark = new ModelFormatBenchmark();
+        benchmark.registerMetamodel();
+
+        System.out.printf("%-10s %-8s %12s %12s %14s%n", "readings", "format", "save (ms)", "load (ms)", "size (bytes)");
+        for (int size : sizes) {
+            for (ModelPersistence.Format format : ModelPersistence.Format.values()) {
+                benchmark.run(size, format);
+            }
+        }
+    }
+
+    /**
+     * Measure one model size in one format (best of ROUNDS after a warm-up round)
+     */
+    private void run(int readings, ModelPersistence.Format format) throws Exception {
+        File file = File.createTempFile("mogao-bench-", "-" + format.getFileName());
+        try {
+            Resource model = createModel(readings);
+
+            long bestSave = Long.MAX_VALUE;
+            long bestLoad = Long.MAX_VALUE;
+            for (int round = 0; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                ModelPersistence.save(model, file, format);
+                long save = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                Resource loaded = ModelPersistence.load(file, format);
+                long load = System.nanoTime() - start;
+                loaded.unload();
+
+                // Round 0 warms up the JIT
+                if (round > 0) {
+                    bestSave = Math.min(bestSave, save);
+                    bestLoad = Math.min(bestLoad, load);
+                }
+            }
+
+            System.out.printf("%-10d %-8s %12.1f %12.1f %14d%n", readings, format.name().toLowerCase(),
+                bestSave / 1e6, bestLoad / 1e6, Files.size(file.toPath()));
+
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Build a cave holding alternating Temperature and Humidity readings
+     */
+    @SuppressWarnings("unchecked")
+    private Resource createModel(int readings) {
+        DefaultXMIResource resource = new DefaultXMIResource(URI.createFileURI("mogao-bench.model"));
+        new ResourceSetImpl().getResources().add(resource);
+
+        EObject cave = create("Cave");
+        set(cave, "gid", "cave-bench");
+        set(cave, "name", "Benchmark Cave");
+        resource.getContents().add(cave);
+        resource.setID(cave, "cave-bench");
+
+        EList<EObject> conditions = (EList<EObject>) cave.eGet(cave.eClass().getEStructuralFeature("environmentConditions"));
+        long timestamp = 1704067200000L;
+        for (int i = 0; i < readings; i++) {
+            boolean temperature = i % 2 == 0;
+            String gid = (temperature ? "temp-" : "humidity-") + i;
+
+            EObject condition = create(temperature ? "Temperature" : "Humidity");
+            set(condition, "gid", gid);
+            set(condition, "timestamp", timestamp + i * 60_000L);
+
+            EObject reading = create("Parameter");
+            set(reading, "gid", "param-" + gid);
+            set(reading, "value", temperature ? 288.0 + (i % 100) / 10.0 : 40.0 + (i % 200) / 10.0);
+            set(reading, "unit", temperature ? "K" : "RH");
+            set(condition, "reading", reading);
+
+            conditions.add(condition);
+            resource.setID(condition, gid);
+            resource.setID(reading, "param-" + gid);
+        }
+        return resource;
+    }
+
+    private EObject create(String className) {
+        return EcoreUtil.create((EClass) ePackage.getEClassifier(className));
+    }
+
+    private void set(EObject eObject, String featureName, Object value) {
+        EStructuralFeature feature = eObject.eClass().getEStructuralFeature(featureName);
+        if (feature.getEType() instanceof EEnum) {
+            value = EcoreUtil.createFromString((EDataType) feature.getEType(), (String) value);
+        }
+        eObject.eSet(feature, value);
+    }
+
+    private void registerMetamodel() throws Exception {
+        Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap()
+            .putIfAbsent("ecore", new EcoreResourceFactoryImpl());
+
+        URL metamodelUrl = getClass().getClassLoader().getResource(METAMODEL_PATH);
+        if (metamodelUrl == null) {
+            throw new RuntimeException("Metamodel file not found: " + METAMODEL_PATH);
+        }
+
+        ResourceSet resourceSet = new ResourceSetImpl();
+        Resource metamodelResource = resourceSet.getResource(URI.createURI(metamodelUrl.toString()), true);
+        ePackage = (EPackage) metamodelResource.getContents().get(0);
+        EPackage.Registry.INSTANCE.put(ePackage.getNsURI(), ePackage);
+    }
+}
@@ -0,0 +1,169 @@
+package digital.twin.mogao.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.twin.mogao.deterioration.FleetRiskScorer;
+import digital.twin.mogao.deterioration.LookupSurfaces;
+import digital.twin.mogao.deterioration.ScenarioResult;
+import digital.twin.mogao.deterioration.ScenarioSweep;
+import digital.twin.mogao.deterioration.SweepRequest;
+import digital.twin.mogao.timeseries.TimeSeriesStore;
+import digital.twin.mogao.util.JsonLines;
+import digital.twin.mogao.util.TestModels;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static digital.twin.mogao.controller.FileUploadControllerTest.inject;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scenario sweep endpoint: streamed JSON and JSON lines, and rejected grids
+ */
+class DeteriorationControllerTest {
+
+    @TempDir
+    File dir;
+
+    private TimeSeriesStore store;
+    private FleetRiskScorer scorer;
+    private DeteriorationController controller;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void createController() throws Exception {
+        store = new TimeSeriesStore(dir.toPath().resolve("timeseries").toFile(), 3600);
+        scorer = new FleetRiskScorer(TestModels.manager(Files.createDirectories(dir.toPath().resolve("model")).toFile()),
+            store, new LookupSurfaces(false, 1e-3, Long.MAX_VALUE, 600), 2);
+        controller = new DeteriorationController();
+        inject(controller, "scenarioSweep", new ScenarioSweep(scorer));
+        inject(controller, "objectMapper", objectMapper);
+    }
+
+    @AfterEach
+    void close() {
+        scorer.close();
+        store.close();
+    }
+
+    @Test
+    void sweepStreamsEveryArtifactUnderEverySetPoint() throws Exception {
+        HttpResponse<?> response = controller.sweep(request(List.of("statue-001", "cave-001")),
+            HttpRequest.POST("/deterioration/sweep", "").accept(MediaType.APPLICATION_JSON_TYPE));
+
+        assertEquals(HttpStatus.OK, response.status());
+        assertEquals("16", response.header("X-Total-Count"));
+        List<Object> results = collect((Publisher<?>) response.body());
+        assertEquals(16, results.size());
+        // Artifacts in request order, set-points in grid order (T, then RH, then years)
+        ScenarioResult first = (ScenarioResult) results.get(0);
+        assertEquals("statue-001", first.getGid());
+        assertEquals(16, first.getCelsius());
+        assertEquals(40, first.getRhPercent());
+        assertEquals(10, first.getYears());
+        ScenarioResult second = (ScenarioResult) results.get(1);
+        assertEquals(50, second.getYears());
+        assertEquals("cave-001", ((ScenarioResult) results.get(8)).getGid());
+        assertEquals(24, ((ScenarioResult) results.get(7)).getCelsius());
+    }
+
+    @Test
+    void sweepStreamsJsonLinesWhenAccepted() throws Exception {
+        HttpResponse<?> response = controller.sweep(request(List.of("statue-001", "cave-001")),
+            HttpRequest.POST("/deterioration/sweep", "").accept(MediaType.of(JsonLines.MEDIA_TYPE)));
+
+        assertEquals(HttpStatus.OK, response.status());
+        StringBuilder body = new StringBuilder();
+        List<Object> chunks = collect((Publisher<?>) response.body());
+        // One chunk per artifact
+        assertEquals(2, chunks.size());
+        for (Object chunk : chunks) {
+            body.append(new String((byte[]) chunk, StandardCharsets.UTF_8));
+        }
+        String[] lines = body.toString().split("\n");
+        assertEquals(16, lines.length);
+        JsonNode last = objectMapper.readTree(lines[15]);
+        assertEquals("cave-001", last.get("gid").asText());
+        assertEquals(24, last.get("T_celsius").asDouble());
+        assertEquals(50, last.get("years").asDouble());
+    }
+
+    @Test
+    void invalidSweepIsBadRequest() {
+        HttpRequest<?> request = HttpRequest.POST("/deterioration/sweep", "");
+
+        HttpResponse<?> unknown = controller.sweep(request(List.of("statue-001", "statue-999")), request);
+        SweepRequest outOfRange = request(null);
+        outOfRange.setRhPercent(new double[] {120});
+        HttpResponse<?> humid = controller.sweep(outOfRange, request);
+
+        assertEquals(HttpStatus.BAD_REQUEST, unknown.status());
+        assertEquals("Not heritage artifacts: statue-999", ((Map<?, ?>) unknown.body()).get("error"));
+        assertEquals(HttpStatus.BAD_REQUEST, humid.status());
+        assertTrue(((String) ((Map<?, ?>) humid.body()).get("error")).startsWith("RH_percent"));
+    }
+
+    /**
+     * 2 temperatures × 2 humidities × 2 durations: 8 set-points per artifact
+     */
+    private static SweepRequest request(List<String> gids) {
+        SweepRequest request = new SweepRequest();
+        request.setGids(gids);
+        request.setCelsius(new double[] {16, 24});
+        request.setRhPercent(new double[] {40, 70});
+        request.setYears(new double[] {10, 50});
+        return request;
+    }
+
+    /**
+     * Every item of a publisher, requested one at a time
+     */
+    private static List<Object> collect(Publisher<?> publisher) throws Exception {
+        List<Object> items = new ArrayList<>();
+        CompletableFuture<List<Object>> done = new CompletableFuture<>();
+        publisher.subscribe(new Subscriber<Object>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Object item) {
+                items.add(item);
+                subscription.request(1);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(items);
+            }
+        });
+        return done.get(10, TimeUnit.SECONDS);
+    }
+}
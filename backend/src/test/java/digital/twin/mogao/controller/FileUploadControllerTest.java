@@ -0,0 +1,277 @@
+package digital.twin.mogao.controller;
+
+import digital.twin.mogao.util.AssetStore;
+import digital.twin.mogao.util.TestModels;
+import digital.twin.mogao.util.UploadStore;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.multipart.PartData;
+import io.micronaut.http.multipart.StreamingFileUpload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Upload responses: stored files, client errors and server-side write failures
+ */
+class FileUploadControllerTest {
+
+    private static final byte[] CONTENT = "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 3\n".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    File dir;
+
+    private Path stagingDir;
+    private Path assetsDir;
+    private UploadStore uploadStore;
+    private FileUploadController controller;
+
+    @BeforeEach
+    void createController() throws Exception {
+        stagingDir = dir.toPath().resolve("staging");
+        assetsDir = dir.toPath().resolve("blobs");
+        Path modelDir = Files.createDirectories(dir.toPath().resolve("model"));
+        uploadStore = new UploadStore(stagingDir.toString(), 1024, 3600);
+        AssetStore assetStore = new AssetStore(TestModels.manager(modelDir.toFile()),
+            assetsDir.toString(), 0, 3600);
+        controller = new FileUploadController();
+        inject(controller, "uploadStore", uploadStore);
+        inject(controller, "assetStore", assetStore);
+    }
+
+    @Test
+    void uploadIsStoredUnderItsChecksum() {
+        HttpResponse<?> response = controller.upload(new FakeUpload("wall.obj", null), "model").join();
+
+        assertEquals(HttpStatus.OK, response.status());
+        Map<?, ?> body = (Map<?, ?>) response.body();
+        assertEquals(sha256(CONTENT), body.get("sha256"));
+        assertEquals(AssetStore.URL_PREFIX + sha256(CONTENT).substring(0, 2) + "/" + sha256(CONTENT) + ".obj", body.get("path"));
+    }
+
+    @Test
+    void uploadWithoutFileIsBadRequest() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.upload(null, "model").join().status());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.upload(new FakeUpload("", null), "model").join().status());
+    }
+
+    @Test
+    void failedUploadIsServerError() {
+        HttpResponse<?> response = controller.upload(new FakeUpload("wall.obj", new IOException("Connection reset")), "model")
+            .join();
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.status());
+        assertTrue(error(response).contains("Connection reset"), error(response));
+    }
+
+    @Test
+    void uploadThatCannotBeStoredIsServerError() throws IOException {
+        // The asset directory cannot be created
+        Files.createDirectories(assetsDir.getParent());
+        Files.writeString(assetsDir, "not a directory");
+
+        HttpResponse<?> response = controller.upload(new FakeUpload("wall.obj", null), "model").join();
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.status());
+        assertTrue(error(response).startsWith("Failed to store file"), error(response));
+    }
+
+    @Test
+    void missingChunkChecksumIsReportedApartFromAMismatch() {
+        String id = openSession();
+
+        HttpResponse<?> missing = controller.putChunk(id, 0, CONTENT, null);
+        HttpResponse<?> mismatch = controller.putChunk(id, 0, CONTENT, sha256(new byte[] {1}));
+
+        assertEquals(HttpStatus.BAD_REQUEST, missing.status());
+        assertEquals("X-Chunk-SHA256 header is required", error(missing));
+        assertEquals(HttpStatus.BAD_REQUEST, mismatch.status());
+        assertEquals("Chunk does not match its SHA-256", error(mismatch));
+    }
+
+    @Test
+    void chunkThatCannotBeWrittenIsServerErrorAndCanBeResent() throws IOException {
+        String id = openSession();
+        Path part = stagingDir.resolve(id + ".part");
+        Files.delete(part);
+        Files.createDirectory(part);
+
+        HttpResponse<?> failed = controller.putChunk(id, 0, CONTENT, sha256(CONTENT));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, failed.status());
+        assertEquals(0L, ((Map<?, ?>) failed.body()).get("offset"));
+
+        Files.delete(part);
+        Files.createFile(part);
+        HttpResponse<?> resent = controller.putChunk(id, 0, CONTENT, sha256(CONTENT));
+        assertEquals(HttpStatus.OK, resent.status());
+        assertEquals((long) CONTENT.length, ((Map<?, ?>) resent.body()).get("offset"));
+        assertEquals(HttpStatus.OK, controller.completeSession(id, sha256(CONTENT)).status());
+    }
+
+    private String openSession() {
+        HttpResponse<?> response = controller.openSession(Map.of("filename", "wall.obj", "size", CONTENT.length));
+        assertEquals(HttpStatus.CREATED, response.status());
+        return (String) ((Map<?, ?>) response.body()).get("id");
+    }
+
+    private static String error(HttpResponse<?> response) {
+        return (String) ((Map<?, ?>) response.body()).get("error");
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void inject(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * Multipart file of CONTENT in two parts, or failing after the first part
+     */
+    private static final class FakeUpload implements StreamingFileUpload {
+        private final String filename;
+        private final Throwable failure;
+
+        FakeUpload(String filename, Throwable failure) {
+            this.filename = filename;
+            this.failure = failure;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super PartData> subscriber) {
+            int half = CONTENT.length / 2;
+            byte[][] parts = {Arrays.copyOfRange(CONTENT, 0, half),
+                Arrays.copyOfRange(CONTENT, half, CONTENT.length)};
+            subscriber.onSubscribe(new Subscription() {
+                private int next;
+                private boolean done;
+
+                @Override
+                public void request(long n) {
+                    if (done) {
+                        return;
+                    }
+                    if (next == 1 && failure != null) {
+                        done = true;
+                        subscriber.onError(failure);
+                    } else if (next < parts.length) {
+                        subscriber.onNext(new Part(parts[next++]));
+                    } else {
+                        done = true;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    done = true;
+                }
+            });
+        }
+
+        @Override
+        public Optional<MediaType> getContentType() {
+            return Optional.empty();
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public long getSize() {
+            return CONTENT.length;
+        }
+
+        @Override
+        public long getDefinedSize() {
+            return CONTENT.length;
+        }
+
+        @Override
+        public boolean isComplete() {
+            return true;
+        }
+
+        // Deprecated in StreamingFileUpload, still abstract
+        @Deprecated
+        @Override
+        public Publisher<Boolean> transferTo(String location) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Publisher<Boolean> transferTo(File destination) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Publisher<Boolean> delete() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class Part implements PartData {
+        private final byte[] bytes;
+
+        Part(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public ByteBuffer getByteBuffer() {
+            return ByteBuffer.wrap(bytes);
+        }
+
+        @Override
+        public Optional<MediaType> getContentType() {
+            return Optional.empty();
+        }
+    }
+}
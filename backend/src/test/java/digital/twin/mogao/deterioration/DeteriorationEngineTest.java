@@ -0,0 +1,199 @@
+package digital.twin.mogao.deterioration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the Java deterioration models against outputs of frontend/deterioration/DeteriorationEngine.js
+ * (js-reference.json, regenerated with generate-reference.mjs), and the ClimateIntegrator against
+ * the models applied step by step, the precomputed ClimateTerms of the forecasts and the single
+ * steps of scenario sweeps
+ */
+class DeteriorationEngineTest {
+
+    private static final double TOLERANCE = 1e-12;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final DeteriorationEngine engine = new DeteriorationEngine();
+
+    @Test
+    void matchesJavaScriptEngine() throws Exception {
+        JsonNode cases;
+        try (InputStream in = getClass().getResourceAsStream("/deterioration/js-reference.json")) {
+            cases = mapper.readTree(in);
+        }
+        assertTrue(cases.size() > 200, "Reference cases are missing");
+        for (JsonNode each : cases) {
+            AssessmentRequest request = mapper.treeToValue(each.get("input"), AssessmentRequest.class);
+            JsonNode actual = mapper.valueToTree(engine.assess(request));
+            assertSame(each.get("output"), actual, each.get("input").toString());
+        }
+    }
+
+    @Test
+    void rejectsMissingConditions() {
+        AssessmentRequest request = new AssessmentRequest();
+        request.setCelsius(20.0);
+        assertThrows(IllegalArgumentException.class, () -> engine.assess(request));
+    }
+
+    @Test
+    void integratorMatchesModelsStepByStep() {
+        Random random = new Random(42);
+        int steps = 20000;
+        double[] celsius = new double[steps];
+        double[] rh = new double[steps];
+        double[] light = new double[steps];
+        for (int i = 0; i < steps; i++) {
+            double day = i / 24.0;
+            celsius[i] = 12 + 10 * Math.sin(2 * Math.PI * day / 365) + 5 * Math.sin(2 * Math.PI * day) + random.nextGaussian();
+            rh[i] = Math.max(0, Math.min(100, 70 + 20 * Math.sin(2 * Math.PI * day + 1) + 5 * random.nextGaussian()));
+            light[i] = Math.max(0, 0.2 * Math.sin(2 * Math.PI * day));
+        }
+        double stepDays = 1.0 / 24;
+
+        ChemicalParameters chemical = new ChemicalParameters();
+        LifetimeParameters lifetime = new LifetimeParameters();
+        MouldParameters mould = new MouldParameters();
+        SaltParameters salt = new SaltParameters();
+        double inverseLifetime = 0;
+        double exposure = 0;
+        double mouldIndex = 0;
+        double maxMouldIndex = 0;
+        int cycles = 0;
+        double damage = 0;
+        double ratio = 0;
+        boolean dry = false;
+        boolean inCycle = false;
+        for (int i = 0; i < steps; i++) {
+            inverseLifetime += stepDays / DeteriorationModels.lifetimeMultiplier(celsius[i], rh[i], lifetime);
+            exposure += DeteriorationModels.rateConstant(celsius[i], rh[i], light[i], chemical) * stepDays;
+            mouldIndex = Math.max(0, Math.min(6, mouldIndex + DeteriorationModels.mouldGrowthRate(celsius[i], rh[i], mould) * stepDays));
+            maxMouldIndex = Math.max(maxMouldIndex, mouldIndex);
+            boolean wasDry = dry;
+            dry = rh[i] < DeteriorationModels.saltDeliquescenceRH(celsius[i], salt);
+            if (dry && !wasDry && i > 0) {
+                cycles++;
+                inCycle = true;
+                ratio = 0;
+            }
+            if (dry && inCycle) {
+                ratio = Math.max(ratio, DeteriorationModels.saltDamageRatio(DeteriorationModels.saltPressure(celsius[i], rh[i], salt), salt));
+            } else if (!dry && inCycle) {
+                damage += ratio;
+                inCycle = false;
+            }
+        }
+
+        ClimateIntegrator integrator = new ClimateIntegrator();
+        ClimateState state = new ClimateState();
+        integrator.integrate(state, celsius, rh, light, stepDays, 0, steps);
+        assertEquals(steps * stepDays / inverseLifetime, state.getLifetimeMultiplier(), 1e-9);
+        assertEquals((1 - Math.exp(-exposure)) * 100, state.getChemicalDegradation(), 1e-9);
+        assertEquals(mouldIndex, state.getMouldIndex(), 1e-9);
+        assertEquals(maxMouldIndex, state.getMaxMouldIndex(), 1e-9);
+        assertEquals(cycles, state.getSaltCycles());
+        assertEquals(Math.min(100, 0.5 * (damage + (inCycle ? ratio : 0))), state.getSaltDamage(), 1e-9);
+        assertTrue(cycles > 0 && maxMouldIndex > 0, "Series should exercise mould growth and salt cycles");
+
+        // Integrating in pieces carries the same state through
+        ClimateState pieces = new ClimateState();
+        integrator.integrate(pieces, celsius, rh, light, stepDays, 0, 7777);
+        integrator.integrate(pieces, celsius, rh, light, stepDays, 7777, steps);
+        assertEquals(state.getMouldIndex(), pieces.getMouldIndex(), 1e-12);
+        assertEquals(state.getSaltCycles(), pieces.getSaltCycles());
+        assertEquals(state.getSaltDamage(), pieces.getSaltDamage(), 1e-12);
+        assertEquals(state.getLifetimeMultiplier(), pieces.getLifetimeMultiplier(), 1e-12);
+    }
+
+    @Test
+    void climateTermsMatchIntegrator() {
+        Random random = new Random(7);
+        int steps = 5000;
+        double[] celsius = new double[steps];
+        double[] rh = new double[steps];
+        double[] light = new double[steps];
+        for (int i = 0; i < steps; i++) {
+            celsius[i] = -5 + 40 * random.nextDouble();
+            rh[i] = 100 * random.nextDouble();
+            light[i] = random.nextBoolean() ? 0 : random.nextDouble();
+        }
+        ChemicalParameters chemical = new ChemicalParameters();
+        chemical.setEaDark(90000);
+        chemical.setQ(0.6);
+        LifetimeParameters lifetime = new LifetimeParameters();
+        lifetime.setEa(100000);
+
+        ClimateState state = new ClimateState();
+        new ClimateIntegrator(chemical, lifetime, new MouldParameters(), new SaltParameters())
+            .integrate(state, celsius, rh, light, 1.0, 0, steps);
+        ClimateTerms terms = new ClimateTerms(celsius, rh, light, steps);
+        assertEquals(state.inverseLifetimeDays, terms.inverseLifetimeSum(lifetime), 1e-9 * state.inverseLifetimeDays);
+        assertEquals(state.chemicalExposure, terms.rateSum(chemical), 1e-9 * state.chemicalExposure);
+    }
+
+    @Test
+    void constantSetPointIsOneStep() {
+        // Scenario sweeps hold a set-point for years as a single step after the recorded history
+        Random random = new Random(3);
+        int steps = 2000;
+        double[] celsius = new double[steps];
+        double[] rh = new double[steps];
+        for (int i = 0; i < steps; i++) {
+            celsius[i] = 5 + 25 * random.nextDouble();
+            rh[i] = 30 + 70 * random.nextDouble();
+        }
+        ClimateIntegrator integrator = new ClimateIntegrator();
+        ClimateState history = new ClimateState();
+        integrator.integrate(history, celsius, rh, null, 1.0 / 24, 0, steps);
+
+        int hours = 5 * 365 * 24;
+        for (double[] setPoint : new double[][] {{20, 50, 0.15}, {30, 95, 5}, {25, 20, 0}}) {
+            double[] t = new double[hours];
+            double[] h = new double[hours];
+            double[] klux = new double[hours];
+            Arrays.fill(t, setPoint[0]);
+            Arrays.fill(h, setPoint[1]);
+            Arrays.fill(klux, setPoint[2]);
+            ClimateState hourly = history.copy();
+            integrator.integrate(hourly, t, h, klux, 1.0 / 24, 0, hours);
+            ClimateState single = history.copy();
+            integrator.integrate(single, new double[] {setPoint[0]}, new double[] {setPoint[1]},
+                new double[] {setPoint[2]}, hours / 24.0, 0, 1);
+
+            assertEquals(hourly.getLifetimeMultiplier(), single.getLifetimeMultiplier(), 1e-9);
+            assertEquals(hourly.getChemicalDegradation(), single.getChemicalDegradation(), 1e-9);
+            assertEquals(hourly.getMouldIndex(), single.getMouldIndex(), 1e-9);
+            assertEquals(hourly.getMaxMouldIndex(), single.getMaxMouldIndex(), 1e-9);
+            assertEquals(hourly.getSaltCycles(), single.getSaltCycles());
+            assertEquals(hourly.getSaltDamage(), single.getSaltDamage(), 1e-9);
+        }
+    }
+
+    private static void assertSame(JsonNode expected, JsonNode actual, String path) {
+        if (expected.isNumber()) {
+            assertTrue(actual.isNumber(), path + " is not a number");
+            double scale = Math.max(1, Math.abs(expected.doubleValue()));
+            assertEquals(expected.doubleValue(), actual.doubleValue(), TOLERANCE * scale, path);
+        } else if (expected.isObject()) {
+            assertEquals(expected.size(), actual.size(), path + " fields");
+            Iterator<Map.Entry<String, JsonNode>> fields = expected.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                assertNotNull(actual.get(field.getKey()), path + "." + field.getKey() + " is missing");
+                assertSame(field.getValue(), actual.get(field.getKey()), path + "." + field.getKey());
+            }
+        } else {
+            assertEquals(expected, actual, path);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package digital.twin.mogao.deterioration;
+
+import digital.twin.mogao.timeseries.ReadingKind;
+import digital.twin.mogao.timeseries.TimeSeriesStore;
+import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.TestModels;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Monte Carlo forecasts: reproducible from a seed on any pool, ordered bands, argument checks
+ * and artifacts without climate history
+ */
+class DeteriorationForecasterTest {
+
+    private static final long HOUR = RiskState.HOUR_MILLIS;
+    // 2024-01-01T00:00Z
+    private static final long START = 1704067200000L;
+    private static final int HOURS = 24 * 28;
+    private static final long SEED = 20240101L;
+
+    @TempDir
+    File dir;
+
+    private EpsilonModelManager manager;
+    private TimeSeriesStore store;
+    private final List<FleetRiskScorer> scorers = new ArrayList<>();
+
+    @BeforeEach
+    void createStore() throws Exception {
+        manager = TestModels.manager(Files.createDirectories(dir.toPath().resolve("model")).toFile());
+        store = new TimeSeriesStore(dir.toPath().resolve("timeseries").toFile(), 3600);
+    }
+
+    @AfterEach
+    void close() {
+        scorers.forEach(FleetRiskScorer::close);
+        store.close();
+    }
+
+    @Test
+    void sameSeedGivesTheSameBandsWhateverTheParallelism() {
+        recordCaveClimate();
+
+        Forecast sequential = forecaster(1).forecast("mural-001", 20, 1000, SEED);
+        Forecast parallel = forecaster(4).forecast("mural-001", 20, 1000, SEED);
+        Forecast reseeded = forecaster(4).forecast("mural-001", 20, 1000, SEED + 1);
+
+        assertEquals(SEED, parallel.getSeed());
+        assertArrayEquals(sequential.getLifetimeMultiplier(), parallel.getLifetimeMultiplier());
+        assertArrayEquals(sequential.getChemicalDegradation(), parallel.getChemicalDegradation());
+        assertArrayEquals(sequential.getRiskScore(), parallel.getRiskScore());
+        assertArrayEquals(sequential.getMouldIndex(), parallel.getMouldIndex());
+        assertFalse(Arrays.deepEquals(sequential.getLifetimeMultiplier(), reseeded.getLifetimeMultiplier()));
+    }
+
+    @Test
+    void percentileBandsAreOrdered() {
+        recordCaveClimate();
+
+        Forecast forecast = forecaster(2).forecast("cave-001", 30, 500, SEED);
+
+        assertArrayEquals(new int[] {5, 25, 50, 75, 95}, forecast.getPercentiles());
+        assertEquals(HOURS - 1, forecast.getClimateHours());
+        for (double[][] band : List.of(forecast.getLifetimeMultiplier(), forecast.getChemicalDegradation(),
+                forecast.getRiskScore())) {
+            assertEquals(forecast.getPercentiles().length, band.length);
+            for (int year = 0; year < forecast.getYears(); year++) {
+                for (int p = 1; p < band.length; p++) {
+                    assertTrue(band[p - 1][year] <= band[p][year],
+                        "p" + forecast.getPercentiles()[p - 1] + " above p" + forecast.getPercentiles()[p] + " in year " + year);
+                }
+            }
+        }
+        // Fading only accumulates
+        double[] median = forecast.getChemicalDegradation()[2];
+        for (int year = 1; year < median.length; year++) {
+            assertTrue(median[year - 1] <= median[year]);
+        }
+    }
+
+    @Test
+    void yearsAndSamplesOutOfRangeAreRejected() {
+        DeteriorationForecaster forecaster = forecaster(1);
+
+        assertThrows(IllegalArgumentException.class, () -> forecaster.forecast("cave-001", 0, 100, SEED));
+        assertThrows(IllegalArgumentException.class,
+            () -> forecaster.forecast("cave-001", DeteriorationForecaster.MAX_YEARS + 1, 100, SEED));
+        assertThrows(IllegalArgumentException.class, () -> forecaster.forecast("cave-001", 10, 0, SEED));
+        assertThrows(IllegalArgumentException.class,
+            () -> forecaster.forecast("cave-001", 10, DeteriorationForecaster.MAX_SAMPLES + 1, SEED));
+        assertNull(forecaster.forecast("defect-001", 10, 100, SEED));
+    }
+
+    @Test
+    void artifactWithoutClimateHistoryHasNoBands() {
+        Forecast forecast = forecaster(2).forecast("statue-001", 10, 100, SEED);
+
+        assertEquals("statue-001", forecast.getGid());
+        assertNull(forecast.getClimateSource());
+        assertEquals(0, forecast.getClimateHours());
+        assertNull(forecast.getClimateFrom());
+        assertNull(forecast.getPercentiles());
+        assertNull(forecast.getRiskScore());
+        assertNull(forecast.getMouldIndex());
+    }
+
+    private DeteriorationForecaster forecaster(int parallelism) {
+        FleetRiskScorer scorer = new FleetRiskScorer(manager, store,
+            new LookupSurfaces(false, 1e-3, Long.MAX_VALUE, 600), parallelism);
+        scorers.add(scorer);
+        return new DeteriorationForecaster(scorer, store, 1000);
+    }
+
+    /**
+     * Four weeks of hourly readings with a daily cycle in cave-001
+     */
+    private void recordCaveClimate() {
+        for (int hour = 0; hour < HOURS; hour++) {
+            double cycle = Math.sin(2 * Math.PI * hour / 24);
+            long timestamp = START + hour * HOUR;
+            store.append("cave-001", ReadingKind.TEMPERATURE, timestamp, DeteriorationModels.KELVIN_OFFSET + 20 + 4 * cycle);
+            store.append("cave-001", ReadingKind.HUMIDITY, timestamp, 60 - 15 * cycle);
+            store.append("cave-001", ReadingKind.LIGHT_INTENSITY, timestamp, Math.max(0, 200 * cycle));
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package digital.twin.mogao.deterioration;
+
+import digital.twin.mogao.timeseries.ReadingKind;
+import digital.twin.mogao.timeseries.TimeSeriesStore;
+import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.TestModels;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fleet scoring: incremental advance of the cached states, the cave's climate for exhibits
+ * without loggers, forgetting deleted artifacts, and the ranking
+ */
+class FleetRiskScorerTest {
+
+    private static final long HOUR = RiskState.HOUR_MILLIS;
+    // 2024-01-01T00:00Z
+    private static final long START = 1704067200000L;
+    private static final double KELVIN = DeteriorationModels.KELVIN_OFFSET;
+
+    @TempDir
+    File dir;
+
+    private EpsilonModelManager manager;
+    private TimeSeriesStore store;
+    private final List<FleetRiskScorer> scorers = new ArrayList<>();
+
+    @BeforeEach
+    void createStore() throws Exception {
+        manager = TestModels.manager(Files.createDirectories(dir.toPath().resolve("model")).toFile());
+        store = new TimeSeriesStore(dir.toPath().resolve("timeseries").toFile(), 3600);
+    }
+
+    @AfterEach
+    void close() {
+        scorers.forEach(FleetRiskScorer::close);
+        store.close();
+    }
+
+    @Test
+    void incrementalAdvanceEqualsAFullRecompute() {
+        FleetRiskScorer incremental = scorer(2);
+        record("cave-001", 0, 100, 18, 55);
+        record("statue-001", 0, 100, 26, 85);
+        incremental.scoreAll();
+        record("cave-001", 100, 250, 22, 70);
+        record("statue-001", 100, 250, 28, 90);
+        incremental.scoreAll();
+        record("cave-001", 250, 400, 15, 40);
+        record("statue-001", 250, 400, 24, 80);
+
+        Map<String, ArtifactRisk> advanced = byGid(incremental.scoreAll());
+        Map<String, ArtifactRisk> recomputed = byGid(scorer(2).scoreAll());
+
+        assertEquals(recomputed.keySet(), advanced.keySet());
+        for (ArtifactRisk risk : recomputed.values()) {
+            assertSameRisk(risk, advanced.get(risk.getGid()));
+        }
+        // The latest hour may still get readings, so it is not scored yet
+        assertEquals(399, advanced.get("cave-001").getHours());
+    }
+
+    @Test
+    void exhibitWithoutLoggersIsScoredOnTheCavesClimate() {
+        FleetRiskScorer scorer = scorer(1);
+        record("cave-001", 0, 200, 20, 60);
+        record("statue-001", 0, 200, 30, 95);
+
+        Map<String, ArtifactRisk> risks = byGid(scorer.scoreAll());
+
+        ArtifactRisk mural = risks.get("mural-001");
+        assertEquals("cave-001", mural.getClimateSource());
+        assertEquals("cave-001", mural.getCaveGid());
+        assertEquals("Mural", mural.getType());
+        assertEquals(risks.get("cave-001").getLifetimeMultiplier(), mural.getLifetimeMultiplier());
+        assertEquals(risks.get("cave-001").getMouldIndex(), mural.getMouldIndex());
+        // An exhibit with its own loggers is scored on them
+        assertEquals("statue-001", risks.get("statue-001").getClimateSource());
+        assertTrue(risks.get("statue-001").getLifetimeMultiplier() < mural.getLifetimeMultiplier());
+    }
+
+    @Test
+    void statesOfDeletedArtifactsAreDropped() throws Exception {
+        FleetRiskScorer scorer = scorer(1);
+        record("cave-001", 0, 50, 20, 60);
+        scorer.scoreAll();
+        assertEquals(4, scorer.getCachedStates());
+
+        manager.executeUnitOfWork("eol-scripts/statue/StatueOperations.eol", "statue-002",
+            tx -> tx.call("deleteStatue", "statue-002"));
+        List<ArtifactRisk> risks = scorer.scoreAll();
+
+        assertEquals(3, risks.size());
+        assertEquals(3, scorer.getCachedStates());
+        assertNull(byGid(risks).get("statue-002"));
+        assertNull(scorer.score("statue-002"));
+    }
+
+    @Test
+    void artifactsAreRankedByRiskWithoutHistoryLast() {
+        FleetRiskScorer scorer = scorer(4);
+        // No cave loggers: the cave and the mural have no climate history
+        record("statue-001", 0, 300, 30, 95);
+        record("statue-002", 0, 300, 18, 50);
+
+        List<ArtifactRisk> ranking = scorer.scoreAll();
+
+        assertEquals(List.of("statue-001", "statue-002"), List.of(ranking.get(0).getGid(), ranking.get(1).getGid()));
+        assertTrue(ranking.get(0).getRiskScore() > ranking.get(1).getRiskScore());
+        for (ArtifactRisk risk : ranking.subList(2, ranking.size())) {
+            assertEquals(0, risk.getHours());
+            assertEquals("unknown", risk.getLabel());
+            assertEquals(0, risk.getRiskScore());
+        }
+    }
+
+    private FleetRiskScorer scorer(int parallelism) {
+        FleetRiskScorer scorer = new FleetRiskScorer(manager, store,
+            new LookupSurfaces(true, 1e-3, Long.MAX_VALUE, 600), parallelism);
+        scorers.add(scorer);
+        return scorer;
+    }
+
+    /**
+     * Hourly readings in hours [from, to) of START, drifting a little within each hour
+     */
+    private void record(String gid, int from, int to, double celsius, double rhPercent) {
+        for (int hour = from; hour < to; hour++) {
+            for (int minute = 0; minute < 60; minute += 20) {
+                long timestamp = START + hour * HOUR + minute * 60_000L;
+                double drift = Math.sin(hour / 6.0 + minute / 60.0);
+                store.append(gid, ReadingKind.TEMPERATURE, timestamp, celsius + KELVIN + drift);
+                store.append(gid, ReadingKind.HUMIDITY, timestamp, rhPercent + 3 * drift);
+            }
+        }
+    }
+
+    private static Map<String, ArtifactRisk> byGid(List<ArtifactRisk> risks) {
+        Map<String, ArtifactRisk> byGid = new HashMap<>();
+        for (ArtifactRisk risk : risks) {
+            byGid.put(risk.getGid(), risk);
+        }
+        return byGid;
+    }
+
+    private static void assertSameRisk(ArtifactRisk expected, ArtifactRisk actual) {
+        String gid = expected.getGid();
+        assertEquals(expected.getClimateSource(), actual.getClimateSource(), gid);
+        assertEquals(expected.getFrom(), actual.getFrom(), gid);
+        assertEquals(expected.getTo(), actual.getTo(), gid);
+        assertEquals(expected.getHours(), actual.getHours(), gid);
+        assertEquals(expected.getLifetimeMultiplier(), actual.getLifetimeMultiplier(), 1e-12, gid);
+        assertEquals(expected.getMouldIndex(), actual.getMouldIndex(), 1e-12, gid);
+        assertEquals(expected.getMaxMouldIndex(), actual.getMaxMouldIndex(), 1e-12, gid);
+        assertEquals(expected.getSaltCycles(), actual.getSaltCycles(), gid);
+        assertEquals(expected.getSaltDamage(), actual.getSaltDamage(), 1e-12, gid);
+        assertEquals(expected.getChemicalDegradation(), actual.getChemicalDegradation(), 1e-12, gid);
+        assertEquals(expected.getRiskScore(), actual.getRiskScore(), 1e-12, gid);
+    }
+}
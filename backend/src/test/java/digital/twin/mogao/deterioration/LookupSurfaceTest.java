@@ -0,0 +1,185 @@
+package digital.twin.mogao.deterioration;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Accuracy of the lookup surfaces against the formulas they tabulate, and their cache
+ */
+class LookupSurfaceTest {
+
+    private static final double TOLERANCE = 1e-3;
+    private static final int POINTS = 200000;
+    // Spacing of the dense sample lattice, and its offset from the whole degrees and percents
+    // of the band edges, so samples fall at every position within the cells
+    private static final double DENSE_STEP = 0.05;
+    private static final double DENSE_OFFSET = 0.0123;
+
+    private final LookupSurfaces surfaces = new LookupSurfaces(true, TOLERANCE, Long.MAX_VALUE, 600);
+
+    @Test
+    void defaultSurfacesStayWithinTheTolerance() {
+        ChemicalParameters chemical = new ChemicalParameters();
+        LifetimeParameters lifetime = new LifetimeParameters();
+        assertWithinTolerance(surfaces.inverseLifetime(lifetime),
+            (celsius, rh) -> 1 / DeteriorationModels.lifetimeMultiplier(celsius, rh, lifetime));
+        assertWithinTolerance(surfaces.darkRate(chemical),
+            (celsius, rh) -> DeteriorationModels.rateConstant(celsius, rh, 0, chemical));
+        assertWithinTolerance(surfaces.lightRate(chemical),
+            (celsius, rh) -> DeteriorationModels.rateConstant(celsius, rh, 1, chemical)
+                - DeteriorationModels.rateConstant(celsius, rh, 0, chemical));
+        assertWithinTolerance(surfaces.moistureContent(),
+            (celsius, rh) -> DeteriorationModels.moistureContent(rh / 100, celsius + DeteriorationModels.KELVIN_OFFSET));
+    }
+
+    @Test
+    void steepParametersStayWithinTheTolerance() {
+        ChemicalParameters chemical = new ChemicalParameters();
+        chemical.setEaDark(110000);
+        chemical.setQ(1.0);
+        LifetimeParameters lifetime = new LifetimeParameters();
+        lifetime.setEa(110000);
+        lifetime.setN(2);
+        assertWithinTolerance(surfaces.inverseLifetime(lifetime),
+            (celsius, rh) -> 1 / DeteriorationModels.lifetimeMultiplier(celsius, rh, lifetime));
+        assertWithinTolerance(surfaces.darkRate(chemical),
+            (celsius, rh) -> DeteriorationModels.rateConstant(celsius, rh, 0, chemical));
+    }
+
+    @Test
+    void climateTermsShareOneGridWithinTheTolerance() {
+        ChemicalParameters chemical = new ChemicalParameters();
+        LifetimeParameters lifetime = new LifetimeParameters();
+        LookupSurface terms = surfaces.climateTerms(chemical, lifetime);
+        assertEquals(3, terms.getFunctions());
+        assertTrue(terms.getErrorEstimate() <= TOLERANCE, "Error estimate " + terms.getErrorEstimate() + " above the tolerance");
+
+        LookupSurface.SurfaceFunction[] functions = {
+            (celsius, rh) -> 1 / DeteriorationModels.lifetimeMultiplier(celsius, rh, lifetime),
+            (celsius, rh) -> DeteriorationModels.rateConstant(celsius, rh, 0, chemical),
+            (celsius, rh) -> DeteriorationModels.rateConstant(celsius, rh, 1, chemical)
+                - DeteriorationModels.rateConstant(celsius, rh, 0, chemical)};
+        double[] values = new double[3];
+        double[] worst = new double[3];
+        for (double celsius = -30 + DENSE_OFFSET; celsius < 60; celsius += DENSE_STEP) {
+            for (double rh = 1 + DENSE_OFFSET; rh < 99; rh += DENSE_STEP) {
+                terms.values(celsius, rh, values);
+                assertEquals(values[0], terms.value(celsius, rh), 0);
+                for (int f = 0; f < functions.length; f++) {
+                    double expected = functions[f].apply(celsius, rh);
+                    worst[f] = Math.max(worst[f], Math.abs(values[f] - expected) / expected);
+                }
+            }
+        }
+        for (int f = 0; f < functions.length; f++) {
+            assertTrue(worst[f] <= TOLERANCE, "Function " + f + ": error " + worst[f] + " above the tolerance");
+        }
+    }
+
+    @Test
+    void expTableStaysWithinItsBound() {
+        Random random = new Random(13);
+        for (int i = 0; i < POINTS; i++) {
+            double x = -50 + 100 * random.nextDouble();
+            assertEquals(Math.exp(x), ExpTable.exp(x), Math.exp(x) * 6e-8);
+            double y = Math.exp(x);
+            assertEquals(Math.log(y), ExpTable.log(y), 1.2e-7);
+            double klux = 20 * random.nextDouble();
+            assertEquals(Math.pow(klux, 0.8), ExpTable.pow(klux, 0.8), Math.pow(klux, 0.8) * 2e-7 * 1.8);
+        }
+        // Outside the tables
+        assertEquals(Math.exp(800), ExpTable.exp(800), 0);
+        assertEquals(0, ExpTable.exp(-800), 0);
+        assertTrue(Double.isNaN(ExpTable.log(-1)));
+        assertEquals(Double.NEGATIVE_INFINITY, ExpTable.log(0), 0);
+        assertEquals(Math.log(Double.MIN_VALUE), ExpTable.log(Double.MIN_VALUE), 0);
+    }
+
+    @Test
+    void outsideTheGridIsExact() {
+        LifetimeParameters lifetime = new LifetimeParameters();
+        LookupSurface surface = surfaces.inverseLifetime(lifetime);
+        for (double[] point : new double[][] {{-45, 50}, {75, 50}, {20, 0.5}, {20, 99.5}}) {
+            assertEquals(1 / DeteriorationModels.lifetimeMultiplier(point[0], point[1], lifetime),
+                surface.value(point[0], point[1]), 0);
+        }
+    }
+
+    @Test
+    void integratorWithSurfacesMatchesFormulas() {
+        Random random = new Random(11);
+        int steps = 50000;
+        double[] celsius = new double[steps];
+        double[] rh = new double[steps];
+        double[] light = new double[steps];
+        for (int i = 0; i < steps; i++) {
+            celsius[i] = -10 + 45 * random.nextDouble();
+            rh[i] = 100 * random.nextDouble();
+            light[i] = random.nextBoolean() ? 0 : random.nextDouble();
+        }
+        ChemicalParameters chemical = new ChemicalParameters();
+        LifetimeParameters lifetime = new LifetimeParameters();
+        MouldParameters mould = new MouldParameters();
+        SaltParameters salt = new SaltParameters();
+        ClimateState exact = new ClimateState();
+        new ClimateIntegrator(chemical, lifetime, mould, salt).integrate(exact, celsius, rh, light, 1.0 / 24, 0, steps);
+        ClimateState tabulated = new ClimateState();
+        new ClimateIntegrator(chemical, lifetime, mould, salt, surfaces.forIntegrator(chemical, lifetime))
+            .integrate(tabulated, celsius, rh, light, 1.0 / 24, 0, steps);
+
+        // Sums of positive terms keep the relative error of their terms
+        assertEquals(exact.inverseLifetimeDays, tabulated.inverseLifetimeDays, TOLERANCE * exact.inverseLifetimeDays);
+        assertEquals(exact.chemicalExposure, tabulated.chemicalExposure, TOLERANCE * exact.chemicalExposure);
+        assertEquals(exact.getMouldIndex(), tabulated.getMouldIndex(), 0);
+        assertEquals(exact.getSaltDamage(), tabulated.getSaltDamage(), 0);
+    }
+
+    @Test
+    void cacheIsKeyedByParameterSet() {
+        LifetimeParameters lifetime = new LifetimeParameters();
+        LookupSurface first = surfaces.inverseLifetime(lifetime);
+        assertSame(first, surfaces.inverseLifetime(new LifetimeParameters()));
+        lifetime.setEa(90000);
+        assertNotSame(first, surfaces.inverseLifetime(lifetime));
+        assertEquals(1, surfaces.getMetrics().getHits());
+        assertEquals(2, surfaces.getMetrics().getMisses());
+    }
+
+    @Test
+    void unusedSurfacesAreEvicted() throws InterruptedException {
+        LookupSurfaces expiring = new LookupSurfaces(true, TOLERANCE, Long.MAX_VALUE, 0);
+        expiring.moistureContent();
+        Thread.sleep(5);
+        assertEquals(0, expiring.getMetrics().getSurfaces());
+        assertEquals(1, expiring.getMetrics().getEvictions());
+
+        LookupSurfaces small = new LookupSurfaces(true, TOLERANCE, 1, 600);
+        small.moistureContent();
+        small.inverseLifetime(new LifetimeParameters());
+        assertEquals(1, small.getMetrics().getSurfaces());
+        assertEquals(1, small.getMetrics().getEvictions());
+    }
+
+    /**
+     * The estimate is within the tolerance, and so is the error measured against the exact
+     * function on a dense lattice
+     */
+    private static void assertWithinTolerance(LookupSurface surface, LookupSurface.SurfaceFunction function) {
+        assertTrue(surface.getErrorEstimate() <= TOLERANCE,
+            "Error estimate " + surface.getErrorEstimate() + " above the tolerance with " + surface.getNodes() + " nodes");
+        double worst = 0;
+        for (double celsius = -30 + DENSE_OFFSET; celsius < 60; celsius += DENSE_STEP) {
+            for (double rh = 1 + DENSE_OFFSET; rh < 99; rh += DENSE_STEP) {
+                double expected = function.apply(celsius, rh);
+                worst = Math.max(worst, Math.abs(surface.value(celsius, rh) - expected) / expected);
+            }
+        }
+        assertTrue(worst <= TOLERANCE, "Error " + worst + " above the tolerance (estimate " + surface.getErrorEstimate() + ")");
+    }
+}
@@ -0,0 +1,224 @@
+package digital.twin.mogao.deterioration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sweep publisher: demand-driven emission, artifact order, failed evaluations and cancellation
+ */
+class SweepStreamTest {
+
+    private static final int WINDOW = 2;
+    private static final long WAIT_MILLIS = 5000;
+    // Time given to evaluations that should not happen, or items that should not arrive
+    private static final long SETTLE_MILLIS = 100;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final AtomicInteger evaluated = new AtomicInteger();
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void emitsOnlyWhatIsRequested() throws Exception {
+        SweepStream<String> stream = stream(10, 2, artifact -> cells(artifact, 2));
+        Recorder<String> recorder = new Recorder<>();
+        stream.subscribe(recorder);
+
+        Thread.sleep(SETTLE_MILLIS);
+        assertEquals(List.of(), recorder.items());
+        assertTrue(evaluated.get() <= WINDOW, "Evaluated " + evaluated.get() + " artifacts ahead of demand");
+
+        recorder.subscription.request(1);
+        recorder.awaitItems(1);
+        Thread.sleep(SETTLE_MILLIS);
+        assertEquals(List.of("artifact-0:0"), recorder.items());
+
+        recorder.subscription.request(1);
+        recorder.awaitItems(2);
+        Thread.sleep(SETTLE_MILLIS);
+        assertEquals(List.of("artifact-0:0", "artifact-0:1"), recorder.items());
+        // Artifact 0 emitted and artifact 1 taken as the next batch: at most WINDOW more started
+        assertTrue(evaluated.get() <= 2 + WINDOW, "Evaluated " + evaluated.get() + " artifacts ahead of demand");
+        assertFalse(recorder.completed);
+    }
+
+    @Test
+    void resultsComeInArtifactOrderWhateverOrderTheyAreComputedIn() throws Exception {
+        // Earlier artifacts take longer, so later ones finish first
+        SweepStream<String> stream = stream(6, 3, artifact -> {
+            sleep((6 - index(artifact)) * 10L);
+            return cells(artifact, 3);
+        });
+        Recorder<String> recorder = new Recorder<>();
+        stream.subscribe(recorder);
+
+        recorder.subscription.request(Long.MAX_VALUE);
+        recorder.awaitCompletion();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            expected.addAll(cells(artifact(i), 3));
+        }
+        assertEquals(expected, recorder.items());
+        assertEquals(18, stream.getTotal());
+        assertNull(recorder.error);
+    }
+
+    @Test
+    void failedEvaluationEndsTheStreamWithItsError() throws Exception {
+        IllegalStateException failure = new IllegalStateException("History unreadable");
+        SweepStream<String> stream = stream(5, 2, artifact -> {
+            if (index(artifact) == 2) {
+                throw failure;
+            }
+            return cells(artifact, 2);
+        });
+        Recorder<String> recorder = new Recorder<>();
+        stream.subscribe(recorder);
+
+        recorder.subscription.request(Long.MAX_VALUE);
+        recorder.awaitCompletion();
+
+        assertSame(failure, recorder.error);
+        assertFalse(recorder.completed);
+        // The artifacts before the failed one were delivered, nothing after it
+        assertEquals(List.of("artifact-0:0", "artifact-0:1", "artifact-1:0", "artifact-1:1"), recorder.items());
+    }
+
+    @Test
+    void cancelStopsEmissionAndFurtherEvaluations() throws Exception {
+        SweepStream<String> stream = stream(20, 2, artifact -> cells(artifact, 2));
+        Recorder<String> recorder = new Recorder<>();
+        stream.subscribe(recorder);
+
+        recorder.subscription.request(3);
+        recorder.awaitItems(3);
+        recorder.subscription.cancel();
+        recorder.subscription.request(10);
+        Thread.sleep(SETTLE_MILLIS);
+
+        assertEquals(List.of("artifact-0:0", "artifact-0:1", "artifact-1:0"), recorder.items());
+        assertFalse(recorder.completed);
+        assertNull(recorder.error);
+        assertTrue(evaluated.get() <= 2 + WINDOW, "Evaluated " + evaluated.get() + " artifacts after the cancel");
+    }
+
+    @Test
+    void secondSubscriberIsRefused() {
+        SweepStream<String> stream = stream(1, 1, artifact -> cells(artifact, 1));
+        stream.subscribe(new Recorder<>());
+        Recorder<String> second = new Recorder<>();
+
+        stream.subscribe(second);
+
+        assertInstanceOf(IllegalStateException.class, second.error);
+    }
+
+    private SweepStream<String> stream(int artifacts, int cells, Function<ArtifactRef, List<String>> evaluator) {
+        List<ArtifactRef> refs = new ArrayList<>();
+        for (int i = 0; i < artifacts; i++) {
+            refs.add(artifact(i));
+        }
+        return new SweepStream<>(refs, cells, artifact -> {
+            evaluated.incrementAndGet();
+            return evaluator.apply(artifact);
+        }, executor, WINDOW);
+    }
+
+    private static ArtifactRef artifact(int index) {
+        return new ArtifactRef("artifact-" + index, null, "Statue", "cave-001");
+    }
+
+    private static int index(ArtifactRef artifact) {
+        return Integer.parseInt(artifact.gid.substring("artifact-".length()));
+    }
+
+    private static List<String> cells(ArtifactRef artifact, int count) {
+        List<String> cells = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            cells.add(artifact.gid + ":" + i);
+        }
+        return cells;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Subscriber that keeps what it receives, from any thread, and requests nothing by itself
+     */
+    private static class Recorder<T> implements Subscriber<T> {
+        private final List<T> items = new ArrayList<>();
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public synchronized void onNext(T item) {
+            items.add(item);
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void onError(Throwable error) {
+            this.error = error;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            completed = true;
+            notifyAll();
+        }
+
+        synchronized List<T> items() {
+            return new ArrayList<>(items);
+        }
+
+        synchronized void awaitItems(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            while (items.size() < count && System.currentTimeMillis() < deadline) {
+                wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            assertTrue(items.size() >= count, "Received " + items.size() + " of " + count + " items");
+        }
+
+        synchronized void awaitCompletion() throws InterruptedException {
+            long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+            while (!completed && error == null && System.currentTimeMillis() < deadline) {
+                wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+            assertTrue(completed || error != null, "Stream did not end within " + TimeUnit.MILLISECONDS.toSeconds(WAIT_MILLIS) + " s");
+        }
+    }
+}
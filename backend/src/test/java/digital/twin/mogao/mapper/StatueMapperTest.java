@@ -0,0 +1,111 @@
+package digital.twin.mogao.mapper;
+
+import digital.twin.mogao.dto.StatueDTO;
+import digital.twin.mogao.util.DtoView;
+import digital.twin.mogao.util.GidIndex;
+import digital.twin.mogao.util.TestModels;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conversion of model objects to DTOs by generated feature ID
+ */
+class StatueMapperTest {
+
+    private Resource resource;
+    private GidIndex index;
+
+    @BeforeEach
+    void loadModel() throws Exception {
+        resource = TestModels.load();
+        index = GidIndex.of(resource);
+    }
+
+    @Test
+    void copiesAttributesAndContainedObjects() {
+        StatueDTO dto = StatueMapper.toDTO(index.byGid("statue-001"));
+
+        assertEquals("statue-001", dto.getGid());
+        assertEquals("Central Buddha Statue", dto.getName());
+        assertEquals("Tang Dynasty (8th century)", dto.getPeriod());
+        assertEquals("good", dto.getConservationStatus());
+        assertEquals(1704326400000L, dto.getLastInspectionDate());
+        assertEquals(350.0, dto.getHeight());
+        assertEquals("/exhibit_models/model/c8319ba3-60e7-47af-ba04-113d5ce8b21f.obj",
+            dto.getReference().getModelLocation());
+        assertEquals("coord-statue-001", dto.getCoordinates().getGid());
+    }
+
+    @Test
+    void everyMapperMatchesTheMetamodel() {
+        Map<String, Function<EObject, Object>> mappers = Map.of(
+            "Cave", CaveMapper::toDTO,
+            "Statue", StatueMapper::toDTO,
+            "Mural", MuralMapper::toDTO,
+            "Painting", PaintingMapper::toDTO,
+            "Inscription", InscriptionMapper::toDTO,
+            "Defect", DefectMapper::toDTO,
+            "AssetReference", AssetReferenceMapper::toDTO,
+            "Coordinates", CoordinatesMapper::toDTO);
+
+        int mapped = 0;
+        for (Iterator<EObject> contents = resource.getAllContents(); contents.hasNext(); ) {
+            EObject eObject = contents.next();
+            Function<EObject, Object> mapper = mappers.get(eObject.eClass().getName());
+            if (mapper != null) {
+                assertNotNull(mapper.apply(eObject));
+                mapped++;
+            }
+        }
+        assertTrue(mapped > 5);
+    }
+
+    @Test
+    void fillsInOnlyTheView() {
+        DtoView view = DtoView.fromParameters(Map.of(DtoView.FIELDS, List.of("name,reference.modelLocation")));
+
+        StatueDTO dto = StatueMapper.toDTO(index.byGid("statue-001"), view);
+
+        assertEquals("statue-001", dto.getGid());
+        assertEquals("Central Buddha Statue", dto.getName());
+        assertNull(dto.getDescription());
+        assertNull(dto.getCoordinates());
+        assertEquals("/exhibit_models/model/c8319ba3-60e7-47af-ba04-113d5ce8b21f.obj",
+            dto.getReference().getModelLocation());
+        assertNull(dto.getReference().getTextureLocation());
+    }
+
+    @Test
+    void rejectsAClassTheIdsWereNotGeneratedFor() {
+        EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+        EClass other = EcoreFactory.eINSTANCE.createEClass();
+        ePackage.getEClassifiers().add(other);
+        other.setName("Statue");
+        EAttribute label = EcoreFactory.eINSTANCE.createEAttribute();
+        label.setName("label");
+        label.setEType(EcorePackage.Literals.ESTRING);
+        other.getEStructuralFeatures().add(label);
+        EObject statue = EcoreUtil.create(other);
+
+        assertThrows(IllegalStateException.class, () -> StatueMapper.toDTO(statue));
+    }
+}
@@ -0,0 +1,110 @@
+package digital.twin.mogao.timeseries;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Gorilla compression round trips, bit for bit, on awkward timestamps and values
+ */
+class ChunkCodecTest {
+
+    @Test
+    void specialValuesRoundTripBitForBit() {
+        double[] values = {
+            Double.NaN, Double.NaN, 0.0, -0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            Double.MIN_VALUE, Double.MAX_VALUE, Double.longBitsToDouble(0x7ff8dead0000beefL), 1.0, Double.NaN
+        };
+        assertRoundTrip(steady(values.length, 1000, 60_000), values);
+    }
+
+    @Test
+    void repeatedValuesRoundTripAndCostABitEach() {
+        double[] values = new double[1000];
+        Arrays.fill(values, 18.5);
+        long[] timestamps = steady(values.length, 1_700_000_000_000L, 60_000);
+
+        assertRoundTrip(timestamps, values);
+        // First reading 16 bytes, the first interval 68 bits, then a bit for each timestamp and value
+        int bits = 68 + 1 + 2 * (values.length - 2);
+        assertEquals(16 + (bits + 7) / 8, ChunkCodec.encode(timestamps, values, values.length).length);
+    }
+
+    @Test
+    void largeAndIrregularDeltasRoundTrip() {
+        long[] timestamps = {
+            Long.MIN_VALUE / 2, -1, 0, 1, 2, 64, 65, 65 + 255, 65 + 255 + 2048, 1L << 40, (1L << 40) + 1,
+            Long.MAX_VALUE / 2, Long.MAX_VALUE / 2 + 1, Long.MAX_VALUE - 1
+        };
+        double[] values = new double[timestamps.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 2 == 0 ? i * 1e300 : -i * 1e-300;
+        }
+        assertRoundTrip(timestamps, values);
+    }
+
+    @Test
+    void randomReadingsRoundTrip() {
+        Random random = new Random(7);
+        long[] timestamps = new long[5000];
+        double[] values = new double[timestamps.length];
+        long timestamp = 1_700_000_000_000L;
+        double value = 20;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamp += 1 + random.nextInt(random.nextBoolean() ? 100 : 1_000_000);
+            value = random.nextInt(4) == 0 ? value : value + random.nextGaussian();
+            timestamps[i] = timestamp;
+            values[i] = value;
+        }
+        assertRoundTrip(timestamps, values);
+    }
+
+    @Test
+    void decodingKeepsTheRangeAndStopsWhenAsked() {
+        long[] timestamps = steady(100, 0, 10);
+        double[] values = new double[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        ByteBuffer data = ByteBuffer.wrap(ChunkCodec.encode(timestamps, values, values.length));
+
+        List<Long> inRange = new ArrayList<>();
+        ChunkCodec.decode(data, 0, values.length, 205, 300, (timestamp, value) -> inRange.add(timestamp));
+        assertEquals(List.of(210L, 220L, 230L, 240L, 250L, 260L, 270L, 280L, 290L), inRange);
+
+        List<Long> first = new ArrayList<>();
+        assertFalse(ChunkCodec.decode(data, 0, values.length, 0, Long.MAX_VALUE, (timestamp, value) -> {
+            first.add(timestamp);
+            return first.size() < 3;
+        }));
+        assertEquals(List.of(0L, 10L, 20L), first);
+    }
+
+    private static long[] steady(int count, long start, long interval) {
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = start + i * interval;
+        }
+        return timestamps;
+    }
+
+    private static void assertRoundTrip(long[] timestamps, double[] values) {
+        byte[] encoded = ChunkCodec.encode(timestamps, values, values.length);
+        List<long[]> decoded = new ArrayList<>();
+        ChunkCodec.decode(ByteBuffer.wrap(encoded), 0, values.length, Long.MIN_VALUE, Long.MAX_VALUE,
+            (timestamp, value) -> decoded.add(new long[] {timestamp, Double.doubleToRawLongBits(value)}));
+
+        assertEquals(values.length, decoded.size());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(timestamps[i], decoded.get(i)[0], "timestamp " + i);
+            assertEquals(Double.doubleToRawLongBits(values[i]), decoded.get(i)[1], "value " + i);
+        }
+    }
+}
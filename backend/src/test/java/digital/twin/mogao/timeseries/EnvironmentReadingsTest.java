@@ -0,0 +1,89 @@
+package digital.twin.mogao.timeseries;
+
+import digital.twin.mogao.util.EpsilonModelManager;
+import digital.twin.mogao.util.ModelQuery;
+import digital.twin.mogao.util.TestModels;
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Import of the seed model's EnvironmentCondition objects: unit conversion, rejected values,
+ * and a model left unchanged
+ */
+class EnvironmentReadingsTest {
+
+    private static final long SEED_TIMESTAMP = 1704412800000L;
+
+    @TempDir
+    File dir;
+
+    private EpsilonModelManager manager;
+    private TimeSeriesStore store;
+    private EnvironmentReadings readings;
+
+    @BeforeEach
+    void createReadings() throws Exception {
+        manager = TestModels.manager(Files.createDirectories(dir.toPath().resolve("model")).toFile());
+        store = new TimeSeriesStore(dir.toPath().resolve("timeseries").toFile(), 3600);
+        readings = new EnvironmentReadings(manager, store, false);
+    }
+
+    @AfterEach
+    void closeStore() {
+        store.close();
+    }
+
+    @Test
+    void seedConditionsAreCopiedInTheKindsUnit() throws Exception {
+        // temp-001 is 18.5 "K": a Celsius value, rejected rather than stored as 18.5 K
+        assertEquals(2, readings.importFromModel());
+
+        assertEquals(List.of(45.0), values("cave-001", ReadingKind.HUMIDITY));
+        assertEquals(List.of(50.0), values("cave-001", ReadingKind.LIGHT_INTENSITY));
+        assertEquals(List.of(), values("cave-001", ReadingKind.TEMPERATURE));
+    }
+
+    @Test
+    void importLeavesTheModelUnchangedAndCanBeRunAgain() throws Exception {
+        File[] before = dir.toPath().resolve("model").toFile().listFiles();
+        readings.importFromModel();
+
+        assertEquals(0, readings.importFromModel());
+
+        assertEquals(3, manager.executeQuery(new ModelQuery("EnvironmentCondition"), EnvironmentReadingsTest::gid)
+            .getItems().size());
+        // Nothing was saved
+        assertEquals(before.length, dir.toPath().resolve("model").toFile().listFiles().length);
+        assertEquals(List.of(45.0), values("cave-001", ReadingKind.HUMIDITY));
+    }
+
+    @Test
+    void startupImportIsOffByDefault() {
+        readings.onStartup(null);
+
+        assertTrue(store.kindsOf("cave-001").isEmpty());
+        new EnvironmentReadings(manager, store, true).onStartup(null);
+        assertEquals(List.of(45.0), values("cave-001", ReadingKind.HUMIDITY));
+    }
+
+    private static Object gid(EObject eObject) {
+        return eObject.eGet(eObject.eClass().getEStructuralFeature("gid"));
+    }
+
+    private List<Double> values(String artifactGid, ReadingKind kind) {
+        List<Double> values = new ArrayList<>();
+        store.read(artifactGid, kind, SEED_TIMESTAMP, SEED_TIMESTAMP + 1, (timestamp, value) -> values.add(value));
+        return values;
+    }
+}
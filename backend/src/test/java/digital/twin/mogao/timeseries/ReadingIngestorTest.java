@@ -0,0 +1,93 @@
+package digital.twin.mogao.timeseries;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Batched ingestion: acknowledgement after the append, and failures confined to their series
+ */
+class ReadingIngestorTest {
+
+    @TempDir
+    File dir;
+
+    private TimeSeriesStore store;
+    private ReadingIngestor ingestor;
+
+    @BeforeEach
+    void createIngestor() throws Exception {
+        store = new TimeSeriesStore(dir, 3600);
+        ingestor = new ReadingIngestor(store, 1000, 100);
+    }
+
+    @AfterEach
+    void stopIngestor() {
+        ingestor.onShutdown(null);
+        store.close();
+    }
+
+    @Test
+    void batchCompletesOnceItsReadingsAreInTheStore() throws Exception {
+        ReadingBatch batch = new ReadingBatch();
+        for (int i = 0; i < 250; i++) {
+            batch.add("cave-001", ReadingKind.TEMPERATURE, 1000 + i, 280 + i);
+        }
+
+        assertTrue(ingestor.submit(batch));
+
+        assertEquals(0, batch.whenWritten().get(10, TimeUnit.SECONDS));
+        assertEquals(250, readings("cave-001", ReadingKind.TEMPERATURE).size());
+        assertEquals(250, ingestor.getMetrics().getWritten());
+    }
+
+    @Test
+    void emptyBatchCompletesAtOnce() {
+        ReadingBatch batch = new ReadingBatch();
+        batch.reject(0, "unknown kind");
+
+        assertTrue(ingestor.submit(batch));
+
+        assertTrue(batch.whenWritten().isDone());
+        assertEquals(1, ingestor.getMetrics().getRejected());
+    }
+
+    @Test
+    void failingSeriesFailsOnlyItsOwnReadings() throws Exception {
+        // The light series cannot create its directory
+        assertTrue(new File(dir, ReadingKind.LIGHT_INTENSITY.getSlug()).createNewFile());
+        ReadingBatch first = new ReadingBatch();
+        ReadingBatch second = new ReadingBatch();
+        for (int i = 0; i < 10; i++) {
+            first.add("cave-001", ReadingKind.TEMPERATURE, 1000 + i, 280);
+            first.add("cave-001", ReadingKind.LIGHT_INTENSITY, 1000 + i, 50);
+            second.add("cave-001", ReadingKind.HUMIDITY, 1000 + i, 45);
+        }
+
+        assertTrue(ingestor.submit(first));
+        assertTrue(ingestor.submit(second));
+
+        assertEquals(10, first.whenWritten().get(10, TimeUnit.SECONDS));
+        assertEquals(0, second.whenWritten().get(10, TimeUnit.SECONDS));
+        assertEquals(10, readings("cave-001", ReadingKind.TEMPERATURE).size());
+        assertEquals(10, readings("cave-001", ReadingKind.HUMIDITY).size());
+        ReadingIngestor.Metrics metrics = ingestor.getMetrics();
+        assertEquals(10, metrics.getFailed());
+        assertEquals(20, metrics.getWritten());
+    }
+
+    private List<Long> readings(String artifactGid, ReadingKind kind) {
+        List<Long> timestamps = new ArrayList<>();
+        store.read(artifactGid, kind, Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, value) -> timestamps.add(timestamp));
+        return timestamps;
+    }
+}
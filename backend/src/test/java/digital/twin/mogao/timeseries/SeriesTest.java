@@ -0,0 +1,170 @@
+package digital.twin.mogao.timeseries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Series files on disk: reopening after a clean close, a torn chunk and a crash with readings
+ * still in the open chunk
+ */
+class SeriesTest {
+
+    // One chunk per 100 ms window
+    private static final long CHUNK_MILLIS = 100;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void closedSeriesReopensWithEveryReading() throws Exception {
+        Series series = open();
+        appendRange(series, 0, 350);
+        series.close();
+
+        Series reopened = open();
+        assertEquals(range(0, 350), timestamps(reopened));
+        assertEquals(350, reopened.sealedReadings());
+        reopened.close();
+    }
+
+    @Test
+    void tornLastChunkIsCutOff() throws Exception {
+        Series series = open();
+        appendRange(series, 0, 250);
+        series.close();
+        long length = file().length();
+
+        // A crash while the third chunk was written leaves part of it
+        try (RandomAccessFile file = new RandomAccessFile(file(), "rw")) {
+            file.setLength(length - 5);
+        }
+
+        Series reopened = open();
+        assertEquals(range(0, 200), timestamps(reopened));
+        // Appends continue after the last complete chunk
+        reopened.append(205, 205);
+        assertEquals(201, reopened.size());
+        reopened.close();
+    }
+
+    @Test
+    void openChunkIsRestoredAfterACrash() throws Exception {
+        Series series = open();
+        appendRange(series, 0, 150);
+        // Not closed: readings 100-149 are only in the open chunk and its head log
+
+        Series reopened = open();
+        assertEquals(range(0, 150), timestamps(reopened));
+        assertEquals(100, reopened.sealedReadings());
+        // The restored readings are in the rollups too
+        long[] count = new long[1];
+        reopened.readRollup(Resolution.MINUTE, Long.MIN_VALUE, Long.MAX_VALUE, (start, bucketCount, min, max, sum, sumSquares) -> {
+            count[0] += bucketCount;
+            return true;
+        });
+        assertEquals(150, count[0]);
+        reopened.close();
+        series.close();
+    }
+
+    @Test
+    void tornHeadLogRecordIsCutOff() throws Exception {
+        Series series = open();
+        appendRange(series, 0, 120);
+        try (RandomAccessFile log = new RandomAccessFile(headLog(), "rw")) {
+            log.setLength(log.length() - 3);
+        }
+
+        Series reopened = open();
+        assertEquals(range(0, 119), timestamps(reopened));
+        assertEquals(19 * 16, headLog().length());
+        reopened.close();
+        series.close();
+    }
+
+    @Test
+    void sealedReadingsLeftInTheHeadLogAreSkipped() throws Exception {
+        Series series = open();
+        appendRange(series, 0, 50);
+        byte[] log = Files.readAllBytes(headLog().toPath());
+        series.flush();
+        // A crash after sealing the chunk but before emptying the log
+        Files.write(headLog().toPath(), log);
+
+        Series reopened = open();
+        assertEquals(range(0, 50), timestamps(reopened));
+        assertEquals(0, headLog().length());
+        reopened.close();
+        series.close();
+    }
+
+    @Test
+    void rollupInThePreviousLayoutIsRebuilt() throws Exception {
+        Series series = open();
+        appendRange(series, 0, 150);
+        series.close();
+        // A minute rollup written before buckets had sums of squares: header and one 48-byte bucket
+        Path rollup = dir.resolve("cave-001.ts." + Resolution.MINUTE.getSuffix());
+        Files.write(rollup, ByteBuffer.allocate(8 + 48).putLong(0x4D47525530303031L).putLong(0).putLong(149)
+            .putLong(150).putDouble(0).putDouble(14.9).putDouble(1117.5).array());
+
+        Series reopened = open();
+        double[] sumSquares = new double[1];
+        reopened.readRollup(Resolution.MINUTE, Long.MIN_VALUE, Long.MAX_VALUE, (start, count, min, max, sum, squares) -> {
+            sumSquares[0] += squares;
+            return true;
+        });
+        double expected = 0;
+        for (int timestamp = 0; timestamp < 150; timestamp++) {
+            expected += (timestamp / 10.0) * (timestamp / 10.0);
+        }
+        assertEquals(expected, sumSquares[0], 1e-6);
+        reopened.close();
+    }
+
+    private Series open() throws IOException {
+        return new Series("cave-001", ReadingKind.TEMPERATURE, file().toPath(), CHUNK_MILLIS);
+    }
+
+    private File file() {
+        return dir.resolve("cave-001.ts").toFile();
+    }
+
+    private File headLog() {
+        return dir.resolve("cave-001.ts.head").toFile();
+    }
+
+    private static void appendRange(Series series, int from, int to) throws IOException {
+        for (int timestamp = from; timestamp < to; timestamp++) {
+            series.append(timestamp, timestamp / 10.0);
+        }
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> timestamps = new ArrayList<>();
+        for (long timestamp = from; timestamp < to; timestamp++) {
+            timestamps.add(timestamp);
+        }
+        return timestamps;
+    }
+
+    private static List<Long> timestamps(Series series) throws IOException {
+        List<Long> timestamps = new ArrayList<>();
+        series.read(Long.MIN_VALUE, Long.MAX_VALUE, (timestamp, value) -> {
+            assertEquals(timestamp / 10.0, value);
+            return timestamps.add(timestamp);
+        });
+        return timestamps;
+    }
+}
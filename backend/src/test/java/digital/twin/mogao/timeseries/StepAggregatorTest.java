@@ -0,0 +1,92 @@
+package digital.twin.mogao.timeseries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Per-step aggregates: exact from readings, estimated from rollup buckets
+ */
+class StepAggregatorTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readingPercentilesAreExact() {
+        StepAggregator aggregator = new StepAggregator(HOUR);
+        for (int i = 1; i <= 100; i++) {
+            // Out of value order within the step
+            aggregator.accept(i * 1000L, (i * 37) % 100 + 1);
+        }
+
+        HistorySeries series = aggregator.toSeries(ReadingKind.HUMIDITY, "raw");
+
+        assertArrayEquals(new long[] {100}, series.getCount());
+        assertArrayEquals(new double[] {10}, series.getP10());
+        assertArrayEquals(new double[] {50}, series.getP50());
+        assertArrayEquals(new double[] {90}, series.getP90());
+        assertArrayEquals(new double[] {50.5}, series.getMean());
+    }
+
+    @Test
+    void bucketPercentilesFollowTheSpreadWithinBuckets() throws Exception {
+        // Readings every 5 s swinging around a slow drift: the spread is within the minutes
+        Series stored = new Series("cave-001", ReadingKind.HUMIDITY, dir.resolve("cave-001.ts"), 2 * HOUR);
+        Random random = new Random(11);
+        for (long timestamp = 0; timestamp < 2 * HOUR; timestamp += 5000) {
+            double drift = 45 + 3 * Math.sin(2 * Math.PI * timestamp / HOUR);
+            stored.append(timestamp, drift + 4 * random.nextGaussian());
+        }
+        StepAggregator exact = new StepAggregator(HOUR);
+        StepAggregator estimated = new StepAggregator(HOUR);
+        stored.read(0, 2 * HOUR, exact);
+        stored.readRollup(Resolution.MINUTE, 0, 2 * HOUR, estimated);
+        stored.close();
+
+        HistorySeries readings = exact.toSeries(ReadingKind.HUMIDITY, "raw");
+        HistorySeries buckets = estimated.toSeries(ReadingKind.HUMIDITY, "minute");
+
+        assertArrayEquals(readings.getCount(), buckets.getCount());
+        assertArrayEquals(readings.getMin(), buckets.getMin());
+        assertArrayEquals(readings.getMax(), buckets.getMax());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(readings.getMean()[i], buckets.getMean()[i], 1e-9);
+            assertEquals(readings.getP10()[i], buckets.getP10()[i], 0.5, "p10 of step " + i);
+            assertEquals(readings.getP50()[i], buckets.getP50()[i], 0.5, "p50 of step " + i);
+            assertEquals(readings.getP90()[i], buckets.getP90()[i], 0.5, "p90 of step " + i);
+        }
+    }
+
+    @Test
+    void bucketsOfOneValueAreExact() {
+        StepAggregator aggregator = new StepAggregator(HOUR);
+        for (int minute = 0; minute < 10; minute++) {
+            double value = minute;
+            aggregator.accept(minute * MINUTE, 6, value, value, 6 * value, 6 * value * value);
+        }
+
+        HistorySeries series = aggregator.toSeries(ReadingKind.TEMPERATURE, "minute");
+
+        assertArrayEquals(new double[] {0}, series.getP10());
+        assertArrayEquals(new double[] {4}, series.getP50());
+        assertArrayEquals(new double[] {8}, series.getP90());
+    }
+
+    @Test
+    void normalDistributionFunctionIsAccurate() {
+        assertEquals(0.5, StepAggregator.normalCdf(0), 1e-7);
+        assertEquals(0.841344746, StepAggregator.normalCdf(1), 1e-7);
+        assertEquals(0.022750132, StepAggregator.normalCdf(-2), 1e-7);
+        assertEquals(0.998650102, StepAggregator.normalCdf(3), 1e-7);
+    }
+}
@@ -0,0 +1,151 @@
+package digital.twin.mogao.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static digital.twin.mogao.util.EpsilonModelManagerTest.STATUE_SCRIPT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Content-addressed asset store: deduplication and collection of unreferenced blobs
+ */
+class AssetStoreTest {
+
+    private static final long GRACE_SECONDS = 3600;
+
+    @TempDir
+    File dir;
+
+    private EpsilonModelManager manager;
+    private Path blobs;
+    private AssetStore store;
+    private int staged;
+
+    @BeforeEach
+    void createStore() throws IOException {
+        manager = TestModels.manager(Files.createDirectories(dir.toPath().resolve("model")).toFile());
+        blobs = dir.toPath().resolve("blobs");
+        store = new AssetStore(manager, blobs.toString(), 0, GRACE_SECONDS);
+    }
+
+    @AfterEach
+    void closeStore() {
+        store.close();
+    }
+
+    @Test
+    void sameContentIsStoredOnce() throws IOException {
+        AssetStore.StoredAsset first = store.add(stage("texture"), "wall.png");
+        UploadStore.StagedFile again = stage("texture");
+        AssetStore.StoredAsset second = store.add(again, "other-wall.PNG");
+
+        assertFalse(first.isDeduplicated());
+        assertTrue(second.isDeduplicated());
+        assertEquals(first.getPath(), second.getPath());
+        assertEquals(AssetStore.URL_PREFIX + sha256("texture").substring(0, 2) + "/" + sha256("texture") + ".png",
+            first.getPath());
+        assertFalse(Files.exists(again.getFile()));
+        assertEquals(1, store.getMetrics().getBlobs());
+        assertEquals(1, store.getMetrics().getDeduplicated());
+    }
+
+    @Test
+    void unreferencedBlobsAreCollectedAfterTheGracePeriod() throws Exception {
+        Path young = blobOf(store.add(stage("young"), "young.obj"));
+        Path old = blobOf(store.add(stage("old"), "old.obj"));
+        AssetStore.StoredAsset referenced = store.add(stage("referenced"), "referenced.obj");
+        reference(referenced);
+        age(old);
+        age(blobOf(referenced));
+
+        assertEquals(1, store.collectGarbage());
+
+        assertTrue(Files.exists(young));
+        assertFalse(Files.exists(old));
+        assertTrue(Files.exists(blobOf(referenced)));
+        assertEquals(1, store.getMetrics().getCollected());
+    }
+
+    @Test
+    void deduplicatedUploadRestartsTheGracePeriod() throws Exception {
+        Path blob = blobOf(store.add(stage("texture"), "wall.png"));
+        age(blob);
+
+        store.add(stage("texture"), "wall.png");
+
+        assertEquals(0, store.collectGarbage());
+        assertTrue(Files.exists(blob));
+    }
+
+    @Test
+    void collectionIsSkippedWhenACommitHappensWhileCounting() throws Exception {
+        // A write referencing the blob commits after the references were counted
+        AssetStore racing = new AssetStore(manager, blobs.toString(), 0, GRACE_SECONDS) {
+            @Override
+            public Map<String, Integer> referenceCounts() {
+                Map<String, Integer> counts = super.referenceCounts();
+                try {
+                    EpsilonModelManagerTest.rename(manager, "statue-001", "Renamed");
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                return counts;
+            }
+        };
+        Path blob = blobOf(racing.add(stage("texture"), "wall.png"));
+        age(blob);
+
+        assertEquals(0, racing.collectGarbage());
+        assertTrue(Files.exists(blob));
+        racing.close();
+
+        // Nothing changed while counting this time
+        assertEquals(1, store.collectGarbage());
+        assertFalse(Files.exists(blob));
+    }
+
+    private UploadStore.StagedFile stage(String content) throws IOException {
+        Path file = Files.createDirectories(dir.toPath().resolve("staging")).resolve("upload-" + staged++ + ".part");
+        Files.writeString(file, content);
+        return new UploadStore.StagedFile(file, content.length(), sha256(content));
+    }
+
+    private Path blobOf(AssetStore.StoredAsset asset) {
+        String name = asset.getPath().substring(asset.getPath().lastIndexOf('/') + 1);
+        return blobs.resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private void reference(AssetStore.StoredAsset asset) throws Exception {
+        manager.executeUnitOfWork(STATUE_SCRIPT, "statue-001",
+            tx -> tx.call("updateStatueReference", "statue-001", asset.getPath(), null, null));
+    }
+
+    private static void age(Path blob) throws IOException {
+        Files.setLastModifiedTime(blob, FileTime.fromMillis(System.currentTimeMillis()
+            - TimeUnit.SECONDS.toMillis(GRACE_SECONDS) - 1000));
+    }
+
+    private static String sha256(String content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package digital.twin.mogao.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sparse fieldsets and depth limits parsed from request parameters
+ */
+class DtoViewTest {
+
+    @Test
+    void noParametersMeanEverything() {
+        DtoView view = DtoView.fromParameters(Map.of());
+
+        assertSame(DtoView.ALL, view);
+        assertTrue(view.includes("name"));
+        assertTrue(view.descends("reference"));
+        assertSame(DtoView.ALL, view.child("reference"));
+    }
+
+    @Test
+    void fieldsSelectPropertiesAndTheGidIsAlwaysIncluded() {
+        DtoView view = DtoView.fromParameters(Map.of(DtoView.FIELDS, List.of("name, label", "reference")));
+
+        assertTrue(view.includes("name"));
+        assertTrue(view.includes("label"));
+        assertTrue(view.includes("gid"));
+        assertFalse(view.includes("description"));
+        assertTrue(view.descends("reference"));
+        assertFalse(view.descends("coordinates"));
+        // A property asked for as a whole brings all of its contents
+        assertTrue(view.child("reference").includes("modelLocation"));
+    }
+
+    @Test
+    void dottedFieldsSelectPropertiesOfContainedObjects() {
+        DtoView view = DtoView.fromParameters(Map.of(DtoView.FIELDS, List.of("exhibits.name,exhibits.reference.modelLocation")));
+
+        DtoView exhibits = view.child("exhibits");
+        assertTrue(view.descends("exhibits"));
+        assertTrue(exhibits.includes("name"));
+        assertFalse(exhibits.includes("label"));
+        assertTrue(exhibits.child("reference").includes("modelLocation"));
+        assertFalse(exhibits.child("reference").includes("textureLocation"));
+    }
+
+    @Test
+    void depthLimitsTheContainmentLevelsTraversed() {
+        DtoView flat = DtoView.fromParameters(Map.of(DtoView.DEPTH, List.of("0")));
+        DtoView oneLevel = DtoView.fromParameters(Map.of(DtoView.DEPTH, List.of("1")));
+
+        assertTrue(flat.includes("name"));
+        assertFalse(flat.descends("reference"));
+        assertTrue(oneLevel.descends("exhibits"));
+        assertFalse(oneLevel.child("exhibits").descends("reference"));
+    }
+
+    @Test
+    void malformedDepthIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> DtoView.fromParameters(Map.of(DtoView.DEPTH, List.of("-1"))));
+        assertThrows(IllegalArgumentException.class, () -> DtoView.fromParameters(Map.of(DtoView.DEPTH, List.of("deep"))));
+    }
+}
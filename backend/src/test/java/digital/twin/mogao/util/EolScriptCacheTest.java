@@ -0,0 +1,94 @@
+package digital.twin.mogao.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Pooling of parsed scripts and re-parsing when a script changes, on a script written to the test classpath
+ */
+class EolScriptCacheTest {
+
+    private static final String SCRIPT_PATH = "eol-script-cache-test/Operations.eol";
+
+    private final EolScriptCache cache = new EolScriptCache();
+    private File scriptFile;
+
+    @BeforeEach
+    void writeScript() throws Exception {
+        File classpathRoot = new File(getClass().getClassLoader().getResource("").toURI());
+        scriptFile = new File(classpathRoot, SCRIPT_PATH);
+        scriptFile.getParentFile().mkdirs();
+        write("operation first() : Integer { return 1; }\n");
+    }
+
+    @AfterEach
+    void deleteScript() {
+        scriptFile.delete();
+        scriptFile.getParentFile().delete();
+    }
+
+    @Test
+    void releasedModulesAreReused() throws Exception {
+        EolScriptCache.ParsedScript script = cache.borrow(SCRIPT_PATH);
+        cache.release(script);
+
+        EolScriptCache.ParsedScript again = cache.borrow(SCRIPT_PATH);
+        assertSame(script.getModule(), again.getModule());
+        // Each borrower gets a context of its own
+        assertNotNull(again.getModule().getContext());
+    }
+
+    @Test
+    void concurrentBorrowersGetModulesOfTheirOwn() throws Exception {
+        EolScriptCache.ParsedScript first = cache.borrow(SCRIPT_PATH);
+        EolScriptCache.ParsedScript second = cache.borrow(SCRIPT_PATH);
+
+        assertNotSame(first.getModule(), second.getModule());
+    }
+
+    @Test
+    void changedScriptIsParsedAgain() throws Exception {
+        EolScriptCache.ParsedScript script = cache.borrow(SCRIPT_PATH);
+        cache.release(script);
+
+        write("operation first() : Integer { return 1; }\noperation second() : Integer { return 2; }\n");
+        scriptFile.setLastModified(scriptFile.lastModified() + 2000);
+
+        EolScriptCache.ParsedScript changed = cache.borrow(SCRIPT_PATH);
+        assertNotSame(script.getModule(), changed.getModule());
+        assertEquals("second", changed.getOperation("second").getName());
+    }
+
+    @Test
+    void touchedButUnchangedScriptKeepsItsModules() throws Exception {
+        EolScriptCache.ParsedScript script = cache.borrow(SCRIPT_PATH);
+        cache.release(script);
+
+        scriptFile.setLastModified(scriptFile.lastModified() + 2000);
+
+        assertSame(script.getModule(), cache.borrow(SCRIPT_PATH).getModule());
+    }
+
+    @Test
+    void unknownOperationsAndScriptsAreReported() throws Exception {
+        EolScriptCache.ParsedScript script = cache.borrow(SCRIPT_PATH);
+
+        assertThrows(RuntimeException.class, () -> script.getOperation("missing"));
+        assertThrows(RuntimeException.class, () -> cache.borrow("eol-script-cache-test/Missing.eol"));
+    }
+
+    private void write(String content) throws Exception {
+        Files.write(scriptFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,389 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.epsilon.emc.emf.EmfModel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Resident model: snapshots, versions and writes, on a copy of the instance model in a temporary directory
+ */
+class EpsilonModelManagerTest {
+
+    static final String STATUE_SCRIPT = "eol-scripts/statue/StatueOperations.eol";
+    static final String CONFLICT_SCRIPT = "eol-scripts/test/ConflictOperations.eol";
+
+    @TempDir
+    File dir;
+
+    private EpsilonModelManager manager;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void createManager() {
+        manager = new EpsilonModelManager(true, "xmi", false, 0, 64, dir);
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void readersKeepTheirSnapshotWhileAWriteCommits() throws Exception {
+        EmfModel before = manager.getSnapshot();
+        long version = manager.getModelVersion();
+
+        rename(manager, "statue-001", "Renamed");
+
+        EmfModel after = manager.getSnapshot();
+        assertNotSame(before, after);
+        assertEquals("Central Buddha Statue", attribute(before, "statue-001", "name"));
+        assertEquals("Renamed", attribute(after, "statue-001", "name"));
+        assertEquals(version + 1, manager.getModelVersion());
+    }
+
+    @Test
+    void writesAreSavedToTheModelDirectory() throws Exception {
+        rename(manager, "statue-001", "Renamed");
+
+        assertTrue(new File(dir, "mogao.model").exists());
+        EpsilonModelManager reloaded = new EpsilonModelManager(true, "xmi", false, 0, 64, dir);
+        assertEquals("Renamed", attribute(reloaded.getSnapshot(), "statue-001", "name"));
+    }
+
+    @Test
+    void writesStampTheObjectsTheyChange() throws Exception {
+        long base = manager.getModelVersion();
+
+        rename(manager, "statue-001", "Renamed");
+
+        assertEquals(base + 1, manager.getModificationStamp("statue-001"));
+        assertEquals(base + 1, manager.getModificationStamp("cave-001"));
+        assertEquals(base, manager.getModificationStamp("statue-002"));
+    }
+
+    @Test
+    void deltaQueriesListTheObjectsDeletedSince() throws Exception {
+        long base = manager.getModelVersion();
+
+        manager.executeUnitOfWork("eol-scripts/mural/MuralOperations.eol", "mural-001",
+            tx -> tx.call("deleteMural", "mural-001"));
+
+        ModelStream<Object> defects = manager.streamQuery(new ModelQuery("Defect").changedSince(base), eObject -> eObject);
+        assertEquals(List.of(), collect(defects));
+        // The mural's defect went with it
+        assertEquals(List.of("defect-001"), defects.getDeleted());
+        assertEquals(base + 1, manager.getModificationStamp("defect-001"));
+        assertEquals(List.of(), manager.executeQuery(new ModelQuery("Defect").changedSince(base + 1), eObject -> eObject)
+            .getDeleted());
+        assertThrows(ModificationStamps.ExpiredVersionException.class,
+            () -> manager.executeQuery(new ModelQuery("Defect").changedSince(base - 1), eObject -> eObject));
+    }
+
+    @Test
+    void lookupFindsObjectsOfTheKindByGid() throws Exception {
+        assertEquals("Central Buddha Statue", manager.lookup("statue-001", "Statue", eObject -> attribute(eObject, "name")));
+        assertEquals("cave-001", manager.lookup("cave-001", "HeritageArtifact", eObject -> attribute(eObject, "gid")));
+        assertNull(manager.lookup("cave-001", "Statue", eObject -> eObject));
+        assertNull(manager.lookup("no-such-gid", "Statue", eObject -> eObject));
+    }
+
+    @Test
+    void writesLockTheCaveOfTheObjectTheyChange() throws Exception {
+        rename(manager, "statue-001", "Renamed");
+        rename(manager, "statue-002", "Renamed");
+
+        List<StripedWriteLock.StripeMetrics> metrics = manager.getWriteLockMetrics();
+        assertEquals(1, metrics.size());
+        assertEquals(2, metrics.get(0).getAcquisitions());
+        assertEquals("cave-001", metrics.get(0).getLastKey());
+    }
+
+    @Test
+    void unitOfWorkCommitsOnceForAllItsOperations() throws Exception {
+        long version = manager.getModelVersion();
+
+        String name = manager.executeUnitOfWork(STATUE_SCRIPT, "statue-001", tx -> {
+            tx.call("updateStatue", "statue-001", "Renamed", "Described");
+            tx.call("updateStatueReference", "statue-001", "/exhibit_models/blobs/ab/ab.obj", null, null);
+            // Reads inside the unit of work see its own changes
+            return (String) attribute(tx.call("getStatueByGid", "statue-001"), "name");
+        });
+
+        assertEquals("Renamed", name);
+        assertEquals(version + 1, manager.getModelVersion());
+        EmfModel snapshot = manager.getSnapshot();
+        assertEquals("Described", attribute(snapshot, "statue-001", "description"));
+        assertEquals("/exhibit_models/blobs/ab/ab.obj",
+            attribute(attribute(snapshot, "statue-001", "reference"), "modelLocation"));
+    }
+
+    @Test
+    void failedUnitOfWorkPublishesNothing() throws Exception {
+        long version = manager.getModelVersion();
+
+        assertThrows(IllegalStateException.class, () -> manager.executeUnitOfWork(STATUE_SCRIPT, "statue-001", tx -> {
+            tx.call("updateStatue", "statue-001", "Renamed", null);
+            throw new IllegalStateException("Failed halfway");
+        }));
+
+        assertEquals(version, manager.getModelVersion());
+        assertEquals("Central Buddha Statue", attribute(manager.getSnapshot(), "statue-001", "name"));
+    }
+
+    @Test
+    void writesReuseRetiredSnapshots() throws Exception {
+        for (int i = 1; i <= 10; i++) {
+            rename(manager, i % 2 == 0 ? "statue-001" : "statue-002", "Name " + i);
+        }
+
+        // The loaded model is never reused and the first retired snapshot only exists after the second write
+        assertEquals(2, manager.getFullCopyCount());
+        assertEquals("Name 10", name(manager, "statue-001"));
+        assertEquals("Name 9", name(manager, "statue-002"));
+    }
+
+    @Test
+    void heldSnapshotsAreNotReused() throws Exception {
+        rename(manager, "statue-001", "First");
+        ModelStream<Object> held = manager.streamQuery(new ModelQuery("Statue"), eObject -> attribute(eObject, "name"));
+
+        for (int i = 1; i <= 5; i++) {
+            rename(manager, "statue-001", "Name " + i);
+        }
+
+        assertEquals(List.of("First", "Manually Added Test Statue"), collect(held));
+        assertEquals("Name 5", name(manager, "statue-001"));
+    }
+
+    @Test
+    void pinnedSnapshotsAreNotReused() throws Exception {
+        rename(manager, "statue-001", "First");
+        EmfModel pinned = manager.getSnapshot();
+
+        for (int i = 1; i <= 5; i++) {
+            rename(manager, "statue-001", "Name " + i);
+        }
+
+        assertEquals("First", attribute(pinned, "statue-001", "name"));
+        assertEquals("Name 5", name(manager, "statue-001"));
+    }
+
+    @Test
+    void journalIsKeptInTheModelDirectory() throws Exception {
+        EpsilonModelManager journaled = new EpsilonModelManager(true, "xmi", true, 0, 64, dir);
+        rename(journaled, "statue-001", "Journaled");
+
+        // Beside the model it checkpoints to, not the classpath model it was loaded from
+        assertEquals(1, dir.listFiles((file, name) -> name.endsWith(".journal")).length);
+    }
+
+    @Test
+    void journaledWritesAreReplayedFromTheModelDirectory() throws Exception {
+        // Start from a model of its own: replay changes the loaded resource, which Epsilon shares by URI
+        ModelPersistence.save(TestModels.load(), new File(dir, "mogao.model"), ModelPersistence.Format.XMI);
+        EpsilonModelManager journaled = new EpsilonModelManager(true, "xmi", true, 0, 64, dir);
+        rename(journaled, "statue-001", "Journaled");
+
+        EpsilonModelManager recovered = new EpsilonModelManager(true, "xmi", true, 0, 64, dir);
+        assertEquals("Journaled", name(recovered, "statue-001"));
+    }
+
+    @Test
+    void writesThatTouchNothingInCommonCatchUp() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        Semaphore reading = new Semaphore(0);
+        Semaphore committed = new Semaphore(0);
+
+        Future<?> writer = executor.submit(() -> manager.executeUnitOfWork(STATUE_SCRIPT, tx -> {
+            tx.call("updateStatue", "statue-002", "Renamed 2", null);
+            if (attempts.incrementAndGet() == 1) {
+                reading.release();
+                committed.acquire();
+            }
+            return null;
+        }));
+        awaitPermit(reading, writer);
+        rename(manager, "statue-001", "Renamed 1");
+        committed.release();
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, attempts.get());
+        assertEquals("Renamed 1", name(manager, "statue-001"));
+        assertEquals("Renamed 2", name(manager, "statue-002"));
+    }
+
+    @Test
+    void propertyReadsConflictWithConcurrentChanges() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        Semaphore reading = new Semaphore(0);
+        Semaphore committed = new Semaphore(0);
+
+        // Finds the statue by comparing names, not through the GID index
+        Future<?> writer = executor.submit(() -> manager.executeUnitOfWork(STATUE_SCRIPT, tx -> {
+            Object found = tx.call("getStatueByName", "Central Buddha Statue");
+            if (attempts.incrementAndGet() == 1) {
+                reading.release();
+                committed.acquire();
+            }
+            tx.call("updateStatue", "statue-002", null, found != null ? "Found" : "Missing");
+            return null;
+        }));
+        awaitPermit(reading, writer);
+        rename(manager, "statue-001", "Renamed");
+        committed.release();
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, attempts.get());
+        assertEquals("Missing", attribute(manager.getSnapshot(), "statue-002", "description"));
+    }
+
+    @Test
+    void listingAKindConflictsWithConcurrentCreates() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        Semaphore reading = new Semaphore(0);
+        Semaphore committed = new Semaphore(0);
+
+        Future<?> writer = executor.submit(() -> manager.executeUnitOfWork(CONFLICT_SCRIPT, tx -> {
+            Object count = tx.call("countCaves");
+            if (attempts.incrementAndGet() == 1) {
+                reading.release();
+                committed.acquire();
+            }
+            tx.call("updateCaveDescription", "cave-001", "Caves: " + count);
+            return null;
+        }));
+        awaitPermit(reading, writer);
+        manager.executeUnitOfWork(CONFLICT_SCRIPT, tx -> tx.call("createRootCave", "cave-002"));
+        committed.release();
+        writer.get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, attempts.get());
+        assertEquals("Caves: 2", attribute(manager.getSnapshot(), "cave-001", "description"));
+    }
+
+    @Test
+    void writesThatKeepConflictingRunWithCommitsBlocked() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        Semaphore reading = new Semaphore(0);
+        Semaphore committed = new Semaphore(0);
+
+        Future<?> writer = executor.submit(() -> manager.executeUnitOfWork(STATUE_SCRIPT, tx -> {
+            Object name = attribute(tx.call("getStatueByGid", "statue-001"), "name");
+            if (attempts.incrementAndGet() <= 3) {
+                reading.release();
+                committed.acquire();
+            }
+            tx.call("updateStatue", "statue-002", null, name);
+            return null;
+        }));
+        for (int i = 1; i <= 3; i++) {
+            awaitPermit(reading, writer);
+            rename(manager, "statue-001", "Name " + i);
+            committed.release();
+        }
+        writer.get(10, TimeUnit.SECONDS);
+
+        // Three optimistic attempts, then one that cannot conflict
+        assertEquals(4, attempts.get());
+        assertEquals("Name 3", attribute(manager.getSnapshot(), "statue-002", "description"));
+    }
+
+    @Test
+    void tornJournalTailIsDiscardedOnReplay() throws Exception {
+        ModelPersistence.save(TestModels.load(), new File(dir, "mogao.model"), ModelPersistence.Format.XMI);
+        EpsilonModelManager journaled = new EpsilonModelManager(true, "xmi", true, 0, 64, dir);
+        rename(journaled, "statue-001", "First");
+        rename(journaled, "statue-002", "Second");
+
+        // A crash in the middle of the second append
+        File journal = dir.listFiles((file, name) -> name.endsWith(".journal"))[0];
+        try (RandomAccessFile file = new RandomAccessFile(journal, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+
+        EpsilonModelManager recovered = new EpsilonModelManager(true, "xmi", true, 0, 64, dir);
+        assertEquals("First", name(recovered, "statue-001"));
+        assertEquals("Manually Added Test Statue", name(recovered, "statue-002"));
+    }
+
+    /**
+     * Wait for the writer to signal, failing with the writer's error if it stopped instead
+     */
+    private static void awaitPermit(Semaphore semaphore, Future<?> writer) throws Exception {
+        while (!semaphore.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            if (writer.isDone()) {
+                writer.get();
+                fail("Writer finished without signalling");
+            }
+        }
+    }
+
+    static void rename(EpsilonModelManager manager, String gid, String name) throws Exception {
+        manager.executeUnitOfWork(STATUE_SCRIPT, gid, tx -> tx.call("updateStatue", gid, name, null));
+    }
+
+    static String name(EpsilonModelManager manager, String gid) throws Exception {
+        return manager.executeEolRead(STATUE_SCRIPT, "getStatueByGid", statue -> (String) attribute(statue, "name"), gid);
+    }
+
+    static <T> List<T> collect(ModelStream<T> stream) throws Exception {
+        List<T> items = new ArrayList<>();
+        CompletableFuture<List<T>> done = new CompletableFuture<>();
+        stream.subscribe(new Subscriber<T>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(T item) {
+                items.add(item);
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(items);
+            }
+        });
+        return done.get(10, TimeUnit.SECONDS);
+    }
+
+    static Object attribute(EmfModel model, String gid, String featureName) {
+        return attribute(GidIndex.of(model.getResource()).byGid(gid), featureName);
+    }
+
+    static Object attribute(Object eObject, String featureName) {
+        EObject object = (EObject) eObject;
+        return object.eGet(object.eClass().getEStructuralFeature(featureName));
+    }
+}
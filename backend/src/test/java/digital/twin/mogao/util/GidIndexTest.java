@@ -0,0 +1,161 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GID index lookups, kept current by notifications, and recording of a writer's reads and writes
+ */
+class GidIndexTest {
+
+    private Resource resource;
+    private GidIndex index;
+
+    @BeforeEach
+    void loadModel() throws Exception {
+        resource = TestModels.load();
+        index = GidIndex.of(resource);
+    }
+
+    @Test
+    void findsObjectsByGidAndKind() {
+        EObject statue = index.byGid("statue-001");
+
+        assertEquals("Statue", statue.eClass().getName());
+        assertSame(statue, index.byGid("statue-001", "Statue"));
+        assertSame(statue, index.byGid("statue-001", "Exhibit"));
+        assertNull(index.byGid("statue-001", "Mural"));
+        assertNull(index.byGid("missing"));
+        assertNull(index.byGid(null));
+        assertSame(index, GidIndex.of(resource));
+    }
+
+    @Test
+    void followsGidChanges() {
+        EObject statue = index.byGid("statue-001");
+
+        set(statue, "gid", "statue-renamed");
+
+        assertNull(index.byGid("statue-001"));
+        assertSame(statue, index.byGid("statue-renamed"));
+    }
+
+    @Test
+    void followsObjectsAddedAndRemoved() {
+        EObject cave = index.byGid("cave-001");
+        EObject statue = index.byGid("statue-001");
+        int size = index.size();
+
+        exhibits(cave).remove(statue);
+        assertNull(index.byGid("statue-001"));
+        // Its contents go with it
+        assertNull(index.byGid("coord-statue-001"));
+
+        EObject added = EcoreUtil.create(statue.eClass());
+        set(added, "gid", "statue-003");
+        exhibits(cave).add(added);
+        assertSame(added, index.byGid("statue-003"));
+        assertEquals(size - 1, index.size());
+    }
+
+    @Test
+    void recordsReadsAndWritesWhileRecording() {
+        GidIndex.TouchSet touched = index.startRecording();
+        EObject statue = index.byGid("statue-001");
+        set(statue, "name", "Renamed");
+        // An object without gid is attributed to its owner
+        EObject reference = (EObject) statue.eGet(statue.eClass().getEStructuralFeature("reference"));
+        set(reference, "modelLocation", "/exhibit_models/blobs/ab/ab.obj");
+        index.stopRecording();
+        set(index.byGid("statue-002"), "name", "Not recorded");
+
+        assertEquals(Set.of("statue-001"), touched.getWrites());
+        assertEquals(Set.of("statue-001", "cave-001"), touched.getChanged());
+        assertTrue(touched.conflictsWith(Collections.singleton("statue-001")));
+        // The cave was read as the statue's container
+        assertTrue(touched.conflictsWith(Collections.singleton("cave-001")));
+        assertFalse(touched.conflictsWith(Collections.singleton("statue-002")));
+    }
+
+    @Test
+    void recordsObjectsAddedToAContainmentAsWritten() {
+        EObject cave = index.byGid("cave-001");
+        EObject added = EcoreUtil.create(index.byGid("statue-002").eClass());
+        set(added, "gid", "statue-003");
+
+        GidIndex.TouchSet touched = index.startRecording();
+        exhibits(cave).add(added);
+        index.stopRecording();
+
+        assertTrue(touched.getWrites().contains("cave-001"));
+        assertTrue(touched.getWrites().contains("statue-003"));
+        assertNotNull(index.byGid("statue-003"));
+    }
+
+    @Test
+    void objectsRemovedAndNotAddedBackAreDeleted() {
+        EObject cave = index.byGid("cave-001");
+        EObject moved = index.byGid("statue-002");
+
+        GidIndex.TouchSet touched = index.startRecording();
+        exhibits(cave).remove(index.byGid("statue-001"));
+        exhibits(cave).remove(moved);
+        exhibits(cave).add(moved);
+        index.stopRecording();
+
+        Map<String, EClass> deleted = index.deleted(touched);
+        // Its contents go with it
+        assertEquals(Set.of("statue-001", "coord-statue-001"), deleted.keySet());
+        assertEquals("Statue", deleted.get("statue-001").getName());
+    }
+
+    @Test
+    void listingAKindConflictsWithAddingOneOfThatKind() {
+        GidIndex.TouchSet exhibitReader = index.startRecording();
+        index.recordKindRead("Exhibit");
+        index.stopRecording();
+        GidIndex.TouchSet caveReader = index.startRecording();
+        index.recordKindRead("Cave");
+        index.stopRecording();
+        GidIndex.TouchSet everythingReader = index.startRecording();
+        index.recordKindRead(GidIndex.ALL_KINDS);
+        index.stopRecording();
+
+        EObject added = EcoreUtil.create(index.byGid("statue-002").eClass());
+        GidIndex.TouchSet creator = index.startRecording();
+        exhibits(index.byGid("cave-001")).add(added);
+        index.stopRecording();
+
+        // A statue without gid yet: only its kind tells the readers apart
+        assertTrue(exhibitReader.conflictsWith(creator));
+        assertFalse(caveReader.conflictsWith(creator));
+        assertTrue(everythingReader.conflictsWith(creator));
+    }
+
+    private static void set(EObject eObject, String featureName, Object value) {
+        EStructuralFeature feature = eObject.eClass().getEStructuralFeature(featureName);
+        eObject.eSet(feature, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EList<EObject> exhibits(EObject cave) {
+        return (EList<EObject>) cave.eGet(cave.eClass().getEStructuralFeature("exhibits"));
+    }
+}
@@ -0,0 +1,55 @@
+package digital.twin.mogao.util;
+
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conditional request matching against model-version entity tags
+ */
+class ModelETagTest {
+
+    private static final String ETAG = ModelETag.of(42);
+
+    @Test
+    void tagsAreWeakVersions() {
+        assertEquals("W/\"42\"", ETAG);
+    }
+
+    @Test
+    void ifNoneMatchIsComparedWeakly() {
+        assertTrue(ModelETag.matches(request("W/\"42\""), ETAG));
+        assertTrue(ModelETag.matches(request("\"42\""), ETAG));
+        assertTrue(ModelETag.matches(request("W/\"7\", W/\"42\""), ETAG));
+        assertFalse(ModelETag.matches(request("W/\"41\""), ETAG));
+        assertFalse(ModelETag.matches(HttpRequest.GET("/statues"), ETAG));
+    }
+
+    @Test
+    void anyTagMatchesOnlyAnExistingResource() {
+        assertTrue(ModelETag.matches(request("*"), ETAG, () -> true));
+        assertFalse(ModelETag.matches(request("*"), ETAG, () -> false));
+        // Lists always exist
+        assertTrue(ModelETag.matches(request("*"), ETAG));
+    }
+
+    @Test
+    void existenceIsOnlyCheckedForAnyTag() {
+        AtomicBoolean checked = new AtomicBoolean();
+
+        assertTrue(ModelETag.matches(request("W/\"42\""), ETAG, () -> checked.getAndSet(true)));
+        assertFalse(ModelETag.matches(request("W/\"41\""), ETAG, () -> checked.getAndSet(true)));
+
+        assertFalse(checked.get());
+    }
+
+    private static HttpRequest<?> request(String ifNoneMatch) {
+        return HttpRequest.GET("/statues/statue-001").header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+    }
+}
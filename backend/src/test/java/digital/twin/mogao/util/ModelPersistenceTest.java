@@ -0,0 +1,100 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMLResource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Saving and loading the instance model in each on-disk format
+ */
+class ModelPersistenceTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void xmiRoundTripKeepsContentsAndIds() throws Exception {
+        assertRoundTrip(ModelPersistence.Format.XMI);
+    }
+
+    @Test
+    void binaryRoundTripKeepsContentsAndIds() throws Exception {
+        assertRoundTrip(ModelPersistence.Format.BINARY);
+    }
+
+    @Test
+    void failedSaveLeavesThePreviousFile() throws Exception {
+        Resource model = TestModels.load();
+        File file = new File(dir, ModelPersistence.Format.XMI.getFileName());
+        ModelPersistence.save(model, file, ModelPersistence.Format.XMI);
+        long length = file.length();
+
+        // A directory where the temporary file goes makes the write fail
+        File tempFile = new File(dir, file.getName() + ".tmp");
+        assertTrue(tempFile.mkdir());
+        assertThrows(Exception.class, () -> ModelPersistence.save(model, file, ModelPersistence.Format.XMI));
+
+        assertEquals(length, file.length());
+        assertEquals(ids(model), ids(ModelPersistence.load(file, ModelPersistence.Format.XMI)));
+    }
+
+    @Test
+    void truncatedBinaryFileFailsToLoad() throws Exception {
+        File file = new File(dir, ModelPersistence.Format.BINARY.getFileName());
+        ModelPersistence.save(TestModels.load(), file, ModelPersistence.Format.BINARY);
+        long length = file.length();
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.getChannel().truncate(length / 2);
+        }
+
+        assertThrows(Exception.class, () -> ModelPersistence.load(file, ModelPersistence.Format.BINARY));
+    }
+
+    @Test
+    void formatsAreParsedByNameAndFile() {
+        assertEquals(ModelPersistence.Format.BINARY, ModelPersistence.Format.of("Binary"));
+        assertEquals(ModelPersistence.Format.XMI, ModelPersistence.Format.of("xmi"));
+        assertEquals(ModelPersistence.Format.BINARY, ModelPersistence.Format.forFile(new File("mogao.bin")));
+        assertEquals(ModelPersistence.Format.XMI, ModelPersistence.Format.forFile(new File("mogao.model")));
+        assertThrows(IllegalArgumentException.class, () -> ModelPersistence.Format.of("json"));
+    }
+
+    private void assertRoundTrip(ModelPersistence.Format format) throws Exception {
+        Resource model = TestModels.load();
+        File file = new File(dir, format.getFileName());
+
+        ModelPersistence.save(model, file, format);
+        Resource loaded = ModelPersistence.load(file, format);
+
+        assertFalse(new File(dir, file.getName() + ".tmp").exists());
+        assertEquals(model.getContents().size(), loaded.getContents().size());
+        for (int i = 0; i < model.getContents().size(); i++) {
+            assertTrue(EcoreUtil.equals(model.getContents().get(i), loaded.getContents().get(i)));
+        }
+        assertEquals(ids(model), ids(loaded));
+        assertTrue(ids(loaded).contains("statue-001"));
+    }
+
+    private static List<String> ids(Resource resource) {
+        List<String> ids = new ArrayList<>();
+        TreeIterator<EObject> contents = resource.getAllContents();
+        while (contents.hasNext()) {
+            ids.add(((XMLResource) resource).getID(contents.next()));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,85 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Filtering, sorting and paging on model objects, built from request parameters
+ */
+class ModelQueryTest {
+
+    private Resource resource;
+    private final ModificationStamps stamps = new ModificationStamps();
+
+    @BeforeEach
+    void loadModel() throws Exception {
+        resource = TestModels.load();
+    }
+
+    @Test
+    void filtersSortsAndPages() {
+        ModelQuery.Page<String> page = run("Exhibit", Map.of(
+            "sort", List.of("-name"),
+            "offset", List.of("1"),
+            "limit", List.of("1")));
+
+        assertEquals(List.of("Manually Added Test Statue"), page.getItems());
+        assertEquals(3, page.getTotal());
+
+        ModelQuery.Page<String> statues = run("Statue", Map.of("label", List.of("Manual Test Statue")));
+        assertEquals(List.of("Manually Added Test Statue"), statues.getItems());
+    }
+
+    @Test
+    void parametersThatNameNoAttributeAreIgnored() {
+        ModelQuery.Page<String> page = run("Statue", Map.of("_", List.of("1718000000000"), "sort", List.of("name")));
+
+        assertEquals(List.of("Central Buddha Statue", "Manually Added Test Statue"), page.getItems());
+    }
+
+    @Test
+    void viewOptionsAreNotFilters() {
+        ModelQuery.Page<String> page = run("Statue", Map.of("fields", List.of("name"), "depth", List.of("0")));
+
+        assertEquals(2, page.getTotal());
+    }
+
+    @Test
+    void invalidOptionsAndValuesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> run("Statue", Map.of("limit", List.of("-1"))));
+        assertThrows(IllegalArgumentException.class, () -> run("Statue", Map.of("since", List.of("x"))));
+        assertThrows(IllegalArgumentException.class, () -> run("Statue", Map.of("sort", List.of("unknown"))));
+        assertThrows(IllegalArgumentException.class, () -> run("Statue", Map.of("width", List.of("wide"))));
+    }
+
+    @Test
+    void sinceKeepsObjectsChangedAfterAVersion() {
+        stamps.stamp(Set.of("statue-002"), stamps.getBaseVersion() + 1);
+
+        ModelQuery.Page<String> page = run("Statue", Map.of("since", List.of(String.valueOf(stamps.getBaseVersion()))));
+
+        assertEquals(List.of("Manually Added Test Statue"), page.getItems());
+    }
+
+    @Test
+    void unknownTypesMatchNothing() {
+        assertEquals(0, run("Unknown", Map.of()).getTotal());
+    }
+
+    private ModelQuery.Page<String> run(String typeName, Map<String, List<String>> parameters) {
+        return ModelQuery.fromParameters(typeName, parameters).execute(resource, stamps, ModelQueryTest::name);
+    }
+
+    private static String name(EObject eObject) {
+        return (String) eObject.eGet(eObject.eClass().getEStructuralFeature("name"));
+    }
+}
@@ -0,0 +1,146 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.ecore.EObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Conversion on demand and release of the model a stream holds
+ */
+class ModelStreamTest {
+
+    private List<EObject> statues;
+    private final AtomicInteger converted = new AtomicInteger();
+    private final AtomicInteger released = new AtomicInteger();
+    private final CountDownLatch releasedLatch = new CountDownLatch(1);
+
+    @BeforeEach
+    void loadModel() throws Exception {
+        GidIndex index = GidIndex.of(TestModels.load());
+        statues = List.of(index.byGid("statue-001"), index.byGid("statue-002"));
+    }
+
+    @Test
+    void convertsOnlyWhatIsRequestedAndReleasesOnComplete() {
+        ModelStream<String> stream = stream(ModelStream.SUBSCRIBE_TIMEOUT_MILLIS);
+        Recorder<String> recorder = new Recorder<>();
+        stream.subscribe(recorder);
+
+        recorder.subscription.request(1);
+        assertEquals(List.of("statue-001"), recorder.items);
+        assertEquals(1, converted.get());
+        assertEquals(0, released.get());
+
+        recorder.subscription.request(5);
+        assertEquals(List.of("statue-001", "statue-002"), recorder.items);
+        assertTrue(recorder.completed);
+        assertEquals(1, released.get());
+    }
+
+    @Test
+    void cancelReleasesTheModel() {
+        Recorder<String> recorder = new Recorder<>();
+        stream(ModelStream.SUBSCRIBE_TIMEOUT_MILLIS).subscribe(recorder);
+
+        recorder.subscription.cancel();
+        recorder.subscription.cancel();
+
+        assertEquals(1, released.get());
+        assertEquals(0, converted.get());
+    }
+
+    @Test
+    void streamNeverSubscribedToReleasesTheModel() throws Exception {
+        ModelStream<String> stream = stream(50);
+
+        assertTrue(releasedLatch.await(5, TimeUnit.SECONDS));
+        Recorder<String> late = new Recorder<>();
+        stream.subscribe(late);
+
+        assertInstanceOf(IllegalStateException.class, late.error);
+        assertEquals(0, converted.get());
+        assertEquals(1, released.get());
+    }
+
+    @Test
+    void subscribedStreamIsNotReleasedByTheTimeout() throws Exception {
+        ModelStream<Integer> mapped = stream(50).map(String::length);
+        Recorder<Integer> recorder = new Recorder<>();
+        mapped.subscribe(recorder);
+
+        assertFalse(releasedLatch.await(200, TimeUnit.MILLISECONDS));
+        recorder.subscription.request(Long.MAX_VALUE);
+        assertEquals(List.of(10, 10), recorder.items);
+        assertEquals(1, released.get());
+    }
+
+    @Test
+    void onlyOneOfAStreamAndItsMappedStreamsCanBeSubscribed() {
+        ModelStream<String> stream = stream(ModelStream.SUBSCRIBE_TIMEOUT_MILLIS);
+        ModelStream<Integer> mapped = stream.map(String::length);
+        Recorder<Integer> first = new Recorder<>();
+        Recorder<String> second = new Recorder<>();
+
+        mapped.subscribe(first);
+        stream.subscribe(second);
+
+        assertNull(first.error);
+        assertInstanceOf(IllegalStateException.class, second.error);
+        assertEquals(2, stream.getTotal());
+        assertEquals(7, mapped.getVersion());
+    }
+
+    private ModelStream<String> stream(long subscribeTimeoutMillis) {
+        return new ModelStream<>(new ModelQuery.Page<>(statues, statues.size(), 0, -1, List.of()), 7, eObject -> {
+            converted.incrementAndGet();
+            return GidIndex.gidOf(eObject);
+        }, () -> {
+            released.incrementAndGet();
+            releasedLatch.countDown();
+        }, subscribeTimeoutMillis);
+    }
+
+    /**
+     * Subscriber that keeps what it receives and requests nothing by itself
+     */
+    private static class Recorder<T> implements Subscriber<T> {
+        private final List<T> items = new ArrayList<>();
+        private Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Per-object stamps, tombstones of deleted objects, and the bound on how many are kept
+ */
+class ModificationStampsTest {
+
+    private static final long BASE = 1_000;
+
+    private EPackage metamodel;
+
+    @BeforeEach
+    void loadMetamodel() throws Exception {
+        metamodel = TestModels.load().getContents().get(0).eClass().getEPackage();
+    }
+
+    @Test
+    void deletionsAreListedByKindAfterTheirVersion() {
+        ModificationStamps stamps = new ModificationStamps(BASE, 100);
+        stamps.stamp(Set.of("statue-001", "defect-001"), BASE + 1);
+        stamps.delete(Map.of("statue-001", eClass("Statue")), BASE + 2);
+        stamps.delete(Map.of("defect-001", eClass("Defect")), BASE + 3);
+
+        assertEquals(List.of("statue-001"), stamps.deletedSince(eClass("Statue"), BASE));
+        assertEquals(List.of("statue-001"), stamps.deletedSince(eClass("Exhibit"), BASE + 1));
+        assertEquals(List.of(), stamps.deletedSince(eClass("Statue"), BASE + 2));
+        assertEquals(List.of("defect-001"), stamps.deletedSince(eClass("Defect"), BASE + 2));
+        // The ETag of a deleted object is its deletion
+        assertEquals(BASE + 2, stamps.stampOf("statue-001"));
+    }
+
+    @Test
+    void reusedGidIsNoLongerDeleted() {
+        ModificationStamps stamps = new ModificationStamps(BASE, 100);
+        stamps.delete(Map.of("statue-003", eClass("Statue")), BASE + 1);
+
+        stamps.stamp(Set.of("statue-003"), BASE + 2);
+
+        assertEquals(List.of(), stamps.deletedSince(eClass("Statue"), BASE));
+        assertEquals(BASE + 2, stamps.stampOf("statue-003"));
+    }
+
+    @Test
+    void oldestStampsAreForgottenBeyondTheCapacity() {
+        ModificationStamps stamps = new ModificationStamps(BASE, 8);
+        for (int i = 1; i <= 20; i++) {
+            stamps.stamp(Set.of("statue-" + i), BASE + i);
+        }
+        stamps.delete(Map.of("statue-20", eClass("Statue")), BASE + 21);
+
+        assertTrue(stamps.size() <= 8, "size " + stamps.size());
+        long horizon = stamps.getHorizon();
+        assertTrue(horizon > BASE && horizon < BASE + 20, "horizon " + horizon);
+        // A forgotten stamp is taken as the horizon: never older than the real one
+        assertEquals(horizon, stamps.stampOf("statue-1"));
+        assertEquals(BASE + 19, stamps.stampOf("statue-19"));
+        assertEquals(horizon, stamps.stampOf("never-changed"));
+
+        assertEquals(List.of("statue-20"), stamps.deletedSince(eClass("Statue"), horizon));
+        assertThrows(ModificationStamps.ExpiredVersionException.class,
+            () -> stamps.deletedSince(eClass("Statue"), horizon - 1));
+    }
+
+    @Test
+    void deletionsFromAnEarlierRunAreNotKnown() {
+        ModificationStamps stamps = new ModificationStamps(BASE, 100);
+
+        assertEquals(List.of(), stamps.deletedSince(eClass("Statue"), BASE));
+        assertThrows(ModificationStamps.ExpiredVersionException.class,
+            () -> stamps.deletedSince(eClass("Statue"), BASE - 1));
+    }
+
+    private EClass eClass(String name) {
+        return (EClass) metamodel.getEClassifier(name);
+    }
+}
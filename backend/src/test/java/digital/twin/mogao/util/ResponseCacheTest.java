@@ -0,0 +1,138 @@
+package digital.twin.mogao.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import digital.twin.mogao.dto.StatueDTO;
+import digital.twin.mogao.service.StatueService;
+import io.micronaut.http.HttpRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Serialised object responses cached by the version of the object they show
+ */
+class ResponseCacheTest {
+
+    private static final String GID = "statue-001";
+    private static final HttpRequest<?> REQUEST = HttpRequest.GET("/statues/" + GID);
+
+    @TempDir
+    File dir;
+
+    private EpsilonModelManager manager;
+    private ResponseCache cache;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @BeforeEach
+    void createCache() {
+        manager = new EpsilonModelManager(true, "xmi", false, 0, 64, dir);
+        cache = new ResponseCache(manager, true, 1 << 20);
+    }
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void cachedResponsesAreServedWithoutRendering() {
+        AtomicInteger renders = new AtomicInteger();
+        ResponseCache.Renderer renderer = () -> {
+            renders.incrementAndGet();
+            return new Stamped<>(5, bytes("five"));
+        };
+
+        cache.get(REQUEST, 5, GID, renderer);
+        Stamped<byte[]> cached = cache.get(REQUEST, 5, GID, renderer);
+
+        assertEquals(1, renders.get());
+        assertEquals(5, cached.getStamp());
+        assertEquals("five", text(cached.getValue()));
+    }
+
+    @Test
+    void responsesAreCachedUnderTheVersionTheyShow() {
+        AtomicInteger renders = new AtomicInteger();
+        ResponseCache.Renderer renderer = () -> {
+            renders.incrementAndGet();
+            return new Stamped<>(7, bytes("seven"));
+        };
+
+        // The object changed after version 5 was looked up
+        Stamped<byte[]> rendered = cache.get(REQUEST, 5, GID, renderer);
+        Stamped<byte[]> cached = cache.get(REQUEST, 7, GID, renderer);
+
+        assertEquals(7, rendered.getStamp());
+        assertEquals(1, renders.get());
+        assertEquals("seven", text(cached.getValue()));
+        cache.get(REQUEST, 5, GID, renderer);
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    void bodiesMatchTheirVersionUnderConcurrentWrites() throws Exception {
+        StatueService statueService = new StatueService(manager);
+        ObjectMapper objectMapper = new ObjectMapper();
+        // Name the statue had at each version of its last change
+        Map<Long, String> names = new ConcurrentHashMap<>();
+        names.put(manager.getModificationStamp(GID), statueService.getStatueByGid(GID).getName());
+
+        Future<?> writer = executor.submit(() -> {
+            for (int i = 0; i < 100; i++) {
+                String name = "Statue " + i;
+                EpsilonModelManagerTest.rename(manager, GID, name);
+                names.put(manager.getModificationStamp(GID), name);
+            }
+            return null;
+        });
+
+        List<Future<List<Stamped<String>>>> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(executor.submit(() -> {
+                List<Stamped<String>> seen = new ArrayList<>();
+                while (!writer.isDone()) {
+                    Stamped<byte[]> body = cache.get(REQUEST, manager.getModificationStamp(GID), GID, () -> {
+                        Stamped<StatueDTO> result = statueService.getStampedStatue(GID, DtoView.ALL);
+                        return new Stamped<>(result.getStamp(), objectMapper.writeValueAsBytes(result.getValue()));
+                    });
+                    seen.add(new Stamped<>(body.getStamp(),
+                        objectMapper.readValue(body.getValue(), StatueDTO.class).getName()));
+                }
+                return seen;
+            }));
+        }
+
+        writer.get();
+        int checked = 0;
+        for (Future<List<Stamped<String>>> reader : readers) {
+            for (Stamped<String> seen : reader.get()) {
+                assertEquals(names.get(seen.getStamp()), seen.getValue(), "body for version " + seen.getStamp());
+                checked++;
+            }
+        }
+        assertTrue(checked > 0);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
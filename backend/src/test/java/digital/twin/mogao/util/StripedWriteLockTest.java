@@ -0,0 +1,96 @@
+package digital.twin.mogao.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stripe selection, blocking per stripe and contention metrics
+ */
+class StripedWriteLockTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void stripeCountIsRoundedUpToAPowerOfTwo() {
+        assertEquals(64, new StripedWriteLock(64).getStripeCount());
+        assertEquals(8, new StripedWriteLock(5).getStripeCount());
+        assertEquals(1, new StripedWriteLock(0).getStripeCount());
+    }
+
+    @Test
+    void keysAlwaysMapToTheSameStripe() {
+        StripedWriteLock lock = new StripedWriteLock(16);
+
+        assertSame(lock.stripeFor("cave-001"), lock.stripeFor("cave-001"));
+        assertNotSame(lock.stripeFor("cave-001"), lock.stripeFor(otherStripeKey(lock, "cave-001")));
+    }
+
+    @Test
+    void writersOfTheSameStripeWaitAndAreCounted() throws Exception {
+        StripedWriteLock lock = new StripedWriteLock(16);
+        StripedWriteLock.Stripe held = lock.lock("cave-001");
+
+        CountDownLatch locked = new CountDownLatch(1);
+        Future<?> waiter = executor.submit(() -> {
+            lock.lock("cave-001").unlock();
+            locked.countDown();
+        });
+        assertFalse(locked.await(200, TimeUnit.MILLISECONDS));
+        held.unlock();
+        waiter.get(10, TimeUnit.SECONDS);
+
+        List<StripedWriteLock.StripeMetrics> metrics = lock.getMetrics();
+        assertEquals(1, metrics.size());
+        assertEquals(2, metrics.get(0).getAcquisitions());
+        assertEquals(1, metrics.get(0).getContended());
+        assertTrue(metrics.get(0).getMaxWaitMs() >= 100);
+        assertEquals("cave-001", metrics.get(0).getLastKey());
+    }
+
+    @Test
+    void writersOfOtherStripesDoNotWait() throws Exception {
+        StripedWriteLock lock = new StripedWriteLock(16);
+        String otherKey = otherStripeKey(lock, "cave-001");
+        StripedWriteLock.Stripe held = lock.lock("cave-001");
+        try {
+            executor.submit(() -> lock.lock(otherKey).unlock()).get(10, TimeUnit.SECONDS);
+        } finally {
+            held.unlock();
+        }
+
+        assertEquals(2, lock.getMetrics().size());
+        for (StripedWriteLock.StripeMetrics metrics : lock.getMetrics()) {
+            assertEquals(0, metrics.getContended());
+        }
+    }
+
+    /**
+     * A key mapping to another stripe than the given one
+     */
+    private static String otherStripeKey(StripedWriteLock lock, String key) {
+        for (int i = 2; ; i++) {
+            String other = String.format("cave-%03d", i);
+            if (lock.stripeFor(other) != lock.stripeFor(key)) {
+                return other;
+            }
+        }
+    }
+}
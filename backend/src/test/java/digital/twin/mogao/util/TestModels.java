@@ -0,0 +1,47 @@
+package digital.twin.mogao.util;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.xmi.impl.EcoreResourceFactoryImpl;
+
+import java.io.File;
+import java.net.URL;
+
+/**
+ * Fresh copies of the instance model for tests
+ * (EmfModel shares loaded resources by URI, so tests that change a model load their own)
+ */
+public final class TestModels {
+
+    private TestModels() {
+    }
+
+    /**
+     * A new resource holding the classpath instance model, with its metamodel registered
+     */
+    public static Resource load() throws Exception {
+        registerMetamodel();
+        URL modelUrl = TestModels.class.getClassLoader().getResource("models/instances/mogao.model");
+        return ModelPersistence.load(new File(modelUrl.toURI()), ModelPersistence.Format.XMI);
+    }
+
+    /**
+     * A resident manager without journal saving the instance model to its own directory
+     */
+    public static EpsilonModelManager manager(File modelDirectory) {
+        return new EpsilonModelManager(true, "xmi", false, 0, 64, modelDirectory);
+    }
+
+    public static synchronized void registerMetamodel() {
+        Resource.Factory.Registry.INSTANCE.getExtensionToFactoryMap()
+            .putIfAbsent("ecore", new EcoreResourceFactoryImpl());
+        URL metamodelUrl = TestModels.class.getClassLoader().getResource("metamodel/mogao_dt.ecore");
+        ResourceSet resourceSet = new ResourceSetImpl();
+        Resource metamodel = resourceSet.getResource(URI.createURI(metamodelUrl.toString()), true);
+        EPackage ePackage = (EPackage) metamodel.getContents().get(0);
+        EPackage.Registry.INSTANCE.putIfAbsent(ePackage.getNsURI(), ePackage);
+    }
+}
@@ -0,0 +1,26 @@
+// Regenerates js-reference.json from frontend/deterioration/DeteriorationEngine.js:
+//   node src/test/resources/deterioration/generate-reference.mjs > src/test/resources/deterioration/js-reference.json
+// (run from backend/; the engine is an ES module without a package.json, so it is imported as source)
+import { readFileSync } from 'fs';
+
+const source = readFileSync(new URL('../../../../../frontend/deterioration/DeteriorationEngine.js', import.meta.url), 'utf8');
+const Engine = await import('data:text/javascript,' + encodeURIComponent(source));
+
+const cases = [];
+for (const T_celsius of [-5, 0, 8, 18, 25, 40]) {
+    for (const RH_percent of [0, 20, 45, 70, 85, 100]) {
+        for (const light_klux of [0, 0.2]) {
+            for (const totalDays of [0, 365, 3650]) {
+                cases.push({ T_celsius, RH_percent, light_klux, totalDays });
+            }
+        }
+    }
+}
+cases.push({ T_celsius: 22, RH_percent: 90, light_klux: 0, totalDays: 100, prevMouldIndex: 2.5 });
+cases.push({ T_celsius: 15, RH_percent: 40, light_klux: 0.05, totalDays: 3650,
+    chemicalParams: { Ea_dark: 80000, k0_light: 0.002 } });
+cases.push({ T_celsius: 30, RH_percent: 30, light_klux: 0, totalDays: 730,
+    lifetimeParams: { Ea: 100000, n: 1.0, RH0: 45 }, saltCrystParams: { tensileStrength: 1.5, cyclesPerYear: 300 } });
+cases.push({ T_celsius: 28, RH_percent: 95, light_klux: 0, totalDays: 20, mouldParams: { growthCoeff: 0.3 } });
+
+console.log(JSON.stringify(cases.map(input => ({ input, output: Engine.assess(input) }))));
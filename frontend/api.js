@@ -51,7 +51,7 @@ const api = {
 
     // Cave endpoints
     caves: {
-        getAll: () => apiClient.get('/caves'),
+        getAll: (params) => apiClient.get('/caves', { params }),
         getByGid: (gid) => apiClient.get(`/caves/${gid}`),
         create: (data) => apiClient.post('/caves', data),
         update: (gid, data) => apiClient.put(`/caves/${gid}`, data),
@@ -60,7 +60,7 @@ const api = {
 
     // Defect endpoints
     defects: {
-        getAll: () => apiClient.get('/defects'),
+        getAll: (params) => apiClient.get('/defects', { params }),
         getByGid: (gid) => apiClient.get(`/defects/${gid}`),
         create: (data) => apiClient.post('/defects', data),
         update: (gid, data) => apiClient.put(`/defects/${gid}`, data),
@@ -69,7 +69,7 @@ const api = {
 
     // Statue endpoints
     statues: {
-        getAll: () => apiClient.get('/statues'),
+        getAll: (params) => apiClient.get('/statues', { params }),
         getByGid: (gid) => apiClient.get(`/statues/${gid}`),
         create: (data) => apiClient.post('/statues', data),
         update: (gid, data) => apiClient.put(`/statues/${gid}`, data),
@@ -78,7 +78,7 @@ const api = {
 
     // Mural endpoints
     murals: {
-        getAll: () => apiClient.get('/murals'),
+        getAll: (params) => apiClient.get('/murals', { params }),
         getByGid: (gid) => apiClient.get(`/murals/${gid}`),
         create: (data) => apiClient.post('/murals', data),
         update: (gid, data) => apiClient.put(`/murals/${gid}`, data),
@@ -87,7 +87,7 @@ const api = {
 
     // Painting endpoints
     paintings: {
-        getAll: () => apiClient.get('/paintings'),
+        getAll: (params) => apiClient.get('/paintings', { params }),
         getByGid: (gid) => apiClient.get(`/paintings/${gid}`),
         create: (data) => apiClient.post('/paintings', data),
         update: (gid, data) => apiClient.put(`/paintings/${gid}`, data),
@@ -96,7 +96,7 @@ const api = {
 
     // Inscription endpoints
     inscriptions: {
-        getAll: () => apiClient.get('/inscriptions'),
+        getAll: (params) => apiClient.get('/inscriptions', { params }),
         getByGid: (gid) => apiClient.get(`/inscriptions/${gid}`),
         create: (data) => apiClient.post('/inscriptions', data),
         update: (gid, data) => apiClient.put(`/inscriptions/${gid}`, data),
@@ -291,11 +291,14 @@ const CaveView = {
                 :caves="caves"
                 :loading="loading"
                 :selected-gid="selectedGid"
+                :total="total"
+                :query="query"
                 @select="handleSelect"
                 @edit="handleEdit"
                 @delete="handleDelete"
                 @create="handleCreate"
                 @view-detail="handleViewDetail"
+                @query="fetchCaves"
             ></cave-list>        </div>
     `
 };
@@ -417,11 +420,14 @@ const StatueView = {
                 :statues="statues"
                 :loading="loading"
                 :selected-gid="selectedGid"
+                :total="total"
+                :query="query"
                 @select="handleSelect"
                 @edit="handleEdit"
                 @delete="handleDelete"
                 @create="handleCreate"
                 @view-detail="handleViewDetail"
+                @query="fetchStatues"
             ></statue-list>        </div>
     `
 };
@@ -543,11 +549,14 @@ const MuralView = {
                 :murals="murals"
                 :loading="loading"
                 :selected-gid="selectedGid"
+                :total="total"
+                :query="query"
                 @select="handleSelect"
                 @edit="handleEdit"
                 @delete="handleDelete"
                 @create="handleCreate"
                 @view-detail="handleViewDetail"
+                @query="fetchMurals"
             ></mural-list>        </div>
     `
 };
@@ -669,11 +678,14 @@ const PaintingView = {
                 :paintings="paintings"
                 :loading="loading"
                 :selected-gid="selectedGid"
+                :total="total"
+                :query="query"
                 @select="handleSelect"
                 @edit="handleEdit"
                 @delete="handleDelete"
                 @create="handleCreate"
                 @view-detail="handleViewDetail"
+                @query="fetchPaintings"
             ></painting-list>        </div>
     `
 };
@@ -795,11 +807,14 @@ const InscriptionView = {
                 :inscriptions="inscriptions"
                 :loading="loading"
                 :selected-gid="selectedGid"
+                :total="total"
+                :query="query"
                 @select="handleSelect"
                 @edit="handleEdit"
                 @delete="handleDelete"
                 @create="handleCreate"
                 @view-detail="handleViewDetail"
+                @query="fetchInscriptions"
             ></inscription-list>        </div>
     `
 };
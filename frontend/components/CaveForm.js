@@ -269,10 +269,11 @@ export default {
 
                     const formData = new FormData();
                     formData.append('file', file);
-                    formData.append('category', category);
 
                     try {
+                        // The category is a query parameter: the server writes the file as it arrives
                         const response = await api.post('/api/upload', formData, {
+                            params: { category },
                             headers: { 'Content-Type': 'multipart/form-data' },
                             timeout: 120000 // 2 minutes for file uploads
                         });
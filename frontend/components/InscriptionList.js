@@ -1,7 +1,9 @@
 /**
  * Inscription List Component
  * Auto-generated from mogao_dt.ecore
- * Displays list of 铭文 with search and filter
+ * Displays one page of 铭文 with search and filter
+ * Paging, sorting and attribute filters are done by the server: changes are emitted as
+ * 'query' events for the parent to fetch; the search box only narrows the page shown.
  */
 import InscriptionCard from './InscriptionCard.js';
 import ModelViewer from './ModelViewer.js';
@@ -31,14 +33,20 @@ export default {
         selectedGid: {
             type: String,
             default: null
+        },
+        total: {
+            type: Number,
+            default: 0
+        },
+        query: {
+            type: Object,
+            default: () => ({ offset: 0, limit: 50, sort: 'name' })
         }
     },
-    emits: ['select', 'edit', 'delete', 'create', 'view-detail'],
+    emits: ['select', 'edit', 'delete', 'create', 'view-detail', 'query'],
     data() {
         return {
             searchQuery: '',
-            sortBy: 'name',
-            sortDesc: false,
             autoRotate: false,
             simulationData: null,
             windowWidth: window.innerWidth,
@@ -92,6 +100,16 @@ export default {
             if (!this.isDragging) {
                 event.target.style.background = '#ddd';
             }
+        },
+        setFilter(name, value) {
+            // A filter changes the matches, so start again at the first page
+            this.$emit('query', { [name]: value, offset: 0 });
+        },
+        setSort(field, descending) {
+            this.$emit('query', { sort: (descending ? '-' : '') + field, offset: 0 });
+        },
+        showPage(offset) {
+            this.$emit('query', { offset: Math.max(0, offset) });
         }
     },
     computed: {
@@ -104,31 +122,41 @@ export default {
             // Full height available since panels are side by side
             return Math.max(400, this.windowHeight - 140 - 40 - 64);
         },
+        sortField() {
+            return (this.query.sort || 'name').replace(/^-/, '');
+        },
+        sortDesc() {
+            return (this.query.sort || '').startsWith('-');
+        },
+        hasFilters() {
+            return ['conservationStatus'].some(name => this.query[name] != null && this.query[name] !== '');
+        },
+        pageStart() {
+            return this.inscriptions.length === 0 ? 0 : (this.query.offset || 0) + 1;
+        },
+        pageEnd() {
+            return (this.query.offset || 0) + this.inscriptions.length;
+        },
+        hasPreviousPage() {
+            return (this.query.offset || 0) > 0;
+        },
+        hasNextPage() {
+            return this.pageEnd < this.total;
+        },
         filteredInscriptions() {
-            let results = [...this.inscriptions];
-
-            // Filter by search query
-            if (this.searchQuery) {
-                const query = this.searchQuery.toLowerCase();
-                results = results.filter(item =>
-                    (item.name && item.name.toLowerCase().includes(query)) ||
-                    (item.description && item.description.toLowerCase().includes(query)) ||
-                    (item.gid && item.gid.toLowerCase().includes(query))
-                );
+            // Already filtered, sorted and paged by the server
+            if (!this.searchQuery) {
+                return this.inscriptions;
             }
-
-            // Sort
-            results.sort((a, b) => {
-                const aVal = a[this.sortBy] || '';
-                const bVal = b[this.sortBy] || '';
-                const comparison = aVal.toString().localeCompare(bVal.toString());
-                return this.sortDesc ? -comparison : comparison;
-            });
-
-            return results;
+            const query = this.searchQuery.toLowerCase();
+            return this.inscriptions.filter(item =>
+                (item.name && item.name.toLowerCase().includes(query)) ||
+                (item.description && item.description.toLowerCase().includes(query)) ||
+                (item.gid && item.gid.toLowerCase().includes(query))
+            );
         },
         isEmpty() {
-            return this.inscriptions.length === 0;
+            return this.total === 0 && !this.hasFilters;
         },
         selectedItem() {
             if (!this.selectedGid) return null;
@@ -183,6 +211,34 @@ export default {
                             :placeholder="t('common.search')"
                         />
                     </div>
+
+                    <div class="list-filters" style="display: flex; flex-wrap: wrap; gap: var(--spacing-sm); margin-top: var(--spacing-sm);">
+                        <select
+                            class="form-select"
+                            :value="query.conservationStatus ?? ''"
+                            @change="setFilter('conservationStatus', $event.target.value)"
+                            :title="t('fields.conservationStatus')"
+                        >
+                            <option value="">{{ t('fields.conservationStatus') }}: {{ t('common.all') }}</option>
+                            <option value="excellent">excellent</option>
+                            <option value="good">good</option>
+                            <option value="fair">fair</option>
+                            <option value="poor">poor</option>
+                            <option value="critical">critical</option>
+                        </select>
+                        <select
+                            class="form-select"
+                            :value="sortField"
+                            @change="setSort($event.target.value, sortDesc)"
+                            :title="t('common.sort')"
+                        >
+                            <option value="name">{{ t('common.sort') }}: {{ t('fields.name') }}</option>
+                            <option value="conservationStatus">{{ t('common.sort') }}: {{ t('fields.conservationStatus') }}</option>
+                        </select>
+                        <button class="btn btn-sm" @click="setSort(sortField, !sortDesc)" :title="t('common.sort')">
+                            {{ sortDesc ? '↓' : '↑' }}
+                        </button>
+                    </div>
                 </div>
 
                 <div class="list-body" style="flex: 1; overflow-y: auto; padding: var(--spacing-sm);">
@@ -217,9 +273,13 @@ export default {
                         ></inscription-card>                    </div>
                 </div>
 
-                <div class="list-footer" style="padding: var(--spacing-sm); border-top: 1px solid var(--border); text-align: center; color: var(--text-secondary); font-size: 0.9em;">
-                    {{ filteredInscriptions.length }} {{ t('entities.inscription') }}
-                    <span v-if="searchQuery">({{ t('common.filtered') }})</span>
+                <div class="list-footer" style="display: flex; justify-content: space-between; align-items: center; padding: var(--spacing-sm); border-top: 1px solid var(--border); color: var(--text-secondary); font-size: 0.9em;">
+                    <button class="btn btn-sm" :disabled="!hasPreviousPage || loading" @click="showPage(query.offset - query.limit)" :title="t('common.previous')">‹</button>
+                    <span>
+                        {{ pageStart }}–{{ pageEnd }} / {{ total }} {{ t('entities.inscription') }}
+                        <span v-if="searchQuery || hasFilters">({{ t('common.filtered') }})</span>
+                    </span>
+                    <button class="btn btn-sm" :disabled="!hasNextPage || loading" @click="showPage(query.offset + query.limit)" :title="t('common.next')">›</button>
                 </div>
             </div>
 
@@ -4,6 +4,16 @@
  * Vue composable for 洞窟 data management
  */
 
+// Items per page requested from the server
+const PAGE_SIZE = 50;
+
+/**
+ * Request parameters of a query, without the filters that are not set
+ */
+function toParams(query) {
+    return Object.fromEntries(Object.entries(query).filter(([, value]) => value !== '' && value != null));
+}
+
 /**
  * Composable for managing 洞窟 data
  * @returns {Object} Reactive 洞窟 data and methods
@@ -18,17 +28,25 @@ export function useCaves() {
     const error = ref(null);
     const selectedCave = ref(null);
 
+    // Current page query (offset, limit, sort and attribute filters) and the number of matches across pages
+    const query = ref({ offset: 0, limit: PAGE_SIZE, sort: 'name' });
+    const total = ref(0);
+
     /**
-     * Fetch all caves
+     * Fetch one page of caves, paged, sorted and filtered by the server
+     * @param {Object} changes - Query parameters to change, e.g. { severity: 'critical', offset: 0 };
+     *                           an empty value removes a filter
      */
-    const fetchCaves = async () => {
+    const fetchCaves = async (changes = {}) => {
         loading.value = true;
         error.value = null;
+        query.value = { ...query.value, ...changes };
         try {
-            console.log('[useCaves] Fetching all caves...');
-            const response = await window.api.caves.getAll();
+            console.log('[useCaves] Fetching caves', query.value);
+            const response = await window.api.caves.getAll(toParams(query.value));
             caves.value = response.data || [];
-            console.log('[useCaves] Fetched', caves.value.length, 'caves');
+            total.value = Number(response.headers['x-total-count'] ?? caves.value.length);
+            console.log('[useCaves] Fetched', caves.value.length, 'of', total.value, 'caves');
         } catch (err) {
             error.value = err.response?.data?.message || err.message || 'Failed to fetch caves';
             console.error('[useCaves] Fetch error:', err);
@@ -70,6 +88,7 @@ export function useCaves() {
             console.log('[useCaves] Creating Cave:', data);
             const response = await window.api.caves.create(data);
             caves.value.push(response.data);
+            total.value++;
             console.log('[useCaves] Created Cave:', response.data);
             return response.data;
         } catch (err) {
@@ -117,6 +136,7 @@ export function useCaves() {
             console.log('[useCaves] Deleting Cave:', gid);
             await window.api.caves.delete(gid);
             caves.value = caves.value.filter(item => item.gid !== gid);
+            total.value = Math.max(0, total.value - 1);
             if (selectedCave.value?.gid === gid) {
                 selectedCave.value = null;
             }
@@ -146,8 +166,8 @@ export function useCaves() {
     };
 
     // Computed properties
-    const hasCaves = computed(() => caves.value.length > 0);
-    const caveCount = computed(() => caves.value.length);
+    const hasCaves = computed(() => total.value > 0);
+    const caveCount = computed(() => total.value);
 
     // Return reactive state and methods
     return {
@@ -156,6 +176,8 @@ export function useCaves() {
         loading,
         error,
         selectedCave,
+        query,
+        total,
         hasCaves,
         caveCount,
 
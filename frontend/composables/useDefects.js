@@ -4,6 +4,16 @@
  * Vue composable for 缺陷 data management
  */
 
+// Items per page requested from the server
+const PAGE_SIZE = 50;
+
+/**
+ * Request parameters of a query, without the filters that are not set
+ */
+function toParams(query) {
+    return Object.fromEntries(Object.entries(query).filter(([, value]) => value !== '' && value != null));
+}
+
 /**
  * Composable for managing 缺陷 data
  * @returns {Object} Reactive 缺陷 data and methods
@@ -18,17 +28,25 @@ export function useDefects() {
     const error = ref(null);
     const selectedDefect = ref(null);
 
+    // Current page query (offset, limit, sort and attribute filters) and the number of matches across pages
+    const query = ref({ offset: 0, limit: PAGE_SIZE, sort: 'name' });
+    const total = ref(0);
+
     /**
-     * Fetch all defects
+     * Fetch one page of defects, paged, sorted and filtered by the server
+     * @param {Object} changes - Query parameters to change, e.g. { severity: 'critical', offset: 0 };
+     *                           an empty value removes a filter
      */
-    const fetchDefects = async () => {
+    const fetchDefects = async (changes = {}) => {
         loading.value = true;
         error.value = null;
+        query.value = { ...query.value, ...changes };
         try {
-            console.log('[useDefects] Fetching all defects...');
-            const response = await window.api.defects.getAll();
+            console.log('[useDefects] Fetching defects', query.value);
+            const response = await window.api.defects.getAll(toParams(query.value));
             defects.value = response.data || [];
-            console.log('[useDefects] Fetched', defects.value.length, 'defects');
+            total.value = Number(response.headers['x-total-count'] ?? defects.value.length);
+            console.log('[useDefects] Fetched', defects.value.length, 'of', total.value, 'defects');
         } catch (err) {
             error.value = err.response?.data?.message || err.message || 'Failed to fetch defects';
             console.error('[useDefects] Fetch error:', err);
@@ -70,6 +88,7 @@ export function useDefects() {
             console.log('[useDefects] Creating Defect:', data);
             const response = await window.api.defects.create(data);
             defects.value.push(response.data);
+            total.value++;
             console.log('[useDefects] Created Defect:', response.data);
             return response.data;
         } catch (err) {
@@ -117,6 +136,7 @@ export function useDefects() {
             console.log('[useDefects] Deleting Defect:', gid);
             await window.api.defects.delete(gid);
             defects.value = defects.value.filter(item => item.gid !== gid);
+            total.value = Math.max(0, total.value - 1);
             if (selectedDefect.value?.gid === gid) {
                 selectedDefect.value = null;
             }
@@ -146,8 +166,8 @@ export function useDefects() {
     };
 
     // Computed properties
-    const hasDefects = computed(() => defects.value.length > 0);
-    const defectCount = computed(() => defects.value.length);
+    const hasDefects = computed(() => total.value > 0);
+    const defectCount = computed(() => total.value);
 
     // Return reactive state and methods
     return {
@@ -156,6 +176,8 @@ export function useDefects() {
         loading,
         error,
         selectedDefect,
+        query,
+        total,
         hasDefects,
         defectCount,
 
@@ -4,6 +4,16 @@
  * Vue composable for 铭文 data management
  */
 
+// Items per page requested from the server
+const PAGE_SIZE = 50;
+
+/**
+ * Request parameters of a query, without the filters that are not set
+ */
+function toParams(query) {
+    return Object.fromEntries(Object.entries(query).filter(([, value]) => value !== '' && value != null));
+}
+
 /**
  * Composable for managing 铭文 data
  * @returns {Object} Reactive 铭文 data and methods
@@ -18,17 +28,25 @@ export function useInscriptions() {
     const error = ref(null);
     const selectedInscription = ref(null);
 
+    // Current page query (offset, limit, sort and attribute filters) and the number of matches across pages
+    const query = ref({ offset: 0, limit: PAGE_SIZE, sort: 'name' });
+    const total = ref(0);
+
     /**
-     * Fetch all inscriptions
+     * Fetch one page of inscriptions, paged, sorted and filtered by the server
+     * @param {Object} changes - Query parameters to change, e.g. { severity: 'critical', offset: 0 };
+     *                           an empty value removes a filter
      */
-    const fetchInscriptions = async () => {
+    const fetchInscriptions = async (changes = {}) => {
         loading.value = true;
         error.value = null;
+        query.value = { ...query.value, ...changes };
         try {
-            console.log('[useInscriptions] Fetching all inscriptions...');
-            const response = await window.api.inscriptions.getAll();
+            console.log('[useInscriptions] Fetching inscriptions', query.value);
+            const response = await window.api.inscriptions.getAll(toParams(query.value));
             inscriptions.value = response.data || [];
-            console.log('[useInscriptions] Fetched', inscriptions.value.length, 'inscriptions');
+            total.value = Number(response.headers['x-total-count'] ?? inscriptions.value.length);
+            console.log('[useInscriptions] Fetched', inscriptions.value.length, 'of', total.value, 'inscriptions');
         } catch (err) {
             error.value = err.response?.data?.message || err.message || 'Failed to fetch inscriptions';
             console.error('[useInscriptions] Fetch error:', err);
@@ -70,6 +88,7 @@ export function useInscriptions() {
             console.log('[useInscriptions] Creating Inscription:', data);
             const response = await window.api.inscriptions.create(data);
             inscriptions.value.push(response.data);
+            total.value++;
             console.log('[useInscriptions] Created Inscription:', response.data);
             return response.data;
         } catch (err) {
@@ -117,6 +136,7 @@ export function useInscriptions() {
             console.log('[useInscriptions] Deleting Inscription:', gid);
             await window.api.inscriptions.delete(gid);
             inscriptions.value = inscriptions.value.filter(item => item.gid !== gid);
+            total.value = Math.max(0, total.value - 1);
             if (selectedInscription.value?.gid === gid) {
                 selectedInscription.value = null;
             }
@@ -146,8 +166,8 @@ export function useInscriptions() {
     };
 
     // Computed properties
-    const hasInscriptions = computed(() => inscriptions.value.length > 0);
-    const inscriptionCount = computed(() => inscriptions.value.length);
+    const hasInscriptions = computed(() => total.value > 0);
+    const inscriptionCount = computed(() => total.value);
 
     // Return reactive state and methods
     return {
@@ -156,6 +176,8 @@ export function useInscriptions() {
         loading,
         error,
         selectedInscription,
+        query,
+        total,
         hasInscriptions,
         inscriptionCount,
 
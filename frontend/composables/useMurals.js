@@ -4,6 +4,16 @@
  * Vue composable for 壁画 data management
  */
 
+// Items per page requested from the server
+const PAGE_SIZE = 50;
+
+/**
+ * Request parameters of a query, without the filters that are not set
+ */
+function toParams(query) {
+    return Object.fromEntries(Object.entries(query).filter(([, value]) => value !== '' && value != null));
+}
+
 /**
  * Composable for managing 壁画 data
  * @returns {Object} Reactive 壁画 data and methods
@@ -18,17 +28,25 @@ export function useMurals() {
     const error = ref(null);
     const selectedMural = ref(null);
 
+    // Current page query (offset, limit, sort and attribute filters) and the number of matches across pages
+    const query = ref({ offset: 0, limit: PAGE_SIZE, sort: 'name' });
+    const total = ref(0);
+
     /**
-     * Fetch all murals
+     * Fetch one page of murals, paged, sorted and filtered by the server
+     * @param {Object} changes - Query parameters to change, e.g. { severity: 'critical', offset: 0 };
+     *                           an empty value removes a filter
      */
-    const fetchMurals = async () => {
+    const fetchMurals = async (changes = {}) => {
         loading.value = true;
         error.value = null;
+        query.value = { ...query.value, ...changes };
         try {
-            console.log('[useMurals] Fetching all murals...');
-            const response = await window.api.murals.getAll();
+            console.log('[useMurals] Fetching murals', query.value);
+            const response = await window.api.murals.getAll(toParams(query.value));
             murals.value = response.data || [];
-            console.log('[useMurals] Fetched', murals.value.length, 'murals');
+            total.value = Number(response.headers['x-total-count'] ?? murals.value.length);
+            console.log('[useMurals] Fetched', murals.value.length, 'of', total.value, 'murals');
         } catch (err) {
             error.value = err.response?.data?.message || err.message || 'Failed to fetch murals';
             console.error('[useMurals] Fetch error:', err);
@@ -70,6 +88,7 @@ export function useMurals() {
             console.log('[useMurals] Creating Mural:', data);
             const response = await window.api.murals.create(data);
             murals.value.push(response.data);
+            total.value++;
             console.log('[useMurals] Created Mural:', response.data);
             return response.data;
         } catch (err) {
@@ -117,6 +136,7 @@ export function useMurals() {
             console.log('[useMurals] Deleting Mural:', gid);
             await window.api.murals.delete(gid);
             murals.value = murals.value.filter(item => item.gid !== gid);
+            total.value = Math.max(0, total.value - 1);
             if (selectedMural.value?.gid === gid) {
                 selectedMural.value = null;
             }
@@ -146,8 +166,8 @@ export function useMurals() {
     };
 
     // Computed properties
-    const hasMurals = computed(() => murals.value.length > 0);
-    const muralCount = computed(() => murals.value.length);
+    const hasMurals = computed(() => total.value > 0);
+    const muralCount = computed(() => total.value);
 
     // Return reactive state and methods
     return {
@@ -156,6 +176,8 @@ export function useMurals() {
         loading,
         error,
         selectedMural,
+        query,
+        total,
         hasMurals,
         muralCount,
 
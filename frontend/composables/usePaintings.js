@@ -4,6 +4,16 @@
  * Vue composable for 绘画 data management
  */
 
+// Items per page requested from the server
+const PAGE_SIZE = 50;
+
+/**
+ * Request parameters of a query, without the filters that are not set
+ */
+function toParams(query) {
+    return Object.fromEntries(Object.entries(query).filter(([, value]) => value !== '' && value != null));
+}
+
 /**
  * Composable for managing 绘画 data
  * @returns {Object} Reactive 绘画 data and methods
@@ -18,17 +28,25 @@ export function usePaintings() {
     const error = ref(null);
     const selectedPainting = ref(null);
 
+    // Current page query (offset, limit, sort and attribute filters) and the number of matches across pages
+    const query = ref({ offset: 0, limit: PAGE_SIZE, sort: 'name' });
+    const total = ref(0);
+
     /**
-     * Fetch all paintings
+     * Fetch one page of paintings, paged, sorted and filtered by the server
+     * @param {Object} changes - Query parameters to change, e.g. { severity: 'critical', offset: 0 };
+     *                           an empty value removes a filter
      */
-    const fetchPaintings = async () => {
+    const fetchPaintings = async (changes = {}) => {
         loading.value = true;
         error.value = null;
+        query.value = { ...query.value, ...changes };
         try {
-            console.log('[usePaintings] Fetching all paintings...');
-            const response = await window.api.paintings.getAll();
+            console.log('[usePaintings] Fetching paintings', query.value);
+            const response = await window.api.paintings.getAll(toParams(query.value));
             paintings.value = response.data || [];
-            console.log('[usePaintings] Fetched', paintings.value.length, 'paintings');
+            total.value = Number(response.headers['x-total-count'] ?? paintings.value.length);
+            console.log('[usePaintings] Fetched', paintings.value.length, 'of', total.value, 'paintings');
         } catch (err) {
             error.value = err.response?.data?.message || err.message || 'Failed to fetch paintings';
             console.error('[usePaintings] Fetch error:', err);
@@ -70,6 +88,7 @@ export function usePaintings() {
             console.log('[usePaintings] Creating Painting:', data);
             const response = await window.api.paintings.create(data);
             paintings.value.push(response.data);
+            total.value++;
             console.log('[usePaintings] Created Painting:', response.data);
             return response.data;
         } catch (err) {
@@ -117,6 +136,7 @@ export function usePaintings() {
             console.log('[usePaintings] Deleting Painting:', gid);
             await window.api.paintings.delete(gid);
             paintings.value = paintings.value.filter(item => item.gid !== gid);
+            total.value = Math.max(0, total.value - 1);
             if (selectedPainting.value?.gid === gid) {
                 selectedPainting.value = null;
             }
@@ -146,8 +166,8 @@ export function usePaintings() {
     };
 
     // Computed properties
-    const hasPaintings = computed(() => paintings.value.length > 0);
-    const paintingCount = computed(() => paintings.value.length);
+    const hasPaintings = computed(() => total.value > 0);
+    const paintingCount = computed(() => total.value);
 
     // Return reactive state and methods
     return {
@@ -156,6 +176,8 @@ export function usePaintings() {
         loading,
         error,
         selectedPainting,
+        query,
+        total,
         hasPaintings,
         paintingCount,
 
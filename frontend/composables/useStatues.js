@@ -4,6 +4,16 @@
  * Vue composable for 雕像 data management
  */
 
+// Items per page requested from the server
+const PAGE_SIZE = 50;
+
+/**
+ * Request parameters of a query, without the filters that are not set
+ */
+function toParams(query) {
+    return Object.fromEntries(Object.entries(query).filter(([, value]) => value !== '' && value != null));
+}
+
 /**
  * Composable for managing 雕像 data
  * @returns {Object} Reactive 雕像 data and methods
@@ -18,17 +28,25 @@ export function useStatues() {
     const error = ref(null);
     const selectedStatue = ref(null);
 
+    // Current page query (offset, limit, sort and attribute filters) and the number of matches across pages
+    const query = ref({ offset: 0, limit: PAGE_SIZE, sort: 'name' });
+    const total = ref(0);
+
     /**
-     * Fetch all statues
+     * Fetch one page of statues, paged, sorted and filtered by the server
+     * @param {Object} changes - Query parameters to change, e.g. { severity: 'critical', offset: 0 };
+     *                           an empty value removes a filter
      */
-    const fetchStatues = async () => {
+    const fetchStatues = async (changes = {}) => {
         loading.value = true;
         error.value = null;
+        query.value = { ...query.value, ...changes };
         try {
-            console.log('[useStatues] Fetching all statues...');
-            const response = await window.api.statues.getAll();
+            console.log('[useStatues] Fetching statues', query.value);
+            const response = await window.api.statues.getAll(toParams(query.value));
             statues.value = response.data || [];
-            console.log('[useStatues] Fetched', statues.value.length, 'statues');
+            total.value = Number(response.headers['x-total-count'] ?? statues.value.length);
+            console.log('[useStatues] Fetched', statues.value.length, 'of', total.value, 'statues');
         } catch (err) {
             error.value = err.response?.data?.message || err.message || 'Failed to fetch statues';
             console.error('[useStatues] Fetch error:', err);
@@ -70,6 +88,7 @@ export function useStatues() {
             console.log('[useStatues] Creating Statue:', data);
             const response = await window.api.statues.create(data);
             statues.value.push(response.data);
+            total.value++;
             console.log('[useStatues] Created Statue:', response.data);
             return response.data;
         } catch (err) {
@@ -117,6 +136,7 @@ export function useStatues() {
             console.log('[useStatues] Deleting Statue:', gid);
             await window.api.statues.delete(gid);
             statues.value = statues.value.filter(item => item.gid !== gid);
+            total.value = Math.max(0, total.value - 1);
             if (selectedStatue.value?.gid === gid) {
                 selectedStatue.value = null;
             }
@@ -146,8 +166,8 @@ export function useStatues() {
     };
 
     // Computed properties
-    const hasStatues = computed(() => statues.value.length > 0);
-    const statueCount = computed(() => statues.value.length);
+    const hasStatues = computed(() => total.value > 0);
+    const statueCount = computed(() => total.value);
 
     // Return reactive state and methods
     return {
@@ -156,6 +176,8 @@ export function useStatues() {
         loading,
         error,
         selectedStatue,
+        query,
+        total,
         hasStatues,
         statueCount,
 
@@ -24,6 +24,10 @@ export const messages = {
             search: '搜索',
             filter: '筛选',
             filtered: '已筛选',
+            all: '全部',
+            sort: '排序',
+            previous: '上一页',
+            next: '下一页',
             refresh: '刷新',
             loading: '加载中...',
             noData: '暂无数据',
@@ -311,6 +315,10 @@ export const messages = {
             search: 'Search',
             filter: 'Filter',
             filtered: 'Filtered',
+            all: 'All',
+            sort: 'Sort',
+            previous: 'Previous',
+            next: 'Next',
             refresh: 'Refresh',
             loading: 'Loading...',
             noData: 'No Data',